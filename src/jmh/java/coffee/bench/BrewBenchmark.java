@@ -0,0 +1,135 @@
+package coffee.bench;
+
+import coffee.AtomicInventory;
+import coffee.CoffeeMaker;
+import coffee.CompactRecipe;
+import coffee.IngredientRegistry;
+import coffee.Inventory;
+import coffee.Purchase;
+import coffee.PurchaseOutcome;
+import coffee.Recipe;
+import coffee.exceptions.InventoryException;
+import coffee.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Brewing and restocking a single shared coffee maker, for both
+ * inventory implementations, with the standard four ingredients and
+ * with a larger menu where the recipe uses every ingredient.  Stock is
+ * refilled before every iteration so brews never run dry during a
+ * measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BrewBenchmark {
+	private static final int STOCK = 1_000_000_000;
+
+	@Param({"synchronized", "atomic"})
+	public String inventoryType;
+
+	@Param({"4", "24"})
+	public int ingredients;
+
+	private IngredientRegistry registry;
+	private Inventory inventory;
+	private CoffeeMaker coffeeMaker;
+	private Recipe recipe;
+	private CompactRecipe compactRecipe;
+
+	@Setup(Level.Trial)
+	public void setUp() throws RecipeException {
+		registry = new IngredientRegistry();
+		recipe = Recipes.mocha();
+		while (registry.size() < ingredients) {
+			recipe.setAmount(registry.register("Ingredient" + registry.size()), "1");
+		}
+		inventory = "atomic".equals(inventoryType) ? new AtomicInventory(registry) : new Inventory(registry);
+		coffeeMaker = new CoffeeMaker(inventory);
+		compactRecipe = CompactRecipe.of(recipe);
+		coffeeMaker.addRecipe(recipe);
+	}
+
+	@Setup(Level.Iteration)
+	public void refill() {
+		for (int id = 0; id < registry.size(); id++) {
+			inventory.setUnits(registry.get(id), STOCK);
+		}
+	}
+
+	@Benchmark
+	public int brew() {
+		return coffeeMaker.makeCoffee(0, 100);
+	}
+
+	/** Purchase each brewing thread reuses */
+	@State(Scope.Thread)
+	public static class Receipt {
+		final Purchase purchase = new Purchase();
+	}
+
+	@Benchmark
+	public PurchaseOutcome purchase(Receipt receipt) {
+		return coffeeMaker.makeCoffee(0, 100, receipt.purchase);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public int brewContended() {
+		return coffeeMaker.makeCoffee(0, 100);
+	}
+
+	@Benchmark
+	public boolean useIngredients() {
+		return inventory.useIngredients(recipe);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public boolean useIngredientsContended() {
+		return inventory.useIngredients(recipe);
+	}
+
+	@Benchmark
+	public boolean useIngredientsCompact() {
+		return inventory.useIngredients(compactRecipe);
+	}
+
+	@Benchmark
+	public void restock() throws InventoryException {
+		coffeeMaker.addInventory("1", "1", "0", "1");
+	}
+
+	@Benchmark
+	@Group("brewWhileRestocking")
+	@GroupThreads(3)
+	public int brewerThread() {
+		return coffeeMaker.makeCoffee(0, 100);
+	}
+
+	@Benchmark
+	@Group("brewWhileRestocking")
+	@GroupThreads(1)
+	public void restockThread() throws InventoryException {
+		coffeeMaker.addInventory("1", "1", "0", "1");
+	}
+}
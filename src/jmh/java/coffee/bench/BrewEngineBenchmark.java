@@ -0,0 +1,77 @@
+package coffee.bench;
+
+import coffee.BrewEngine;
+import coffee.CoffeeMaker;
+import coffee.Ingredient;
+import coffee.Inventory;
+import coffee.OrderResult;
+import coffee.exceptions.InventoryException;
+import coffee.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of an order made on the locked coffee maker and through a
+ * BrewEngine, with many terminals ordering at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class BrewEngineBenchmark {
+	private static final int STOCK = 1_000_000_000;
+
+	private Inventory inventory;
+	private CoffeeMaker coffeeMaker;
+	private BrewEngine engine;
+
+	@Setup(Level.Trial)
+	public void setUp() throws RecipeException, InventoryException {
+		inventory = new Inventory();
+		coffeeMaker = new CoffeeMaker(inventory);
+		coffeeMaker.addRecipe(Recipes.mocha());
+		engine = new BrewEngine();
+		engine.addRecipe(Recipes.mocha());
+		for (Ingredient ingredient : new Ingredient[] {Ingredient.COFFEE, Ingredient.MILK, Ingredient.CHOCOLATE}) {
+			engine.addInventory(ingredient, String.valueOf(STOCK)).join();
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void refill() {
+		inventory.setCoffee(STOCK);
+		inventory.setMilk(STOCK);
+		inventory.setChocolate(STOCK);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		engine.close();
+	}
+
+	@Benchmark
+	public int locked() {
+		return coffeeMaker.makeCoffee(0, 100);
+	}
+
+	@Benchmark
+	public OrderResult engine() {
+		return engine.makeCoffee(0, 100).join();
+	}
+}
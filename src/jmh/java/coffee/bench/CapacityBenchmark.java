@@ -0,0 +1,77 @@
+package coffee.bench;
+
+import coffee.CapacityReport;
+import coffee.CoffeeMaker;
+import coffee.IndexedRecipeBook;
+import coffee.Inventory;
+import coffee.Recipe;
+import coffee.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servings left of every recipe: a dashboard dividing the inventory
+ * getters by each recipe's amounts, against the coffee maker's
+ * capacity report while nothing changes and after every change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CapacityBenchmark {
+
+	@Param({"4", "64"})
+	public int recipes;
+
+	private CoffeeMaker coffeeMaker;
+	private Inventory inventory;
+	private int units;
+
+	@Setup
+	public void setUp() throws RecipeException {
+		inventory = new Inventory();
+		coffeeMaker = new CoffeeMaker(new IndexedRecipeBook(), inventory);
+		for (int i = 0; i < recipes; i++) {
+			coffeeMaker.addRecipe(Recipes.recipe("Recipe" + i, 50, 1 + i % 5, 1 + i % 3, 0, 1 + i % 7));
+		}
+	}
+
+	@Benchmark
+	public int clientLoop() {
+		Recipe[] book = coffeeMaker.getRecipes();
+		int total = 0;
+		for (Recipe r : book) {
+			if (r != null) {
+				int servings = inventory.getCoffee() / r.getAmtCoffee();
+				servings = Math.min(servings, inventory.getMilk() / r.getAmtMilk());
+				servings = Math.min(servings, inventory.getChocolate() / r.getAmtChocolate());
+				total += servings;
+			}
+		}
+		return total;
+	}
+
+	@Benchmark
+	public CapacityReport cached() {
+		return coffeeMaker.capacityReport();
+	}
+
+	@Benchmark
+	public CapacityReport changed() {
+		inventory.setCoffee(1000 + (units++ & 1));
+		return coffeeMaker.capacityReport();
+	}
+}
@@ -0,0 +1,75 @@
+package coffee.bench;
+
+import coffee.IngredientRegistry;
+import coffee.Recipe;
+import coffee.RecipeCatalog;
+import coffee.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looking up a recipe by name in a large catalog, held off the heap
+ * in a RecipeCatalog and as Recipe objects in a HashMap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CatalogBenchmark {
+	@Param({"1000000"})
+	public int size;
+
+	private RecipeCatalog catalog;
+	private Map<String, Recipe> map;
+	private String[] names;
+	private int next;
+
+	@Setup
+	public void setUp() throws RecipeException {
+		catalog = new RecipeCatalog(new IngredientRegistry(), size);
+		map = new HashMap<>();
+		names = new String[1024];
+		for (int i = 0; i < size; i++) {
+			Recipe r = Recipes.recipe("Recipe" + i, 50, i % 5, 1, 0, 1);
+			catalog.add(r);
+			map.put(r.getName(), r);
+		}
+		for (int i = 0; i < names.length; i++) {
+			names[i] = "Recipe" + (i * 7919 % size);
+		}
+	}
+
+	private String name() {
+		return names[next++ & (names.length - 1)];
+	}
+
+	@Benchmark
+	public int catalogPrice() {
+		return catalog.getPrice(catalog.find(name()));
+	}
+
+	@Benchmark
+	public Recipe catalogMaterialize() {
+		return catalog.get(catalog.find(name()));
+	}
+
+	@Benchmark
+	public int mapPrice() {
+		return map.get(name()).getPrice();
+	}
+}
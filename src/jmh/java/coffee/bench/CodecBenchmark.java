@@ -0,0 +1,65 @@
+package coffee.bench;
+
+import coffee.IndexedRecipeBook;
+import coffee.Recipe;
+import coffee.RecipeCodec;
+import coffee.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushing a catalog of recipes: encoding it, decoding it and loading
+ * it into an IndexedRecipeBook.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+	@Param({"5000"})
+	public int recipes;
+
+	private Recipe[] catalog;
+	private ByteBuffer encoded;
+
+	@Setup
+	public void setUp() throws RecipeException {
+		catalog = new Recipe[recipes];
+		for (int i = 0; i < recipes; i++) {
+			catalog[i] = Recipes.recipe("Recipe" + i, 50 + i % 200, i % 5, i % 3, i % 4, i % 7);
+		}
+		encoded = RecipeCodec.encode(catalog);
+	}
+
+	@Benchmark
+	public ByteBuffer encode() {
+		return RecipeCodec.encode(catalog);
+	}
+
+	@Benchmark
+	public Recipe[] decode() {
+		return RecipeCodec.decode(encoded.duplicate());
+	}
+
+	@Benchmark
+	public IndexedRecipeBook load() {
+		IndexedRecipeBook book = new IndexedRecipeBook();
+		RecipeCodec.load(encoded.duplicate(), book);
+		return book;
+	}
+}
@@ -0,0 +1,77 @@
+package coffee.bench;
+
+import coffee.AtomicInventory;
+import coffee.CompactRecipe;
+import coffee.Ingredient;
+import coffee.Inventory;
+import coffee.InventoryEvent;
+import coffee.InventoryEventBus;
+import coffee.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost an InventoryEventBus adds to every brew, against an inventory
+ * with no listener, and the cost of reading an event back.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventBusBenchmark {
+	private static final int STOCK = 1_000_000_000;
+
+	@Param({"synchronized", "atomic"})
+	public String inventoryType;
+
+	@Param({"false", "true"})
+	public boolean bus;
+
+	private Inventory inventory;
+	private CompactRecipe recipe;
+	private InventoryEventBus.Subscription subscription;
+	private final InventoryEvent event = new InventoryEvent();
+
+	@Setup(Level.Trial)
+	public void setUp() throws RecipeException {
+		inventory = "atomic".equals(inventoryType) ? new AtomicInventory() : new Inventory();
+		recipe = CompactRecipe.of(Recipes.mocha());
+		if (bus) {
+			InventoryEventBus events = new InventoryEventBus();
+			events.attach(inventory, null);
+			subscription = events.subscribe();
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void refill() {
+		for (Ingredient ingredient : new Ingredient[] {Ingredient.COFFEE, Ingredient.MILK, Ingredient.SUGAR, Ingredient.CHOCOLATE}) {
+			inventory.setUnits(ingredient, STOCK);
+		}
+	}
+
+	@Benchmark
+	public boolean useIngredients() {
+		return inventory.useIngredients(recipe);
+	}
+
+	@Benchmark
+	public boolean useIngredientsAndPoll() {
+		boolean made = inventory.useIngredients(recipe);
+		return subscription == null ? made : subscription.poll(event);
+	}
+}
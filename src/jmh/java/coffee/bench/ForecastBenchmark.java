@@ -0,0 +1,75 @@
+package coffee.bench;
+
+import coffee.AtomicInventory;
+import coffee.CompactRecipe;
+import coffee.DemandForecaster;
+import coffee.Ingredient;
+import coffee.Inventory;
+import coffee.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost a DemandForecaster adds to every brew, against an inventory
+ * with no listener.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ForecastBenchmark {
+	private static final int STOCK = 1_000_000_000;
+
+	@Param({"synchronized", "atomic"})
+	public String inventoryType;
+
+	@Param({"false", "true"})
+	public boolean forecast;
+
+	private Inventory inventory;
+	private CompactRecipe recipe;
+	private DemandForecaster forecaster;
+
+	@Setup(Level.Trial)
+	public void setUp() throws RecipeException {
+		inventory = "atomic".equals(inventoryType) ? new AtomicInventory() : new Inventory();
+		recipe = CompactRecipe.of(Recipes.mocha());
+		if (forecast) {
+			forecaster = new DemandForecaster(inventory, 10, 5, TimeUnit.MINUTES, (ingredient, units, nanosToEmpty) -> { });
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void refill() {
+		for (Ingredient ingredient : new Ingredient[] {Ingredient.COFFEE, Ingredient.MILK, Ingredient.SUGAR, Ingredient.CHOCOLATE}) {
+			inventory.setUnits(ingredient, STOCK);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (forecaster != null) {
+			forecaster.close();
+		}
+	}
+
+	@Benchmark
+	public boolean useIngredients() {
+		return inventory.useIngredients(recipe);
+	}
+}
@@ -0,0 +1,67 @@
+package coffee.bench;
+
+import coffee.ImportResult;
+import coffee.IndexedRecipeBook;
+import coffee.Recipe;
+import coffee.RecipeExporter;
+import coffee.RecipeImporter;
+import coffee.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importing a catalog of recipes from CSV and JSON into an
+ * IndexedRecipeBook.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImportBenchmark {
+
+	@Param({"5000"})
+	public int recipes;
+
+	private String csv;
+	private String json;
+
+	@Setup
+	public void setUp() throws RecipeException, IOException {
+		Recipe[] catalog = new Recipe[recipes];
+		for (int i = 0; i < recipes; i++) {
+			catalog[i] = Recipes.recipe("Recipe" + i, 50 + i % 200, i % 5, i % 3, i % 4, i % 7);
+		}
+		StringWriter out = new StringWriter();
+		new RecipeExporter().writeCsv(catalog, out);
+		csv = out.toString();
+		out = new StringWriter();
+		new RecipeExporter().writeJson(catalog, out);
+		json = out.toString();
+	}
+
+	@Benchmark
+	public ImportResult importCsv() throws IOException {
+		return new RecipeImporter(new IndexedRecipeBook()).importCsv(new StringReader(csv));
+	}
+
+	@Benchmark
+	public ImportResult importJson() throws IOException {
+		return new RecipeImporter(new IndexedRecipeBook()).importJson(new StringReader(json));
+	}
+}
@@ -0,0 +1,92 @@
+package coffee.bench;
+
+import coffee.AtomicInventory;
+import coffee.CoffeeMaker;
+import coffee.Inventory;
+import coffee.InventorySnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering the inventory report, which monitoring scrapes
+ * from every machine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryReportBenchmark {
+	@Param({"synchronized", "atomic"})
+	public String inventoryType;
+
+	private Inventory inventory;
+	private CoffeeMaker coffeeMaker;
+
+	@Setup
+	public void setUp() {
+		inventory = "atomic".equals(inventoryType) ? new AtomicInventory() : new Inventory();
+		coffeeMaker = new CoffeeMaker(inventory);
+	}
+
+	/** Buffers each scraping thread reuses */
+	@State(Scope.Thread)
+	public static class Buffers {
+		final StringBuilder chars = new StringBuilder(256);
+		final ByteBuffer bytes = ByteBuffer.allocate(256);
+	}
+
+	@Benchmark
+	public String inventoryToString() {
+		return inventory.toString();
+	}
+
+	@Benchmark
+	public String checkInventory() {
+		return coffeeMaker.checkInventory();
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public String checkInventoryContended() {
+		return coffeeMaker.checkInventory();
+	}
+
+	@Benchmark
+	public InventorySnapshot snapshot() {
+		return coffeeMaker.getInventorySnapshot();
+	}
+
+	@Benchmark
+	public StringBuilder snapshotAppendTo(Buffers buffers) {
+		buffers.chars.setLength(0);
+		return coffeeMaker.getInventorySnapshot().appendTo(buffers.chars);
+	}
+
+	@Benchmark
+	public ByteBuffer snapshotWriteTo(Buffers buffers) {
+		buffers.bytes.clear();
+		coffeeMaker.getInventorySnapshot().writeTo(buffers.bytes);
+		return buffers.bytes;
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public ByteBuffer snapshotWriteToContended(Buffers buffers) {
+		return snapshotWriteTo(buffers);
+	}
+}
@@ -0,0 +1,90 @@
+package coffee.bench;
+
+import coffee.AtomicInventory;
+import coffee.CoffeeMaker;
+import coffee.Inventory;
+import coffee.Journal;
+import coffee.RecipeBook;
+import coffee.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost of journaling every brew, against the in-memory coffee maker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+	private static final int STOCK = 1_000_000_000;
+
+	@Param({"false", "true"})
+	public boolean journaled;
+
+	private Path directory;
+	private Journal journal;
+	private Inventory inventory;
+	private CoffeeMaker coffeeMaker;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, RecipeException {
+		inventory = new AtomicInventory();
+		if (journaled) {
+			directory = Files.createTempDirectory("coffee-journal");
+			journal = Journal.open(directory);
+		}
+		coffeeMaker = new CoffeeMaker(new RecipeBook(), inventory, journal);
+		coffeeMaker.addRecipe(Recipes.mocha());
+	}
+
+	@Setup(Level.Iteration)
+	public void refill() {
+		inventory.setCoffee(STOCK);
+		inventory.setMilk(STOCK);
+		inventory.setSugar(STOCK);
+		inventory.setChocolate(STOCK);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		if (journal != null) {
+			journal.close();
+			try (Stream<Path> files = Files.walk(directory)) {
+				files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+			}
+		}
+	}
+
+	@Benchmark
+	public int brew() {
+		return coffeeMaker.makeCoffee(0, 100);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public int brewContended() {
+		return coffeeMaker.makeCoffee(0, 100);
+	}
+}
@@ -0,0 +1,86 @@
+package coffee.bench;
+
+import coffee.CoffeeMaker;
+import coffee.CompactRecipe;
+import coffee.Ingredient;
+import coffee.IndexedRecipeBook;
+import coffee.Inventory;
+import coffee.InventorySnapshot;
+import coffee.RecipeSnapshot;
+import coffee.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redrawing a menu: finding which recipes can be made by checking
+ * every recipe against an inventory snapshot, against reading the
+ * coffee maker's availability.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MenuBenchmark {
+	private static final Ingredient[] INGREDIENTS = {Ingredient.COFFEE, Ingredient.MILK, Ingredient.SUGAR, Ingredient.CHOCOLATE};
+
+	@Param({"4", "64"})
+	public int recipes;
+
+	private CoffeeMaker coffeeMaker;
+
+	@Setup
+	public void setUp() throws RecipeException {
+		coffeeMaker = new CoffeeMaker(new IndexedRecipeBook(), new Inventory());
+		for (int i = 0; i < recipes; i++) {
+			coffeeMaker.addRecipe(Recipes.recipe("Recipe" + i, 50, i % 20, 1, 0, 1));
+		}
+	}
+
+	@Benchmark
+	public int scan() {
+		RecipeSnapshot snapshot = coffeeMaker.getRecipeSnapshot();
+		InventorySnapshot stock = coffeeMaker.getInventorySnapshot();
+		int available = 0;
+		for (int i = 0; i < snapshot.size(); i++) {
+			CompactRecipe recipe = snapshot.getCompact(i);
+			if (recipe != null && canMake(recipe, stock)) {
+				available++;
+			}
+		}
+		return available;
+	}
+
+	@Benchmark
+	public int availability() {
+		int size = coffeeMaker.getRecipeSnapshot().size();
+		int available = 0;
+		for (int i = 0; i < size; i++) {
+			if (coffeeMaker.isAvailable(i)) {
+				available++;
+			}
+		}
+		return available;
+	}
+
+	private static boolean canMake(CompactRecipe recipe, InventorySnapshot stock) {
+		for (Ingredient ingredient : INGREDIENTS) {
+			if (recipe.getAmount(ingredient) > stock.getUnits(ingredient)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,71 @@
+package coffee.bench;
+
+import coffee.LatencyHistogram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cost of recording one event in the coffee maker's metrics: a
+ * counter increment, a histogram record, and timing a lock wait with
+ * two clock reads.  BrewBenchmark.brew shows the cost of all the
+ * metrics a purchase records together.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+	private final LongAdder counter = new LongAdder();
+	private final LatencyHistogram histogram = new LatencyHistogram();
+	private final Object lock = new Object();
+
+	@Benchmark
+	public void increment() {
+		counter.increment();
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public void incrementContended() {
+		counter.increment();
+	}
+
+	@Benchmark
+	public void record() {
+		histogram.record(System.identityHashCode(lock) & 0xffff);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public void recordContended() {
+		histogram.record(System.identityHashCode(lock) & 0xffff);
+	}
+
+	@Benchmark
+	public void timedLock() {
+		long start = System.nanoTime();
+		synchronized (lock) {
+			histogram.record(System.nanoTime() - start);
+		}
+	}
+
+	@Benchmark
+	public void untimedLock() {
+		synchronized (lock) {
+			counter.increment();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package coffee.bench;
+
+import coffee.AtomicInventory;
+import coffee.CoffeeMaker;
+import coffee.Inventory;
+import coffee.Order;
+import coffee.OrderPipeline;
+import coffee.OrderResult;
+import coffee.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of an order made directly on the coffee maker and through
+ * an OrderPipeline, with many terminals ordering at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class OrderPipelineBenchmark {
+	private static final int STOCK = 1_000_000_000;
+
+	private Inventory inventory;
+	private CoffeeMaker coffeeMaker;
+	private OrderPipeline pipeline;
+	private Order order;
+
+	@Setup(Level.Trial)
+	public void setUp() throws RecipeException {
+		inventory = new AtomicInventory();
+		coffeeMaker = new CoffeeMaker(inventory);
+		coffeeMaker.addRecipe(Recipes.mocha());
+		pipeline = new OrderPipeline(coffeeMaker, 1024, 2);
+		order = new Order(0, 100);
+	}
+
+	@Setup(Level.Iteration)
+	public void refill() {
+		inventory.setCoffee(STOCK);
+		inventory.setMilk(STOCK);
+		inventory.setChocolate(STOCK);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pipeline.close();
+	}
+
+	@Benchmark
+	public int direct() {
+		return coffeeMaker.makeCoffee(0, 100);
+	}
+
+	@Benchmark
+	public OrderResult pipelined() {
+		return pipeline.submit(order).join();
+	}
+}
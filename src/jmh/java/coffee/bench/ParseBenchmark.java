@@ -0,0 +1,50 @@
+package coffee.bench;
+
+import coffee.Recipe;
+import coffee.UnitParser;
+import coffee.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of checking a price from a feed row, good or malformed, by
+ * catching the RecipeException of setPrice(String) and by the result
+ * code of UnitParser.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+	@Param({"125", "12x5", "-125"})
+	public String value;
+
+	private final Recipe recipe = new Recipe();
+
+	@Benchmark
+	public boolean exception() {
+		try {
+			recipe.setPrice(value);
+			return true;
+		} catch (RecipeException e) {
+			return false;
+		}
+	}
+
+	@Benchmark
+	public boolean resultCode() {
+		return recipe.setPrice(UnitParser.parse(value));
+	}
+}
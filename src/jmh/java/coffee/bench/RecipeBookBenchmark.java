@@ -0,0 +1,101 @@
+package coffee.bench;
+
+import coffee.CoffeeMaker;
+import coffee.IndexedRecipeBook;
+import coffee.Recipe;
+import coffee.RecipeBook;
+import coffee.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding recipes to a recipe book and looking them up through
+ * the coffee maker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecipeBookBenchmark {
+	private Recipe[] recipes;
+	private Recipe duplicate;
+	private RecipeBook fullBook;
+	private CoffeeMaker coffeeMaker;
+	private IndexedRecipeBook indexedBook;
+
+	@Setup
+	public void setUp() throws RecipeException {
+		recipes = new Recipe[4];
+		for (int i = 0; i < recipes.length; i++) {
+			recipes[i] = Recipes.recipe("Recipe" + i, 50, 1, 1, 0, 1);
+		}
+		duplicate = Recipes.recipe("Recipe3", 50, 1, 1, 0, 1);
+		fullBook = new RecipeBook();
+		coffeeMaker = new CoffeeMaker();
+		indexedBook = new IndexedRecipeBook();
+		for (Recipe r : recipes) {
+			fullBook.addRecipe(r);
+			coffeeMaker.addRecipe(r);
+		}
+		for (int i = 0; i < 500; i++) {
+			indexedBook.addRecipe(Recipes.recipe("Recipe" + i, 50, 1, 1, 0, 1));
+		}
+	}
+
+	/**
+	 * Fills an empty recipe book; each add scans the whole book twice.
+	 */
+	@Benchmark
+	public RecipeBook fillRecipeBook() {
+		RecipeBook book = new RecipeBook();
+		for (Recipe r : recipes) {
+			book.addRecipe(r);
+		}
+		return book;
+	}
+
+	@Benchmark
+	public boolean addDuplicateRecipe() {
+		return fullBook.addRecipe(duplicate);
+	}
+
+	@Benchmark
+	public Recipe lookupRecipe() {
+		return coffeeMaker.getRecipes()[3];
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Recipe lookupRecipeContended() {
+		return coffeeMaker.getRecipes()[3];
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Recipe lookupRecipeSnapshotContended() {
+		return coffeeMaker.getRecipeSnapshot().get(3);
+	}
+
+	@Benchmark
+	public boolean addDuplicateRecipeIndexed() {
+		return indexedBook.addRecipe(duplicate);
+	}
+
+	@Benchmark
+	public Recipe lookupRecipeByNameIndexed() {
+		return indexedBook.getRecipe("Recipe499");
+	}
+}
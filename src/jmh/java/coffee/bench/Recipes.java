@@ -0,0 +1,32 @@
+package coffee.bench;
+
+import coffee.Recipe;
+import coffee.exceptions.RecipeException;
+
+/**
+ * Recipes shared by the benchmarks.
+ */
+final class Recipes {
+	private Recipes() {
+	}
+
+	/**
+	 * Returns a recipe that uses one unit of coffee, milk and
+	 * chocolate.  It leaves out sugar because Inventory.addSugar
+	 * rejects positive amounts, which would make every restock throw.
+	 */
+	static Recipe mocha() throws RecipeException {
+		return recipe("Mocha", 50, 1, 1, 0, 1);
+	}
+
+	static Recipe recipe(String name, int price, int coffee, int milk, int sugar, int chocolate) throws RecipeException {
+		Recipe r = new Recipe();
+		r.setName(name);
+		r.setPrice(Integer.toString(price));
+		r.setAmtCoffee(Integer.toString(coffee));
+		r.setAmtMilk(Integer.toString(milk));
+		r.setAmtSugar(Integer.toString(sugar));
+		r.setAmtChocolate(Integer.toString(chocolate));
+		return r;
+	}
+}
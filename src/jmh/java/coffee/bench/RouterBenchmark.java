@@ -0,0 +1,59 @@
+package coffee.bench;
+
+import coffee.AtomicInventory;
+import coffee.CoffeeMaker;
+import coffee.CoffeeMakerFleet;
+import coffee.FleetRouter;
+import coffee.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picking a machine for an order in fleets of growing size, where a
+ * quarter of the machines are out of the recipe.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouterBenchmark {
+
+	@Param({"10", "1000", "10000"})
+	public int machines;
+
+	private FleetRouter router;
+
+	@Setup
+	public void setUp() throws RecipeException {
+		CoffeeMakerFleet fleet = new CoffeeMakerFleet(machines, AtomicInventory::new);
+		for (int i = 0; i < machines; i++) {
+			CoffeeMaker machine = fleet.addMachine("m" + i);
+			machine.addRecipe(Recipes.recipe("Espresso", 40, 3, 0, 0, 0));
+			machine.addRecipe(Recipes.recipe("Latte", 60, 3, 5, 0, 0));
+			if (i % 4 == 0) {
+				for (int j = 0; j < 3; j++) {
+					machine.makeCoffee(1, 60);
+				}
+			}
+		}
+		router = new FleetRouter(fleet);
+	}
+
+	@Benchmark
+	public String route() {
+		return router.route("Latte");
+	}
+}
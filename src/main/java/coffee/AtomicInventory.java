@@ -0,0 +1,286 @@
+package coffee;
+
+import coffee.exceptions.InventoryException;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Inventory for the coffee maker that keeps every ingredient in its
+ * own atomic counter instead of guarding the whole inventory with one
+ * monitor, so brewers on different threads do not serialize.
+ *
+ * useIngredients reserves the ingredients of a recipe one at a time
+ * with compare-and-set and gives back the ones already taken if a later
+ * ingredient runs short, so a recipe is either made in full or not at
+ * all and stock can never go negative.
+ *
+ * The counters are never read at one instant, so the inventory is not
+ * linearizable: while other brews are part way through, readers can
+ * see some of their ingredients taken and not others, and a brew can
+ * find an ingredient short that another brew is about to give back.
+ * So that such a brew is not turned away for stock that is really
+ * there, useIngredients reads every counter again after giving back
+ * and tries again, up to MAX_ATTEMPTS times, while that read shows
+ * enough.  A brew can still fail that some serial order of the brews
+ * would have served, but only when every attempt collided with
+ * another brew.
+ */
+public class AtomicInventory extends Inventory {
+	/** Ints between two counters, so each counter sits on its own cache line */
+	private static final int STRIDE = 16;
+	/** Times getSnapshot reads the counters again before giving up on two reads agreeing */
+	private static final int MAX_SNAPSHOT_READS = 8;
+	/** Times useIngredients tries to take a recipe's ingredients while they look available */
+	static final int MAX_ATTEMPTS = 8;
+
+	/** Number of ingredients with a counter */
+	private final int stocked;
+	private final AtomicIntegerArray stock;
+
+	/**
+	 * Creates a lock-free coffee maker inventory and fills
+	 * each item in the inventory with 15 units.
+	 */
+	public AtomicInventory() {
+		this(new IngredientRegistry());
+	}
+
+	/**
+	 * Creates a lock-free coffee maker inventory for the ingredients
+	 * in the registry and fills each item with 15 units.  Counters
+	 * cannot be added later, so ingredients registered after the
+	 * inventory is created always have 0 units.
+	 * @param ingredients
+	 */
+	public AtomicInventory(IngredientRegistry ingredients) {
+		super(ingredients);
+		stocked = ingredients.size();
+		stock = new AtomicIntegerArray(stocked * STRIDE);
+		for (int i = 0; i < stocked; i++) {
+			stock.set(i * STRIDE, 15);
+		}
+	}
+
+	@Override
+	public int getUnits(Ingredient ingredient) {
+		releaseIfExpired();
+		return units(ingredient.getId());
+	}
+
+	@Override
+	int units(int id) {
+		return id < stocked ? get(id) : 0;
+	}
+
+	@Override
+	public void setUnits(Ingredient ingredient, int units) {
+		checkIngredient(ingredient);
+		int id = ingredient.getId();
+		if (units >= 0 && id < stocked) {
+			stock.set(id * STRIDE, units);
+			fireStockChanged();
+		}
+	}
+
+	@Override
+	public void addUnits(Ingredient ingredient, String units) throws InventoryException {
+		checkIngredient(ingredient);
+		if (!addUnits(ingredient, parseUnits(ingredient, units))) {
+			throw new InventoryException(ingredient + " was registered after the inventory was created");
+		}
+	}
+
+	/**
+	 * Adds the units of the ingredient and returns true, or returns
+	 * false and leaves the inventory unchanged if units is negative or
+	 * the ingredient was registered after the inventory was created.
+	 * @param ingredient
+	 * @param units
+	 * @return boolean
+	 */
+	@Override
+	public boolean addUnits(Ingredient ingredient, int units) {
+		checkIngredient(ingredient);
+		int id = ingredient.getId();
+		if (units < 0 || id >= stocked) {
+			return false;
+		}
+		stock.addAndGet(id * STRIDE, units);
+		fireStockChanged();
+		return true;
+	}
+
+	/**
+	 * Returns true if there are enough ingredients to make
+	 * the beverage at the moment of the call.
+	 * @param r
+	 * @return boolean
+	 */
+	@Override
+	protected boolean enoughIngredients(Recipe r) {
+		return enoughIngredients(r.amounts());
+	}
+
+	/**
+	 * Removes the ingredients used to make the specified recipe
+	 * if all of them are available, and returns true.  Otherwise
+	 * the inventory is left unchanged and false is returned.  If
+	 * stock is short, expired reservations are released first.
+	 * @param r
+	 * @return boolean
+	 */
+	@Override
+	public boolean useIngredients(Recipe r) {
+		return use(r.amounts());
+	}
+
+	/**
+	 * Returns true if there are enough ingredients to make
+	 * the compact recipe at the moment of the call.
+	 * @param r
+	 * @return boolean
+	 */
+	@Override
+	protected boolean enoughIngredients(CompactRecipe r) {
+		return enoughIngredients(r.amounts);
+	}
+
+	/**
+	 * Removes the ingredients used to make the compact recipe if
+	 * all of them are available, and returns true.  Otherwise the
+	 * inventory is left unchanged and false is returned.  If stock
+	 * is short, expired reservations are released first.
+	 * @param r
+	 * @return boolean
+	 */
+	@Override
+	public boolean useIngredients(CompactRecipe r) {
+		return use(r.amounts);
+	}
+
+	@Override
+	protected void restock(int[] amounts) {
+		int n = Math.min(amounts.length, stocked);
+		for (int i = 0; i < n; i++) {
+			if (amounts[i] > 0) {
+				stock.addAndGet(i * STRIDE, amounts[i]);
+			}
+		}
+		fireStockChanged();
+	}
+
+	/**
+	 * Takes amounts, releasing expired reservations and trying again
+	 * if stock is short, and tells the listeners if it was taken.
+	 */
+	private boolean use(int[] amounts) {
+		return used(useIngredients(amounts) || (releaseExpired() > 0 && useIngredients(amounts)), amounts);
+	}
+
+	/**
+	 * Tells the listeners about the ingredients used if they were
+	 * taken, and returns taken.
+	 */
+	private boolean used(boolean taken, int[] amounts) {
+		if (taken) {
+			fireIngredientsUsed(amounts);
+		}
+		return taken;
+	}
+
+	private boolean enoughIngredients(int[] amounts) {
+		for (int i = 0; i < amounts.length; i++) {
+			if (amounts[i] > 0 && (i >= stocked || get(i) < amounts[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean useIngredients(int[] amounts) {
+		//Checking first means a short recipe does not take and give back stock
+		for (int attempt = 0; attempt < MAX_ATTEMPTS && enoughIngredients(amounts); attempt++) {
+			if (takeAll(amounts)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Takes every ingredient of the amounts, or gives back the ones
+	 * already taken and returns false if one runs short.
+	 */
+	private boolean takeAll(int[] amounts) {
+		for (int i = 0; i < amounts.length; i++) {
+			if (!take(i, amounts[i])) {
+				//Another brewer got there first, give back what was taken
+				for (int j = i - 1; j >= 0; j--) {
+					if (amounts[j] > 0) {
+						stock.addAndGet(j * STRIDE, amounts[j]);
+					}
+				}
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the units of every ingredient.  Each counter is read
+	 * atomically, and the counters are read again until two reads in
+	 * a row agree, so the snapshot is taken without blocking brewers.
+	 * Brews take their ingredients one at a time, so under heavy load
+	 * the snapshot can still show a brew part way through.  Expired
+	 * reservations are given back first.
+	 * @return InventorySnapshot
+	 */
+	@Override
+	public InventorySnapshot getSnapshot() {
+		releaseIfExpired();
+		Ingredient[] names = getIngredients().ingredients();
+		int[] units = new int[names.length];
+		int n = Math.min(stocked, names.length);
+		for (int i = 0; i < n; i++) {
+			units[i] = get(i);
+		}
+		for (int read = 0; read < MAX_SNAPSHOT_READS; read++) {
+			boolean same = true;
+			for (int i = 0; i < n; i++) {
+				int u = get(i);
+				if (u != units[i]) {
+					units[i] = u;
+					same = false;
+				}
+			}
+			if (same) {
+				break;
+			}
+		}
+		return new InventorySnapshot(names, units);
+	}
+
+	private int get(int ingredient) {
+		return stock.get(ingredient * STRIDE);
+	}
+
+	/**
+	 * Takes the given units of an ingredient if that many are in stock.
+	 * Package-private so tests can stand in for a competing brewer.
+	 */
+	boolean take(int ingredient, int units) {
+		if (units == 0) {
+			return true;
+		}
+		int slot = ingredient * STRIDE;
+		while (true) {
+			int current = stock.get(slot);
+			if (current < units) {
+				return false;
+			}
+			if (stock.compareAndSet(slot, current, current - units)) {
+				return true;
+			}
+		}
+	}
+}
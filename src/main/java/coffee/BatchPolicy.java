@@ -0,0 +1,12 @@
+package coffee;
+
+/**
+ * What CoffeeMaker.makeCoffeeBatch does with the rest of a
+ * batch once one of its orders cannot be made.
+ */
+public enum BatchPolicy {
+	/** Stop at the first failed order and refund every order after it */
+	FAIL_FAST,
+	/** Keep going and make every order that can be made, in arrival order */
+	BEST_EFFORT
+}
@@ -0,0 +1,429 @@
+package coffee;
+
+import coffee.exceptions.InventoryException;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Coffee maker whose stock and recipes are owned by one engine thread,
+ * as an alternative to CoffeeMaker, Inventory and RecipeBook guarding
+ * every method with a monitor.
+ *
+ * Terminals and restock feeds submit commands from any thread and get
+ * a future for each result.  Commands go into a lock-free queue that
+ * many threads add to and only the engine takes from: adding is one
+ * atomic swap, and the command is its own queue node.  The engine
+ * applies the commands to plain fields that no other thread touches,
+ * up to MAX_BATCH per drain cycle, then publishes the stock and
+ * recipes once for the whole cycle and completes the futures.  So no
+ * command takes a lock, and cache lines stay with the engine's core.
+ * When the queue is empty the engine parks until a command arrives.
+ *
+ * The stock and recipes can be read at any time, without a command,
+ * as of the last drain cycle.
+ */
+public final class BrewEngine implements AutoCloseable {
+	/** Most commands applied in one drain cycle */
+	public static final int MAX_BATCH = 256;
+	/** Default number of recipe positions, as in a RecipeBook */
+	public static final int DEFAULT_RECIPES = 4;
+
+	private final IngredientRegistry ingredients;
+	private final Thread thread;
+	/** Last command added; producers swap themselves in */
+	private final AtomicReference<Command<?>> tail;
+	/** Last command taken, whose next is the first waiting; engine only */
+	private Command<?> head;
+	/** True while the engine is parked or about to park */
+	private volatile boolean sleeping;
+	private volatile boolean closed;
+	/** Set once the engine applies no more commands */
+	private volatile boolean terminated;
+
+	//Owned by the engine thread
+	private int[] stock;
+	private final Recipe[] recipeArray;
+	private RecipeSnapshot recipes;
+	private boolean stockChanged;
+	private boolean recipesChanged;
+
+	//Published once per drain cycle
+	private volatile InventorySnapshot publishedStock;
+	private volatile RecipeSnapshot publishedRecipes;
+
+	/**
+	 * A command and the future for its result, linked into the queue.
+	 */
+	private abstract static class Command<T> {
+		final CompletableFuture<T> result = new CompletableFuture<>();
+		volatile Command<?> next;
+		T value;
+
+		/** Applies the command on the engine thread and keeps its result */
+		abstract T apply(BrewEngine engine);
+
+		void complete() {
+			result.complete(value);
+		}
+	}
+
+	/**
+	 * Creates an engine for the standard ingredients, with 15 units
+	 * of each and DEFAULT_RECIPES empty recipe positions.
+	 */
+	public BrewEngine() {
+		this(new IngredientRegistry(), DEFAULT_RECIPES, runnable -> {
+			Thread thread = new Thread(runnable, "coffee-brew-engine");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Creates an engine for the ingredients in the registry, with 15
+	 * units of each and the given number of empty recipe positions,
+	 * running on a thread made by threadFactory.
+	 * @param ingredients
+	 * @param recipes
+	 * @param threadFactory
+	 */
+	public BrewEngine(IngredientRegistry ingredients, int recipes, ThreadFactory threadFactory) {
+		if (recipes <= 0) {
+			throw new IllegalArgumentException("Number of recipes must be a positive integer");
+		}
+		this.ingredients = ingredients;
+		this.stock = new int[ingredients.size()];
+		Arrays.fill(this.stock, 15);
+		this.recipeArray = new Recipe[recipes];
+		this.recipes = new RecipeSnapshot(0, recipeArray);
+		this.publishedRecipes = this.recipes;
+		this.publishedStock = new InventorySnapshot(ingredients.ingredients(), stock.clone());
+		Command<Void> stub = new Command<Void>() {
+			Void apply(BrewEngine engine) {
+				return null;
+			}
+		};
+		this.head = stub;
+		this.tail = new AtomicReference<>(stub);
+		this.thread = threadFactory.newThread(this::run);
+		this.thread.start();
+	}
+
+	/**
+	 * Buys the beverage at recipeToPurchase.  The future completes
+	 * with the outcome and change, as CoffeeMaker.makeCoffee would
+	 * give them.
+	 * @param recipeToPurchase
+	 * @param amtPaid
+	 * @return CompletableFuture of OrderResult
+	 */
+	public CompletableFuture<OrderResult> makeCoffee(int recipeToPurchase, int amtPaid) {
+		return submit(new Command<OrderResult>() {
+			OrderResult apply(BrewEngine engine) {
+				return engine.purchase(recipeToPurchase, amtPaid);
+			}
+		});
+	}
+
+	/**
+	 * Adds units of the ingredient to the stock.  The units are
+	 * checked before the command is submitted.
+	 * @param ingredient
+	 * @param units
+	 * @return CompletableFuture completed once the units are in stock
+	 * @throws InventoryException if units is not a non-negative integer
+	 * @throws IllegalArgumentException if the ingredient is not in the registry
+	 */
+	public CompletableFuture<Void> addInventory(Ingredient ingredient, String units) throws InventoryException {
+		if (!ingredients.contains(ingredient)) {
+			throw new IllegalArgumentException(ingredient + " is not in the engine's ingredient registry");
+		}
+		int amt = Inventory.parseUnits(ingredient, units);
+		int id = ingredient.getId();
+		return submit(new Command<Void>() {
+			Void apply(BrewEngine engine) {
+				engine.restock(id, amt);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Adds a copy of the recipe in the first empty position.  The
+	 * future completes with false if a recipe with the same name is
+	 * already there or there is no empty position.
+	 * @param r
+	 * @return CompletableFuture of Boolean
+	 */
+	public CompletableFuture<Boolean> addRecipe(Recipe r) {
+		Recipe copy = copy(r);
+		return submit(new Command<Boolean>() {
+			Boolean apply(BrewEngine engine) {
+				return engine.add(copy);
+			}
+		});
+	}
+
+	/**
+	 * Deletes the recipe at the position.  The future completes with
+	 * the name of the recipe deleted, or null if there was none.
+	 * @param recipeToDelete
+	 * @return CompletableFuture of String
+	 */
+	public CompletableFuture<String> deleteRecipe(int recipeToDelete) {
+		return submit(new Command<String>() {
+			String apply(BrewEngine engine) {
+				return engine.replace(recipeToDelete, null);
+			}
+		});
+	}
+
+	/**
+	 * Replaces the recipe at the position with a copy of newRecipe.
+	 * The future completes with the name of the recipe replaced, or
+	 * null if there was none and nothing was changed.
+	 * @param recipeToEdit
+	 * @param newRecipe
+	 * @return CompletableFuture of String
+	 */
+	public CompletableFuture<String> editRecipe(int recipeToEdit, Recipe newRecipe) {
+		Recipe copy = copy(newRecipe);
+		return submit(new Command<String>() {
+			String apply(BrewEngine engine) {
+				return engine.replace(recipeToEdit, copy);
+			}
+		});
+	}
+
+	/**
+	 * Returns the stock as of the last drain cycle.
+	 * @return InventorySnapshot
+	 */
+	public InventorySnapshot getInventorySnapshot() {
+		return publishedStock;
+	}
+
+	/**
+	 * Returns the recipes as of the last drain cycle.
+	 * @return RecipeSnapshot
+	 */
+	public RecipeSnapshot getRecipeSnapshot() {
+		return publishedRecipes;
+	}
+
+	/**
+	 * Stops taking commands, waits for the engine to apply every
+	 * command already submitted, and returns.  Commands submitted
+	 * from now on fail with a RejectedExecutionException.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		LockSupport.unpark(thread);
+		boolean interrupted = false;
+		while (true) {
+			try {
+				thread.join();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static Recipe copy(Recipe r) {
+		Objects.requireNonNull(r);
+		return new Recipe(r.getName(), r.getPrice(), r.amounts().clone());
+	}
+
+	// ---------- Producers ---------- //
+
+	private <T> CompletableFuture<T> submit(Command<T> command) {
+		if (closed) {
+			return rejected(command);
+		}
+		Command<?> prev = tail.getAndSet(command);
+		prev.next = command;
+		if (terminated) {
+			//The engine stopped after this was checked, and may have
+			//drained the queue before the command was linked in
+			return rejected(command);
+		}
+		if (sleeping) {
+			LockSupport.unpark(thread);
+		}
+		return command.result;
+	}
+
+	private static <T> CompletableFuture<T> rejected(Command<T> command) {
+		command.result.completeExceptionally(new RejectedExecutionException("Brew engine is closed"));
+		return command.result;
+	}
+
+	// ---------- Engine thread ---------- //
+
+	/**
+	 * Applies commands in drain cycles until the engine is closed
+	 * and the queue is empty.
+	 */
+	private void run() {
+		Command<?>[] batch = new Command<?>[MAX_BATCH];
+		while (true) {
+			int n = 0;
+			Command<?> command;
+			while (n < MAX_BATCH && (command = poll()) != null) {
+				apply(command);
+				batch[n++] = command;
+			}
+			if (n > 0) {
+				publish();
+				for (int i = 0; i < n; i++) {
+					batch[i].complete();
+					batch[i] = null;
+				}
+				continue;
+			}
+			if (tail.get() != head) {
+				//A command is being linked in
+				Thread.onSpinWait();
+				continue;
+			}
+			if (closed) {
+				break;
+			}
+			sleeping = true;
+			if (tail.get() == head && !closed) {
+				LockSupport.park(this);
+			}
+			sleeping = false;
+		}
+		terminated = true;
+		Command<?> command;
+		while ((command = poll()) != null) {
+			command.result.completeExceptionally(new RejectedExecutionException("Brew engine is closed"));
+		}
+	}
+
+	private Command<?> poll() {
+		Command<?> next = head.next;
+		if (next != null) {
+			//The command taken becomes the node before the first waiting
+			head.next = null;
+			head = next;
+		}
+		return next;
+	}
+
+	private <T> void apply(Command<T> command) {
+		try {
+			command.value = command.apply(this);
+		} catch (RuntimeException e) {
+			command.result.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Publishes what the drain cycle changed.
+	 */
+	private void publish() {
+		if (stockChanged) {
+			Ingredient[] names = ingredients.ingredients();
+			publishedStock = new InventorySnapshot(names, Arrays.copyOf(stock, names.length));
+			stockChanged = false;
+		}
+		if (recipesChanged) {
+			publishedRecipes = recipes;
+			recipesChanged = false;
+		}
+	}
+
+	private OrderResult purchase(int recipeToPurchase, int amtPaid) {
+		CompactRecipe recipe = recipeToPurchase >= 0 && recipeToPurchase < recipes.size()
+				? recipes.getCompact(recipeToPurchase) : null;
+		PurchaseOutcome outcome;
+		if (recipe == null) {
+			outcome = PurchaseOutcome.NO_SUCH_RECIPE;
+		} else if (recipe.getPrice() > amtPaid) {
+			outcome = PurchaseOutcome.INSUFFICIENT_FUNDS;
+		} else if (!use(recipe.amounts)) {
+			outcome = PurchaseOutcome.INSUFFICIENT_INVENTORY;
+		} else {
+			return new OrderResult(PurchaseOutcome.SUCCESS, amtPaid - recipe.getPrice());
+		}
+		return new OrderResult(outcome, amtPaid);
+	}
+
+	/**
+	 * Takes the amounts out of stock if there is enough of every
+	 * ingredient, and returns whether it did.
+	 */
+	private boolean use(int[] amounts) {
+		for (int id = 0; id < amounts.length; id++) {
+			if (amounts[id] > (id < stock.length ? stock[id] : 0)) {
+				return false;
+			}
+		}
+		for (int id = 0; id < amounts.length; id++) {
+			if (amounts[id] != 0) {
+				stock[id] -= amounts[id];
+			}
+		}
+		stockChanged = true;
+		return true;
+	}
+
+	private void restock(int id, int amt) {
+		if (id >= stock.length) {
+			stock = Arrays.copyOf(stock, ingredients.size());
+		}
+		stock[id] += amt;
+		stockChanged = true;
+	}
+
+	private boolean add(Recipe r) {
+		int empty = -1;
+		for (int i = 0; i < recipeArray.length; i++) {
+			if (recipeArray[i] == null) {
+				if (empty < 0) {
+					empty = i;
+				}
+			} else if (recipeArray[i].equals(r)) {
+				return false;
+			}
+		}
+		if (empty < 0) {
+			return false;
+		}
+		recipeArray[empty] = r;
+		changeRecipes();
+		return true;
+	}
+
+	/**
+	 * Puts r, or nothing if r is null, at the position and returns
+	 * the name of the recipe that was there, or null if there was none.
+	 */
+	private String replace(int position, Recipe r) {
+		Recipe old = position >= 0 && position < recipeArray.length ? recipeArray[position] : null;
+		if (old == null) {
+			return null;
+		}
+		recipeArray[position] = r;
+		changeRecipes();
+		return old.getName();
+	}
+
+	private void changeRecipes() {
+		recipes = new RecipeSnapshot(recipes.getVersion() + 1, recipeArray, recipes);
+		recipesChanged = true;
+	}
+}
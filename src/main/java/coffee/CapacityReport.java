@@ -0,0 +1,176 @@
+package coffee;
+
+import java.util.Arrays;
+
+/**
+ * How many more servings of each recipe a coffee maker can make from
+ * its stock, and which ingredient runs out first for each.
+ *
+ * The report is worked out for one RecipeSnapshot and one
+ * InventorySnapshot and never changes.  The recipes' amounts are laid
+ * out by ingredient, one array holding every recipe's need of that
+ * ingredient, so the report is one straight pass per ingredient over
+ * an int array, taking the smallest units / need for each recipe.
+ * The layout depends only on the recipes, so a report for the same
+ * recipes and new stock reuses it.
+ */
+public final class CapacityReport {
+	/** Servings of a recipe that needs no ingredient at all */
+	public static final int UNLIMITED = Integer.MAX_VALUE;
+
+	private final RecipeSnapshot recipes;
+	private final InventorySnapshot stock;
+	/** Units of each ingredient needed by each recipe position, by ingredient id */
+	private final int[][] needs;
+	/** Whether each recipe position can never be made: no recipe, or one needing an unknown ingredient */
+	private final boolean[] never;
+	/** Servings of each recipe position */
+	private final int[] servings;
+	/** Id of the ingredient limiting each recipe position, or -1 if none */
+	private final int[] bottlenecks;
+
+	private CapacityReport(RecipeSnapshot recipes, InventorySnapshot stock, int[][] needs, boolean[] never) {
+		this.recipes = recipes;
+		this.stock = stock;
+		this.needs = needs;
+		this.never = never;
+		int size = recipes.size();
+		this.servings = new int[size];
+		this.bottlenecks = new int[size];
+		Arrays.fill(servings, UNLIMITED);
+		Arrays.fill(bottlenecks, -1);
+		for (int id = 0; id < needs.length; id++) {
+			int units = Math.max(0, stock.units(id));
+			int[] need = needs[id];
+			for (int recipe = 0; recipe < size; recipe++) {
+				int n = need[recipe];
+				//A recipe not using the ingredient gets UNLIMITED servings of it
+				int s = n > 0 ? units / n : UNLIMITED;
+				if (s < servings[recipe]) {
+					servings[recipe] = s;
+					bottlenecks[recipe] = id;
+				}
+			}
+		}
+		for (int recipe = 0; recipe < size; recipe++) {
+			if (never[recipe]) {
+				servings[recipe] = 0;
+				bottlenecks[recipe] = -1;
+			}
+		}
+	}
+
+	/**
+	 * Returns the report for the recipes and stock, reusing the
+	 * layout of the recipes in previous if it was for the same
+	 * recipes and ingredients.  previous may be null.
+	 */
+	static CapacityReport of(RecipeSnapshot recipes, InventorySnapshot stock, CapacityReport previous) {
+		if (previous != null && previous.recipes == recipes && previous.needs.length == stock.size()) {
+			return new CapacityReport(recipes, stock, previous.needs, previous.never);
+		}
+		int size = recipes.size();
+		int[][] needs = new int[stock.size()][size];
+		boolean[] never = new boolean[size];
+		for (int recipe = 0; recipe < size; recipe++) {
+			CompactRecipe r = recipes.getCompact(recipe);
+			if (r == null) {
+				never[recipe] = true;
+				continue;
+			}
+			for (int id = 0; id < r.amounts.length; id++) {
+				if (id < needs.length) {
+					needs[id][recipe] = r.amounts[id];
+				} else if (r.amounts[id] > 0) {
+					never[recipe] = true;
+				}
+			}
+		}
+		return new CapacityReport(recipes, stock, needs, never);
+	}
+
+	/**
+	 * Returns true if the report is still the one for the recipes
+	 * and the units in the inventory.
+	 */
+	boolean isCurrent(RecipeSnapshot recipes, Inventory inventory) {
+		return this.recipes == recipes && stock.matches(inventory);
+	}
+
+	/**
+	 * Returns the recipes the report was worked out for.
+	 * @return RecipeSnapshot
+	 */
+	public RecipeSnapshot getRecipeSnapshot() {
+		return recipes;
+	}
+
+	/**
+	 * Returns the stock the report was worked out for.
+	 * @return InventorySnapshot
+	 */
+	public InventorySnapshot getInventorySnapshot() {
+		return stock;
+	}
+
+	/**
+	 * Returns the number of recipe positions in the report.
+	 * @return int
+	 */
+	public int size() {
+		return servings.length;
+	}
+
+	/**
+	 * Returns how many more servings of the recipe at the position
+	 * can be made, 0 if there is no recipe there, or UNLIMITED if it
+	 * needs no ingredient.
+	 * @param recipe
+	 * @return int
+	 */
+	public int getServings(int recipe) {
+		return servings[recipe];
+	}
+
+	/**
+	 * Returns the ingredient that runs out first when making the
+	 * recipe at the position, or null if there is no recipe there,
+	 * it needs no ingredient or it needs one the inventory does not
+	 * hold.  Of ingredients running out at the same serving, the one
+	 * with the lowest id is returned.
+	 * @param recipe
+	 * @return Ingredient
+	 */
+	public Ingredient getBottleneck(int recipe) {
+		int id = bottlenecks[recipe];
+		return id < 0 ? null : stock.ingredient(id);
+	}
+
+	/**
+	 * Returns one line per recipe with its servings and
+	 * bottleneck ingredient.
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		StringBuilder buf = new StringBuilder();
+		for (int recipe = 0; recipe < servings.length; recipe++) {
+			CompactRecipe r = recipes.getCompact(recipe);
+			if (r == null) {
+				continue;
+			}
+			buf.append(r.getName()).append(": ");
+			if (servings[recipe] == UNLIMITED) {
+				buf.append("unlimited");
+			} else {
+				buf.append(servings[recipe]);
+			}
+			Ingredient bottleneck = getBottleneck(recipe);
+			if (bottleneck != null) {
+				buf.append(" (").append(bottleneck.getName()).append(')');
+			}
+			buf.append('\n');
+		}
+		return buf.toString();
+	}
+}
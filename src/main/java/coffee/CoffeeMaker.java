@@ -2,22 +2,77 @@ package coffee;
 
 import coffee.exceptions.InventoryException;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * @author Sarah Heckman
  */
 public class CoffeeMaker {
 	/** Array of recipes in coffee maker */
-	private static RecipeBook recipeBook;
+	private final RecipeBook recipeBook;
 	/** Inventory of the coffee maker */
-    private static Inventory inventory;
+    private final Inventory inventory;
+	/** Journal of changes to the recipe book and inventory, or null */
+	private final Journal journal;
+	/** Counters of purchases, stock and lock waits */
+	private final CoffeeMakerMetrics metrics;
+	/** Recipes that can be made with the stock on hand */
+	private final MenuAvailability availability;
+	/** Last capacity report, reused while the recipes and stock are unchanged */
+	private volatile CapacityReport capacity;
+	/** Lets one batch at a time in, so batches wait for each other without holding a thread */
+	private final ReentrantLock batchLock = new ReentrantLock();
 	
     /**
      * Constructor for the coffee maker
      *
      */
 	public CoffeeMaker() {
-	    recipeBook = new RecipeBook();
-		inventory = new Inventory();
+	    this(new Inventory());
+	}
+	
+	/**
+	 * Constructor for a coffee maker that keeps its stock
+	 * in the given inventory, e.g. an AtomicInventory when
+	 * many threads brew at once.
+	 * @param inventory
+	 */
+	public CoffeeMaker(Inventory inventory) {
+	    this(new RecipeBook(), inventory);
+	}
+	
+	/**
+	 * Constructor for a coffee maker that keeps its recipes
+	 * in the given recipe book, e.g. an IndexedRecipeBook for
+	 * menus with more than four recipes, and its stock in the
+	 * given inventory.
+	 * @param recipeBook
+	 * @param inventory
+	 */
+	public CoffeeMaker(RecipeBook recipeBook, Inventory inventory) {
+	    this(recipeBook, inventory, null);
+	}
+	
+	/**
+	 * Constructor for a coffee maker that survives restarts.  The
+	 * recipe book and inventory are first restored from the journal,
+	 * and every later change to them is written to it.
+	 * @param recipeBook
+	 * @param inventory
+	 * @param journal
+	 */
+	public CoffeeMaker(RecipeBook recipeBook, Inventory inventory, Journal journal) {
+	    this.recipeBook = recipeBook;
+		this.inventory = inventory;
+		this.journal = journal;
+		this.metrics = new CoffeeMakerMetrics(inventory.getIngredients());
+		if (journal != null) {
+			journal.attach(recipeBook, inventory);
+		}
+		this.availability = new MenuAvailability(recipeBook, inventory);
 	}
 	
 	/**
@@ -28,7 +83,16 @@ public class CoffeeMaker {
 	 * @return boolean
 	 */
 	public boolean addRecipe(Recipe r) {
-		return recipeBook.addRecipe(r);
+		if (journal == null) {
+			return recipeBook.addRecipe(r);
+		}
+		synchronized (journal) {
+			boolean added = recipeBook.addRecipe(r);
+			if (added) {
+				journal.logAddRecipe(r);
+			}
+			return added;
+		}
 	}
 	
 	/**
@@ -39,7 +103,16 @@ public class CoffeeMaker {
 	 * @return String
 	 */
 	public String deleteRecipe(int recipeToDelete) {
-		return recipeBook.deleteRecipe(recipeToDelete);
+		if (journal == null) {
+			return recipeBook.deleteRecipe(recipeToDelete);
+		}
+		synchronized (journal) {
+			String deleted = recipeBook.deleteRecipe(recipeToDelete);
+			if (deleted != null) {
+				journal.logDeleteRecipe(recipeToDelete);
+			}
+			return deleted;
+		}
 	}
 	
 	/**
@@ -50,7 +123,16 @@ public class CoffeeMaker {
 	 * @return String
 	 */
 	public String editRecipe(int recipeToEdit, Recipe r) {
-		return recipeBook.editRecipe(recipeToEdit, r);
+		if (journal == null) {
+			return recipeBook.editRecipe(recipeToEdit, r);
+		}
+		synchronized (journal) {
+			String edited = recipeBook.editRecipe(recipeToEdit, r);
+			if (edited != null) {
+				journal.logEditRecipe(recipeToEdit, r);
+			}
+			return edited;
+		}
 	}
     
     /**
@@ -61,19 +143,102 @@ public class CoffeeMaker {
      * @param amtChocolate
      * @return boolean
      */
-    public synchronized void addInventory(String amtCoffee, String amtMilk, String amtSugar, String amtChocolate) throws InventoryException {
-	    inventory.addCoffee(amtCoffee);
-	    inventory.addMilk(amtMilk);
-	    inventory.addSugar(amtSugar);
-	    inventory.addChocolate(amtChocolate);
+    public void addInventory(String amtCoffee, String amtMilk, String amtSugar, String amtChocolate) throws InventoryException {
+	    long start = System.nanoTime();
+	    synchronized (this) {
+		    metrics.recordLockWait(System.nanoTime() - start);
+		    if (journal == null) {
+			    addStandardInventory(amtCoffee, amtMilk, amtSugar, amtChocolate);
+			    return;
+		    }
+		    synchronized (journal) {
+			    addStandardInventory(amtCoffee, amtMilk, amtSugar, amtChocolate);
+		    }
+	    }
+    }
+    
+    /**
+     * Adds the standard ingredients in order, and records and journals
+     * the units added even if a later ingredient is rejected.
+     */
+    private void addStandardInventory(String amtCoffee, String amtMilk, String amtSugar, String amtChocolate) throws InventoryException {
+	    int coffee = 0, milk = 0, sugar = 0, chocolate = 0;
+	    try {
+		    coffee = Inventory.parseUnits(Ingredient.COFFEE, amtCoffee);
+		    inventory.addCoffee(coffee);
+		    milk = Inventory.parseUnits(Ingredient.MILK, amtMilk);
+		    inventory.addMilk(milk);
+		    sugar = Inventory.parseUnits(Ingredient.SUGAR, amtSugar);
+		    inventory.addSugar(sugar);
+		    chocolate = Inventory.parseUnits(Ingredient.CHOCOLATE, amtChocolate);
+		    inventory.addChocolate(chocolate);
+	    } finally {
+	    	if (coffee != 0 || milk != 0 || sugar != 0 || chocolate != 0) {
+	    		int[] units = {coffee, milk, sugar, chocolate};
+	    		metrics.recordRestock(units);
+	    		if (journal != null) {
+	    			journal.logStock(units);
+	    		}
+	    	}
+	    }
+    }
+    
+    /**
+     * Adds units of one ingredient, such as one registered in the
+     * inventory's IngredientRegistry, to the inventory.
+     * @param ingredient
+     * @param amt
+     * @throws InventoryException
+     */
+    public void addInventory(Ingredient ingredient, String amt) throws InventoryException {
+	    long start = System.nanoTime();
+	    synchronized (this) {
+		    metrics.recordLockWait(System.nanoTime() - start);
+		    if (journal == null) {
+			    metrics.recordRestock(addUnits(ingredient, amt));
+			    return;
+		    }
+		    synchronized (journal) {
+			    int[] units = addUnits(ingredient, amt);
+			    metrics.recordRestock(units);
+			    journal.logStock(units);
+		    }
+	    }
+    }
+    
+    /**
+     * Parses the units of one ingredient once, adds them to the
+     * inventory and returns them by ingredient id.
+     */
+    private int[] addUnits(Ingredient ingredient, String amt) throws InventoryException {
+	    int[] units = new int[ingredient.getId() + 1];
+	    units[ingredient.getId()] = Inventory.parseUnits(ingredient, amt);
+	    if (!inventory.addUnits(ingredient, units[ingredient.getId()])) {
+		    throw new InventoryException(ingredient + " was registered after the inventory was created");
+	    }
+	    return units;
     }
     
     /**
      * Returns the inventory of the coffee maker
      * @return Inventory
      */
-    public synchronized String checkInventory() {
-        return inventory.toString();
+    public String checkInventory() {
+        long start = System.nanoTime();
+        synchronized (this) {
+        	metrics.recordLockWait(System.nanoTime() - start);
+        	return inventory.toString();
+        }
+    }
+    
+    /**
+     * Returns the units of every ingredient as of one point in time,
+     * without waiting for brews or restocks in progress.  Monitoring
+     * should read this instead of parsing checkInventory().
+     * @return InventorySnapshot
+     */
+    public InventorySnapshot getInventorySnapshot() {
+        return inventory.getSnapshot();
     }
     
     /**
@@ -83,29 +248,304 @@ public class CoffeeMaker {
      * @param amtPaid
      * @return int
      */
-    public synchronized int makeCoffee(int recipeToPurchase, int amtPaid) {
-        int change = 0;
-        
-        if (getRecipes()[recipeToPurchase] == null) {
-        	change = amtPaid;
-        } else if (getRecipes()[recipeToPurchase].getPrice() <= amtPaid) {
-        	if (inventory.useIngredients(getRecipes()[recipeToPurchase])) {
-        		change = amtPaid - getRecipes()[recipeToPurchase].getPrice();
-        	} else {
-        		change = amtPaid;
+    public int makeCoffee(int recipeToPurchase, int amtPaid) {
+        //Read the recipe once from the snapshot; useIngredients is atomic
+        //on its own, so brewing does not need any lock on the coffee maker
+        CompactRecipe recipe = recipeBook.getSnapshot().getCompact(recipeToPurchase);
+        return change(brew(recipe, amtPaid), recipe, amtPaid);
+    }
+    
+    /**
+     * Buys the beverage at recipeToPurchase, fills in purchase with
+     * the outcome, recipe and change, and returns the outcome.  Unlike
+     * makeCoffee(int, int), a failed purchase can be told apart from a
+     * free beverage, and no recipe at recipeToPurchase, including a
+     * position outside the recipe book, is NO_SUCH_RECIPE.  Nothing is
+     * allocated when purchase is reused.
+     * @param recipeToPurchase
+     * @param amtPaid
+     * @param purchase
+     * @return PurchaseOutcome
+     */
+    public PurchaseOutcome makeCoffee(int recipeToPurchase, int amtPaid, Purchase purchase) {
+        return makeCoffee(recipeBook.getSnapshot(), recipeToPurchase, amtPaid, purchase);
+    }
+
+    /**
+     * Buys the beverage with the given name, wherever it is in the
+     * recipe book, and otherwise works as makeCoffee(int, int, Purchase).
+     * The name is looked up in the same snapshot the recipe is brewed
+     * from, so a recipe edited at the same time is never brewed by
+     * mistake.
+     * @param recipeName
+     * @param amtPaid
+     * @param purchase
+     * @return PurchaseOutcome
+     */
+    public PurchaseOutcome makeCoffee(String recipeName, int amtPaid, Purchase purchase) {
+        RecipeSnapshot recipes = recipeBook.getSnapshot();
+        return makeCoffee(recipes, recipes.indexOf(recipeName), amtPaid, purchase);
+    }
+
+    private PurchaseOutcome makeCoffee(RecipeSnapshot recipes, int recipeToPurchase, int amtPaid, Purchase purchase) {
+        CompactRecipe recipe = compactRecipe(recipes, recipeToPurchase);
+        PurchaseOutcome outcome = brew(recipe, amtPaid);
+        purchase.set(outcome, recipe, change(outcome, recipe, amtPaid));
+        return outcome;
+    }
+
+    /**
+     * Buys the recipe, holding the journal if there is one.
+     */
+    private PurchaseOutcome brew(CompactRecipe recipe, int amtPaid) {
+        if (journal == null) {
+        	return purchase(recipe, amtPaid);
+        }
+        long start = System.nanoTime();
+        synchronized (journal) {
+        	metrics.recordLockWait(System.nanoTime() - start);
+        	return purchase(recipe, amtPaid);
+        }
+    }
+
+    /**
+     * Makes a batch of orders in arrival order and returns the result
+     * of each order, using BatchPolicy.BEST_EFFORT.
+     * @param orders
+     * @return List of OrderResult
+     */
+    public List<OrderResult> makeCoffeeBatch(List<Order> orders) {
+        return makeCoffeeBatch(orders, BatchPolicy.BEST_EFFORT);
+    }
+    
+    /**
+     * Makes a batch of orders in arrival order and returns the result
+     * of each order, in the same order.  The recipes are read once and
+     * the journal, or else the inventory's monitor, is held for the
+     * whole batch.  So with a journal, or with an Inventory, whose every
+     * change holds its monitor, no restock or other brew can interleave
+     * with the batch.  An AtomicInventory without a journal takes no
+     * monitor, so other brews and restocks can interleave with the
+     * orders of a batch, though each order is still made in full or
+     * not at all.  Under BatchPolicy.FAIL_FAST every order after the
+     * first failed one is refunded without being tried.  Batches wait
+     * for each other on a ReentrantLock before taking the monitor, so
+     * virtual threads waiting to make a batch are parked rather than
+     * pinned to their carrier threads.
+     * @param orders
+     * @param policy
+     * @return List of OrderResult
+     */
+    public List<OrderResult> makeCoffeeBatch(List<Order> orders, BatchPolicy policy) {
+        List<OrderResult> results = new ArrayList<>(orders.size());
+        RecipeSnapshot recipes = recipeBook.getSnapshot();
+        //With a journal every change holds the journal, so hold that instead;
+        //an AtomicInventory takes no monitor, so holding it keeps nothing out
+        long start = System.nanoTime();
+        batchLock.lock();
+        try {
+        	synchronized (journal != null ? journal : inventory) {
+        		metrics.recordLockWait(System.nanoTime() - start);
+        		makeBatch(orders, policy, recipes, results);
+        	}
+        } finally {
+        	batchLock.unlock();
+        }
+        return results;
+    }
+    
+    /**
+     * Makes the orders of a batch, adding the result of each to
+     * results, with the batch's locks held.
+     */
+    private void makeBatch(List<Order> orders, BatchPolicy policy, RecipeSnapshot recipes, List<OrderResult> results) {
+        boolean failed = false;
+        for (Order order : orders) {
+        	int amtPaid = order.getAmtPaid();
+        	if (failed && policy == BatchPolicy.FAIL_FAST) {
+        		metrics.recordPurchase(null, PurchaseOutcome.NOT_ATTEMPTED);
+        		results.add(new OrderResult(PurchaseOutcome.NOT_ATTEMPTED, amtPaid));
+        		continue;
         	}
+        	CompactRecipe recipe = compactRecipe(recipes, order.getRecipeToPurchase());
+        	PurchaseOutcome outcome = purchase(recipe, amtPaid);
+        	failed |= !outcome.isSuccess();
+        	results.add(new OrderResult(outcome, change(outcome, recipe, amtPaid)));
+        }
+    }
+    
+    /**
+     * Takes the ingredients of a recipe out of the inventory and holds
+     * them while the drink is made, for up to the given timeout.  The
+     * reservation is then committed once the drink is made, or released
+     * to give the ingredients back if the brew fails.  Returns null if
+     * there is no such recipe or not enough ingredients.
+     * @param recipeToPurchase
+     * @param timeout
+     * @param unit
+     * @return Reservation
+     */
+    public Reservation reserve(int recipeToPurchase, long timeout, TimeUnit unit) {
+        CompactRecipe recipe = compactRecipe(recipeBook.getSnapshot(), recipeToPurchase);
+        if (recipe == null) {
+        	return null;
+        }
+        if (journal == null) {
+        	return inventory.reserve(recipe, timeout, unit);
+        }
+        //Held units go into journal snapshots, so reserve under the journal
+        synchronized (journal) {
+        	return inventory.reserve(recipe, timeout, unit);
+        }
+    }
+    
+    /**
+     * Finishes a reservation once its drink is made and returns true.
+     * Returns false if the reservation was already finished or has
+     * expired, in which case its ingredients are back in stock.
+     * @param reservation
+     * @return boolean
+     */
+    public boolean commit(Reservation reservation) {
+        if (journal == null) {
+        	return committed(inventory.commit(reservation), reservation);
+        }
+        long start = System.nanoTime();
+        synchronized (journal) {
+        	metrics.recordLockWait(System.nanoTime() - start);
+        	boolean committed = inventory.commit(reservation);
+        	if (committed) {
+        		journal.logUse(reservation.getRecipe());
+        	}
+        	return committed(committed, reservation);
+        }
+    }
+    
+    /**
+     * Records a committed reservation as a purchase and returns committed.
+     */
+    private boolean committed(boolean committed, Reservation reservation) {
+        if (committed) {
+        	metrics.recordPurchase(reservation.getRecipe(), PurchaseOutcome.SUCCESS);
+        }
+        return committed;
+    }
+    
+    /**
+     * Gives the ingredients of a reservation back to the inventory
+     * when its drink could not be made, and returns true.  Returns
+     * false if the reservation was already finished or has expired.
+     * @param reservation
+     * @return boolean
+     */
+    public boolean release(Reservation reservation) {
+        if (journal == null) {
+        	return inventory.release(reservation);
+        }
+        synchronized (journal) {
+        	return inventory.release(reservation);
+        }
+    }
+    
+    /**
+     * Uses the ingredients of the recipe if it can be bought
+     * with amtPaid, and returns the outcome of the purchase.
+     */
+    private PurchaseOutcome purchase(CompactRecipe recipe, int amtPaid) {
+        PurchaseOutcome outcome;
+        if (recipe == null) {
+        	outcome = PurchaseOutcome.NO_SUCH_RECIPE;
+        } else if (recipe.getPrice() > amtPaid) {
+        	outcome = PurchaseOutcome.INSUFFICIENT_FUNDS;
+        } else if (!inventory.useIngredients(recipe)) {
+        	outcome = PurchaseOutcome.INSUFFICIENT_INVENTORY;
         } else {
-        	change = amtPaid;
+        	if (journal != null) {
+        		journal.logUse(recipe);
+        	}
+        	outcome = PurchaseOutcome.SUCCESS;
         }
-        
-        return change;
+        metrics.recordPurchase(recipe, outcome);
+        return outcome;
+    }
+    
+    /**
+     * Returns the recipe at position recipe in the snapshot, or null
+     * if there is none or the position is outside the recipe book.
+     */
+    private static CompactRecipe compactRecipe(RecipeSnapshot recipes, int recipe) {
+        return recipe >= 0 && recipe < recipes.size() ? recipes.getCompact(recipe) : null;
+    }
+    
+    /**
+     * Returns the change of a purchase with the given outcome.
+     */
+    private static int change(PurchaseOutcome outcome, CompactRecipe recipe, int amtPaid) {
+        return outcome.isSuccess() ? amtPaid - recipe.getPrice() : amtPaid;
     }
 
+	/**
+	 * Returns how many more servings of each recipe can be made
+	 * and the ingredient that runs out first for each.  The report
+	 * is worked out again only after the recipes or the stock have
+	 * changed, so dashboards can poll it cheaply; checking that
+	 * nothing changed reads each ingredient once and never locks.
+	 * @return CapacityReport
+	 */
+	public CapacityReport capacityReport() {
+		CapacityReport report = capacity;
+		RecipeSnapshot recipes = recipeBook.getSnapshot();
+		if (report == null || !report.isCurrent(recipes, inventory)) {
+			report = CapacityReport.of(recipes, inventory.getSnapshot(), report);
+			capacity = report;
+		}
+		return report;
+	}
+
+	/**
+	 * Returns the counters of purchases, stock and lock waits
+	 * of the coffee maker.
+	 * @return CoffeeMakerMetrics
+	 */
+	public CoffeeMakerMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Returns true if there is a recipe at the position and
+	 * the inventory holds enough ingredients to make it.  Never
+	 * locks, so menus can call it for every recipe on every redraw.
+	 * @param recipe
+	 * @return boolean
+	 */
+	public boolean isAvailable(int recipe) {
+		return availability.isAvailable(recipe);
+	}
+
+	/**
+	 * Returns which recipes can be made with the stock on hand,
+	 * kept up to date as the inventory and recipe book change.
+	 * @return MenuAvailability
+	 */
+	public MenuAvailability getAvailability() {
+		return availability;
+	}
+
 	/**
 	 * Returns the list of Recipes in the RecipeBook.
 	 * @return Recipe []
 	 */
-	public synchronized Recipe[] getRecipes() {
+	public Recipe[] getRecipes() {
 		return recipeBook.getRecipes();
 	}
+	
+	/**
+	 * Returns the recipes as of the last change to the RecipeBook.
+	 * Menus can keep the snapshot and compare its version to
+	 * find out whether the recipes changed.
+	 * @return RecipeSnapshot
+	 */
+	public RecipeSnapshot getRecipeSnapshot() {
+		return recipeBook.getSnapshot();
+	}
 }
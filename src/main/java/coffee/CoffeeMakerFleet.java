@@ -0,0 +1,199 @@
+package coffee;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Registry of coffee makers hosted in one JVM, keyed by machine id.
+ *
+ * Every machine owns its own recipe book and inventory, so stock and
+ * recipes never leak between machines.  Besides a four slot recipe book
+ * and a stock counter per ingredient, a machine keeps its menu
+ * availability and metrics, which grow with its recipes and ingredients.
+ * Its lock wait histogram allocates about 8 KB for each thread stripe
+ * that records into it, so a machine served by one thread stays at a
+ * few kilobytes.  The fleet refuses new machines once it holds
+ * maxMachines of them.
+ */
+public class CoffeeMakerFleet {
+	/** Default number of machines a fleet can host */
+	public static final int DEFAULT_MAX_MACHINES = 10000;
+
+	/** Machines in the fleet, keyed by machine id */
+	private final ConcurrentHashMap<String, CoffeeMaker> machines;
+	/** Creates the inventory for each new machine */
+	private final Supplier<Inventory> inventoryFactory;
+	/** Maximum number of machines in the fleet */
+	private final int maxMachines;
+	/** Machines as of the last change, or null until they are asked for again */
+	private volatile Members members;
+	/** Goes up whenever a machine is restocked or its recipes change */
+	private final AtomicLong changes = new AtomicLong();
+	/** Counts the changes of every machine */
+	private final ChangeCounter counter = new ChangeCounter();
+
+	/**
+	 * Counts the changes that can make a recipe available on a
+	 * machine that could not make it.  Brewing only uses stock up,
+	 * so it is not counted and costs brewers nothing here.
+	 */
+	private final class ChangeCounter implements InventoryListener, RecipeBookListener {
+		@Override
+		public void ingredientsUsed(Inventory inventory, int[] amounts) {
+		}
+
+		@Override
+		public void stockChanged(Inventory inventory) {
+			changes.incrementAndGet();
+		}
+
+		@Override
+		public void recipesChanged(RecipeBook book, RecipeSnapshot recipes) {
+			changes.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Ids and machines of the fleet at one point in time, in no
+	 * particular order, so a machine can be picked by index.
+	 */
+	static final class Members {
+		final String[] ids;
+		final CoffeeMaker[] machines;
+
+		Members(String[] ids, CoffeeMaker[] machines) {
+			this.ids = ids;
+			this.machines = machines;
+		}
+	}
+
+	/**
+	 * Creates a fleet of up to DEFAULT_MAX_MACHINES machines
+	 * using the default Inventory.
+	 */
+	public CoffeeMakerFleet() {
+		this(DEFAULT_MAX_MACHINES, Inventory::new);
+	}
+
+	/**
+	 * Creates a fleet of up to maxMachines machines, each with an
+	 * inventory created by inventoryFactory.
+	 * @param maxMachines
+	 * @param inventoryFactory
+	 */
+	public CoffeeMakerFleet(int maxMachines, Supplier<Inventory> inventoryFactory) {
+		if (maxMachines <= 0) {
+			throw new IllegalArgumentException("maxMachines must be a positive integer");
+		}
+		this.maxMachines = maxMachines;
+		this.inventoryFactory = inventoryFactory;
+		this.machines = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Returns the new coffee maker registered under machineId, or
+	 * null if the id is already taken or the fleet is full.
+	 * @param machineId
+	 * @return CoffeeMaker
+	 */
+	public synchronized CoffeeMaker addMachine(String machineId) {
+		if (machineId == null || machines.containsKey(machineId) || machines.size() >= maxMachines) {
+			return null;
+		}
+		RecipeBook recipeBook = new RecipeBook();
+		Inventory inventory = inventoryFactory.get();
+		recipeBook.addListener(counter);
+		inventory.addListener(counter);
+		CoffeeMaker machine = new CoffeeMaker(recipeBook, inventory);
+		machines.put(machineId, machine);
+		members = null;
+		return machine;
+	}
+
+	/**
+	 * Returns the coffee maker registered under machineId, or null
+	 * if there is no such machine.
+	 * @param machineId
+	 * @return CoffeeMaker
+	 */
+	public CoffeeMaker getMachine(String machineId) {
+		return machineId == null ? null : machines.get(machineId);
+	}
+
+	/**
+	 * Returns the removed coffee maker registered under machineId, or
+	 * null if there is no such machine.
+	 * @param machineId
+	 * @return CoffeeMaker
+	 */
+	public synchronized CoffeeMaker removeMachine(String machineId) {
+		CoffeeMaker machine = machineId == null ? null : machines.remove(machineId);
+		if (machine != null) {
+			members = null;
+		}
+		return machine;
+	}
+
+	/**
+	 * Returns the machines as of the last change.  They are copied
+	 * once after every add or remove, on the first call.
+	 * @return Members
+	 */
+	Members members() {
+		Members members = this.members;
+		if (members != null) {
+			return members;
+		}
+		synchronized (this) {
+			if (this.members == null) {
+				String[] ids = new String[machines.size()];
+				CoffeeMaker[] list = new CoffeeMaker[ids.length];
+				int i = 0;
+				for (Map.Entry<String, CoffeeMaker> e : machines.entrySet()) {
+					ids[i] = e.getKey();
+					list[i++] = e.getValue();
+				}
+				this.members = new Members(ids, list);
+			}
+			return this.members;
+		}
+	}
+
+	/**
+	 * Returns a count that goes up whenever a machine in the fleet
+	 * is restocked, has stock given back or has its recipes changed,
+	 * so a recipe no machine could make may have become available.
+	 * Adding or removing a machine replaces the members instead.
+	 * @return long
+	 */
+	long changes() {
+		return changes.get();
+	}
+
+	/**
+	 * Returns the ids of the machines in the fleet.
+	 * @return Set
+	 */
+	public Set<String> getMachineIds() {
+		return machines.keySet();
+	}
+
+	/**
+	 * Returns the number of machines in the fleet.
+	 * @return int
+	 */
+	public int size() {
+		return machines.size();
+	}
+
+	/**
+	 * Returns the maximum number of machines in the fleet.
+	 * @return int
+	 */
+	public int getMaxMachines() {
+		return maxMachines;
+	}
+}
@@ -0,0 +1,383 @@
+package coffee;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for one coffee maker: the outcome of every purchase, overall
+ * and by recipe, the units of each ingredient used and restocked, and a
+ * histogram of how long callers waited for the coffee maker's locks.
+ *
+ * Events are counted in LongAdders, which stripe themselves across
+ * cells once threads contend.  A purchase increments a single counter
+ * of its recipe: units used are not counted per ingredient but worked
+ * out when read, from the beverages made of each version of each
+ * recipe.  A recipe's counters are found by name and its version by
+ * amounts, so recording only allocates or locks when a recipe is first
+ * made or the amounts of its ingredients have been edited; other edits
+ * and changes to the rest of the book keep it on the fast path.  Lock
+ * waits go to a histogram whose stripes are allocated on first use.
+ * Everything is read on demand, through the getters
+ * or over JMX once registered.
+ */
+public class CoffeeMakerMetrics implements CoffeeMakerMetricsMBean {
+	private static final PurchaseOutcome[] OUTCOMES = PurchaseOutcome.values();
+
+	private final IngredientRegistry ingredients;
+	/** System.nanoTime() when the metrics were created */
+	private final long started;
+	/** Purchases without a recipe by outcome ordinal */
+	private final LongAdder[] outcomes;
+	/** Purchases by recipe name */
+	private final ConcurrentMap<String, RecipeCounters> recipes;
+	/** Units restocked by ingredient id; replaced, never changed, when an ingredient is added */
+	private volatile LongAdder[] restocked;
+	private final LatencyHistogram lockWait;
+
+	/**
+	 * Purchases of the recipes with one name.  Beverages made are
+	 * counted apart for each version of the recipe, since an edit can
+	 * change the amounts of its ingredients.
+	 */
+	private static final class RecipeCounters {
+		/** Purchases that were not made, by outcome ordinal */
+		final LongAdder[] outcomes = newAdders(OUTCOMES.length);
+		/** Every version made so far; the last one is the current one */
+		volatile RecipeVersion[] versions = new RecipeVersion[0];
+
+		/**
+		 * Returns the counter of beverages made of the recipe,
+		 * usually the one of the current version, which is the
+		 * right one whenever the recipe has the same amounts.
+		 */
+		LongAdder made(CompactRecipe recipe) {
+			RecipeVersion[] versions = this.versions;
+			int last = versions.length - 1;
+			if (last >= 0) {
+				RecipeVersion current = versions[last];
+				if (current.recipe == recipe || Arrays.equals(current.recipe.amounts, recipe.amounts)) {
+					return current.made;
+				}
+			}
+			return version(recipe);
+		}
+
+		/**
+		 * Makes the version with the recipe's amounts the current one,
+		 * adding it if there is none yet.
+		 */
+		private synchronized LongAdder version(CompactRecipe recipe) {
+			RecipeVersion[] versions = this.versions;
+			RecipeVersion version = null;
+			RecipeVersion[] reordered = new RecipeVersion[versions.length + 1];
+			int n = 0;
+			for (RecipeVersion v : versions) {
+				if (version == null && Arrays.equals(v.recipe.amounts, recipe.amounts)) {
+					version = v;
+				} else {
+					reordered[n++] = v;
+				}
+			}
+			if (version == null) {
+				version = new RecipeVersion();
+			}
+			version.recipe = recipe;
+			reordered[n++] = version;
+			this.versions = Arrays.copyOf(reordered, n);
+			return version.made;
+		}
+	}
+
+	/**
+	 * Beverages made of one version of a recipe.
+	 */
+	private static final class RecipeVersion {
+		/** Latest recipe seen with these amounts */
+		volatile CompactRecipe recipe;
+		final LongAdder made = new LongAdder();
+	}
+
+	/**
+	 * Creates metrics for a coffee maker whose inventory holds
+	 * the ingredients in the registry.
+	 * @param ingredients
+	 */
+	public CoffeeMakerMetrics(IngredientRegistry ingredients) {
+		this.ingredients = ingredients;
+		this.started = System.nanoTime();
+		this.outcomes = newAdders(OUTCOMES.length);
+		this.recipes = new ConcurrentHashMap<>();
+		this.restocked = newAdders(ingredients.size());
+		this.lockWait = new LatencyHistogram();
+	}
+
+	/**
+	 * Records a purchase of the recipe, which is null if there is
+	 * no such recipe, and the ingredients it used if it succeeded.
+	 * @param recipe
+	 * @param outcome
+	 */
+	void recordPurchase(CompactRecipe recipe, PurchaseOutcome outcome) {
+		if (recipe == null) {
+			outcomes[outcome.ordinal()].increment();
+			return;
+		}
+		RecipeCounters counters = recipes.get(recipe.getName());
+		if (counters == null) {
+			counters = recipes.computeIfAbsent(recipe.getName(), name -> new RecipeCounters());
+		}
+		if (outcome.isSuccess()) {
+			counters.made(recipe).increment();
+		} else {
+			counters.outcomes[outcome.ordinal()].increment();
+		}
+	}
+
+	/**
+	 * Records units added to the inventory, by ingredient id.
+	 * @param units
+	 */
+	void recordRestock(int[] units) {
+		LongAdder[] restocked = restocked(units.length);
+		for (int id = 0; id < units.length; id++) {
+			if (units[id] != 0) {
+				restocked[id].add(units[id]);
+			}
+		}
+	}
+
+	/**
+	 * Records how long a caller waited for a lock.
+	 * @param nanos
+	 */
+	void recordLockWait(long nanos) {
+		lockWait.record(nanos);
+	}
+
+	/**
+	 * Returns the number of purchases with the given outcome.
+	 * @param outcome
+	 * @return long
+	 */
+	public long getOutcomeCount(PurchaseOutcome outcome) {
+		long count = outcomes[outcome.ordinal()].sum();
+		for (RecipeCounters counters : recipes.values()) {
+			count += count(counters, outcome);
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of purchases of the named recipe with
+	 * the given outcome.
+	 * @param recipe
+	 * @param outcome
+	 * @return long
+	 */
+	public long getOutcomeCount(String recipe, PurchaseOutcome outcome) {
+		RecipeCounters counters = recipes.get(recipe);
+		return counters == null ? 0 : count(counters, outcome);
+	}
+
+	@Override
+	public long getOutcomeCount(String recipe, String outcome) {
+		return getOutcomeCount(recipe, PurchaseOutcome.valueOf(outcome));
+	}
+
+	/**
+	 * Returns the units of the ingredient used to make beverages.
+	 * @param ingredient
+	 * @return long
+	 */
+	public long getUnitsUsed(Ingredient ingredient) {
+		long[] used = getUnitsUsed();
+		int id = ingredient.getId();
+		return id < used.length ? used[id] : 0;
+	}
+
+	/**
+	 * Returns the units of the ingredient added to the inventory.
+	 * @param ingredient
+	 * @return long
+	 */
+	public long getUnitsRestocked(Ingredient ingredient) {
+		return sum(restocked, ingredient.getId());
+	}
+
+	/**
+	 * Returns the average units of the ingredient used per second
+	 * since the metrics were created.
+	 * @param ingredient
+	 * @return double
+	 */
+	public double getDepletionRate(Ingredient ingredient) {
+		return getUnitsUsed(ingredient) / elapsedSeconds();
+	}
+
+	/**
+	 * Returns the histogram of waits for the coffee maker's locks.
+	 * @return LatencyHistogram
+	 */
+	public LatencyHistogram getLockWait() {
+		return lockWait;
+	}
+
+	@Override
+	public long getBrews() {
+		return getOutcomeCount(PurchaseOutcome.SUCCESS);
+	}
+
+	@Override
+	public long getInsufficientFunds() {
+		return getOutcomeCount(PurchaseOutcome.INSUFFICIENT_FUNDS);
+	}
+
+	@Override
+	public long getInsufficientInventory() {
+		return getOutcomeCount(PurchaseOutcome.INSUFFICIENT_INVENTORY);
+	}
+
+	@Override
+	public long getNoSuchRecipe() {
+		return getOutcomeCount(PurchaseOutcome.NO_SUCH_RECIPE);
+	}
+
+	@Override
+	public long getNotAttempted() {
+		return getOutcomeCount(PurchaseOutcome.NOT_ATTEMPTED);
+	}
+
+	@Override
+	public long getLockWaits() {
+		return lockWait.getCount();
+	}
+
+	@Override
+	public long getLockWaitP50Nanos() {
+		return lockWait.getValueAtPercentile(50);
+	}
+
+	@Override
+	public long getLockWaitP99Nanos() {
+		return lockWait.getValueAtPercentile(99);
+	}
+
+	@Override
+	public long getLockWaitMaxNanos() {
+		return lockWait.getMax();
+	}
+
+	@Override
+	public String[] getIngredientNames() {
+		Ingredient[] all = ingredients.ingredients();
+		String[] names = new String[all.length];
+		for (int id = 0; id < all.length; id++) {
+			names[id] = all[id].getName();
+		}
+		return names;
+	}
+
+	@Override
+	public long[] getUnitsUsed() {
+		long[] used = new long[ingredients.size()];
+		for (RecipeCounters counters : recipes.values()) {
+			for (RecipeVersion version : counters.versions) {
+				long made = version.made.sum();
+				int[] amounts = version.recipe.amounts;
+				for (int id = 0; id < Math.min(amounts.length, used.length); id++) {
+					used[id] += made * amounts[id];
+				}
+			}
+		}
+		return used;
+	}
+
+	@Override
+	public long[] getUnitsRestocked() {
+		LongAdder[] restocked = this.restocked;
+		long[] sums = new long[ingredients.size()];
+		for (int id = 0; id < sums.length; id++) {
+			sums[id] = sum(restocked, id);
+		}
+		return sums;
+	}
+
+	@Override
+	public double[] getDepletionRates() {
+		long[] units = getUnitsUsed();
+		double seconds = elapsedSeconds();
+		double[] rates = new double[units.length];
+		for (int id = 0; id < units.length; id++) {
+			rates[id] = units[id] / seconds;
+		}
+		return rates;
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server under
+	 * coffee:type=CoffeeMakerMetrics,name=name and returns the
+	 * object name, which is needed to unregister them.
+	 * @param name
+	 * @return ObjectName
+	 * @throws JMException if the name is taken or not valid
+	 */
+	public ObjectName register(String name) throws JMException {
+		ObjectName objectName = new ObjectName("coffee:type=CoffeeMakerMetrics,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		return objectName;
+	}
+
+	private double elapsedSeconds() {
+		return Math.max(1, System.nanoTime() - started) / 1e9;
+	}
+
+	private static long count(RecipeCounters counters, PurchaseOutcome outcome) {
+		if (!outcome.isSuccess()) {
+			return counters.outcomes[outcome.ordinal()].sum();
+		}
+		long made = 0;
+		for (RecipeVersion version : counters.versions) {
+			made += version.made.sum();
+		}
+		return made;
+	}
+
+	/**
+	 * Returns the restocked counters, grown to hold at
+	 * least length ingredients.
+	 */
+	private LongAdder[] restocked(int length) {
+		LongAdder[] current = restocked;
+		if (current.length >= length) {
+			return current;
+		}
+		synchronized (this) {
+			restocked = grow(restocked, Math.max(length, ingredients.size()));
+			return restocked;
+		}
+	}
+
+	private static LongAdder[] grow(LongAdder[] adders, int length) {
+		if (adders.length >= length) {
+			return adders;
+		}
+		LongAdder[] grown = Arrays.copyOf(adders, length);
+		for (int i = adders.length; i < length; i++) {
+			grown[i] = new LongAdder();
+		}
+		return grown;
+	}
+
+	private static LongAdder[] newAdders(int length) {
+		return grow(new LongAdder[0], length);
+	}
+
+	private static long sum(LongAdder[] adders, int id) {
+		return id < adders.length ? adders[id].sum() : 0;
+	}
+}
@@ -0,0 +1,82 @@
+package coffee;
+
+/**
+ * JMX view of CoffeeMakerMetrics.  Ingredient arrays are indexed by
+ * ingredient id, in the order of getIngredientNames().
+ */
+public interface CoffeeMakerMetricsMBean {
+
+	/**
+	 * @return   Returns the number of beverages made.
+	 */
+	long getBrews();
+
+	/**
+	 * @return   Returns the number of purchases refused for insufficient funds.
+	 */
+	long getInsufficientFunds();
+
+	/**
+	 * @return   Returns the number of purchases refused for insufficient inventory.
+	 */
+	long getInsufficientInventory();
+
+	/**
+	 * @return   Returns the number of purchases of a recipe that does not exist.
+	 */
+	long getNoSuchRecipe();
+
+	/**
+	 * @return   Returns the number of batch orders not tried after an earlier failure.
+	 */
+	long getNotAttempted();
+
+	/**
+	 * Returns the number of purchases of the named recipe with
+	 * the named PurchaseOutcome.
+	 * @param recipe
+	 * @param outcome
+	 * @return long
+	 */
+	long getOutcomeCount(String recipe, String outcome);
+
+	/**
+	 * @return   Returns the number of times the coffee maker's locks were taken.
+	 */
+	long getLockWaits();
+
+	/**
+	 * @return   Returns the median wait for the coffee maker's locks in nanoseconds.
+	 */
+	long getLockWaitP50Nanos();
+
+	/**
+	 * @return   Returns the 99th percentile wait for the coffee maker's locks in nanoseconds.
+	 */
+	long getLockWaitP99Nanos();
+
+	/**
+	 * @return   Returns the longest wait for the coffee maker's locks in nanoseconds.
+	 */
+	long getLockWaitMaxNanos();
+
+	/**
+	 * @return   Returns the names of the ingredients, by id.
+	 */
+	String[] getIngredientNames();
+
+	/**
+	 * @return   Returns the units of each ingredient used to make beverages.
+	 */
+	long[] getUnitsUsed();
+
+	/**
+	 * @return   Returns the units of each ingredient added to the inventory.
+	 */
+	long[] getUnitsRestocked();
+
+	/**
+	 * @return   Returns the units of each ingredient used per second.
+	 */
+	double[] getDepletionRates();
+}
@@ -0,0 +1,118 @@
+package coffee;
+
+/**
+ * Immutable copy of a validated Recipe for the brew path.
+ *
+ * The ingredient amounts sit in one small int array indexed by
+ * ingredient id, so an Inventory can check and deduct them in a loop
+ * without getter calls or validating them again.  Two compact
+ * recipes are equal when their names are, as with Recipe.
+ */
+public final class CompactRecipe {
+	private final String name;
+	private final int price;
+	/** Units of each ingredient by id; read directly by Inventory, never changed */
+	final int[] amounts;
+
+	private CompactRecipe(String name, int price, int[] amounts) {
+		this.name = name;
+		this.price = price;
+		this.amounts = amounts;
+	}
+
+	/**
+	 * Returns a compact copy of the recipe, or null if r is null.
+	 * Later changes to r do not show up in the copy.
+	 * @param r
+	 * @return CompactRecipe
+	 */
+	public static CompactRecipe of(Recipe r) {
+		if (r == null) {
+			return null;
+		}
+		return new CompactRecipe(r.getName(), r.getPrice(), r.amounts().clone());
+	}
+
+	/**
+	 * Returns a new Recipe with the same name, price and amounts.
+	 * @return Recipe
+	 */
+	public Recipe toRecipe() {
+		return new Recipe(name, price, amounts.clone());
+	}
+
+	/**
+	 * @return   Returns the name.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return   Returns the price.
+	 */
+	public int getPrice() {
+		return price;
+	}
+
+	/**
+	 * Returns the units of the ingredient in the recipe.
+	 * @param ingredient
+	 * @return int
+	 */
+	public int getAmount(Ingredient ingredient) {
+		int id = ingredient.getId();
+		return id < amounts.length ? amounts[id] : 0;
+	}
+
+	/**
+	 * @return   Returns the amtCoffee.
+	 */
+	public int getAmtCoffee() {
+		return getAmount(Ingredient.COFFEE);
+	}
+
+	/**
+	 * @return   Returns the amtMilk.
+	 */
+	public int getAmtMilk() {
+		return getAmount(Ingredient.MILK);
+	}
+
+	/**
+	 * @return   Returns the amtSugar.
+	 */
+	public int getAmtSugar() {
+		return getAmount(Ingredient.SUGAR);
+	}
+
+	/**
+	 * @return   Returns the amtChocolate.
+	 */
+	public int getAmtChocolate() {
+		return getAmount(Ingredient.CHOCOLATE);
+	}
+
+	/**
+	 * Returns the name of the recipe.
+	 * @return String
+	 */
+	public String toString() {
+		return name;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 + ((name == null) ? 0 : name.hashCode());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		final CompactRecipe other = (CompactRecipe) obj;
+		return name == null ? other.name == null : name.equals(other.name);
+	}
+}
@@ -0,0 +1,311 @@
+package coffee;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Forecasts how fast each ingredient of an Inventory is being used and
+ * when it will run out, and warns before it does.
+ *
+ * The forecaster listens to every beverage made from the inventory and
+ * keeps, for each ingredient, the units used so far with older uses
+ * decayed exponentially, so a use one half-life ago counts half as much
+ * as one now.  The decayed units divided by the decay's time constant
+ * are the current rate of use, and the units in stock divided by that
+ * rate are the time left until the ingredient runs out.
+ *
+ * Rather than decaying every total on every use, uses are weighted up
+ * by how long after a base time they happened, so one Math.exp per
+ * beverage serves every ingredient in it.  The totals and the base time
+ * are held in an epoch, and each total is added to with compare-and-set
+ * on its own, so brewers on an AtomicInventory never wait for each other
+ * here.  Now and then, before the weights grow too large for a double or
+ * when more ingredients are used, a new epoch is published and the totals
+ * are moved into it one at a time; a use that finds its total moved adds
+ * itself again to the new epoch.  The state is one number per
+ * ingredient, however long the forecaster runs.
+ *
+ * Once the time left for an ingredient drops to the warning time, the
+ * low-stock listener is called once; it is called again only after a
+ * restock has pushed the time left back above the warning time.
+ */
+public final class DemandForecaster implements InventoryListener, AutoCloseable {
+
+	/**
+	 * Called when an ingredient is forecast to run out within the
+	 * warning time.  It runs on the brewing thread, so it must be quick.
+	 */
+	@FunctionalInterface
+	public interface LowStockListener {
+		/**
+		 * @param ingredient ingredient running low
+		 * @param units units of it left in stock
+		 * @param nanosToEmpty forecast time until it runs out
+		 */
+		void lowStock(Ingredient ingredient, int units, long nanosToEmpty);
+	}
+
+	/** Largest exponent of a weight before the base time is moved up; e^40 is about 2.4e17 */
+	private static final double MAX_WEIGHT_EXPONENT = 40;
+	/** Bits of a total moved to a later epoch, a NaN no sum of uses gives */
+	private static final long MOVED = 0x7ff8deadL << 32;
+	/** Warning states: listener not called, listener called, moved to a later epoch */
+	private static final int ARMED = 0, WARNED = 1, MOVED_WARNING = -1;
+
+	private final Inventory inventory;
+	/** Time constant of the decay in nanoseconds, the half-life over ln 2 */
+	private final double tau;
+	private final long warningNanos;
+	/** Warning time over tau, so a use can check for low stock without dividing */
+	private final double warningOverTau;
+	private final LowStockListener listener;
+	private final LongSupplier clock;
+
+	/** Totals of the uses so far; replaced, never changed back */
+	private final AtomicReference<Epoch> epoch;
+
+	/**
+	 * Totals of the uses so far relative to one base time.
+	 */
+	private static final class Epoch {
+		/** Clock time the weights are relative to */
+		final long base;
+		/** Decayed units used as of base, weighted up by e^((t - base) / tau), as double bits by ingredient id */
+		final AtomicLongArray weightedUnits;
+		/** Warning state by ingredient id */
+		final AtomicIntegerArray warned;
+
+		Epoch(long base, int length) {
+			this.base = base;
+			this.weightedUnits = new AtomicLongArray(length);
+			this.warned = new AtomicIntegerArray(length);
+		}
+	}
+
+	/**
+	 * Creates a forecaster for the inventory and starts listening to it.
+	 * Uses further back than a few half-lives barely count, and a new
+	 * forecaster needs about one half-life of uses to settle.
+	 * @param inventory
+	 * @param halfLife
+	 * @param warning time to empty at which to warn
+	 * @param unit unit of halfLife and warning
+	 * @param listener
+	 * @throws IllegalArgumentException if halfLife is not positive or warning is negative
+	 */
+	public DemandForecaster(Inventory inventory, long halfLife, long warning, TimeUnit unit, LowStockListener listener) {
+		this(inventory, unit.toNanos(halfLife), unit.toNanos(warning), listener, System::nanoTime);
+	}
+
+	/**
+	 * Creates a forecaster reading time from clock, in nanoseconds.
+	 */
+	DemandForecaster(Inventory inventory, long halfLifeNanos, long warningNanos, LowStockListener listener, LongSupplier clock) {
+		if (halfLifeNanos <= 0) {
+			throw new IllegalArgumentException("Half-life must be positive");
+		}
+		if (warningNanos < 0) {
+			throw new IllegalArgumentException("Warning time must not be negative");
+		}
+		this.inventory = inventory;
+		this.tau = halfLifeNanos / Math.log(2);
+		this.warningNanos = warningNanos;
+		this.warningOverTau = warningNanos / tau;
+		this.listener = listener;
+		this.clock = clock;
+		this.epoch = new AtomicReference<>(new Epoch(clock.getAsLong(), inventory.getIngredients().size()));
+		inventory.addListener(this);
+	}
+
+	@Override
+	public void ingredientsUsed(Inventory inventory, int[] amounts) {
+		long now = clock.getAsLong();
+		Epoch epoch = epoch(now, amounts.length);
+		double weight = weight(epoch, now);
+		for (int id = 0; id < amounts.length; id++) {
+			if (amounts[id] <= 0) {
+				continue;
+			}
+			double weightedUnits;
+			while (Double.isNaN(weightedUnits = add(epoch.weightedUnits, id, amounts[id] * weight))) {
+				epoch = epoch(now, amounts.length);
+				weight = weight(epoch, now);
+			}
+			//Time to empty is units / (weightedUnits / weight / tau), so it is within
+			//the warning time when units * weight <= weightedUnits * warning / tau
+			int units = inventory.units(id);
+			if (units * weight <= weightedUnits * warningOverTau && swapWarning(id, ARMED, WARNED)) {
+				listener.lowStock(inventory.getIngredients().get(id), units, nanosToEmpty(weightedUnits / weight / tau, units));
+			}
+		}
+	}
+
+	@Override
+	public void stockChanged(Inventory inventory) {
+		long now = clock.getAsLong();
+		int length = epoch.get().warned.length();
+		for (int id = 0; id < length; id++) {
+			if (warning(id) == WARNED && nanosToEmpty(rate(id, now), inventory.units(id)) > warningNanos) {
+				swapWarning(id, WARNED, ARMED);
+			}
+		}
+	}
+
+	/**
+	 * Returns the units of the ingredient being used per given
+	 * unit of time.
+	 * @param ingredient
+	 * @param unit
+	 * @return double
+	 */
+	public double getRate(Ingredient ingredient, TimeUnit unit) {
+		return rate(ingredient.getId(), clock.getAsLong()) * unit.toNanos(1);
+	}
+
+	/**
+	 * Returns the time until the ingredient runs out at the
+	 * current rate, or Long.MAX_VALUE if it is not being used.
+	 * @param ingredient
+	 * @param unit
+	 * @return long
+	 */
+	public long getTimeToEmpty(Ingredient ingredient, TimeUnit unit) {
+		long nanos = nanosToEmpty(rate(ingredient.getId(), clock.getAsLong()), inventory.getUnits(ingredient));
+		return nanos == Long.MAX_VALUE ? Long.MAX_VALUE : unit.convert(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Stops listening to the inventory.
+	 */
+	@Override
+	public void close() {
+		inventory.removeListener(this);
+	}
+
+	/**
+	 * Returns the weight of a use at time now in epoch,
+	 * e^((now - base) / tau).
+	 */
+	private double weight(Epoch epoch, long now) {
+		return Math.exp((now - epoch.base) / tau);
+	}
+
+	/**
+	 * Returns the epoch to add uses of length ingredients at time now
+	 * to, first publishing a new one if the weights of the current one
+	 * have grown past MAX_WEIGHT_EXPONENT or it is too short.
+	 */
+	private Epoch epoch(long now, int length) {
+		while (true) {
+			Epoch current = epoch.get();
+			boolean heavy = (now - current.base) / tau > MAX_WEIGHT_EXPONENT;
+			if (!heavy && current.weightedUnits.length() >= length) {
+				return current;
+			}
+			length = Math.max(Math.max(length, current.weightedUnits.length()), inventory.getIngredients().size());
+			Epoch next = new Epoch(heavy ? now : current.base, length);
+			if (epoch.compareAndSet(current, next)) {
+				move(current);
+				return next;
+			}
+		}
+	}
+
+	/**
+	 * Moves every total and warning of an epoch that has been replaced
+	 * into the current epoch, marking each moved as it goes.
+	 */
+	private void move(Epoch from) {
+		for (int id = 0; id < from.weightedUnits.length(); id++) {
+			double units = Double.longBitsToDouble(from.weightedUnits.getAndSet(id, MOVED));
+			Epoch to;
+			do {
+				to = epoch.get();
+			} while (Double.isNaN(add(to.weightedUnits, id, units * Math.exp((from.base - to.base) / tau))));
+			if (from.warned.getAndSet(id, MOVED_WARNING) == WARNED) {
+				swapWarning(id, ARMED, WARNED);
+			}
+		}
+	}
+
+	/**
+	 * Adds units to the total of ingredient id in weightedUnits and
+	 * returns the new total, or NaN if the total has been moved.
+	 */
+	private static double add(AtomicLongArray weightedUnits, int id, double units) {
+		while (true) {
+			long bits = weightedUnits.get(id);
+			if (bits == MOVED) {
+				return Double.NaN;
+			}
+			double sum = Double.longBitsToDouble(bits) + units;
+			if (weightedUnits.compareAndSet(id, bits, Double.doubleToRawLongBits(sum))) {
+				return sum;
+			}
+		}
+	}
+
+	/**
+	 * Returns the warning state of ingredient id in the current epoch.
+	 */
+	private int warning(int id) {
+		while (true) {
+			AtomicIntegerArray warned = epoch.get().warned;
+			int state = id < warned.length() ? warned.get(id) : ARMED;
+			if (state != MOVED_WARNING) {
+				return state;
+			}
+		}
+	}
+
+	/**
+	 * Sets the warning state of ingredient id in the current epoch from
+	 * expected to state, and returns true if this call set it.
+	 */
+	private boolean swapWarning(int id, int expected, int state) {
+		while (true) {
+			AtomicIntegerArray warned = epoch.get().warned;
+			if (id >= warned.length()) {
+				return false;
+			}
+			int current = warned.get(id);
+			if (current == MOVED_WARNING) {
+				continue;
+			}
+			if (current != expected) {
+				return false;
+			}
+			if (warned.compareAndSet(id, expected, state)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Returns the units of ingredient id used per nanosecond at time
+	 * now.
+	 */
+	private double rate(int id, long now) {
+		while (true) {
+			Epoch epoch = this.epoch.get();
+			if (id >= epoch.weightedUnits.length()) {
+				return 0;
+			}
+			long bits = epoch.weightedUnits.get(id);
+			if (bits != MOVED) {
+				return Double.longBitsToDouble(bits) / weight(epoch, now) / tau;
+			}
+		}
+	}
+
+	private long nanosToEmpty(double rate, int units) {
+		if (rate <= 0) {
+			return Long.MAX_VALUE;
+		}
+		//Converting to long saturates at Long.MAX_VALUE
+		return (long) (Math.max(0, units) / rate);
+	}
+}
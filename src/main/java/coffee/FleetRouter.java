@@ -0,0 +1,168 @@
+package coffee;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Places orders on machines of a CoffeeMakerFleet that have the recipe
+ * and the stock to make it, so a customer is not sent away from an
+ * empty machine.
+ *
+ * Machines are picked by the power of two choices: two machines are
+ * drawn at random and, if both can make the recipe, the one that can
+ * make more servings of it gets the order.  Whether a machine can make
+ * a recipe is read from its MenuAvailability, which every brew and
+ * restock brings up to date on the thread that made it, so reading it
+ * takes no lock and no inventory is scanned, and routing costs the
+ * same however large the fleet is.  Only the two machines drawn have
+ * their stock read, to count servings.  If no machine drawn in
+ * SAMPLES draws can make the recipe, the fleet is scanned, so an order
+ * is only refused when no machine can take it.  A scan that finds no
+ * machine is remembered for the recipe until a machine is restocked,
+ * has its recipes changed or is added or removed, so orders for a
+ * recipe that is sold out everywhere are refused without scanning
+ * the fleet again each time.
+ *
+ * Availability can run out between picking a machine and brewing on
+ * it, so makeCoffee routes again when a brew fails for lack of stock.
+ */
+public final class FleetRouter {
+	/** Pairs of machines drawn before the fleet is scanned */
+	private static final int SAMPLES = 4;
+	/** Machines an order is tried on before it is refused */
+	private static final int ATTEMPTS = 3;
+	/** Returned by choose when no machine has the recipe */
+	private static final int NO_RECIPE = -1;
+	/** Returned by choose when machines have the recipe but not the stock */
+	private static final int NO_STOCK = -2;
+	/** Most recipes remembered as unavailable before they are all forgotten */
+	private static final int MAX_UNAVAILABLE = 1024;
+
+	private final CoffeeMakerFleet fleet;
+	/** Recipes no machine could make when the fleet was last scanned, by name */
+	private final ConcurrentHashMap<String, Unavailable> unavailable = new ConcurrentHashMap<>();
+
+	/**
+	 * Result of a scan that found no machine for a recipe, which
+	 * holds while the members and changes of the fleet are the same.
+	 */
+	private static final class Unavailable {
+		final CoffeeMakerFleet.Members members;
+		final long changes;
+		final int result;
+
+		Unavailable(CoffeeMakerFleet.Members members, long changes, int result) {
+			this.members = members;
+			this.changes = changes;
+			this.result = result;
+		}
+	}
+
+	/**
+	 * Creates a router over the machines of the fleet, including
+	 * ones added later.
+	 * @param fleet
+	 */
+	public FleetRouter(CoffeeMakerFleet fleet) {
+		this.fleet = fleet;
+	}
+
+	/**
+	 * Returns the id of a machine that can make the recipe with the
+	 * given name, or null if there is none.
+	 * @param recipeName
+	 * @return String
+	 */
+	public String route(String recipeName) {
+		CoffeeMakerFleet.Members members = fleet.members();
+		int machine = choose(members, recipeName);
+		return machine < 0 ? null : members.ids[machine];
+	}
+
+	/**
+	 * Buys the beverage with the given name on a machine that can
+	 * make it, fills in purchase and returns the id of the machine,
+	 * even if the payment fell short of its price, or null if no
+	 * machine could make it.  The outcome is then
+	 * NO_SUCH_RECIPE if no machine has the recipe and
+	 * INSUFFICIENT_INVENTORY if none has the stock, and the whole
+	 * payment is handed back.
+	 * @param recipeName
+	 * @param amtPaid
+	 * @param purchase
+	 * @return String
+	 */
+	public String makeCoffee(String recipeName, int amtPaid, Purchase purchase) {
+		int machine = NO_RECIPE;
+		for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+			CoffeeMakerFleet.Members members = fleet.members();
+			machine = choose(members, recipeName);
+			if (machine < 0) {
+				break;
+			}
+			PurchaseOutcome outcome = members.machines[machine].makeCoffee(recipeName, amtPaid, purchase);
+			if (outcome != PurchaseOutcome.INSUFFICIENT_INVENTORY && outcome != PurchaseOutcome.NO_SUCH_RECIPE) {
+				return members.ids[machine];
+			}
+			//The stock ran out or the recipe went away since it was read
+			machine = NO_STOCK;
+		}
+		purchase.set(machine == NO_RECIPE ? PurchaseOutcome.NO_SUCH_RECIPE : PurchaseOutcome.INSUFFICIENT_INVENTORY,
+				null, amtPaid);
+		return null;
+	}
+
+	/**
+	 * Returns the index of a machine that can make the recipe,
+	 * NO_RECIPE or NO_STOCK.
+	 */
+	private int choose(CoffeeMakerFleet.Members members, String recipeName) {
+		CoffeeMaker[] machines = members.machines;
+		if (machines.length == 0 || recipeName == null) {
+			return NO_RECIPE;
+		}
+		//Read before the machines, so a restock during the scan is not missed
+		long changes = fleet.changes();
+		Unavailable none = unavailable.get(recipeName);
+		if (none != null && none.members == members && none.changes == changes) {
+			return none.result;
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int i = 0; i < SAMPLES; i++) {
+			int a = random.nextInt(machines.length);
+			int b = random.nextInt(machines.length);
+			int servingsA = machines[a].getAvailability().servings(recipeName);
+			int servingsB = a == b ? 0 : machines[b].getAvailability().servings(recipeName);
+			if (servingsA > 0 || servingsB > 0) {
+				return servingsA >= servingsB ? a : b;
+			}
+		}
+		int machine = scan(machines, recipeName, random.nextInt(machines.length));
+		if (machine < 0) {
+			if (unavailable.size() >= MAX_UNAVAILABLE) {
+				unavailable.clear();
+			}
+			unavailable.put(recipeName, new Unavailable(members, changes, machine));
+		}
+		return machine;
+	}
+
+	/**
+	 * Returns the first machine from start on, wrapping around, that
+	 * can make the recipe, NO_RECIPE or NO_STOCK.
+	 */
+	private static int scan(CoffeeMaker[] machines, String recipeName, int start) {
+		int result = NO_RECIPE;
+		for (int i = 0; i < machines.length; i++) {
+			int machine = (start + i) % machines.length;
+			int servings = machines[machine].getAvailability().servings(recipeName);
+			if (servings > 0) {
+				return machine;
+			}
+			if (servings == 0) {
+				result = NO_STOCK;
+			}
+		}
+		return result;
+	}
+}
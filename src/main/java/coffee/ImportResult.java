@@ -0,0 +1,95 @@
+package coffee;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Outcome of importing a recipe catalog with a RecipeImporter: the
+ * number of recipes added and, for every record that was not, the
+ * line it started on and why.
+ */
+public final class ImportResult {
+	private int added;
+	private final List<RowError> errors = new ArrayList<>();
+
+	/**
+	 * A record of the catalog that was not added.
+	 */
+	public static final class RowError {
+		private final int line;
+		private final String message;
+
+		RowError(int line, String message) {
+			this.line = line;
+			this.message = message;
+		}
+
+		/**
+		 * @return   Returns the line the record started on, counting from 1.
+		 */
+		public int getLine() {
+			return line;
+		}
+
+		/**
+		 * @return   Returns why the record was not added.
+		 */
+		public String getMessage() {
+			return message;
+		}
+
+		/**
+		 * Returns the line and message.
+		 * @return String
+		 */
+		public String toString() {
+			return "Line " + line + ": " + message;
+		}
+	}
+
+	void added(int count) {
+		added += count;
+	}
+
+	void error(int line, String message) {
+		errors.add(new RowError(line, message));
+	}
+
+	/**
+	 * Puts the errors in line order; records the book did not take
+	 * are reported when their batch is added, after later records.
+	 */
+	void sort() {
+		errors.sort(Comparator.comparingInt(RowError::getLine));
+	}
+
+	/**
+	 * @return   Returns the number of recipes added to the recipe book.
+	 */
+	public int getAdded() {
+		return added;
+	}
+
+	/**
+	 * Returns the records that were not added, in the order
+	 * they were read.
+	 * @return List of RowError
+	 */
+	public List<RowError> getErrors() {
+		return Collections.unmodifiableList(errors);
+	}
+
+	/**
+	 * Returns the number added and the errors, one per line.
+	 * @return String
+	 */
+	public String toString() {
+		StringBuilder buf = new StringBuilder().append(added).append(" recipes added\n");
+		for (RowError error : errors) {
+			buf.append(error).append('\n');
+		}
+		return buf.toString();
+	}
+}
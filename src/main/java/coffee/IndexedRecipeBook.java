@@ -0,0 +1,242 @@
+package coffee;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Recipe book without a fixed number of recipes, that finds
+ * recipes by name through a hash index instead of scanning.
+ *
+ * Every recipe gets an integer id when it is added.  The id is
+ * its position in getRecipes() and the recipe snapshot, and does
+ * not change until the recipe is deleted, after which the id may be
+ * handed out again.  Ids without a recipe hold null.
+ * Names are kept in a concurrent map from name to id, changed along
+ * with the recipes, and finding a recipe by name looks it up there
+ * without locking.  Each change publishes a new snapshot that copies
+ * only the chunk of RecipeSnapshot.CHUNK ids holding the recipe
+ * changed, plus one reference per chunk, so adding, deleting, editing
+ * and finding a recipe cost about the same however many recipes the
+ * book holds.  Add many recipes with addRecipes to publish once.
+ */
+public class IndexedRecipeBook extends RecipeBook {
+	/** Initial number of recipe slots */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** Recipe ids by name, shared with the snapshots the book publishes */
+	private final RecipeSnapshot.Index index;
+	/** Recipe ids by recipe name; changed only under the lock */
+	private final Map<String, Integer> ids;
+	/** Ids of deleted recipes, ready to be handed out again */
+	private int[] freeIds;
+	private int numFreeIds;
+	/** Lowest id that has never been handed out */
+	private int nextId;
+
+	/**
+	 * Default constructor for an IndexedRecipeBook.
+	 */
+	public IndexedRecipeBook() {
+		super(INITIAL_CAPACITY);
+		index = new RecipeSnapshot.Index();
+		ids = index.ids;
+		freeIds = new int[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Returns true if the recipe was added, and false if it is null
+	 * or a recipe with the same name is already in the book.
+	 * @param r
+	 * @return boolean
+	 */
+	@Override
+	public synchronized boolean addRecipe(Recipe r) {
+		if (r == null || ids.containsKey(r.getName())) {
+			return false;
+		}
+		beginChange();
+		int id = nextFreeId();
+		recipeArray[id] = r;
+		ids.put(r.getName(), id);
+		publish(id);
+		return true;
+	}
+
+	/**
+	 * Moves the index on to the next snapshot before the ids
+	 * change, so the snapshot still published stops trusting it.
+	 */
+	private void beginChange() {
+		index.version = getSnapshot().getVersion() + 1;
+	}
+
+	/**
+	 * Publishes the next snapshot, in which only the recipe
+	 * with the given id has changed.
+	 */
+	private void publish(int id) {
+		publish(getSnapshot().with(recipeArray, new int[] {id}, 1, index));
+	}
+
+	/**
+	 * Returns the id for the next recipe, growing the array
+	 * if every id in it is taken.
+	 */
+	private int nextFreeId() {
+		if (numFreeIds > 0) {
+			return freeIds[--numFreeIds];
+		}
+		int id = nextId++;
+		if (id == recipeArray.length) {
+			recipeArray = Arrays.copyOf(recipeArray, recipeArray.length * 2);
+		}
+		return id;
+	}
+
+	/**
+	 * Adds the recipes in order and returns whether each one was
+	 * added, giving out ids as addRecipe does.  A recipe is not added
+	 * if it is null or a recipe with its name is already in the book
+	 * or earlier in recipes.  One snapshot is published for all the
+	 * recipes added.
+	 * @param recipes
+	 * @return boolean[]
+	 */
+	@Override
+	public synchronized boolean[] addRecipes(Recipe[] recipes) {
+		boolean[] added = new boolean[recipes.length];
+		int[] changed = new int[recipes.length];
+		int count = 0;
+		for (int i = 0; i < recipes.length; i++) {
+			Recipe r = recipes[i];
+			if (r == null || ids.containsKey(r.getName())) {
+				continue;
+			}
+			if (count == 0) {
+				beginChange();
+			}
+			int id = nextFreeId();
+			recipeArray[id] = r;
+			ids.put(r.getName(), id);
+			added[i] = true;
+			changed[count++] = id;
+		}
+		if (count > 0) {
+			publish(getSnapshot().with(recipeArray, changed, count, index));
+		}
+		return added;
+	}
+
+	/**
+	 * Returns the name of the recipe deleted with the id specified
+	 * and null if the recipe does not exist.
+	 * @param recipeToDelete
+	 * @return String
+	 */
+	@Override
+	public synchronized String deleteRecipe(int recipeToDelete) {
+		Recipe r = recipeArray[recipeToDelete];
+		if (r == null) {
+			return null;
+		}
+		beginChange();
+		recipeArray[recipeToDelete] = null;
+		ids.remove(r.getName());
+		if (numFreeIds == freeIds.length) {
+			freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+		}
+		freeIds[numFreeIds++] = recipeToDelete;
+		publish(recipeToDelete);
+		return r.getName();
+	}
+
+	/**
+	 * Returns the name of the recipe deleted and null if
+	 * there is no recipe with that name.
+	 * @param name
+	 * @return String
+	 */
+	public synchronized String deleteRecipe(String name) {
+		Integer id = name == null ? null : ids.get(name);
+		return id == null ? null : deleteRecipe(id);
+	}
+
+	/**
+	 * Returns the name of the recipe edited with the id specified
+	 * and null if the recipe does not exist.  The new recipe takes
+	 * over the name of the recipe it replaces, so its id and name
+	 * stay the same.
+	 * @param recipeToEdit
+	 * @param newRecipe
+	 * @return String
+	 */
+	@Override
+	public synchronized String editRecipe(int recipeToEdit, Recipe newRecipe) {
+		Recipe r = recipeArray[recipeToEdit];
+		if (r == null) {
+			return null;
+		}
+		newRecipe.setName(r.getName());
+		beginChange();
+		recipeArray[recipeToEdit] = newRecipe;
+		publish(recipeToEdit);
+		return r.getName();
+	}
+
+	/**
+	 * Replaces every recipe with the given ones, keeping their ids.
+	 * @param recipes
+	 */
+	@Override
+	synchronized void restore(Recipe[] recipes) {
+		beginChange();
+		recipeArray = Arrays.copyOf(recipes, Math.max(recipes.length, INITIAL_CAPACITY));
+		ids.clear();
+		nextId = 0;
+		numFreeIds = 0;
+		for (int id = 0; id < recipes.length; id++) {
+			if (recipes[id] != null) {
+				ids.put(recipes[id].getName(), id);
+				nextId = id + 1;
+			}
+		}
+		freeIds = new int[Math.max(nextId, INITIAL_CAPACITY)];
+		for (int id = nextId - 1; id >= 0; id--) {
+			if (recipeArray[id] == null) {
+				freeIds[numFreeIds++] = id;
+			}
+		}
+		publish(new RecipeSnapshot(getSnapshot().getVersion() + 1, recipeArray, getSnapshot(), index));
+	}
+
+	/**
+	 * Returns the recipe with the given name, or null if there is no
+	 * such recipe, as of the last change.  Never blocks, and costs
+	 * one lookup in the name index.
+	 * @param name
+	 * @return Recipe
+	 */
+	public Recipe getRecipe(String name) {
+		RecipeSnapshot recipes = getSnapshot();
+		int id = recipes.indexOf(name);
+		return id < 0 ? null : recipes.get(id);
+	}
+
+	/**
+	 * Returns the id of the recipe with the given name, or -1 if
+	 * there is no such recipe, as of the last change.  Never blocks.
+	 * @param name
+	 * @return int
+	 */
+	public int getRecipeId(String name) {
+		return getSnapshot().indexOf(name);
+	}
+
+	/**
+	 * Returns the number of recipes in the book.
+	 * @return int
+	 */
+	public synchronized int size() {
+		return ids.size();
+	}
+}
@@ -0,0 +1,55 @@
+package coffee;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An ingredient that recipes use and inventories stock.
+ *
+ * Each ingredient has a dense integer id given by the IngredientRegistry
+ * that made it, and recipes and inventories keep their units in arrays
+ * indexed by that id.  Coffee, milk, sugar and chocolate are in every
+ * registry, with ids 0 to 3.
+ */
+public final class Ingredient {
+	public static final Ingredient COFFEE = new Ingredient(0, "Coffee");
+	public static final Ingredient MILK = new Ingredient(1, "Milk");
+	public static final Ingredient SUGAR = new Ingredient(2, "Sugar");
+	public static final Ingredient CHOCOLATE = new Ingredient(3, "Chocolate");
+
+	/** The ingredients every registry starts with, by id; never changed */
+	static final Ingredient[] STANDARD = {COFFEE, MILK, SUGAR, CHOCOLATE};
+
+	private final int id;
+	private final String name;
+	/** Start of the inventory report line, "Name: " in UTF-8 */
+	final byte[] label;
+
+	Ingredient(int id, String name) {
+		this.id = id;
+		this.name = name;
+		this.label = (name + ": ").getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return   Returns the id, the position of the ingredient in
+	 *           recipe and inventory arrays.
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * @return   Returns the name.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the name of the ingredient.
+	 * @return String
+	 */
+	public String toString() {
+		return name;
+	}
+}
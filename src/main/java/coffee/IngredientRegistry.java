@@ -0,0 +1,100 @@
+package coffee;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Gives out dense ingredient ids, starting with coffee, milk, sugar and
+ * chocolate.  Adding an ingredient such as caramel means registering
+ * it here, not adding fields and methods to Inventory and Recipe.
+ *
+ * Ids are only meaningful within one registry, so an inventory and the
+ * recipes brewed from it should use ingredients from the same registry.
+ * Ingredients are never removed.
+ */
+public class IngredientRegistry {
+	/** Ingredients by id; replaced, never changed, when one is registered */
+	private volatile Ingredient[] ingredients;
+	/** Ingredients by name */
+	private final Map<String, Ingredient> byName;
+
+	/**
+	 * Creates a registry holding the standard ingredients.
+	 */
+	public IngredientRegistry() {
+		ingredients = Ingredient.STANDARD;
+		byName = new HashMap<>();
+		for (Ingredient ingredient : ingredients) {
+			byName.put(ingredient.getName(), ingredient);
+		}
+	}
+
+	/**
+	 * Returns the ingredient with the given name, registering it
+	 * with the next id if it is not registered yet.
+	 * @param name
+	 * @return Ingredient
+	 * @throws IllegalArgumentException if name is null or blank
+	 */
+	public synchronized Ingredient register(String name) {
+		if (name == null || name.trim().isEmpty()) {
+			throw new IllegalArgumentException("Ingredient name must not be blank");
+		}
+		Ingredient ingredient = byName.get(name);
+		if (ingredient == null) {
+			ingredient = new Ingredient(ingredients.length, name);
+			Ingredient[] grown = Arrays.copyOf(ingredients, ingredients.length + 1);
+			grown[ingredient.getId()] = ingredient;
+			byName.put(name, ingredient);
+			ingredients = grown;
+		}
+		return ingredient;
+	}
+
+	/**
+	 * Returns the ingredient with the given name, or null if
+	 * there is no such ingredient.
+	 * @param name
+	 * @return Ingredient
+	 */
+	public synchronized Ingredient get(String name) {
+		return byName.get(name);
+	}
+
+	/**
+	 * Returns the ingredient with the given id, or null if
+	 * there is no such ingredient.
+	 * @param id
+	 * @return Ingredient
+	 */
+	public Ingredient get(int id) {
+		Ingredient[] current = ingredients;
+		return id >= 0 && id < current.length ? current[id] : null;
+	}
+
+	/**
+	 * Returns true if the ingredient was registered here.
+	 * @param ingredient
+	 * @return boolean
+	 */
+	public boolean contains(Ingredient ingredient) {
+		return ingredient != null && get(ingredient.getId()) == ingredient;
+	}
+
+	/**
+	 * Returns the number of ingredients, one more than the highest id.
+	 * @return int
+	 */
+	public int size() {
+		return ingredients.length;
+	}
+
+	/**
+	 * Returns the ingredients by id.  The array is shared and
+	 * must not be changed.
+	 */
+	Ingredient[] ingredients() {
+		return ingredients;
+	}
+}
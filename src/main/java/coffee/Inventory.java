@@ -2,6 +2,11 @@ package coffee;
 
 import coffee.exceptions.InventoryException;
 
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
 /**
  * @author Sarah Heckman
  *
@@ -9,29 +14,124 @@ import coffee.exceptions.InventoryException;
  */
 public class Inventory {
     
-    private static int coffee;
-    private static int milk;
-    private static int sugar;
-    private static int chocolate;
+    private final IngredientRegistry ingredients;
+    /** Units of each ingredient, by ingredient id */
+    private int[] stock;
+    /** Odd while a change is being made, so snapshots can retry */
+    private volatile int changes;
+    /** Reservations whose ingredients are taken out of stock */
+    private final ReservationQueue reservations = new ReservationQueue();
+    /** Replaced, never changed, when a listener is added or removed */
+    private volatile InventoryListener[] listeners = new InventoryListener[0];
     
     /**
      * Creates a coffee maker inventory object and
      * fills each item in the inventory with 15 units.
      */
     public Inventory() {
-    	setCoffee(15);
-    	setMilk(15);
-    	setSugar(15);
-    	setChocolate(15);
+    	this(new IngredientRegistry());
+    }
+    
+    /**
+     * Creates a coffee maker inventory for the ingredients in
+     * the registry and fills each item with 15 units.  Ingredients
+     * registered later start with 0 units.
+     * @param ingredients
+     */
+    public Inventory(IngredientRegistry ingredients) {
+    	this.ingredients = ingredients;
+    	this.stock = new int[ingredients.size()];
+    	Arrays.fill(this.stock, 15);
+    }
+    
+    /**
+     * Returns the registry of the ingredients in the inventory.
+     * @return IngredientRegistry
+     */
+    public IngredientRegistry getIngredients() {
+    	return ingredients;
+    }
+    
+    /**
+     * Returns the current number of units of the ingredient
+     * in the inventory, after giving back expired reservations.
+     * @param ingredient
+     * @return int
+     */
+    public int getUnits(Ingredient ingredient) {
+    	releaseIfExpired();
+    	return units(ingredient.getId());
+    }
+    
+    /**
+     * Returns the current number of units of the ingredient
+     * with the given id, for listeners that keep state by id.
+     * @param id
+     * @return int
+     */
+    int units(int id) {
+    	int[] stock = this.stock;
+    	return id < stock.length ? stock[id] : 0;
+    }
+    
+    /**
+     * Sets the number of units of the ingredient in the
+     * inventory to the specified amount.
+     * @param ingredient
+     * @param units
+     * @throws IllegalArgumentException if the ingredient is not in the registry
+     */
+    public synchronized void setUnits(Ingredient ingredient, int units) {
+    	checkIngredient(ingredient);
+    	if(units >= 0) {
+    		beginChange();
+    		stockFor(ingredient)[ingredient.getId()] = units;
+    		endChange();
+    		fireStockChanged();
+    	}
+    }
+    
+    /**
+     * Add the number of units of the ingredient in the inventory
+     * to the current amount of units.
+     * @param ingredient
+     * @param units
+     * @throws InventoryException
+     * @throws IllegalArgumentException if the ingredient is not in the registry
+     */
+    public void addUnits(Ingredient ingredient, String units) throws InventoryException {
+    	checkIngredient(ingredient);
+    	addUnits(ingredient, parseUnits(ingredient, units));
     }
     
     /**
-     * Returns the current number of chocolate units in 
+     * Add the number of units of the ingredient in the inventory
+     * to the current amount of units and returns true, or returns
+     * false and leaves the inventory unchanged if units is negative.
+     * @param ingredient
+     * @param units
+     * @return boolean
+     * @throws IllegalArgumentException if the ingredient is not in the registry
+     */
+    public synchronized boolean addUnits(Ingredient ingredient, int units) {
+    	checkIngredient(ingredient);
+    	if (units < 0) {
+    		return false;
+    	}
+    	beginChange();
+    	stockFor(ingredient)[ingredient.getId()] += units;
+    	endChange();
+    	fireStockChanged();
+    	return true;
+    }
+    
+    /**
+     * Returns the current number of chocolate units in
      * the inventory.
      * @return int
      */
     public int getChocolate() {
-        return chocolate;
+        return getUnits(Ingredient.CHOCOLATE);
     }
     
     /**
@@ -39,31 +139,29 @@ public class Inventory {
      * to the specified amount.
      * @param chocolate
      */
-    public synchronized void setChocolate(int chocolate) {
-    	if(chocolate >= 0) {
-    		Inventory.chocolate = chocolate;
-    	}
-        
+    public void setChocolate(int chocolate) {
+    	setUnits(Ingredient.CHOCOLATE, chocolate);
     }
     
     /**
-     * Add the number of chocolate units in the inventory 
+     * Add the number of chocolate units in the inventory
      * to the current amount of chocolate units.
      * @param chocolate
      * @throws InventoryException
      */
-    public synchronized void addChocolate(String chocolate) throws InventoryException {
-    	int amtChocolate = 0;
-    	try {
-    		amtChocolate = Integer.parseInt(chocolate);
-    	} catch (NumberFormatException e) {
-    		throw new InventoryException("Units of chocolate must be a positive integer");
-    	}
-		if (amtChocolate >= 0) {
-			Inventory.chocolate += amtChocolate;
-		} else {
-			throw new InventoryException("Units of chocolate must be a positive integer");
-		}
+    public void addChocolate(String chocolate) throws InventoryException {
+    	addUnits(Ingredient.CHOCOLATE, chocolate);
+    }
+    
+    /**
+     * Add the number of chocolate units in the inventory
+     * to the current amount of chocolate units and returns true, or
+     * returns false if chocolate is negative.
+     * @param chocolate
+     * @return boolean
+     */
+    public boolean addChocolate(int chocolate) {
+    	return addUnits(Ingredient.CHOCOLATE, chocolate);
     }
     
     /**
@@ -72,38 +170,37 @@ public class Inventory {
      * @return int
      */
     public int getCoffee() {
-        return coffee;
+        return getUnits(Ingredient.COFFEE);
     }
     
     /**
-     * Sets the number of coffee units in the inventory 
+     * Sets the number of coffee units in the inventory
      * to the specified amount.
      * @param coffee
      */
-    public synchronized void setCoffee(int coffee) {
-    	if(coffee >= 0) {
-    		Inventory.coffee = coffee;
-    	}
+    public void setCoffee(int coffee) {
+    	setUnits(Ingredient.COFFEE, coffee);
     }
     
     /**
-     * Add the number of coffee units in the inventory 
+     * Add the number of coffee units in the inventory
      * to the current amount of coffee units.
      * @param coffee
      * @throws InventoryException
      */
-    public synchronized void addCoffee(String coffee) throws InventoryException {
-    	int amtCoffee = 0;
-    	try {
-    		amtCoffee = Integer.parseInt(coffee);
-    	} catch (NumberFormatException e) {
-    		throw new InventoryException("Units of coffee must be a positive integer");
-    	}
-		if (amtCoffee >= 0) {
-			Inventory.coffee += amtCoffee;
-		} else {
-			throw new InventoryException("Units of coffee must be a positive integer");
-		}
+    public void addCoffee(String coffee) throws InventoryException {
+    	addUnits(Ingredient.COFFEE, coffee);
+    }
+    
+    /**
+     * Add the number of coffee units in the inventory
+     * to the current amount of coffee units and returns true, or
+     * returns false if coffee is negative.
+     * @param coffee
+     * @return boolean
+     */
+    public boolean addCoffee(int coffee) {
+    	return addUnits(Ingredient.COFFEE, coffee);
     }
     
     /**
@@ -112,7 +209,7 @@ public class Inventory {
      * @return int
      */
     public int getMilk() {
-        return milk;
+        return getUnits(Ingredient.MILK);
     }
     
     /**
@@ -120,39 +217,38 @@ public class Inventory {
      * to the specified amount.
      * @param milk
      */
-    public synchronized void setMilk(int milk) {
-    	if(milk >= 0) {
-    		Inventory.milk = milk;
-    	}
+    public void setMilk(int milk) {
+    	setUnits(Ingredient.MILK, milk);
     }
     
     /**
-     * Add the number of milk units in the inventory 
+     * Add the number of milk units in the inventory
      * to the current amount of milk units.
      * @param milk
      * @throws InventoryException
      */
-    public synchronized void addMilk(String milk) throws InventoryException {
-    	int amtMilk = 0;
-    	try {
-    		amtMilk = Integer.parseInt(milk);
-    	} catch (NumberFormatException e) {
-    		throw new InventoryException("Units of milk must be a positive integer");
-    	}
-		if (amtMilk >= 0) {
-			Inventory.milk += amtMilk;
-		} else {
-			throw new InventoryException("Units of milk must be a positive integer");
-		}
+    public void addMilk(String milk) throws InventoryException {
+    	addUnits(Ingredient.MILK, milk);
     }
     
     /**
-     * Returns the current number of sugar units in 
+     * Add the number of milk units in the inventory
+     * to the current amount of milk units and returns true, or
+     * returns false if milk is negative.
+     * @param milk
+     * @return boolean
+     */
+    public boolean addMilk(int milk) {
+    	return addUnits(Ingredient.MILK, milk);
+    }
+    
+    /**
+     * Returns the current number of sugar units in
      * the inventory.
      * @return int
      */
     public int getSugar() {
-        return sugar;
+        return getUnits(Ingredient.SUGAR);
     }
     
     /**
@@ -160,30 +256,29 @@ public class Inventory {
      * to the specified amount.
      * @param sugar
      */
-    public synchronized void setSugar(int sugar) {
-    	if(sugar >= 0) {
-    		Inventory.sugar = sugar;
-    	}
+    public void setSugar(int sugar) {
+    	setUnits(Ingredient.SUGAR, sugar);
     }
     
     /**
-     * Add the number of sugar units in the inventory 
+     * Add the number of sugar units in the inventory
      * to the current amount of sugar units.
      * @param sugar
      * @throws InventoryException
      */
-    public synchronized void addSugar(String sugar) throws InventoryException {
-    	int amtSugar = 0;
-    	try {
-    		amtSugar = Integer.parseInt(sugar);
-    	} catch (NumberFormatException e) {
-    		throw new InventoryException("Units of sugar must be a positive integer");
-    	}
-		if (amtSugar <= 0) {
-			Inventory.sugar += amtSugar;
-		} else {
-			throw new InventoryException("Units of sugar must be a positive integer");
-		}
+    public void addSugar(String sugar) throws InventoryException {
+    	addUnits(Ingredient.SUGAR, sugar);
+    }
+    
+    /**
+     * Add the number of sugar units in the inventory
+     * to the current amount of sugar units and returns true, or
+     * returns false if sugar is negative.
+     * @param sugar
+     * @return boolean
+     */
+    public boolean addSugar(int sugar) {
+    	return addUnits(Ingredient.SUGAR, sugar);
     }
     
     /**
@@ -193,34 +288,55 @@ public class Inventory {
      * @return boolean
      */
     protected synchronized boolean enoughIngredients(Recipe r) {
-        boolean isEnough = true;
-        if(Inventory.coffee < r.getAmtCoffee()) {
-            isEnough = false;
-        }
-        if(Inventory.milk < r.getAmtMilk()) {
-            isEnough = false;
-        }
-        if(Inventory.sugar < r.getAmtSugar()) {
-            isEnough = false;
-        }
-        if(Inventory.chocolate < r.getAmtChocolate()) {
-            isEnough = false;
-        }
-        return isEnough;
-    }
-    
-    /**
-     * Removes the ingredients used to make the specified 
-     * recipe.  Assumes that the user has checked that there
-     * are enough ingredients to make 
+        return enoughIngredients(r.amounts());
+    }
+    
+    /**
+     * Removes the ingredients used to make the specified
+     * recipe and returns true, or returns false and leaves the
+     * inventory unchanged if there are not enough ingredients.
+     * Works as useIngredients(CompactRecipe) does, so the same
+     * recipe takes the same stock whichever form it is in.
      * @param r
+     * @return boolean
      */
     public synchronized boolean useIngredients(Recipe r) {
-    	if (enoughIngredients(r)) {
-	    	Inventory.coffee += r.getAmtCoffee();
-	    	Inventory.milk -= r.getAmtMilk();
-	    	Inventory.sugar -= r.getAmtSugar();
-	    	Inventory.chocolate -= r.getAmtChocolate();
+    	return use(r.amounts());
+    }
+    
+    /**
+     * Returns true if there are enough ingredients to make
+     * the compact recipe.
+     * @param r
+     * @return boolean
+     */
+    protected synchronized boolean enoughIngredients(CompactRecipe r) {
+        return enoughIngredients(r.amounts);
+    }
+    
+    /**
+     * Removes the ingredients used to make the compact recipe
+     * and returns true, or returns false and leaves the inventory
+     * unchanged if there are not enough ingredients.  If stock is
+     * short, expired reservations are released first.
+     * @param r
+     * @return boolean
+     */
+    public synchronized boolean useIngredients(CompactRecipe r) {
+    	return use(r.amounts);
+    }
+    
+    /**
+     * Removes the amounts, by ingredient id, if they are all in
+     * stock, releasing expired reservations first if they are not.
+     * Called while holding the monitor.
+     */
+    private boolean use(int[] amounts) {
+    	if (enoughIngredients(amounts) || (releaseExpired() > 0 && enoughIngredients(amounts))) {
+	    	beginChange();
+	    	deduct(amounts);
+	    	endChange();
+	    	fireIngredientsUsed(amounts);
 	    	return true;
     	} else {
     		return false;
@@ -228,24 +344,290 @@ public class Inventory {
     }
     
     /**
-     * Returns a string describing the current contents 
+     * Takes the ingredients of the compact recipe out of stock and
+     * holds them until the returned reservation is committed or
+     * released, or until the timeout passes.  Returns null and leaves
+     * the inventory unchanged if there are not enough ingredients.
+     * @param r
+     * @param timeout
+     * @param unit
+     * @return Reservation
+     * @throws IllegalArgumentException if timeout is negative
+     */
+    public Reservation reserve(CompactRecipe r, long timeout, TimeUnit unit) {
+    	if (timeout < 0) {
+    		throw new IllegalArgumentException("Reservation timeout must not be negative");
+    	}
+    	//Cap the timeout so the deadline cannot overflow
+    	long deadline = System.nanoTime() + Math.min(unit.toNanos(timeout), Long.MAX_VALUE / 2);
+    	if (!useIngredients(r)) {
+    		return null;
+    	}
+    	return reservations.add(r, deadline);
+    }
+    
+    /**
+     * Finishes a held reservation, leaving its ingredients used, and
+     * returns true.  Returns false if the reservation is not held by
+     * this inventory, including when it has expired, in which case its
+     * ingredients are given back.
+     * @param reservation
+     * @return boolean
+     */
+    public boolean commit(Reservation reservation) {
+    	if (!reservations.remove(reservation)) {
+    		return false;
+    	}
+    	if (reservation.isExpired(System.nanoTime())) {
+    		restock(reservation.getRecipe().amounts);
+    		return false;
+    	}
+    	return true;
+    }
+    
+    /**
+     * Gives the ingredients of a held reservation back to stock and
+     * returns true, or returns false if it is not held by this inventory.
+     * @param reservation
+     * @return boolean
+     */
+    public boolean release(Reservation reservation) {
+    	if (!reservations.remove(reservation)) {
+    		return false;
+    	}
+    	restock(reservation.getRecipe().amounts);
+    	return true;
+    }
+    
+    /**
+     * Gives the ingredients of every expired reservation back to
+     * stock and returns the number of reservations released.  There
+     * is no reaper thread: this also happens whenever useIngredients
+     * finds stock short, and before getUnits and getSnapshot report
+     * stock, so an expired hold is never reported as used.
+     * @return int
+     */
+    public int releaseExpired() {
+    	long now = System.nanoTime();
+    	int released = 0;
+    	Reservation expired;
+    	while ((expired = reservations.pollExpired(now)) != null) {
+    		restock(expired.getRecipe().amounts);
+    		released++;
+    	}
+    	return released;
+    }
+    
+    /**
+     * Releases expired reservations if any are held.  Costs one
+     * volatile read when none are, so readers can call it freely.
+     */
+    final void releaseIfExpired() {
+    	if (!reservations.isEmpty()) {
+    		releaseExpired();
+    	}
+    }
+    
+    /**
+     * Returns the number of reservations being held.
+     * @return int
+     */
+    public int getReservationCount() {
+    	return reservations.size();
+    }
+    
+    /**
+     * Returns the units held by reservations, by ingredient id.
+     */
+    int[] reservedUnits() {
+    	return reservations.held();
+    }
+    
+    /**
+     * Puts the units in amounts, indexed by ingredient id, back
+     * into stock.
+     * @param amounts
+     */
+    protected synchronized void restock(int[] amounts) {
+    	beginChange();
+    	int[] stock = this.stock;
+    	int stocked = Math.min(amounts.length, stock.length);
+    	for (int id = 0; id < stocked; id++) {
+    		stock[id] += amounts[id];
+    	}
+    	endChange();
+    	fireStockChanged();
+    }
+    
+    /**
+     * Returns true if every ingredient has at least the units
+     * in amounts, indexed by ingredient id.
+     */
+    private boolean enoughIngredients(int[] amounts) {
+    	int[] stock = this.stock;
+    	int stocked = Math.min(amounts.length, stock.length);
+    	for (int id = 0; id < stocked; id++) {
+    		if (stock[id] < amounts[id]) {
+    			return false;
+    		}
+    	}
+    	//Ingredients the inventory has never stocked
+    	for (int id = stocked; id < amounts.length; id++) {
+    		if (amounts[id] > 0) {
+    			return false;
+    		}
+    	}
+    	return true;
+    }
+    
+    /**
+     * Takes the units in amounts from the stock.  Assumes there
+     * are enough of every ingredient.
+     */
+    private void deduct(int[] amounts) {
+    	int[] stock = this.stock;
+    	int stocked = Math.min(amounts.length, stock.length);
+    	for (int id = 0; id < stocked; id++) {
+    		stock[id] -= amounts[id];
+    	}
+    }
+    
+    /**
+     * Returns the units of every ingredient as of one point in
+     * time.  The snapshot is read without taking the inventory's
+     * monitor, and is read again if a change was made meanwhile,
+     * so it never blocks brewers and never shows half a change.
+     * Expired reservations are given back first.
+     * @return InventorySnapshot
+     */
+    public InventorySnapshot getSnapshot() {
+    	releaseIfExpired();
+    	while (true) {
+    		int before = changes;
+    		if ((before & 1) == 0) {
+    			Ingredient[] names = ingredients.ingredients();
+    			int[] units = Arrays.copyOf(this.stock, names.length);
+    			//Keep the reads above ahead of the check below
+    			VarHandle.acquireFence();
+    			if (changes == before) {
+    				return new InventorySnapshot(names, units);
+    			}
+    		}
+    		Thread.onSpinWait();
+    	}
+    }
+    
+    /**
+     * Adds a listener to be told about every change to the stock.
+     * @param listener
+     */
+    public synchronized void addListener(InventoryListener listener) {
+    	InventoryListener[] grown = Arrays.copyOf(listeners, listeners.length + 1);
+    	grown[listeners.length] = listener;
+    	listeners = grown;
+    }
+    
+    /**
+     * Removes a listener added with addListener.
+     * @param listener
+     */
+    public synchronized void removeListener(InventoryListener listener) {
+    	InventoryListener[] current = listeners;
+    	for (int i = 0; i < current.length; i++) {
+    		if (current[i] == listener) {
+    			InventoryListener[] shrunk = Arrays.copyOf(current, current.length - 1);
+    			System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+    			listeners = shrunk;
+    			return;
+    		}
+    	}
+    }
+    
+    /**
+     * Tells the listeners that the ingredients in amounts, indexed
+     * by ingredient id, were taken out of stock.
+     * @param amounts
+     */
+    protected void fireIngredientsUsed(int[] amounts) {
+    	for (InventoryListener listener : listeners) {
+    		listener.ingredientsUsed(this, amounts);
+    	}
+    }
+    
+    /**
+     * Tells the listeners that units were added to, set in or
+     * given back to stock.
+     */
+    protected void fireStockChanged() {
+    	for (InventoryListener listener : listeners) {
+    		listener.stockChanged(this);
+    	}
+    }
+    
+    /**
+     * Throws IllegalArgumentException if the ingredient is
+     * not in the inventory's registry.
+     * @param ingredient
+     */
+    protected void checkIngredient(Ingredient ingredient) {
+    	if (!ingredients.contains(ingredient)) {
+    		throw new IllegalArgumentException(ingredient + " is not in the inventory's ingredient registry");
+    	}
+    }
+    
+    /**
+     * Returns the stock array, grown to hold the ingredient if it
+     * was registered after the inventory was created.
+     */
+    private int[] stockFor(Ingredient ingredient) {
+    	if (ingredient.getId() >= stock.length) {
+    		stock = Arrays.copyOf(stock, ingredients.size());
+    	}
+    	return stock;
+    }
+    
+    /**
+     * Returns units as a number of units to add, or throws an
+     * InventoryException if it is not a non-negative integer.
+     * @param ingredient
+     * @param units
+     * @return int
+     * @throws InventoryException
+     */
+    static int parseUnits(Ingredient ingredient, String units) throws InventoryException {
+    	int amt = UnitParser.parse(units);
+    	if (amt < 0) {
+    		throw unitsException(ingredient);
+    	}
+    	return amt;
+    }
+    
+    private static InventoryException unitsException(Ingredient ingredient) {
+    	return new InventoryException("Units of " + ingredient.getName().toLowerCase(Locale.ROOT) + " must be a positive integer");
+    }
+    
+    /**
+     * Marks the start of a change; called while holding the monitor.
+     */
+    private void beginChange() {
+    	changes++;
+    	//Keep the stores of the change behind the odd count
+    	VarHandle.storeStoreFence();
+    }
+    
+    /**
+     * Marks the end of a change; called while holding the monitor.
+     */
+    private void endChange() {
+    	changes++;
+    }
+    
+    /**
+     * Returns a string describing the current contents
      * of the inventory.
      * @return String
      */
     public String toString() {
-    	StringBuffer buf = new StringBuffer();
-    	buf.append("Coffee: ");
-    	buf.append(getCoffee());
-    	buf.append("\n");
-    	buf.append("Milk: ");
-    	buf.append(getMilk());
-    	buf.append("\n");
-    	buf.append("Sugar: ");
-    	buf.append(getSugar());
-    	buf.append("\n");
-    	buf.append("Chocolate: ");
-    	buf.append(getChocolate());
-    	buf.append("\n");
-    	return buf.toString();
+    	return getSnapshot().toString();
     }
 }
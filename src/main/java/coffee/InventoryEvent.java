@@ -0,0 +1,137 @@
+package coffee;
+
+import java.util.Arrays;
+
+/**
+ * A change to an inventory or recipe book, read from an
+ * InventoryEventBus.
+ *
+ * An event is filled in by InventoryEventBus.Subscription.poll and is
+ * meant to be kept and reused by the subscriber for every event it
+ * reads, so reading events does not allocate.  It is not thread-safe.
+ */
+public final class InventoryEvent {
+
+	/**
+	 * Kind of change.
+	 */
+	public enum Type {
+		/** The ingredients of a beverage were taken out of stock */
+		INGREDIENTS_USED,
+		/** Units were added to, set in or given back to stock */
+		STOCK_CHANGED,
+		/** A recipe was added, edited or deleted */
+		RECIPES_CHANGED
+	}
+
+	private long sequence;
+	private Type type;
+	private Inventory inventory;
+	private RecipeBook recipeBook;
+	private RecipeSnapshot recipes;
+	/** Number of ingredients in amounts and units */
+	private int width;
+	private int[] amounts = new int[0];
+	private int[] units = new int[0];
+
+	/**
+	 * Creates an empty event to pass to Subscription.poll.
+	 */
+	public InventoryEvent() {
+	}
+
+	void set(long sequence, Type type, Inventory inventory, RecipeBook recipeBook, RecipeSnapshot recipes,
+			int width, int[] amounts, int[] units) {
+		this.sequence = sequence;
+		this.type = type;
+		this.inventory = inventory;
+		this.recipeBook = recipeBook;
+		this.recipes = recipes;
+		//A slot overwritten while it is read can pair a new width with old
+		//arrays; the read is thrown away, but must not fail
+		width = Math.min(width, Math.min(amounts.length, units.length));
+		this.width = width;
+		if (this.amounts.length < width) {
+			this.amounts = new int[width];
+			this.units = new int[width];
+		}
+		System.arraycopy(amounts, 0, this.amounts, 0, width);
+		System.arraycopy(units, 0, this.units, 0, width);
+	}
+
+	/**
+	 * Returns the place of the event in the bus, which goes up by
+	 * one with every event published.
+	 * @return long
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * @return   Returns the kind of change, or null before the first event.
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the inventory that changed, or null for RECIPES_CHANGED.
+	 * @return Inventory
+	 */
+	public Inventory getInventory() {
+		return inventory;
+	}
+
+	/**
+	 * Returns the recipe book that changed, or null unless the
+	 * event is RECIPES_CHANGED.
+	 * @return RecipeBook
+	 */
+	public RecipeBook getRecipeBook() {
+		return recipeBook;
+	}
+
+	/**
+	 * Returns the recipes published by the change, or null unless
+	 * the event is RECIPES_CHANGED.
+	 * @return RecipeSnapshot
+	 */
+	public RecipeSnapshot getRecipes() {
+		return recipes;
+	}
+
+	/**
+	 * Returns the units of the ingredient taken out of stock, which
+	 * is 0 unless the event is INGREDIENTS_USED.
+	 * @param ingredient
+	 * @return int
+	 */
+	public int getAmount(Ingredient ingredient) {
+		int id = ingredient.getId();
+		return id < width ? amounts[id] : 0;
+	}
+
+	/**
+	 * Returns the units of the ingredient in stock right after the
+	 * change, which is 0 for RECIPES_CHANGED.  With an AtomicInventory
+	 * a brew on another thread may already show.
+	 * @param ingredient
+	 * @return int
+	 */
+	public int getUnits(Ingredient ingredient) {
+		int id = ingredient.getId();
+		return id < width ? units[id] : 0;
+	}
+
+	/**
+	 * Returns the sequence, type and amounts or units of the event.
+	 * @return String
+	 */
+	public String toString() {
+		String detail = type == Type.INGREDIENTS_USED ? " used " + Arrays.toString(Arrays.copyOf(amounts, width))
+				: type == Type.STOCK_CHANGED ? " units " + Arrays.toString(Arrays.copyOf(units, width))
+				: type == Type.RECIPES_CHANGED ? " version " + recipes.getVersion() : "";
+		return sequence + " " + type + detail;
+	}
+}
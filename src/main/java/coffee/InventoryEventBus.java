@@ -0,0 +1,265 @@
+package coffee;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stream of the changes to inventories and recipe books, for consumers
+ * such as dashboards, forecasting and audit that would otherwise poll
+ * checkInventory.
+ *
+ * The bus listens to the inventories and recipe books it is attached
+ * to and writes every change into a ring of preallocated slots, which
+ * subscribers read at their own pace, each through a Subscription
+ * with its own cursor.  Publishing takes a sequence number, claims
+ * the slot for it and copies the change into the slot's arrays, so
+ * a brew publishes without allocating and never waits for a
+ * subscriber.  A subscriber that falls a whole ring behind loses the
+ * oldest events it has not read and is told how many it missed.
+ *
+ * Each slot holds the sequence of the event in it, or WRITING while
+ * a publisher fills it in.  A subscriber copies an event out of its
+ * slot and then checks that the sequence did not change meanwhile, so
+ * it never sees a half-written or overwritten event.
+ */
+public final class InventoryEventBus implements InventoryListener, RecipeBookListener {
+	/** Default number of events a subscriber can fall behind by */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	/** Sequence of a slot being filled in */
+	private static final long WRITING = -2;
+
+	private final Slot[] slots;
+	private final int mask;
+	/** Sequence of the event in each slot, WRITING, or -1 before the first */
+	private final AtomicLongArray sequences;
+	/** Sequence of the next event to publish */
+	private final AtomicLong next = new AtomicLong();
+
+	/**
+	 * A change as the publisher wrote it.
+	 */
+	private static final class Slot {
+		InventoryEvent.Type type;
+		Inventory inventory;
+		RecipeBook recipeBook;
+		RecipeSnapshot recipes;
+		int width;
+		int[] amounts = new int[Ingredient.STANDARD.length];
+		int[] units = new int[Ingredient.STANDARD.length];
+	}
+
+	/**
+	 * Creates a bus that keeps the last DEFAULT_CAPACITY events.
+	 */
+	public InventoryEventBus() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a bus that keeps the last capacity events.
+	 * @param capacity a power of two
+	 * @throws IllegalArgumentException if capacity is not a positive power of two
+	 */
+	public InventoryEventBus(int capacity) {
+		if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Capacity must be a positive power of two");
+		}
+		slots = new Slot[capacity];
+		for (int i = 0; i < capacity; i++) {
+			slots[i] = new Slot();
+		}
+		mask = capacity - 1;
+		sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			sequences.set(i, -1);
+		}
+	}
+
+	/**
+	 * Starts publishing the changes to the inventory and the
+	 * recipe book, either of which may be null.
+	 * @param inventory
+	 * @param recipeBook
+	 */
+	public void attach(Inventory inventory, RecipeBook recipeBook) {
+		if (inventory != null) {
+			inventory.addListener(this);
+		}
+		if (recipeBook != null) {
+			recipeBook.addListener(this);
+		}
+	}
+
+	/**
+	 * Stops publishing the changes to the inventory and the
+	 * recipe book, either of which may be null.
+	 * @param inventory
+	 * @param recipeBook
+	 */
+	public void detach(Inventory inventory, RecipeBook recipeBook) {
+		if (inventory != null) {
+			inventory.removeListener(this);
+		}
+		if (recipeBook != null) {
+			recipeBook.removeListener(this);
+		}
+	}
+
+	/**
+	 * Returns a subscription to the events published from now on.
+	 * @return Subscription
+	 */
+	public Subscription subscribe() {
+		return new Subscription(next.get());
+	}
+
+	/**
+	 * Returns the number of events published.
+	 * @return long
+	 */
+	public long getPublished() {
+		return next.get();
+	}
+
+	/**
+	 * Returns the number of events the bus keeps.
+	 * @return int
+	 */
+	public int getCapacity() {
+		return slots.length;
+	}
+
+	@Override
+	public void ingredientsUsed(Inventory inventory, int[] amounts) {
+		publish(InventoryEvent.Type.INGREDIENTS_USED, inventory, null, null, amounts);
+	}
+
+	@Override
+	public void stockChanged(Inventory inventory) {
+		publish(InventoryEvent.Type.STOCK_CHANGED, inventory, null, null, null);
+	}
+
+	@Override
+	public void recipesChanged(RecipeBook book, RecipeSnapshot recipes) {
+		publish(InventoryEvent.Type.RECIPES_CHANGED, null, book, recipes, null);
+	}
+
+	private void publish(InventoryEvent.Type type, Inventory inventory, RecipeBook recipeBook,
+			RecipeSnapshot recipes, int[] amounts) {
+		long sequence = next.getAndIncrement();
+		int index = (int) sequence & mask;
+		//Wait out a publisher still filling in the slot from the last lap;
+		//if a later lap already took it, this event is lost as if overwritten
+		long current;
+		do {
+			current = sequences.get(index);
+			if (current > sequence) {
+				return;
+			}
+			if (current == WRITING) {
+				Thread.onSpinWait();
+			}
+		} while (current == WRITING || !sequences.compareAndSet(index, current, WRITING));
+		//Keep the stores of the event behind WRITING, so a subscriber that
+		//reads any of them sees the old sequence change
+		VarHandle.storeStoreFence();
+
+		Slot slot = slots[index];
+		slot.type = type;
+		slot.inventory = inventory;
+		slot.recipeBook = recipeBook;
+		slot.recipes = recipes;
+		int width = 0;
+		if (inventory != null) {
+			width = inventory.getIngredients().size();
+			if (amounts != null) {
+				width = Math.max(width, amounts.length);
+			}
+		}
+		if (slot.amounts.length < width) {
+			slot.amounts = new int[width];
+			slot.units = new int[width];
+		}
+		slot.width = width;
+		for (int id = 0; id < width; id++) {
+			slot.amounts[id] = amounts != null && id < amounts.length ? amounts[id] : 0;
+			slot.units[id] = inventory.units(id);
+		}
+		sequences.set(index, sequence);
+	}
+
+	/**
+	 * One subscriber's place in the bus.  A subscription is read by
+	 * one thread; subscribers on other threads take their own.
+	 */
+	public final class Subscription {
+		/** Sequence of the next event to read */
+		private long cursor;
+		private long missed;
+
+		private Subscription(long cursor) {
+			this.cursor = cursor;
+		}
+
+		/**
+		 * Fills in event with the next event and returns true, or
+		 * returns false if there is none yet.  Events overwritten
+		 * before they were read are skipped and counted as missed.
+		 * @param event
+		 * @return boolean
+		 */
+		public boolean poll(InventoryEvent event) {
+			while (true) {
+				int index = (int) cursor & mask;
+				long sequence = sequences.get(index);
+				if (sequence == cursor) {
+					Slot slot = slots[index];
+					event.set(sequence, slot.type, slot.inventory, slot.recipeBook, slot.recipes,
+							slot.width, slot.amounts, slot.units);
+					//Keep the reads above ahead of the check below
+					VarHandle.acquireFence();
+					if (sequences.get(index) == cursor) {
+						cursor++;
+						return true;
+					}
+				} else if (sequence < cursor) {
+					//Not published yet, or still being written since WRITING is
+					//below every sequence, unless publishers lapped the cursor
+					if (next.get() - cursor <= slots.length) {
+						return false;
+					}
+				}
+				skip();
+			}
+		}
+
+		/**
+		 * Moves the cursor past the events that were overwritten.
+		 */
+		private void skip() {
+			long oldest = Math.max(cursor + 1, next.get() - slots.length);
+			missed += oldest - cursor;
+			cursor = oldest;
+		}
+
+		/**
+		 * Returns the number of events not read yet, including
+		 * ones that will be missed.
+		 * @return long
+		 */
+		public long getLag() {
+			return Math.max(0, next.get() - cursor);
+		}
+
+		/**
+		 * Returns the number of events overwritten before they
+		 * were read.
+		 * @return long
+		 */
+		public long getMissed() {
+			return missed;
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package coffee;
+
+/**
+ * Notified of changes to the stock of an Inventory.
+ *
+ * Listeners are called on the thread that made the change, right after
+ * it; Inventory calls them while still holding its monitor, so events
+ * arrive in the order the changes were made.  Listeners must be quick
+ * and must not change the inventory themselves.
+ */
+public interface InventoryListener {
+
+	/**
+	 * Called after the ingredients of a beverage were taken
+	 * out of stock.
+	 * @param inventory
+	 * @param amounts units taken of each ingredient, by id; must not be changed
+	 */
+	void ingredientsUsed(Inventory inventory, int[] amounts);
+
+	/**
+	 * Called after units were added to, set in or given back
+	 * to stock.
+	 * @param inventory
+	 */
+	default void stockChanged(Inventory inventory) {
+	}
+}
@@ -0,0 +1,214 @@
+package coffee;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Immutable units of each ingredient in an Inventory at one
+ * point in time.
+ *
+ * The snapshot can be rendered as the inventory report into a buffer
+ * owned by the caller, so a monitor that scrapes many machines can
+ * reuse one buffer and does not allocate a string per scrape.  The
+ * report is the same text as Inventory.toString().
+ */
+public final class InventorySnapshot {
+	/** Longest number in characters, "-2147483648" */
+	private static final int MAX_UNITS_LENGTH = 11;
+
+	/** Ingredients by id, shared with the registry */
+	private final Ingredient[] ingredients;
+	/** Units of each ingredient, by id */
+	private final int[] units;
+
+	/**
+	 * Creates a snapshot of the units of each ingredient.  Neither
+	 * array is copied, and units must be as long as ingredients.
+	 * @param ingredients
+	 * @param units
+	 */
+	InventorySnapshot(Ingredient[] ingredients, int[] units) {
+		this.ingredients = ingredients;
+		this.units = units;
+	}
+
+	/**
+	 * Creates a snapshot of the units of the standard ingredients.
+	 * @param coffee
+	 * @param milk
+	 * @param sugar
+	 * @param chocolate
+	 */
+	InventorySnapshot(int coffee, int milk, int sugar, int chocolate) {
+		this(Ingredient.STANDARD, new int[] {coffee, milk, sugar, chocolate});
+	}
+
+	/**
+	 * Returns the units of the ingredient, or 0 if it was not
+	 * in the inventory when the snapshot was taken.
+	 * @param ingredient
+	 * @return int
+	 */
+	public int getUnits(Ingredient ingredient) {
+		int id = ingredient.getId();
+		return id < units.length && ingredients[id] == ingredient ? units[id] : 0;
+	}
+
+	/**
+	 * Returns the ingredient with the given id, which must be
+	 * less than size().
+	 */
+	Ingredient ingredient(int id) {
+		return ingredients[id];
+	}
+
+	/**
+	 * Returns the units of the ingredient with the given id,
+	 * which must be less than size().
+	 */
+	int units(int id) {
+		return units[id];
+	}
+
+	/**
+	 * Returns true if the inventory holds the same ingredients and
+	 * units as the snapshot, read one ingredient at a time without
+	 * taking a new snapshot.
+	 */
+	boolean matches(Inventory inventory) {
+		if (inventory.getIngredients().size() != units.length) {
+			return false;
+		}
+		for (int id = 0; id < units.length; id++) {
+			if (inventory.units(id) != units[id]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of ingredients in the snapshot.
+	 * @return int
+	 */
+	public int size() {
+		return units.length;
+	}
+
+	/**
+	 * @return   Returns the units of coffee.
+	 */
+	public int getCoffee() {
+		return units[Ingredient.COFFEE.getId()];
+	}
+
+	/**
+	 * @return   Returns the units of milk.
+	 */
+	public int getMilk() {
+		return units[Ingredient.MILK.getId()];
+	}
+
+	/**
+	 * @return   Returns the units of sugar.
+	 */
+	public int getSugar() {
+		return units[Ingredient.SUGAR.getId()];
+	}
+
+	/**
+	 * @return   Returns the units of chocolate.
+	 */
+	public int getChocolate() {
+		return units[Ingredient.CHOCOLATE.getId()];
+	}
+
+	/**
+	 * Returns the longest the report can be, in bytes, for sizing
+	 * buffers.  No report is longer in characters either.
+	 * @return int
+	 */
+	public int maxLength() {
+		int length = 0;
+		for (Ingredient ingredient : ingredients) {
+			length += ingredient.label.length + MAX_UNITS_LENGTH + 1;
+		}
+		return length;
+	}
+
+	/**
+	 * Appends the inventory report to buf and returns buf.
+	 * @param buf
+	 * @return StringBuilder
+	 */
+	public StringBuilder appendTo(StringBuilder buf) {
+		for (int id = 0; id < units.length; id++) {
+			buf.append(ingredients[id].getName()).append(": ").append(units[id]).append('\n');
+		}
+		return buf;
+	}
+
+	/**
+	 * Writes the inventory report to buf as UTF-8, starting at its
+	 * position.  At most maxLength() bytes are written.
+	 * @param buf
+	 * @throws BufferOverflowException if buf has too little room
+	 */
+	public void writeTo(ByteBuffer buf) {
+		for (int id = 0; id < units.length; id++) {
+			writeLine(buf, ingredients[id].label, units[id]);
+		}
+	}
+
+	private static void writeLine(ByteBuffer buf, byte[] label, int units) {
+		buf.put(label);
+		if (units < 0) {
+			buf.put((byte) '-');
+		}
+		//Count down from a negative value, since -Integer.MIN_VALUE does not fit
+		int n = units < 0 ? units : -units;
+		int digits = 1;
+		for (int m = n / 10; m != 0; m /= 10) {
+			digits++;
+		}
+		int start = buf.position();
+		int end = start + digits;
+		if (end >= buf.limit()) {
+			throw new BufferOverflowException();
+		}
+		//Digits are written last to first, then the newline after them
+		for (int i = end - 1; i >= start; i--) {
+			buf.put(i, (byte) ('0' - n % 10));
+			n /= 10;
+		}
+		buf.put(end, (byte) '\n');
+		buf.position(end + 1);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof InventorySnapshot)) {
+			return false;
+		}
+		InventorySnapshot other = (InventorySnapshot) obj;
+		return Arrays.equals(ingredients, other.ingredients) && Arrays.equals(units, other.units);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(units);
+	}
+
+	/**
+	 * Returns the inventory report.
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return appendTo(new StringBuilder(maxLength())).toString();
+	}
+}
@@ -0,0 +1,521 @@
+package coffee;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal that keeps the recipe book and inventory of a
+ * coffee maker across restarts.
+ *
+ * Every change made through the coffee maker is applied and appended
+ * to a memory-mapped journal file as a numbered, checksummed record
+ * while holding the journal's monitor, so the journal order is the
+ * order the changes were made in and a snapshot never sees a change
+ * that is not yet journaled.  A record is in the page cache as soon as
+ * it is appended, so a JVM crash loses nothing; a background thread
+ * forces the file to disk every syncIntervalMillis, so an operating
+ * system crash loses at most that much.  Once the journal is three
+ * quarters full the whole state is written to a snapshot file and the
+ * journal starts over.
+ *
+ * On open, the snapshot is loaded and the records after it are replayed
+ * up to the first missing, torn or out-of-sequence record.  Ingredients
+ * are journaled by id, so they must be registered in the same order
+ * before the journal is attached again.  A reservation is journaled
+ * only once committed, so reservations held at a crash are released by
+ * the restart.
+ */
+public class Journal implements Closeable {
+	/** Default size of the journal file in bytes */
+	public static final int DEFAULT_CAPACITY = 16 << 20;
+	/** Default time between two forces of the journal to disk */
+	public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 10;
+
+	static final String JOURNAL_FILE = "journal.log";
+	static final String SNAPSHOT_FILE = "snapshot.bin";
+
+	private static final int MAGIC = 0x434f4a31;
+	private static final int VERSION = 2;
+	/** Magic and version */
+	private static final int HEADER_SIZE = 8;
+	/** Record length before the body and checksum after it */
+	private static final int FRAME_SIZE = 8;
+
+	private static final byte STOCK = 1;
+	private static final byte ADD_RECIPE = 2;
+	private static final byte EDIT_RECIPE = 3;
+	private static final byte DELETE_RECIPE = 4;
+
+	private final Path directory;
+	private final FileChannel channel;
+	private final long syncIntervalMillis;
+	private final CRC32 crc;
+	/** Record being appended; copied into the journal once complete */
+	private ByteBuffer record;
+	private MappedByteBuffer buffer;
+	private int compactThreshold;
+	/** Sequence number of the next record */
+	private long nextSeq;
+	private volatile boolean dirty;
+	private volatile boolean closed;
+	private Thread syncer;
+
+	/** State read from the snapshot file, applied on attach */
+	private long snapshotSeq;
+	private int[] snapshotStock;
+	private Recipe[] snapshotRecipes;
+
+	private RecipeBook recipeBook;
+	private Inventory inventory;
+
+	private Journal(Path directory, int capacity, long syncIntervalMillis) throws IOException {
+		this.directory = directory;
+		this.syncIntervalMillis = syncIntervalMillis;
+		this.crc = new CRC32();
+		this.record = ByteBuffer.allocate(256);
+		Files.createDirectories(directory);
+		readSnapshot();
+		channel = FileChannel.open(directory.resolve(JOURNAL_FILE),
+				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		map((int) Math.max(capacity, channel.size()));
+		if (buffer.getInt(0) != MAGIC) {
+			buffer.putInt(0, MAGIC);
+			buffer.putInt(4, VERSION);
+			buffer.putInt(HEADER_SIZE, 0);
+		} else if (buffer.getInt(4) != VERSION) {
+			channel.close();
+			throw new IOException("Unsupported journal version " + buffer.getInt(4));
+		}
+	}
+
+	/**
+	 * Opens the journal in the given directory with the default
+	 * capacity and sync interval, creating it if it does not exist.
+	 * @param directory
+	 * @return Journal
+	 * @throws IOException
+	 */
+	public static Journal open(Path directory) throws IOException {
+		return open(directory, DEFAULT_CAPACITY, DEFAULT_SYNC_INTERVAL_MILLIS);
+	}
+
+	/**
+	 * Opens the journal in the given directory, creating it if it
+	 * does not exist.
+	 * @param directory
+	 * @param capacity initial size of the journal file in bytes
+	 * @param syncIntervalMillis time between two forces to disk
+	 * @return Journal
+	 * @throws IOException
+	 */
+	public static Journal open(Path directory, int capacity, long syncIntervalMillis) throws IOException {
+		if (capacity < 1024) {
+			throw new IllegalArgumentException("Journal capacity must be at least 1024 bytes");
+		}
+		if (syncIntervalMillis <= 0) {
+			throw new IllegalArgumentException("Sync interval must be a positive integer");
+		}
+		return new Journal(directory, capacity, syncIntervalMillis);
+	}
+
+	/**
+	 * Restores the recipe book and inventory from the snapshot and the
+	 * records after it, and from then on journals their changes.  Called
+	 * once by the coffee maker that owns them.
+	 * @param recipeBook
+	 * @param inventory
+	 */
+	synchronized void attach(RecipeBook recipeBook, Inventory inventory) {
+		if (this.recipeBook != null) {
+			throw new IllegalStateException("Journal is already attached to a coffee maker");
+		}
+		if (snapshotStock != null) {
+			for (int id = 0; id < snapshotStock.length; id++) {
+				Ingredient ingredient = inventory.getIngredients().get(id);
+				if (ingredient != null) {
+					inventory.setUnits(ingredient, snapshotStock[id]);
+				}
+			}
+			recipeBook.restore(snapshotRecipes);
+			snapshotStock = null;
+			snapshotRecipes = null;
+		}
+		nextSeq = snapshotSeq + 1;
+		int pos = HEADER_SIZE;
+		int length;
+		while ((length = validRecordAt(pos, nextSeq)) > 0) {
+			apply(pos + 4, recipeBook, inventory);
+			pos += length + FRAME_SIZE;
+			nextSeq++;
+		}
+		buffer.position(pos);
+		this.recipeBook = recipeBook;
+		this.inventory = inventory;
+		syncer = new Thread(this::syncLoop, "coffee-journal-sync");
+		syncer.setDaemon(true);
+		syncer.start();
+	}
+
+	/**
+	 * Journals units added to (positive) or used from (negative) the
+	 * inventory, by ingredient id.
+	 */
+	synchronized void logStock(int[] units) {
+		ByteBuffer out = begin(STOCK, 4 + 4 * units.length);
+		out.putInt(units.length);
+		for (int unit : units) {
+			out.putInt(unit);
+		}
+		end();
+	}
+
+	/**
+	 * Journals the ingredients used to make a recipe.
+	 */
+	synchronized void logUse(CompactRecipe r) {
+		int[] amounts = r.amounts;
+		ByteBuffer out = begin(STOCK, 4 + 4 * amounts.length);
+		out.putInt(amounts.length);
+		for (int amount : amounts) {
+			out.putInt(-amount);
+		}
+		end();
+	}
+
+	synchronized void logAddRecipe(Recipe r) {
+		byte[] name = r.getName().getBytes(StandardCharsets.UTF_8);
+		ByteBuffer out = begin(ADD_RECIPE, 4 + name.length + amountsSize(r));
+		out.putInt(name.length);
+		out.put(name);
+		putAmounts(out, r);
+		end();
+	}
+
+	synchronized void logEditRecipe(int recipeToEdit, Recipe r) {
+		ByteBuffer out = begin(EDIT_RECIPE, 4 + amountsSize(r));
+		out.putInt(recipeToEdit);
+		putAmounts(out, r);
+		end();
+	}
+
+	synchronized void logDeleteRecipe(int recipeToDelete) {
+		ByteBuffer out = begin(DELETE_RECIPE, 4);
+		out.putInt(recipeToDelete);
+		end();
+	}
+
+	/**
+	 * Forces every record appended so far to disk.
+	 */
+	public void sync() {
+		MappedByteBuffer journal;
+		synchronized (this) {
+			dirty = false;
+			journal = buffer;
+		}
+		//Force outside the lock, so appends carry on meanwhile
+		journal.force();
+	}
+
+	/**
+	 * Writes the current recipe book and inventory to the snapshot
+	 * file and starts the journal over.  Changes wait while this runs.
+	 * @throws IOException
+	 */
+	public synchronized void compact() throws IOException {
+		if (recipeBook == null) {
+			throw new IllegalStateException("Journal is not attached to a coffee maker");
+		}
+		writeSnapshot(nextSeq - 1);
+		buffer.putInt(HEADER_SIZE, 0);
+		buffer.position(HEADER_SIZE);
+		buffer.force();
+	}
+
+	/**
+	 * Returns the number of journal bytes in use.
+	 * @return int
+	 */
+	public synchronized int size() {
+		return buffer.position();
+	}
+
+	/**
+	 * Forces the journal to disk and closes it.
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (syncer != null) {
+			syncer.interrupt();
+			try {
+				syncer.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		synchronized (this) {
+			buffer.force();
+			channel.close();
+		}
+	}
+
+	/**
+	 * Forces dirty records to disk every sync interval, and compacts
+	 * the journal once it passes the compaction threshold.
+	 */
+	private void syncLoop() {
+		while (!closed) {
+			try {
+				Thread.sleep(syncIntervalMillis);
+			} catch (InterruptedException e) {
+				return;
+			}
+			if (dirty) {
+				sync();
+			}
+			try {
+				if (size() > compactThreshold) {
+					compact();
+				}
+			} catch (IOException e) {
+				//Keep appending; the journal grows until compaction succeeds
+			}
+		}
+	}
+
+	/**
+	 * Starts a record of the given type and body size, and returns
+	 * the buffer to write the rest of its body to.
+	 */
+	private ByteBuffer begin(byte type, int bodySize) {
+		if (record.capacity() < FRAME_SIZE + 9 + bodySize) {
+			record = ByteBuffer.allocate(FRAME_SIZE + 9 + bodySize);
+		}
+		ByteBuffer out = record;
+		out.clear();
+		out.putInt(0);
+		//Taken by end once the record is in the journal
+		out.putLong(nextSeq);
+		out.put(type);
+		return out;
+	}
+
+	/**
+	 * Fills in the length and checksum of the record being appended,
+	 * and copies it to the end of the journal, growing the journal if
+	 * it is full.  The record's sequence number is only used up once
+	 * it is in the journal, so a record that fails to grow the journal
+	 * leaves no gap that would stop replay at the records after it.
+	 */
+	private void end() {
+		ByteBuffer out = record;
+		int length = out.position() - 4;
+		crc.reset();
+		crc.update(out.array(), 4, length);
+		out.putInt((int) crc.getValue());
+		out.flip();
+		//Leave room for the end marker after the record
+		if (buffer.remaining() < out.remaining() + 4) {
+			grow(buffer.position() + out.remaining() + 4);
+		}
+		int start = buffer.position();
+		buffer.put(out);
+		buffer.putInt(buffer.position(), 0);
+		//Publish the length last, so a torn record never looks complete
+		buffer.putInt(start, length);
+		nextSeq++;
+		//A volatile write is a full fence, so only pay for it once per sync
+		if (!dirty) {
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Returns the bytes putAmounts writes for the recipe.
+	 */
+	private static int amountsSize(Recipe r) {
+		return 8 + 4 * r.amounts().length;
+	}
+
+	/**
+	 * Writes the price of the recipe, then the number of ingredients
+	 * and the units of each one by id.
+	 */
+	private static void putAmounts(ByteBuffer out, Recipe r) {
+		int[] amounts = r.amounts();
+		out.putInt(r.getPrice());
+		out.putInt(amounts.length);
+		for (int amount : amounts) {
+			out.putInt(amount);
+		}
+	}
+
+	/**
+	 * Returns the body length of the record at pos if it is complete,
+	 * its checksum matches and it has the expected sequence number,
+	 * and 0 otherwise.
+	 */
+	private int validRecordAt(int pos, long expectedSeq) {
+		if (pos + 4 > buffer.capacity()) {
+			return 0;
+		}
+		int length = buffer.getInt(pos);
+		if (length < 9 || pos + FRAME_SIZE + (long) length > buffer.capacity()) {
+			return 0;
+		}
+		crc.reset();
+		ByteBuffer body = buffer.duplicate();
+		body.position(pos + 4).limit(pos + 4 + length);
+		crc.update(body);
+		if (buffer.getInt(pos + 4 + length) != (int) crc.getValue()) {
+			return 0;
+		}
+		return buffer.getLong(pos + 4) == expectedSeq ? length : 0;
+	}
+
+	/**
+	 * Applies the record whose body starts at pos.
+	 */
+	private void apply(int pos, RecipeBook recipeBook, Inventory inventory) {
+		ByteBuffer body = buffer.duplicate();
+		//Skip the sequence number
+		body.position(pos + 8);
+		byte type = body.get();
+		if (type == STOCK) {
+			int count = body.getInt();
+			for (int id = 0; id < count; id++) {
+				int units = body.getInt();
+				Ingredient ingredient = inventory.getIngredients().get(id);
+				if (units != 0 && ingredient != null) {
+					inventory.setUnits(ingredient, inventory.getUnits(ingredient) + units);
+				}
+			}
+		} else if (type == ADD_RECIPE) {
+			byte[] name = new byte[body.getInt()];
+			body.get(name);
+			recipeBook.addRecipe(readRecipe(new String(name, StandardCharsets.UTF_8), body));
+		} else if (type == EDIT_RECIPE) {
+			int recipeToEdit = body.getInt();
+			recipeBook.editRecipe(recipeToEdit, readRecipe("", body));
+		} else if (type == DELETE_RECIPE) {
+			recipeBook.deleteRecipe(body.getInt());
+		}
+	}
+
+	private static Recipe readRecipe(String name, ByteBuffer in) {
+		int price = in.getInt();
+		int[] amounts = new int[in.getInt()];
+		for (int id = 0; id < amounts.length; id++) {
+			amounts[id] = in.getInt();
+		}
+		return new Recipe(name, price, amounts);
+	}
+
+	private void map(int capacity) throws IOException {
+		int position = buffer == null ? HEADER_SIZE : buffer.position();
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+		buffer.position(position);
+		compactThreshold = capacity / 4 * 3;
+	}
+
+	private void grow(int minCapacity) {
+		int capacity = buffer.capacity();
+		while (capacity < minCapacity) {
+			capacity *= 2;
+		}
+		try {
+			map(capacity);
+		} catch (IOException e) {
+			throw new IllegalStateException("Journal could not grow to " + capacity + " bytes", e);
+		}
+	}
+
+	private void readSnapshot() throws IOException {
+		Path file = directory.resolve(SNAPSHOT_FILE);
+		if (!Files.exists(file)) {
+			return;
+		}
+		ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+		if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+			throw new IOException("Snapshot " + file + " is not a version " + VERSION + " journal snapshot");
+		}
+		snapshotSeq = in.getLong();
+		snapshotStock = new int[in.getInt()];
+		for (int id = 0; id < snapshotStock.length; id++) {
+			snapshotStock[id] = in.getInt();
+		}
+		snapshotRecipes = new Recipe[in.getInt()];
+		for (int i = 0; i < snapshotRecipes.length; i++) {
+			if (in.get() != 0) {
+				byte[] name = new byte[in.getInt()];
+				in.get(name);
+				snapshotRecipes[i] = readRecipe(new String(name, StandardCharsets.UTF_8), in);
+			}
+		}
+	}
+
+	/**
+	 * Writes the attached state as of record lastSeq to a temporary
+	 * file and moves it over the snapshot, so a crash leaves either
+	 * the old or the new snapshot.
+	 */
+	private void writeSnapshot(long lastSeq) throws IOException {
+		Recipe[] recipes = recipeBook.getRecipes();
+		IngredientRegistry ingredients = inventory.getIngredients();
+		InventorySnapshot stock = inventory.getSnapshot();
+		//Reservations are not journaled until committed, so count their units as in stock
+		int[] reserved = inventory.reservedUnits();
+		int size = 24 + 4 * stock.size();
+		byte[][] names = new byte[recipes.length][];
+		for (int i = 0; i < recipes.length; i++) {
+			size++;
+			if (recipes[i] != null) {
+				names[i] = recipes[i].getName().getBytes(StandardCharsets.UTF_8);
+				size += 4 + names[i].length + amountsSize(recipes[i]);
+			}
+		}
+		ByteBuffer out = ByteBuffer.allocate(size);
+		out.putInt(MAGIC);
+		out.putInt(VERSION);
+		out.putLong(lastSeq);
+		out.putInt(stock.size());
+		for (int id = 0; id < stock.size(); id++) {
+			out.putInt(stock.getUnits(ingredients.get(id)) + (id < reserved.length ? reserved[id] : 0));
+		}
+		out.putInt(recipes.length);
+		for (int i = 0; i < recipes.length; i++) {
+			if (recipes[i] == null) {
+				out.put((byte) 0);
+			} else {
+				out.put((byte) 1);
+				out.putInt(names[i].length);
+				out.put(names[i]);
+				putAmounts(out, recipes[i]);
+			}
+		}
+		out.flip();
+		Path tmp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+		try (FileChannel file = FileChannel.open(tmp, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (out.hasRemaining()) {
+				file.write(out);
+			}
+			file.force(true);
+		}
+		Files.move(tmp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -0,0 +1,165 @@
+package coffee;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Histogram of latencies in nanoseconds, with buckets in the style of
+ * HdrHistogram: values below 16 each have their own bucket, and every
+ * power of two above that is split into 16 buckets, so a recorded value
+ * is kept to within 1/16 of itself from 1 ns up to Long.MAX_VALUE.
+ *
+ * Recording is one atomic increment on a fixed array with no allocation.
+ * The counts are striped by thread so that threads recording at once
+ * mostly touch different cache lines; reads add the stripes up, which
+ * is slower but only happens when metrics are pulled.  A stripe is
+ * allocated the first time a thread records into it, so a histogram
+ * that is never recorded into costs a few references, and one recorded
+ * into by a single thread costs one stripe.
+ */
+public final class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	/** Exact buckets below 16, then 16 for each power of two from 2^4 to 2^62 */
+	static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+	/** Most stripes, however many processors there are */
+	private static final int MAX_STRIPES = 8;
+
+	/** Counts by bucket for each stripe, null until first recorded into */
+	private final AtomicReferenceArray<AtomicLongArray> stripes;
+
+	/**
+	 * Creates an empty histogram with room for one stripe per
+	 * processor, up to MAX_STRIPES.
+	 */
+	public LatencyHistogram() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		stripes = new AtomicReferenceArray<>(Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, processors))));
+	}
+
+	/**
+	 * Records one latency.  Negative values are recorded as 0.
+	 * @param nanos
+	 */
+	public void record(long nanos) {
+		int i = Thread.currentThread().hashCode() & (stripes.length() - 1);
+		AtomicLongArray stripe = stripes.get(i);
+		if (stripe == null) {
+			stripe = stripe(i);
+		}
+		stripe.getAndIncrement(bucket(Math.max(0, nanos)));
+	}
+
+	/**
+	 * Returns the stripe, allocating it if no thread has yet.
+	 */
+	private AtomicLongArray stripe(int i) {
+		AtomicLongArray stripe = new AtomicLongArray(BUCKETS);
+		return stripes.compareAndSet(i, null, stripe) ? stripe : stripes.get(i);
+	}
+
+	/**
+	 * Returns the number of stripes allocated so far.
+	 */
+	int allocatedStripes() {
+		int allocated = 0;
+		for (int i = 0; i < stripes.length(); i++) {
+			if (stripes.get(i) != null) {
+				allocated++;
+			}
+		}
+		return allocated;
+	}
+
+	/**
+	 * Returns the number of latencies recorded.
+	 * @return long
+	 */
+	public long getCount() {
+		long count = 0;
+		for (long c : counts()) {
+			count += c;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the latency at or below which the given percentage of
+	 * recorded latencies fall, rounded up to the top of its bucket,
+	 * or 0 if nothing is recorded.
+	 * @param percentile between 0 and 100
+	 * @return long
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long[] counts = counts();
+		long count = 0;
+		for (long c : counts) {
+			count += c;
+		}
+		if (count == 0) {
+			return 0;
+		}
+		//Rank of the value, counting from 1
+		long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return highestValue(i);
+			}
+		}
+		return highestValue(counts.length - 1);
+	}
+
+	/**
+	 * Returns the highest latency recorded, rounded up to the
+	 * top of its bucket, or 0 if nothing is recorded.
+	 * @return long
+	 */
+	public long getMax() {
+		long[] counts = counts();
+		for (int i = counts.length - 1; i >= 0; i--) {
+			if (counts[i] > 0) {
+				return highestValue(i);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the bucket of a non-negative value.
+	 */
+	static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+	}
+
+	/**
+	 * Returns the highest value that falls in the bucket.
+	 */
+	static long highestValue(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lowest = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+		return lowest + ((1L << shift) - 1);
+	}
+
+	private long[] counts() {
+		long[] counts = new long[BUCKETS];
+		for (int s = 0; s < stripes.length(); s++) {
+			AtomicLongArray stripe = stripes.get(s);
+			if (stripe == null) {
+				continue;
+			}
+			for (int i = 0; i < BUCKETS; i++) {
+				counts[i] += stripe.get(i);
+			}
+		}
+		return counts;
+	}
+}
@@ -4,8 +4,14 @@ import coffee.exceptions.InventoryException;
 import coffee.exceptions.RecipeException;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /**
  * 
@@ -15,39 +21,48 @@ import java.io.InputStreamReader;
  */
 public class Main {
     private static CoffeeMaker coffeeMaker;
+    /** Reader for all user input, so no typed-ahead input is lost */
+    private static final BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+    /** Reused for every purchase made from the menu */
+    private static final Purchase purchase = new Purchase();
 
     /**
      * Prints the main menu and handles user input for 
-     * main menu commands.
+     * main menu commands until the user exits or the
+     * input ends.
      */
     public static void mainMenu() {
-        System.out.println("1. Add a recipe");
-        System.out.println("2. Delete a recipe");
-        System.out.println("3. Edit a recipe");
-        System.out.println("4. Add inventory");
-        System.out.println("5. Check inventory");
-        System.out.println("6. Make coffee");
-        System.out.println("0. Exit\n");
-        
-        //Get user input
-        try {
-        	int userInput = Integer.parseInt(inputOutput("Please press the number that corresponds to what you would like the coffee maker to do."));
-        	
-        	if (userInput >= 0 && userInput <=6) {
-		        if (userInput == 1) addRecipe();
-		        if (userInput == 2) deleteRecipe();
-		        if (userInput == 3) editRecipe();
-		        if (userInput == 4) addInventory();
-		        if (userInput == 5) checkInventory();
-		        if (userInput == 6) makeCoffee();
-		        if (userInput == 0) System.exit(0);
-        	} else {
-        		System.out.println("Please enter a number from 0 - 6");
-            	mainMenu();
-        	}
-        } catch (NumberFormatException e) {
-        	System.out.println("Please enter a number from 0 - 6");
-        	mainMenu();
+        while (true) {
+	        System.out.println("1. Add a recipe");
+	        System.out.println("2. Delete a recipe");
+	        System.out.println("3. Edit a recipe");
+	        System.out.println("4. Add inventory");
+	        System.out.println("5. Check inventory");
+	        System.out.println("6. Make coffee");
+	        System.out.println("0. Exit\n");
+	        
+	        //Get user input
+	        String input = inputOutput("Please press the number that corresponds to what you would like the coffee maker to do.");
+	        if (input == null) {
+	        	return;
+	        }
+	        try {
+	        	int userInput = Integer.parseInt(input);
+	        	
+	        	if (userInput >= 0 && userInput <=6) {
+			        if (userInput == 1) addRecipe();
+			        if (userInput == 2) deleteRecipe();
+			        if (userInput == 3) editRecipe();
+			        if (userInput == 4) addInventory();
+			        if (userInput == 5) checkInventory();
+			        if (userInput == 6) makeCoffee();
+			        if (userInput == 0) return;
+	        	} else {
+	        		System.out.println("Please enter a number from 0 - 6");
+	        	}
+	        } catch (NumberFormatException e) {
+	        	System.out.println("Please enter a number from 0 - 6");
+	        }
         }
     }
     
@@ -92,8 +107,6 @@ public class Main {
 		    }
 		} catch (RecipeException e) {
 			System.out.println(e.getMessage());
-		} finally {
-			mainMenu();
 		}
     }
     
@@ -110,7 +123,7 @@ public class Main {
         int recipeToDelete = recipeListSelection("Please select the number of the recipe to delete.");
         
 	    if(recipeToDelete < 0) {
-	    	mainMenu();
+	    	return;
 	    }
 	    
         String recipeDeleted = coffeeMaker.deleteRecipe(recipeToDelete);
@@ -120,7 +133,6 @@ public class Main {
         } else {
 	        System.out.println("Selected recipe doesn't exist and could not be deleted.\n");
         }
-        mainMenu();
     }
     
     /**
@@ -136,7 +148,7 @@ public class Main {
         int recipeToEdit = recipeListSelection("Please select the number of the recipe to edit.");
         
 	    if(recipeToEdit < 0) {
-	    	mainMenu();
+	    	return;
 	    }
 	    
 	    //Read in recipe price
@@ -172,8 +184,6 @@ public class Main {
 		    }
 		} catch (RecipeException e) {
 			System.out.println(e.getMessage());
-		} finally {
-			mainMenu();
 		}
     }
     
@@ -198,8 +208,6 @@ public class Main {
         	System.out.println("Inventory successfully added");
         } catch (InventoryException e) {
         	System.out.println("Inventory was not added");
-        } finally {
-        	mainMenu();
         }
     }
     
@@ -208,7 +216,6 @@ public class Main {
      */
     public static void checkInventory() {
     	System.out.println(coffeeMaker.checkInventory());
-    	mainMenu();
     }
     
     /**
@@ -218,11 +225,15 @@ public class Main {
         Recipe [] recipes = coffeeMaker.getRecipes();
         for(int i = 0; i < recipes.length; i++) {
         	if (recipes[i] != null) {
-        		System.out.println((i+1) + ". " + recipes[i].getName());
+        		System.out.println((i+1) + ". " + recipes[i].getName()
+        				+ (coffeeMaker.isAvailable(i) ? "" : " (unavailable)"));
         	}
         }
         
         int recipeToPurchase = recipeListSelection("Please select the number of the recipe to purchase.");
+        if (recipeToPurchase < 0) {
+        	return;
+        }
         
         String amountPaid = inputOutput("Please enter the amount you wish to pay");
         int amtPaid = 0;
@@ -230,36 +241,40 @@ public class Main {
         	amtPaid = Integer.parseInt(amountPaid);
         } catch (NumberFormatException e) {
         	System.out.println("Please enter a positive integer");
-        	mainMenu();
+        	return;
         }
         
-        int change = coffeeMaker.makeCoffee(recipeToPurchase, amtPaid);
-        
-        if (change == amtPaid) {
+        switch (coffeeMaker.makeCoffee(recipeToPurchase, amtPaid, purchase)) {
+        case SUCCESS:
+        	System.out.println("Thank you for purchasing " + purchase.getRecipe().getName());
+        	break;
+        case INSUFFICIENT_FUNDS:
         	System.out.println("Insufficient funds to purchase.");
-        } else {
-        	System.out.println("Thank you for purchasing " + coffeeMaker.getRecipes()[recipeToPurchase].getName());
+        	break;
+        case INSUFFICIENT_INVENTORY:
+        	System.out.println("Insufficient inventory to purchase.");
+        	break;
+        default:
+        	System.out.println("Selected recipe doesn't exist.");
+        	break;
         }
-        System.out.println("Your change is: " + change + "\n");
-        mainMenu();
+        System.out.println("Your change is: " + purchase.getChange() + "\n");
     }
     
     /**
      * Passes a prompt to the user and returns the user specified 
-     * string.
+     * string, or null if the input has ended.
      * @param message
      * @return String
      */
     private static String inputOutput(String message) {
         System.out.println(message);
-	    BufferedReader br = new BufferedReader(new InputStreamReader(System.in));
 	    String returnString = "";
 	    try {
-	        returnString = br.readLine();
+	        returnString = in.readLine();
 	    }
 	    catch (IOException e){
 	        System.out.println("Error reading in value");
-	        mainMenu();
 	    }
 	    return returnString;
     }
@@ -288,11 +303,32 @@ public class Main {
     }
     
     /**
-     * Starts the coffee maker program.
+     * Runs the commands in the script file, or in standard input if
+     * the file is "-", and prints their results.  See ScriptRunner
+     * for the commands.
+     * @param file
+     */
+    public static void runScript(String file) {
+    	PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+    	try (BufferedReader script = file.equals("-") ? in : Files.newBufferedReader(Paths.get(file))) {
+    		new ScriptRunner(coffeeMaker, out).run(script);
+    	} catch (IOException e) {
+    		out.flush();
+    		System.err.println("Error reading script " + file + ": " + e.getMessage());
+    	}
+    }
+    
+    /**
+     * Starts the coffee maker program.  With a script file as the
+     * argument, the script is run instead of the menu.
      * @param args
      */
     public static void main(String[] args) {
 	    coffeeMaker = new CoffeeMaker();
+	    if (args.length > 0) {
+	    	runScript(args[0]);
+	    	return;
+	    }
 	    System.out.println("Welcome to the CoffeeMaker!\n");
 	    mainMenu();
 	}
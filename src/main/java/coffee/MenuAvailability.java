@@ -0,0 +1,351 @@
+package coffee;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Which recipes of a coffee maker can be made with the stock on hand,
+ * kept up to date as the stock and the recipe book change.
+ *
+ * The availability of every recipe position is held in a bitset that
+ * is published whole, so reading it is one volatile read that never
+ * locks and costs the same however many recipes there are.  For every
+ * ingredient the recipes using it are kept sorted by the units they
+ * need, with a cut between the recipes the stock is short for and the
+ * rest, and every recipe counts the ingredients it is short of.
+ *
+ * The work is done on the thread that changes the stock, while telling
+ * the availability about it.  Only the cuts of the ingredients the
+ * change used are moved, past only the recipes whose need lies between
+ * the old and new units, so a brew that makes no recipe available or
+ * unavailable touches no recipe and publishes nothing.  When one does,
+ * a new menu is worked out from the current one and published with
+ * compare-and-set, and worked out again if another change got there
+ * first, so brewers on an AtomicInventory never wait for a lock here.
+ * A change to the recipe book works everything out again.
+ *
+ * Availability follows the stock as of the last change the listener
+ * was told about, so a recipe shown as available can still run out
+ * before it is bought.
+ */
+public final class MenuAvailability implements InventoryListener, RecipeBookListener {
+
+	private final RecipeBook recipeBook;
+	private final Inventory inventory;
+	/** Availability as of the last change; each menu is replaced, never changed */
+	private final AtomicReference<Menu> menu;
+
+	/**
+	 * Recipes using each ingredient, most units needed first, worked
+	 * out once for each recipe snapshot and shared by its menus.
+	 */
+	private static final class Uses {
+		/** Positions of the recipes using each ingredient, by ingredient id */
+		final int[][] recipesUsing;
+		/** Units needed by each of recipesUsing, by ingredient id */
+		final int[][] unitsNeeded;
+
+		Uses(int[][] recipesUsing, int[][] unitsNeeded) {
+			this.recipesUsing = recipesUsing;
+			this.unitsNeeded = unitsNeeded;
+		}
+	}
+
+	/**
+	 * Recipes and which of them can be made, by position.
+	 */
+	private static final class Menu {
+		final RecipeSnapshot recipes;
+		final Uses uses;
+		final long version;
+		/** Number of recipesUsing needing more than the units in stock, by ingredient id */
+		final int[] cuts;
+		/** Number of ingredients each recipe is short of, by position; null recipes are always short */
+		final int[] shortOf;
+		/** Bit i of word i / 64 is set if the recipe at position i can be made */
+		final long[] available;
+		final int count;
+
+		Menu(RecipeSnapshot recipes, Uses uses, long version, int[] cuts, int[] shortOf, long[] available) {
+			this.recipes = recipes;
+			this.uses = uses;
+			this.version = version;
+			this.cuts = cuts;
+			this.shortOf = shortOf;
+			this.available = available;
+			int count = 0;
+			for (long word : available) {
+				count += Long.bitCount(word);
+			}
+			this.count = count;
+		}
+
+		/**
+		 * Returns this menu with the cuts of the ingredients used in
+		 * amounts, or of every ingredient if amounts is null, moved to
+		 * the units in stock, or this menu if no cut moves.
+		 */
+		Menu update(Inventory inventory, int[] amounts) {
+			int[] cuts = this.cuts;
+			int[] shortOf = this.shortOf;
+			long[] available = this.available;
+			int ingredients = amounts == null ? cuts.length : Math.min(amounts.length, cuts.length);
+			for (int id = 0; id < ingredients; id++) {
+				if (amounts != null && amounts[id] == 0) {
+					continue;
+				}
+				int units = inventory.units(id);
+				int[] recipes = uses.recipesUsing[id];
+				int[] needed = uses.unitsNeeded[id];
+				int from = cuts[id];
+				int to = from;
+				while (to < needed.length && needed[to] > units) {
+					to++;
+				}
+				while (to > 0 && needed[to - 1] <= units) {
+					to--;
+				}
+				if (to == from) {
+					continue;
+				}
+				if (cuts == this.cuts) {
+					cuts = cuts.clone();
+					shortOf = shortOf.clone();
+				}
+				cuts[id] = to;
+				for (int i = from; i < to; i++) {
+					if (shortOf[recipes[i]]++ == 0) {
+						available = flip(available, recipes[i]);
+					}
+				}
+				for (int i = to; i < from; i++) {
+					if (--shortOf[recipes[i]] == 0) {
+						available = flip(available, recipes[i]);
+					}
+				}
+			}
+			if (cuts == this.cuts) {
+				return this;
+			}
+			return new Menu(recipes, uses, available == this.available ? version : version + 1, cuts, shortOf, available);
+		}
+
+		/**
+		 * Flips the bit of the recipe in a copy of available,
+		 * copying it only the first time.
+		 */
+		private long[] flip(long[] available, int recipe) {
+			if (available == this.available) {
+				available = available.clone();
+			}
+			available[recipe >> 6] ^= 1L << recipe;
+			return available;
+		}
+	}
+
+	/**
+	 * Creates the availability of the recipes in the recipe book and
+	 * starts listening to the inventory and the recipe book.
+	 * @param recipeBook
+	 * @param inventory
+	 */
+	public MenuAvailability(RecipeBook recipeBook, Inventory inventory) {
+		this.recipeBook = recipeBook;
+		this.inventory = inventory;
+		this.menu = new AtomicReference<>(new Menu(null, null, 0, new int[0], new int[0], new long[0]));
+		//Listen first, so no change is missed between reading and listening
+		inventory.addListener(this);
+		recipeBook.addListener(this);
+		rebuild();
+	}
+
+	/**
+	 * Returns true if there is a recipe at the position and the
+	 * stock holds enough of every ingredient to make it.
+	 * @param recipe
+	 * @return boolean
+	 */
+	public boolean isAvailable(int recipe) {
+		long[] available = menu.get().available;
+		return recipe >= 0 && recipe >> 6 < available.length && (available[recipe >> 6] & 1L << recipe) != 0;
+	}
+
+	/**
+	 * Returns the number of recipes that can be made.
+	 * @return int
+	 */
+	public int getAvailableCount() {
+		return menu.get().count;
+	}
+
+	/**
+	 * Returns the version of the availability, which goes up every
+	 * time a recipe becomes available or unavailable, or the recipe
+	 * book changes.  Menus can compare it to find out whether they
+	 * need to be redrawn.
+	 * @return long
+	 */
+	public long getVersion() {
+		return menu.get().version;
+	}
+
+	/**
+	 * Returns the recipes the availability was worked out for.
+	 * @return RecipeSnapshot
+	 */
+	public RecipeSnapshot getRecipeSnapshot() {
+		return menu.get().recipes;
+	}
+
+	/**
+	 * Returns how many of the recipe with the given name the stock
+	 * makes, 0 if it is unavailable, or -1 if there is no such recipe.
+	 * The stock is read only for an available recipe.
+	 */
+	int servings(String name) {
+		Menu menu = this.menu.get();
+		int recipe = menu.recipes.indexOf(name);
+		if (recipe < 0) {
+			return -1;
+		}
+		if ((menu.available[recipe >> 6] & 1L << recipe) == 0) {
+			return 0;
+		}
+		int[] amounts = menu.recipes.getCompact(recipe).amounts;
+		int servings = CapacityReport.UNLIMITED;
+		for (int id = 0; id < amounts.length; id++) {
+			if (amounts[id] > 0) {
+				servings = Math.min(servings, inventory.units(id) / amounts[id]);
+			}
+		}
+		return servings;
+	}
+
+	@Override
+	public void ingredientsUsed(Inventory inventory, int[] amounts) {
+		refresh(amounts);
+	}
+
+	@Override
+	public void stockChanged(Inventory inventory) {
+		refresh(null);
+	}
+
+	@Override
+	public void recipesChanged(RecipeBook book, RecipeSnapshot recipes) {
+		rebuild();
+	}
+
+	/**
+	 * Moves the cuts of the ingredients used in amounts, or of every
+	 * ingredient if amounts is null, and publishes the menu if one
+	 * moved.  This is repeated until the stock agrees with the menu
+	 * published, so a menu worked out from stock read before another
+	 * thread's change, and published after it, is put right.
+	 */
+	private void refresh(int[] amounts) {
+		while (true) {
+			Menu current = menu.get();
+			if (current.recipes == null) {
+				//Not built yet, and the build reads the stock
+				return;
+			}
+			if (inventory.getIngredients().size() > current.cuts.length) {
+				rebuild();
+				return;
+			}
+			Menu next = current.update(inventory, amounts);
+			if (next == current) {
+				return;
+			}
+			menu.compareAndSet(current, next);
+		}
+	}
+
+	/**
+	 * Works out the availability of the recipes in the book from
+	 * scratch and publishes it, unless a menu for a later snapshot
+	 * got there first.
+	 */
+	private void rebuild() {
+		while (true) {
+			Menu current = menu.get();
+			RecipeSnapshot recipes = recipeBook.getSnapshot();
+			int ingredients = inventory.getIngredients().size();
+			if (current.recipes != null && (current.recipes.getVersion() > recipes.getVersion()
+					|| current.recipes == recipes && current.cuts.length >= ingredients)) {
+				return;
+			}
+			if (menu.compareAndSet(current, build(recipes, ingredients, current.version + 1))) {
+				break;
+			}
+		}
+		//A change made while the stock was being read may have been worked out on the old menu
+		refresh(null);
+	}
+
+	/**
+	 * Reads the units of every ingredient, sorts the recipes using
+	 * each ingredient by the units they need and works out which
+	 * recipes can be made.
+	 */
+	private Menu build(RecipeSnapshot recipes, int ingredients, long version) {
+		int size = recipes.size();
+		int[] units = new int[ingredients];
+		for (int id = 0; id < ingredients; id++) {
+			units[id] = inventory.units(id);
+		}
+		//Each use holds the units needed above the recipe position, so sorting orders by need
+		long[][] uses = new long[ingredients][];
+		int[] counts = new int[ingredients];
+		int[] shortOf = new int[size];
+		for (int recipe = 0; recipe < size; recipe++) {
+			CompactRecipe r = recipes.getCompact(recipe);
+			if (r == null) {
+				shortOf[recipe] = 1;
+				continue;
+			}
+			for (int id = 0; id < r.amounts.length; id++) {
+				if (r.amounts[id] <= 0) {
+					continue;
+				}
+				if (id >= ingredients) {
+					//Never stocked, so the recipe cannot be made
+					shortOf[recipe]++;
+					continue;
+				}
+				if (uses[id] == null) {
+					uses[id] = new long[size];
+				}
+				uses[id][counts[id]++] = (long) r.amounts[id] << 32 | recipe;
+			}
+		}
+		int[][] recipesUsing = new int[ingredients][];
+		int[][] unitsNeeded = new int[ingredients][];
+		int[] cuts = new int[ingredients];
+		for (int id = 0; id < ingredients; id++) {
+			int count = counts[id];
+			recipesUsing[id] = new int[count];
+			unitsNeeded[id] = new int[count];
+			if (count > 0) {
+				Arrays.sort(uses[id], 0, count);
+			}
+			for (int i = 0; i < count; i++) {
+				long use = uses[id][count - 1 - i];
+				recipesUsing[id][i] = (int) use;
+				unitsNeeded[id][i] = (int) (use >>> 32);
+				if (unitsNeeded[id][i] > units[id]) {
+					shortOf[recipesUsing[id][i]]++;
+					cuts[id]++;
+				}
+			}
+		}
+		long[] available = new long[(size + 63) >> 6];
+		for (int recipe = 0; recipe < size; recipe++) {
+			if (shortOf[recipe] == 0) {
+				available[recipe >> 6] |= 1L << recipe;
+			}
+		}
+		return new Menu(recipes, new Uses(recipesUsing, unitsNeeded), version, cuts, shortOf, available);
+	}
+}
@@ -0,0 +1,34 @@
+package coffee;
+
+/**
+ * A single beverage purchase: the position of the recipe
+ * in the recipe book and the amount paid.
+ */
+public class Order {
+	private final int recipeToPurchase;
+	private final int amtPaid;
+
+	/**
+	 * Creates an order for the recipe at recipeToPurchase.
+	 * @param recipeToPurchase
+	 * @param amtPaid
+	 */
+	public Order(int recipeToPurchase, int amtPaid) {
+		this.recipeToPurchase = recipeToPurchase;
+		this.amtPaid = amtPaid;
+	}
+
+	/**
+	 * @return   Returns the position of the recipe to purchase.
+	 */
+	public int getRecipeToPurchase() {
+		return recipeToPurchase;
+	}
+
+	/**
+	 * @return   Returns the amount paid.
+	 */
+	public int getAmtPaid() {
+		return amtPaid;
+	}
+}
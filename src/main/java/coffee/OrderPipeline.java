@@ -0,0 +1,227 @@
+package coffee;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes orders for a coffee maker without making the caller wait for
+ * the brew.  Orders go into a bounded queue and each one gets a future
+ * that completes with its OrderResult once a worker has made it.
+ *
+ * Workers take every order waiting in the queue, up to MAX_BATCH at a
+ * time, and make them with one call to makeCoffeeBatch, so a burst of
+ * orders takes the coffee maker's locks once per batch rather than once
+ * per order.  When the queue is full, submit rejects the order at once
+ * and the timed submit waits for room, so callers can choose between
+ * failing fast and backpressure.
+ *
+ * By default the workers are virtual threads.  A virtual thread blocked
+ * on a monitor stays pinned to its carrier thread, so makeCoffeeBatch
+ * lets one batch in at a time through a ReentrantLock, on which the
+ * other workers park, and only then takes the coffee maker's monitor.
+ * Workers beyond one therefore only take the next batch off the queue
+ * while one is being made; batches of one coffee maker are never made
+ * at the same time.
+ */
+public class OrderPipeline implements AutoCloseable {
+	/** Most orders a worker makes in one batch */
+	public static final int MAX_BATCH = 64;
+
+	private final CoffeeMaker coffeeMaker;
+	private final BlockingQueue<PendingOrder> queue;
+	private final Thread[] workers;
+	private volatile boolean closed;
+
+	/**
+	 * An order waiting in the queue, with the future for its result.
+	 */
+	private static final class PendingOrder {
+		final Order order;
+		final CompletableFuture<OrderResult> result = new CompletableFuture<>();
+
+		PendingOrder(Order order) {
+			this.order = order;
+		}
+	}
+
+	/**
+	 * Creates a pipeline in front of coffeeMaker whose queue holds
+	 * up to capacity orders, drained by the given number of virtual
+	 * thread workers.
+	 * @param coffeeMaker
+	 * @param capacity
+	 * @param workers
+	 */
+	public OrderPipeline(CoffeeMaker coffeeMaker, int capacity, int workers) {
+		this(coffeeMaker, capacity, workers, Thread.ofVirtual().name("coffee-order-", 0).factory());
+	}
+
+	/**
+	 * Creates a pipeline in front of coffeeMaker whose queue holds
+	 * up to capacity orders, drained by the given number of workers
+	 * made by threadFactory.
+	 * @param coffeeMaker
+	 * @param capacity
+	 * @param workers
+	 * @param threadFactory
+	 */
+	public OrderPipeline(CoffeeMaker coffeeMaker, int capacity, int workers, ThreadFactory threadFactory) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Queue capacity must be a positive integer");
+		}
+		if (workers <= 0) {
+			throw new IllegalArgumentException("Number of workers must be a positive integer");
+		}
+		this.coffeeMaker = coffeeMaker;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.workers = new Thread[workers];
+		for (int i = 0; i < workers; i++) {
+			this.workers[i] = threadFactory.newThread(this::work);
+			this.workers[i].start();
+		}
+	}
+
+	/**
+	 * Queues the order and returns a future for its result.  If the
+	 * queue is full or the pipeline is closed, the future fails at once
+	 * with a RejectedExecutionException and the order is not made.
+	 * @param order
+	 * @return CompletableFuture of OrderResult
+	 */
+	public CompletableFuture<OrderResult> submit(Order order) {
+		PendingOrder pending = new PendingOrder(Objects.requireNonNull(order));
+		if (closed || !queue.offer(pending)) {
+			return rejected(pending, "Order queue is full");
+		}
+		return accepted(pending);
+	}
+
+	/**
+	 * Queues the order, waiting up to the given time for room in the
+	 * queue, and returns a future for its result.  If there is still no
+	 * room, or the pipeline is closed, the future fails with a
+	 * RejectedExecutionException and the order is not made.
+	 * @param order
+	 * @param timeout
+	 * @param unit
+	 * @return CompletableFuture of OrderResult
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public CompletableFuture<OrderResult> submit(Order order, long timeout, TimeUnit unit) throws InterruptedException {
+		PendingOrder pending = new PendingOrder(Objects.requireNonNull(order));
+		if (closed || !queue.offer(pending, timeout, unit)) {
+			return rejected(pending, "Order queue is full");
+		}
+		return accepted(pending);
+	}
+
+	/**
+	 * Returns the number of orders waiting to be made.
+	 * @return int
+	 */
+	public int size() {
+		return queue.size();
+	}
+
+	/**
+	 * Stops taking orders, waits for the workers to make every order
+	 * already queued, and returns.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		for (Thread worker : workers) {
+			worker.interrupt();
+		}
+		boolean interrupted = false;
+		for (Thread worker : workers) {
+			while (true) {
+				try {
+					worker.join();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		//Only left if the workers could not run
+		PendingOrder pending;
+		while ((pending = queue.poll()) != null) {
+			rejected(pending, "Order pipeline is closed");
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Returns the future of a queued order, unless the pipeline was
+	 * closed meanwhile and the order can still be taken back.
+	 */
+	private CompletableFuture<OrderResult> accepted(PendingOrder pending) {
+		if (closed && queue.remove(pending)) {
+			return rejected(pending, "Order pipeline is closed");
+		}
+		return pending.result;
+	}
+
+	private static CompletableFuture<OrderResult> rejected(PendingOrder pending, String message) {
+		pending.result.completeExceptionally(new RejectedExecutionException(message));
+		return pending.result;
+	}
+
+	/**
+	 * Makes queued orders in batches until the pipeline is closed
+	 * and the queue is empty.
+	 */
+	private void work() {
+		List<PendingOrder> batch = new ArrayList<>(MAX_BATCH);
+		List<Order> orders = new ArrayList<>(MAX_BATCH);
+		while (true) {
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException e) {
+				if (closed) {
+					break;
+				}
+				continue;
+			}
+			queue.drainTo(batch, MAX_BATCH - 1);
+			make(batch, orders);
+		}
+		//Closed: make what is left, without waiting for more
+		while (queue.drainTo(batch, MAX_BATCH) > 0) {
+			make(batch, orders);
+		}
+	}
+
+	/**
+	 * Makes the batch, completes the future of each order and
+	 * clears the batch.
+	 */
+	private void make(List<PendingOrder> batch, List<Order> orders) {
+		for (PendingOrder pending : batch) {
+			orders.add(pending.order);
+		}
+		try {
+			List<OrderResult> results = coffeeMaker.makeCoffeeBatch(orders);
+			for (int i = 0; i < batch.size(); i++) {
+				batch.get(i).result.complete(results.get(i));
+			}
+		} catch (RuntimeException e) {
+			for (PendingOrder pending : batch) {
+				pending.result.completeExceptionally(e);
+			}
+		} finally {
+			batch.clear();
+			orders.clear();
+		}
+	}
+}
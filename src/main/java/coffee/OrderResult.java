@@ -0,0 +1,43 @@
+package coffee;
+
+/**
+ * Result of an Order: how the purchase went and the change
+ * handed back, which is the whole payment unless the
+ * beverage was made.
+ */
+public class OrderResult {
+	private final PurchaseOutcome outcome;
+	private final int change;
+
+	/**
+	 * Creates the result of an order.
+	 * @param outcome
+	 * @param change
+	 */
+	public OrderResult(PurchaseOutcome outcome, int change) {
+		this.outcome = outcome;
+		this.change = change;
+	}
+
+	/**
+	 * @return   Returns the outcome of the order.
+	 */
+	public PurchaseOutcome getOutcome() {
+		return outcome;
+	}
+
+	/**
+	 * @return   Returns the change of the order.
+	 */
+	public int getChange() {
+		return change;
+	}
+
+	/**
+	 * Returns the outcome and change of the order.
+	 * @return String
+	 */
+	public String toString() {
+		return outcome + " (change: " + change + ")";
+	}
+}
@@ -0,0 +1,60 @@
+package coffee;
+
+/**
+ * Result of a beverage purchase: its outcome, the recipe bought and
+ * the change handed back.
+ *
+ * A Purchase is filled in by CoffeeMaker.makeCoffee and is meant to be
+ * kept and reused by one terminal or thread for all its purchases, so
+ * buying a beverage does not allocate.  It is not thread-safe.
+ */
+public final class Purchase {
+	private PurchaseOutcome outcome;
+	private CompactRecipe recipe;
+	private int change;
+
+	/**
+	 * Creates an empty purchase to pass to CoffeeMaker.makeCoffee.
+	 */
+	public Purchase() {
+	}
+
+	void set(PurchaseOutcome outcome, CompactRecipe recipe, int change) {
+		this.outcome = outcome;
+		this.recipe = recipe;
+		this.change = change;
+	}
+
+	/**
+	 * @return   Returns the outcome of the purchase, or null before the first purchase.
+	 */
+	public PurchaseOutcome getOutcome() {
+		return outcome;
+	}
+
+	/**
+	 * Returns the recipe that was bought or tried, or null if
+	 * there was no such recipe.
+	 * @return CompactRecipe
+	 */
+	public CompactRecipe getRecipe() {
+		return recipe;
+	}
+
+	/**
+	 * Returns the change, which is the whole payment unless
+	 * the beverage was made.
+	 * @return int
+	 */
+	public int getChange() {
+		return change;
+	}
+
+	/**
+	 * Returns the outcome and change of the purchase.
+	 * @return String
+	 */
+	public String toString() {
+		return outcome + " (change: " + change + ")";
+	}
+}
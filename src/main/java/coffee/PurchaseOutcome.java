@@ -0,0 +1,25 @@
+package coffee;
+
+/**
+ * Outcome of a beverage purchase.
+ */
+public enum PurchaseOutcome {
+	/** The beverage was made and the change returned */
+	SUCCESS,
+	/** There is no recipe at the selected position */
+	NO_SUCH_RECIPE,
+	/** The amount paid does not cover the price of the recipe */
+	INSUFFICIENT_FUNDS,
+	/** The inventory does not hold enough ingredients for the recipe */
+	INSUFFICIENT_INVENTORY,
+	/** The order was not tried because an earlier order in its batch failed */
+	NOT_ATTEMPTED;
+
+	/**
+	 * Returns true if the beverage was made.
+	 * @return boolean
+	 */
+	public boolean isSuccess() {
+		return this == SUCCESS;
+	}
+}
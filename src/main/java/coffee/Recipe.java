@@ -2,16 +2,20 @@ package coffee;
 
 import coffee.exceptions.RecipeException;
 
+import java.util.Arrays;
+import java.util.Locale;
+
 /**
  * @author   Sarah Heckman
  */
 public class Recipe {
+    /** Message of the RecipeException thrown for an invalid price */
+    static final String PRICE_MESSAGE = "Price must be a positive integer";
+    
     private String name;
     private int price;
-    private int amtCoffee;
-    private int amtMilk;
-    private int amtSugar;
-    private int amtChocolate;
+    /** Units of each ingredient, by ingredient id */
+    private int[] amounts;
     
     /**
      * Creates a default recipe for the coffee maker.
@@ -19,99 +23,164 @@ public class Recipe {
     public Recipe() {
     	this.name = "";
     	this.price = 0;
-    	this.amtCoffee = 0;
-    	this.amtMilk = 0;
-    	this.amtSugar = 0;
-    	this.amtChocolate = 0;
+    	this.amounts = new int[Ingredient.STANDARD.length];
+    }
+    
+    /**
+     * Creates a recipe from amounts that are already known
+     * to be valid.
+     */
+    Recipe(String name, int price, int amtCoffee, int amtMilk, int amtSugar, int amtChocolate) {
+    	this(name, price, new int[] {amtCoffee, amtMilk, amtSugar, amtChocolate});
+    }
+    
+    /**
+     * Creates a recipe from amounts by ingredient id that are
+     * already known to be valid.  The array is not copied.
+     */
+    Recipe(String name, int price, int[] amounts) {
+    	this.name = name;
+    	this.price = price;
+    	this.amounts = amounts;
+    }
+    
+    /**
+     * Returns the units of the ingredient in the recipe.
+     * @param ingredient
+     * @return int
+     */
+    public int getAmount(Ingredient ingredient) {
+    	int id = ingredient.getId();
+    	return id < amounts.length ? amounts[id] : 0;
+    }
+    
+    /**
+     * Sets the units of the ingredient in the recipe.
+     * @param ingredient
+     * @param units
+     * @throws RecipeException
+     */
+    public void setAmount(Ingredient ingredient, String units) throws RecipeException {
+    	if (!setAmount(ingredient, UnitParser.parse(units))) {
+    		throw unitsException(ingredient);
+    	}
+    }
+    
+    /**
+     * Sets the units of the ingredient in the recipe and returns
+     * true, or returns false and leaves the recipe unchanged if
+     * units is negative.
+     * @param ingredient
+     * @param units
+     * @return boolean
+     */
+    public boolean setAmount(Ingredient ingredient, int units) {
+		if (units < 0) {
+			return false;
+		}
+		int id = ingredient.getId();
+		if (id >= amounts.length) {
+			amounts = Arrays.copyOf(amounts, id + 1);
+		}
+		amounts[id] = units;
+		return true;
+    }
+    
+    private static RecipeException unitsException(Ingredient ingredient) {
+    	return new RecipeException(unitsMessage(ingredient));
+    }
+    
+    /**
+     * Returns the message of the RecipeException thrown for
+     * invalid units of the ingredient.
+     */
+    static String unitsMessage(Ingredient ingredient) {
+    	return "Units of " + ingredient.getName().toLowerCase(Locale.ROOT) + " must be a positive integer";
+    }
+    
+    /**
+     * Returns the units of each ingredient, by id.  The array
+     * is not copied and must not be changed.
+     */
+    int[] amounts() {
+    	return amounts;
     }
     
     /**
 	 * @return   Returns the amtChocolate.
 	 */
     public int getAmtChocolate() {
-		return amtChocolate;
+		return getAmount(Ingredient.CHOCOLATE);
 	}
     /**
 	 * @param amtChocolate   The amtChocolate to set.
 	 */
     public void setAmtChocolate(String chocolate) throws RecipeException {
-    	int amtChocolate = 0;
-    	try {
-    		amtChocolate = Integer.parseInt(chocolate);
-    	} catch (NumberFormatException e) {
-    		throw new RecipeException("Units of chocolate must be a positive integer");
-    	}
-		if (amtChocolate >= 0) {
-			this.amtChocolate = amtChocolate;
-		} else {
-			throw new RecipeException("Units of chocolate must be a positive integer");
-		}
+    	setAmount(Ingredient.CHOCOLATE, chocolate);
+	}
+    /**
+	 * @param chocolate   The units of chocolate to set.
+	 * @return   Returns false if chocolate is negative.
+	 */
+    public boolean setAmtChocolate(int chocolate) {
+    	return setAmount(Ingredient.CHOCOLATE, chocolate);
 	}
     /**
 	 * @return   Returns the amtCoffee.
 	 */
     public int getAmtCoffee() {
-		return amtCoffee;
+		return getAmount(Ingredient.COFFEE);
 	}
     /**
 	 * @param amtCoffee   The amtCoffee to set.
 	 */
     public void setAmtCoffee(String coffee) throws RecipeException {
-    	int amtCoffee = 0;
-    	try {
-    		amtCoffee = Integer.parseInt(coffee);
-    	} catch (NumberFormatException e) {
-    		throw new RecipeException("Units of coffee must be a positive integer");
-    	}
-		if (amtCoffee >= 0) {
-			this.amtCoffee = amtCoffee;
-		} else {
-			throw new RecipeException("Units of coffee must be a positive integer");
-		}
+    	setAmount(Ingredient.COFFEE, coffee);
+	}
+    /**
+	 * @param coffee   The units of coffee to set.
+	 * @return   Returns false if coffee is negative.
+	 */
+    public boolean setAmtCoffee(int coffee) {
+    	return setAmount(Ingredient.COFFEE, coffee);
 	}
     /**
 	 * @return   Returns the amtMilk.
 	 */
     public int getAmtMilk() {
-		return amtMilk;
+		return getAmount(Ingredient.MILK);
 	}
     /**
 	 * @param amtMilk   The amtMilk to set.
 	 */
     public void setAmtMilk(String milk) throws RecipeException{
-    	int amtMilk = 0;
-    	try {
-    		amtMilk = Integer.parseInt(milk);
-    	} catch (NumberFormatException e) {
-    		throw new RecipeException("Units of milk must be a positive integer");
-    	}
-		if (amtMilk >= 0) {
-			this.amtMilk = amtMilk;
-		} else {
-			throw new RecipeException("Units of milk must be a positive integer");
-		}
+    	setAmount(Ingredient.MILK, milk);
+	}
+    /**
+	 * @param milk   The units of milk to set.
+	 * @return   Returns false if milk is negative.
+	 */
+    public boolean setAmtMilk(int milk) {
+    	return setAmount(Ingredient.MILK, milk);
 	}
     /**
 	 * @return   Returns the amtSugar.
 	 */
     public int getAmtSugar() {
-		return amtSugar;
+		return getAmount(Ingredient.SUGAR);
 	}
     /**
 	 * @param amtSugar   The amtSugar to set.
 	 */
     public void setAmtSugar(String sugar) throws RecipeException {
-    	int amtSugar = 0;
-    	try {
-    		amtSugar = Integer.parseInt(sugar);
-    	} catch (NumberFormatException e) {
-    		throw new RecipeException("Units of sugar must be a positive integer");
-    	}
-		if (amtSugar >= 0) {
-			this.amtSugar = amtSugar;
-		} else {
-			throw new RecipeException("Units of sugar must be a positive integer");
-		}
+    	setAmount(Ingredient.SUGAR, sugar);
+	}
+    /**
+	 * @param sugar   The units of sugar to set.
+	 * @return   Returns false if sugar is negative.
+	 */
+    public boolean setAmtSugar(int sugar) {
+    	return setAmount(Ingredient.SUGAR, sugar);
 	}
     /**
 	 * @return   Returns the name.
@@ -137,18 +206,21 @@ public class Recipe {
 	 * @param price   The price to set.
 	 */
     public void setPrice(String price) throws RecipeException{
-    	int amtPrice = 0;
-    	try {
-    		amtPrice = Integer.parseInt(price);
-    	} catch (NumberFormatException e) {
-    		throw new RecipeException("Price must be a positive integer");
+    	if (!setPrice(UnitParser.parse(price))) {
+    		throw new RecipeException(PRICE_MESSAGE);
     	}
-		if (amtPrice >= 0) {
-			this.price = amtPrice;
-		} else {
-			throw new RecipeException("Price must be a positive integer");
-		}
-	} 
+	}
+    /**
+	 * @param price   The price to set.
+	 * @return   Returns false if price is negative.
+	 */
+    public boolean setPrice(int price) {
+    	if (price < 0) {
+    		return false;
+    	}
+    	this.price = price;
+    	return true;
+	}
     
     /**
      * Returns the name of the recipe.
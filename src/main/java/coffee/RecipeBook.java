@@ -1,26 +1,112 @@
 package coffee;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 public class RecipeBook {
 	
-	/** Array of recipes in coffee maker*/
-	private Recipe [] recipeArray;
+	/** Array of recipes in coffee maker; subclasses may replace it while holding the lock */
+	protected Recipe [] recipeArray;
 	/** Number of recipes in coffee maker */
-	private final int NUM_RECIPES = 4; 
+	private static final int NUM_RECIPES = 4; 
+	/** Recipes as of the last change, read without locking */
+	private volatile RecipeSnapshot snapshot;
+	/** Replaced, never changed, when a listener is added or removed */
+	private volatile RecipeBookListener[] listeners = new RecipeBookListener[0];
 	
 	/**
 	 * Default constructor for a RecipeBook.
 	 */
 	public RecipeBook() {
-		recipeArray = new Recipe[NUM_RECIPES];
+		this(NUM_RECIPES);
 	}
 	
 	/**
-	 * Returns the recipe array.
-	 * @param r
+	 * Creates a recipe book with the given number of empty
+	 * positions, for subclasses that size or grow the array
+	 * themselves.
+	 * @param numRecipes
+	 */
+	protected RecipeBook(int numRecipes) {
+		recipeArray = new Recipe[numRecipes];
+		snapshot = new RecipeSnapshot(0, recipeArray);
+	}
+	
+	/**
+	 * Returns a copy of the recipe array as of the last change.
 	 * @return Recipe[]
 	 */
-	public synchronized Recipe[] getRecipes() {
-		return recipeArray;
+	public Recipe[] getRecipes() {
+		return snapshot.toArray();
+	}
+	
+	/**
+	 * Returns the recipes as of the last change.  Never blocks,
+	 * even while the book is being changed.
+	 * @return RecipeSnapshot
+	 */
+	public RecipeSnapshot getSnapshot() {
+		return snapshot;
+	}
+	
+	/**
+	 * Replaces every recipe with the given ones, keeping their
+	 * positions.  Used to recover the book from a journal snapshot.
+	 * @param recipes
+	 */
+	synchronized void restore(Recipe[] recipes) {
+		recipeArray = new Recipe[NUM_RECIPES];
+		System.arraycopy(recipes, 0, recipeArray, 0, Math.min(recipes.length, NUM_RECIPES));
+		publish(recipeArray);
+	}
+	
+	/**
+	 * Replaces the snapshot with a copy of recipes and the next
+	 * version.  Called by every change to the book while holding
+	 * its lock.
+	 * @param recipes
+	 */
+	protected void publish(Recipe[] recipes) {
+		publish(new RecipeSnapshot(snapshot.getVersion() + 1, recipes, snapshot));
+	}
+	
+	/**
+	 * Replaces the snapshot with published, whose version must be the
+	 * next one, and tells the listeners.  Called while holding the lock.
+	 * @param published
+	 */
+	void publish(RecipeSnapshot published) {
+		snapshot = published;
+		for (RecipeBookListener listener : listeners) {
+			listener.recipesChanged(this, published);
+		}
+	}
+	
+	/**
+	 * Adds a listener to be told about every change to the recipes.
+	 * @param listener
+	 */
+	public synchronized void addListener(RecipeBookListener listener) {
+		RecipeBookListener[] grown = Arrays.copyOf(listeners, listeners.length + 1);
+		grown[listeners.length] = listener;
+		listeners = grown;
+	}
+	
+	/**
+	 * Removes a listener added with addListener.
+	 * @param listener
+	 */
+	public synchronized void removeListener(RecipeBookListener listener) {
+		RecipeBookListener[] current = listeners;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i] == listener) {
+				RecipeBookListener[] shrunk = Arrays.copyOf(current, current.length - 1);
+				System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+				listeners = shrunk;
+				return;
+			}
+		}
 	}
 	
 	public synchronized boolean addRecipe(Recipe r) {
@@ -45,6 +131,59 @@ public class RecipeBook {
 				}
 			}
 		}
+		if (added) {
+			publish(recipeArray);
+		}
+		return added;
+	}
+
+	/**
+	 * Adds the first variant of the named recipe in the catalog,
+	 * materialized as a new Recipe, to the first empty position.
+	 * Returns false if the catalog has no recipe by that name or it
+	 * cannot be added, as for addRecipe(Recipe).
+	 * @param catalog
+	 * @param name
+	 * @return boolean
+	 */
+	public boolean addRecipe(RecipeCatalog catalog, String name) {
+		int record = catalog.find(name);
+		return record != RecipeCatalog.NONE && addRecipe(catalog.get(record));
+	}
+
+	/**
+	 * Adds the recipes in order, each to the first empty position,
+	 * and returns whether each one was added.  A recipe is not added
+	 * if it is null, a recipe with its name is already in the book or
+	 * earlier in recipes, or the book is full.  The names in the book
+	 * are collected once for the whole call, and one snapshot is
+	 * published for all the recipes added.
+	 * @param recipes
+	 * @return boolean[]
+	 */
+	public synchronized boolean[] addRecipes(Recipe[] recipes) {
+		boolean[] added = new boolean[recipes.length];
+		Set<String> names = new HashSet<>();
+		for (Recipe r : recipeArray) {
+			if (r != null) {
+				names.add(r.getName());
+			}
+		}
+		int free = 0;
+		boolean changed = false;
+		for (int i = 0; i < recipes.length; i++) {
+			while (free < recipeArray.length && recipeArray[free] != null) {
+				free++;
+			}
+			if (recipes[i] != null && free < recipeArray.length && names.add(recipes[i].getName())) {
+				recipeArray[free] = recipes[i];
+				added[i] = true;
+				changed = true;
+			}
+		}
+		if (changed) {
+			publish(recipeArray);
+		}
 		return added;
 	}
 
@@ -58,6 +197,7 @@ public class RecipeBook {
 		if (recipeArray[recipeToDelete] != null) {
 			String recipeName = recipeArray[recipeToDelete].getName();
 			recipeArray[recipeToDelete] = new Recipe();
+			publish(recipeArray);
 			return recipeName;
 		} else {
 			return null;
@@ -76,6 +216,7 @@ public class RecipeBook {
 			String recipeName = recipeArray[recipeToEdit].getName();
 			newRecipe.setName("");
 			recipeArray[recipeToEdit] = newRecipe;
+			publish(recipeArray);
 			return recipeName;
 		} else {
 			return null;
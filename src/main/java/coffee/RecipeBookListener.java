@@ -0,0 +1,20 @@
+package coffee;
+
+/**
+ * Notified of changes to the recipes in a RecipeBook.
+ *
+ * Listeners are called on the thread that made the change, right after
+ * the new snapshot is published and while the book is still locked, so
+ * changes arrive in order.  Listeners must be quick and must not change
+ * the book themselves.
+ */
+public interface RecipeBookListener {
+
+	/**
+	 * Called after a recipe was added, edited or deleted, or the
+	 * recipes were replaced.
+	 * @param book
+	 * @param recipes the snapshot published by the change
+	 */
+	void recipesChanged(RecipeBook book, RecipeSnapshot recipes);
+}
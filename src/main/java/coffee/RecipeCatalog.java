@@ -0,0 +1,323 @@
+package coffee;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * Central catalog of recipe variants, kept off the heap so that a
+ * catalog of millions of recipes costs the garbage collector next to
+ * nothing.  Recipes are materialized as Recipe objects only when they
+ * are asked for, such as by RecipeBook.addRecipe(RecipeCatalog, String).
+ *
+ * A catalog is three direct buffers.  Records are fixed width: the
+ * name, the next variant with the same name, the price and the units
+ * of each ingredient the registry had when the catalog was created.
+ * Names live in a separate string area as UTF-16 chars, each distinct
+ * name once, with the first and last of its variants; the name of a
+ * record is the offset of its entry there.  An open-addressing index
+ * with linear probing maps names to entries, keeping the hash of each
+ * name so that most probes never touch the string area.  Each buffer
+ * doubles when it fills.
+ */
+public final class RecipeCatalog {
+	/** Record that does not exist */
+	public static final int NONE = -1;
+	/** Default number of recipes a catalog has room for before it grows */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	//Ints at the start of a record
+	private static final int NAME = 0;
+	private static final int NEXT = 1;
+	private static final int PRICE = 2;
+	private static final int AMOUNTS = 3;
+
+	//Bytes at the start of a string area entry, before the chars
+	private static final int FIRST = 0;
+	private static final int LAST = 4;
+	private static final int LENGTH = 8;
+	private static final int CHARS = 12;
+
+	/** Bytes of an index slot: the hash and the entry offset plus one */
+	private static final int SLOT = 8;
+
+	private final int width;
+	private final int recordBytes;
+	private ByteBuffer records;
+	private ByteBuffer strings;
+	private ByteBuffer index;
+	private int size;
+	private int names;
+	private int stringsUsed;
+	private int slotMask;
+
+	/**
+	 * Creates an empty catalog for the standard ingredients.
+	 */
+	public RecipeCatalog() {
+		this(new IngredientRegistry(), DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty catalog for the ingredients in the registry,
+	 * with room for about capacity recipes before it grows.
+	 * Ingredients registered later cannot be used by its recipes.
+	 * @param ingredients
+	 * @param capacity
+	 */
+	public RecipeCatalog(IngredientRegistry ingredients, int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be a positive integer");
+		}
+		width = ingredients.size();
+		recordBytes = (AMOUNTS + width) * Integer.BYTES;
+		records = allocate((long) capacity * recordBytes);
+		strings = allocate((long) capacity * 16);
+		int slots = Integer.highestOneBit(Math.max(capacity, 8) * 2 - 1) * 2;
+		index = allocate((long) slots * SLOT);
+		slotMask = slots - 1;
+	}
+
+	private static ByteBuffer allocate(long bytes) {
+		if (bytes > Integer.MAX_VALUE) {
+			throw new IllegalStateException("Recipe catalog is full");
+		}
+		return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Adds the recipe as a new variant of its name and returns its
+	 * record number.  Variants of a name are kept in the order added.
+	 * @param r
+	 * @return int
+	 * @throws IllegalArgumentException if the recipe uses an ingredient
+	 * registered after the catalog was created
+	 */
+	public synchronized int add(Recipe r) {
+		int[] amounts = r.amounts();
+		for (int id = width; id < amounts.length; id++) {
+			if (amounts[id] != 0) {
+				throw new IllegalArgumentException(r.getName() + " uses an ingredient the catalog has no room for");
+			}
+		}
+		int entry = entry(r.getName());
+		if ((long) (size + 1) * recordBytes > records.capacity()) {
+			records = grow(records, size * recordBytes, (long) (size + 1) * recordBytes);
+		}
+		int record = size++;
+		int at = record * recordBytes;
+		records.putInt(at + NAME * Integer.BYTES, entry);
+		records.putInt(at + NEXT * Integer.BYTES, NONE);
+		records.putInt(at + PRICE * Integer.BYTES, r.getPrice());
+		for (int id = 0; id < width; id++) {
+			records.putInt(at + (AMOUNTS + id) * Integer.BYTES, id < amounts.length ? amounts[id] : 0);
+		}
+		int last = strings.getInt(entry + LAST);
+		if (last == NONE) {
+			strings.putInt(entry + FIRST, record);
+		} else {
+			records.putInt(last * recordBytes + NEXT * Integer.BYTES, record);
+		}
+		strings.putInt(entry + LAST, record);
+		return record;
+	}
+
+	/**
+	 * Returns the first variant of the name, or NONE if the
+	 * catalog has no recipe by that name.
+	 * @param name
+	 * @return int
+	 */
+	public synchronized int find(String name) {
+		int entry = lookup(name, hash(name));
+		return entry < 0 ? NONE : strings.getInt(entry + FIRST);
+	}
+
+	/**
+	 * Returns the variant added after record with the same name,
+	 * or NONE if it is the last.
+	 * @param record
+	 * @return int
+	 */
+	public synchronized int nextVariant(int record) {
+		return records.getInt(offset(record) + NEXT * Integer.BYTES);
+	}
+
+	/**
+	 * Returns a new Recipe with the name, price and units of the record.
+	 * @param record
+	 * @return Recipe
+	 */
+	public synchronized Recipe get(int record) {
+		int at = offset(record);
+		int[] amounts = new int[Math.max(width, Ingredient.STANDARD.length)];
+		for (int id = 0; id < width; id++) {
+			amounts[id] = records.getInt(at + (AMOUNTS + id) * Integer.BYTES);
+		}
+		return new Recipe(name(records.getInt(at + NAME * Integer.BYTES)),
+				records.getInt(at + PRICE * Integer.BYTES), amounts);
+	}
+
+	/**
+	 * Returns the name of the record.
+	 * @param record
+	 * @return String
+	 */
+	public synchronized String getName(int record) {
+		return name(records.getInt(offset(record) + NAME * Integer.BYTES));
+	}
+
+	/**
+	 * Returns the price of the record, without materializing it.
+	 * @param record
+	 * @return int
+	 */
+	public synchronized int getPrice(int record) {
+		return records.getInt(offset(record) + PRICE * Integer.BYTES);
+	}
+
+	/**
+	 * Returns the units of the ingredient in the record, without
+	 * materializing it.
+	 * @param record
+	 * @param ingredient
+	 * @return int
+	 */
+	public synchronized int getAmount(int record, Ingredient ingredient) {
+		int at = offset(record);
+		int id = ingredient.getId();
+		return id < width ? records.getInt(at + (AMOUNTS + id) * Integer.BYTES) : 0;
+	}
+
+	/**
+	 * Returns the number of records.
+	 * @return int
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of distinct names.
+	 * @return int
+	 */
+	public synchronized int getNameCount() {
+		return names;
+	}
+
+	/**
+	 * Returns the number of bytes the catalog holds off the heap.
+	 * @return long
+	 */
+	public synchronized long getOffHeapBytes() {
+		return (long) records.capacity() + strings.capacity() + index.capacity();
+	}
+
+	private int offset(int record) {
+		Objects.checkIndex(record, size);
+		return record * recordBytes;
+	}
+
+	/**
+	 * Returns the string area entry of the name, adding it if it
+	 * is not there.
+	 */
+	private int entry(String name) {
+		int hash = hash(name);
+		int entry = lookup(name, hash);
+		if (entry >= 0) {
+			return entry;
+		}
+		//Entries start on int boundaries
+		int entryBytes = (CHARS + 2 * name.length() + 3) & ~3;
+		if (stringsUsed + (long) entryBytes > strings.capacity()) {
+			strings = grow(strings, stringsUsed, stringsUsed + (long) entryBytes);
+		}
+		entry = stringsUsed;
+		strings.putInt(entry + FIRST, NONE);
+		strings.putInt(entry + LAST, NONE);
+		strings.putInt(entry + LENGTH, name.length());
+		for (int i = 0; i < name.length(); i++) {
+			strings.putChar(entry + CHARS + 2 * i, name.charAt(i));
+		}
+		stringsUsed += entryBytes;
+		//Keep the index at most half full
+		if (++names * 2 > slotMask + 1) {
+			rehash();
+		}
+		insert(hash, entry);
+		return entry;
+	}
+
+	/**
+	 * Returns the string area entry of the name, or -1.
+	 */
+	private int lookup(String name, int hash) {
+		for (int slot = hash & slotMask; ; slot = (slot + 1) & slotMask) {
+			int entry = index.getInt(slot * SLOT + 4) - 1;
+			if (entry < 0) {
+				return -1;
+			}
+			if (index.getInt(slot * SLOT) == hash && matches(entry, name)) {
+				return entry;
+			}
+		}
+	}
+
+	private boolean matches(int entry, String name) {
+		if (strings.getInt(entry + LENGTH) != name.length()) {
+			return false;
+		}
+		for (int i = 0; i < name.length(); i++) {
+			if (strings.getChar(entry + CHARS + 2 * i) != name.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String name(int entry) {
+		char[] chars = new char[strings.getInt(entry + LENGTH)];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = strings.getChar(entry + CHARS + 2 * i);
+		}
+		return new String(chars);
+	}
+
+	private void insert(int hash, int entry) {
+		int slot = hash & slotMask;
+		while (index.getInt(slot * SLOT + 4) != 0) {
+			slot = (slot + 1) & slotMask;
+		}
+		index.putInt(slot * SLOT, hash);
+		index.putInt(slot * SLOT + 4, entry + 1);
+	}
+
+	private void rehash() {
+		ByteBuffer old = index;
+		int slots = slotMask + 1;
+		index = allocate((long) slots * 2 * SLOT);
+		slotMask = slots * 2 - 1;
+		for (int slot = 0; slot < slots; slot++) {
+			int entry = old.getInt(slot * SLOT + 4);
+			if (entry != 0) {
+				insert(old.getInt(slot * SLOT), entry - 1);
+			}
+		}
+	}
+
+	/**
+	 * Returns a buffer of at least needed bytes, doubling where it
+	 * can, with the first used bytes of buffer copied in.
+	 */
+	private static ByteBuffer grow(ByteBuffer buffer, int used, long needed) {
+		ByteBuffer grown = allocate(Math.max(needed, Math.min(2L * buffer.capacity(), Integer.MAX_VALUE)));
+		grown.put(0, buffer, 0, used);
+		return grown;
+	}
+
+	private static int hash(String name) {
+		int h = name.hashCode();
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,312 @@
+package coffee;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact binary form of recipes and recipe books, for pushing a
+ * catalog to many machines.
+ *
+ * A book is written as a header, a table of the distinct recipe
+ * names in UTF-8, and then one entry per recipe position: the index
+ * of its name in the table plus one, or 0 for an empty position,
+ * followed by its price, number of ingredients and units of each
+ * ingredient by id.  Every number is an unsigned LEB128 varint, so
+ * the usual small amounts take one byte each.  A single recipe is
+ * written the same way with its name inline instead of in a table.
+ *
+ * Decoding reads straight from the buffer, starting at its position
+ * and leaving the position after the data; names in a heap buffer
+ * are decoded in place without copying their bytes first, and each
+ * name in the table is decoded once however many positions use it.
+ * Decoded recipes have the same name, price and amounts as the
+ * encoded ones, so they are equal to them and brew the same.
+ */
+public final class RecipeCodec {
+	/** "CORB", first in every encoded book */
+	private static final int MAGIC = 0x434f5242;
+	private static final int VERSION = 1;
+	/** Most bytes a varint takes */
+	private static final int MAX_VARINT_SIZE = 5;
+
+	private RecipeCodec() {
+	}
+
+	/**
+	 * Returns the recipes in the recipe book, by position, encoded
+	 * in a new buffer ready to be read.
+	 * @param book
+	 * @return ByteBuffer
+	 */
+	public static ByteBuffer encode(RecipeBook book) {
+		return encode(book.getRecipes());
+	}
+
+	/**
+	 * Returns the recipes, by position, encoded in a new buffer
+	 * ready to be read.  Positions may be null.
+	 * @param recipes
+	 * @return ByteBuffer
+	 */
+	public static ByteBuffer encode(Recipe[] recipes) {
+		Names names = new Names(recipes);
+		ByteBuffer out = ByteBuffer.allocate(names.encodedSize(recipes));
+		encode(recipes, names, out);
+		return out.flip();
+	}
+
+	/**
+	 * Writes the recipes, by position, to out starting at its
+	 * position.  Positions may be null.
+	 * @param recipes
+	 * @param out
+	 * @throws BufferOverflowException if out has too little room
+	 */
+	public static void encode(Recipe[] recipes, ByteBuffer out) {
+		encode(recipes, new Names(recipes), out);
+	}
+
+	/**
+	 * Returns the number of bytes encode writes for the recipes.
+	 * @param recipes
+	 * @return int
+	 */
+	public static int encodedSize(Recipe[] recipes) {
+		return new Names(recipes).encodedSize(recipes);
+	}
+
+	/**
+	 * Reads recipes written by encode, by position.
+	 * @param in
+	 * @return Recipe[]
+	 * @throws IllegalArgumentException if in does not hold encoded recipes
+	 */
+	public static Recipe[] decode(ByteBuffer in) {
+		try {
+			if (in.getInt() != MAGIC) {
+				throw new IllegalArgumentException("Not an encoded recipe book");
+			}
+			int version = getVarint(in);
+			if (version != VERSION) {
+				throw new IllegalArgumentException("Unsupported recipe book version " + version);
+			}
+			String[] names = new String[getCount(in)];
+			for (int i = 0; i < names.length; i++) {
+				names[i] = getString(in);
+			}
+			Recipe[] recipes = new Recipe[getCount(in)];
+			for (int i = 0; i < recipes.length; i++) {
+				int name = getVarint(in);
+				if (name == 0) {
+					continue;
+				}
+				if (name < 0 || name > names.length) {
+					throw new IllegalArgumentException("Recipe " + i + " has no name in the table");
+				}
+				recipes[i] = getRecipe(names[name - 1], in);
+			}
+			return recipes;
+		} catch (BufferUnderflowException e) {
+			throw new IllegalArgumentException("Encoded recipe book is truncated", e);
+		}
+	}
+
+	/**
+	 * Replaces every recipe in the book with the ones read from in,
+	 * keeping their positions.  A RecipeBook keeps only its first four
+	 * positions.  The change is not journaled, so a book should be
+	 * loaded before it is given to a CoffeeMaker.
+	 * @param in
+	 * @param book
+	 * @throws IllegalArgumentException if in does not hold encoded recipes
+	 */
+	public static void load(ByteBuffer in, RecipeBook book) {
+		book.restore(decode(in));
+	}
+
+	/**
+	 * Writes one recipe, name included, to out starting at its position.
+	 * @param r
+	 * @param out
+	 * @throws BufferOverflowException if out has too little room
+	 */
+	public static void encodeRecipe(Recipe r, ByteBuffer out) {
+		putBytes(out, r.getName().getBytes(StandardCharsets.UTF_8));
+		putAmounts(out, r);
+	}
+
+	/**
+	 * Reads one recipe written by encodeRecipe.
+	 * @param in
+	 * @return Recipe
+	 * @throws IllegalArgumentException if in does not hold an encoded recipe
+	 */
+	public static Recipe decodeRecipe(ByteBuffer in) {
+		try {
+			return getRecipe(getString(in), in);
+		} catch (BufferUnderflowException e) {
+			throw new IllegalArgumentException("Encoded recipe is truncated", e);
+		}
+	}
+
+	private static void encode(Recipe[] recipes, Names names, ByteBuffer out) {
+		out.putInt(MAGIC);
+		putVarint(out, VERSION);
+		putVarint(out, names.bytes.length);
+		for (byte[] name : names.bytes) {
+			putBytes(out, name);
+		}
+		putVarint(out, recipes.length);
+		for (Recipe r : recipes) {
+			if (r == null) {
+				putVarint(out, 0);
+			} else {
+				putVarint(out, names.index.get(r.getName()) + 1);
+				putAmounts(out, r);
+			}
+		}
+	}
+
+	/**
+	 * Distinct names of the recipes, in the order first used.
+	 */
+	private static final class Names {
+		final Map<String, Integer> index = new HashMap<>();
+		final byte[][] bytes;
+
+		Names(Recipe[] recipes) {
+			byte[][] bytes = new byte[recipes.length][];
+			for (Recipe r : recipes) {
+				if (r != null && !index.containsKey(r.getName())) {
+					bytes[index.size()] = r.getName().getBytes(StandardCharsets.UTF_8);
+					index.put(r.getName(), index.size());
+				}
+			}
+			this.bytes = Arrays.copyOf(bytes, index.size());
+		}
+
+		int encodedSize(Recipe[] recipes) {
+			int size = 4 + varintSize(VERSION) + varintSize(bytes.length) + varintSize(recipes.length);
+			for (byte[] name : bytes) {
+				size += varintSize(name.length) + name.length;
+			}
+			for (Recipe r : recipes) {
+				size += r == null ? 1 : varintSize(index.get(r.getName()) + 1) + amountsSize(r);
+			}
+			return size;
+		}
+	}
+
+	private static int amountsSize(Recipe r) {
+		int[] amounts = r.amounts();
+		int size = varintSize(r.getPrice()) + varintSize(amounts.length);
+		for (int amount : amounts) {
+			size += varintSize(amount);
+		}
+		return size;
+	}
+
+	private static void putAmounts(ByteBuffer out, Recipe r) {
+		int[] amounts = r.amounts();
+		putVarint(out, r.getPrice());
+		putVarint(out, amounts.length);
+		for (int amount : amounts) {
+			putVarint(out, amount);
+		}
+	}
+
+	private static Recipe getRecipe(String name, ByteBuffer in) {
+		int price = getUnits(in);
+		int[] amounts = new int[getCount(in)];
+		for (int id = 0; id < amounts.length; id++) {
+			amounts[id] = getUnits(in);
+		}
+		return new Recipe(name, price, amounts);
+	}
+
+	private static void putBytes(ByteBuffer out, byte[] bytes) {
+		putVarint(out, bytes.length);
+		out.put(bytes);
+	}
+
+	private static String getString(ByteBuffer in) {
+		int length = getCount(in);
+		String s;
+		if (in.hasArray()) {
+			s = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+			in.position(in.position() + length);
+		} else {
+			byte[] bytes = new byte[length];
+			in.get(bytes);
+			s = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return s;
+	}
+
+	/**
+	 * Reads a varint that counts something, so cannot be negative
+	 * or more than the bytes left.
+	 */
+	private static int getCount(ByteBuffer in) {
+		int count = getVarint(in);
+		if (count < 0 || count > in.remaining()) {
+			throw new IllegalArgumentException("Encoded count " + count + " is out of range");
+		}
+		return count;
+	}
+
+	/**
+	 * Reads a varint that is a price or units, so cannot be negative.
+	 */
+	private static int getUnits(ByteBuffer in) {
+		int units = getVarint(in);
+		if (units < 0) {
+			throw new IllegalArgumentException("Encoded units " + units + " are negative");
+		}
+		return units;
+	}
+
+	/**
+	 * Writes value as an unsigned LEB128 varint: seven bits a byte,
+	 * lowest first, with the top bit set on every byte but the last.
+	 */
+	static void putVarint(ByteBuffer out, int value) {
+		while ((value & ~0x7f) != 0) {
+			out.put((byte) (value & 0x7f | 0x80));
+			value >>>= 7;
+		}
+		out.put((byte) value);
+	}
+
+	/**
+	 * Reads a varint written by putVarint.  Bits that do not fit in
+	 * an int are rejected rather than dropped.
+	 */
+	static int getVarint(ByteBuffer in) {
+		int value = 0;
+		for (int shift = 0; shift < 7 * MAX_VARINT_SIZE; shift += 7) {
+			byte b = in.get();
+			if (shift == 7 * (MAX_VARINT_SIZE - 1) && (b & 0x70) != 0) {
+				throw new IllegalArgumentException("Varint does not fit in an int");
+			}
+			value |= (b & 0x7f) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Varint is longer than " + MAX_VARINT_SIZE + " bytes");
+	}
+
+	/**
+	 * Returns the bytes putVarint writes for value.
+	 */
+	static int varintSize(int value) {
+		//One byte for every started group of seven significant bits
+		return (31 - Integer.numberOfLeadingZeros(value | 1)) / 7 + 1;
+	}
+}
@@ -0,0 +1,123 @@
+package coffee;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Writes recipes as a CSV or JSON catalog that a RecipeImporter
+ * reads back.  Empty positions are left out.
+ */
+public final class RecipeExporter {
+	private final Ingredient[] ingredients;
+
+	/**
+	 * Creates an exporter of the standard ingredients.
+	 */
+	public RecipeExporter() {
+		this(new IngredientRegistry());
+	}
+
+	/**
+	 * Creates an exporter of the ingredients in the registry.  Each
+	 * recipe is written with the amount of every one of them.
+	 * @param ingredients
+	 */
+	public RecipeExporter(IngredientRegistry ingredients) {
+		this.ingredients = ingredients.ingredients();
+	}
+
+	/**
+	 * Writes the recipes as CSV with a header line.
+	 * @param recipes
+	 * @param out
+	 * @throws IOException if out cannot be written
+	 */
+	public void writeCsv(Recipe[] recipes, Writer out) throws IOException {
+		out.write("name,price");
+		for (Ingredient ingredient : ingredients) {
+			out.write(',');
+			writeCsvField(ingredient.getName().toLowerCase(Locale.ROOT), out);
+		}
+		out.write('\n');
+		for (Recipe r : recipes) {
+			if (r == null) {
+				continue;
+			}
+			writeCsvField(r.getName(), out);
+			out.write(',');
+			out.write(Integer.toString(r.getPrice()));
+			for (Ingredient ingredient : ingredients) {
+				out.write(',');
+				out.write(Integer.toString(r.getAmount(ingredient)));
+			}
+			out.write('\n');
+		}
+		out.flush();
+	}
+
+	/**
+	 * Writes the recipes as a JSON array with one object per line.
+	 * @param recipes
+	 * @param out
+	 * @throws IOException if out cannot be written
+	 */
+	public void writeJson(Recipe[] recipes, Writer out) throws IOException {
+		out.write('[');
+		boolean first = true;
+		for (Recipe r : recipes) {
+			if (r == null) {
+				continue;
+			}
+			out.write(first ? "\n" : ",\n");
+			first = false;
+			out.write("{\"name\": ");
+			writeJsonString(r.getName(), out);
+			out.write(", \"price\": ");
+			out.write(Integer.toString(r.getPrice()));
+			for (Ingredient ingredient : ingredients) {
+				out.write(", ");
+				writeJsonString(ingredient.getName().toLowerCase(Locale.ROOT), out);
+				out.write(": ");
+				out.write(Integer.toString(r.getAmount(ingredient)));
+			}
+			out.write('}');
+		}
+		out.write("\n]\n");
+		out.flush();
+	}
+
+	/**
+	 * Writes s, quoted if it holds a comma, quote or line break.
+	 */
+	private static void writeCsvField(String s, Writer out) throws IOException {
+		boolean quote = false;
+		for (int i = 0; i < s.length() && !quote; i++) {
+			char c = s.charAt(i);
+			quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+		}
+		if (!quote) {
+			out.write(s);
+			return;
+		}
+		out.write('"');
+		out.write(s.replace("\"", "\"\""));
+		out.write('"');
+	}
+
+	private static void writeJsonString(String s, Writer out) throws IOException {
+		out.write('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				out.write('\\');
+				out.write(c);
+			} else if (c < 0x20) {
+				out.write(String.format("\\u%04x", (int) c));
+			} else {
+				out.write(c);
+			}
+		}
+		out.write('"');
+	}
+}
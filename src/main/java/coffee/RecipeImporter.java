@@ -0,0 +1,620 @@
+package coffee;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Streams recipes from a CSV or JSON catalog into a RecipeBook.
+ *
+ * The catalog is read through a fixed buffer one record at a time, so
+ * a catalog of any size is imported in constant memory apart from the
+ * recipes themselves.  A CSV catalog starts with a header naming its
+ * columns; a JSON catalog is an array of objects.  Columns and keys
+ * are "name", "price" and the names of the ingredients, in any case
+ * and order.  For example
+ * <pre>
+ * name,price,coffee,milk,sugar,chocolate
+ * Latte,60,3,2,0,0
+ * </pre>
+ * or
+ * <pre>
+ * [{"name": "Latte", "price": 60, "coffee": 3, "milk": 2}]
+ * </pre>
+ * Missing amounts are 0.  Price and amounts are checked by the same
+ * rules as Recipe.setPrice and setAmount, with the same messages, but
+ * through UnitParser, without throwing.
+ *
+ * A record that is not valid, or cannot be added, is reported in the
+ * ImportResult with its line and the import goes on.  Only a header
+ * that cannot be read, or JSON that is not well formed, stops the
+ * import; the records read until then are still added.  Valid recipes
+ * are added to the book in batches through RecipeBook.addRecipes, so
+ * duplicate names are checked once per batch.
+ */
+public final class RecipeImporter {
+	/** Default number of recipes added to the book at once */
+	public static final int DEFAULT_BATCH_SIZE = 1024;
+
+	/** Field of the name; ingredients are fields by id */
+	private static final int NAME = -1;
+	private static final int PRICE = -2;
+	private static final int UNKNOWN = -3;
+	private static final int BUFFER_SIZE = 8192;
+
+	private final RecipeBook book;
+	private final IngredientRegistry ingredients;
+	private final int batchSize;
+
+	/**
+	 * Creates an importer into the book for catalogs of the
+	 * standard ingredients.
+	 * @param book
+	 */
+	public RecipeImporter(RecipeBook book) {
+		this(book, new IngredientRegistry(), DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Creates an importer into the book for catalogs of the
+	 * ingredients in the registry.
+	 * @param book
+	 * @param ingredients
+	 * @param batchSize number of recipes added to the book at once
+	 * @throws IllegalArgumentException if batchSize is not positive
+	 */
+	public RecipeImporter(RecipeBook book, IngredientRegistry ingredients, int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("Batch size must be a positive integer");
+		}
+		this.book = book;
+		this.ingredients = ingredients;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Adds the recipes of a CSV catalog to the book.  Fields may be
+	 * quoted, with "" for a quote inside, and lines may end with
+	 * \n or \r\n.  Blank lines are skipped.
+	 * @param in
+	 * @return ImportResult
+	 * @throws IOException if in cannot be read
+	 */
+	public ImportResult importCsv(Reader in) throws IOException {
+		Import im = new Import(in);
+		im.csv();
+		return im.finish();
+	}
+
+	/**
+	 * Adds the recipes of a JSON catalog to the book.  Names must be
+	 * strings; price and amounts may be numbers or strings.
+	 * @param in
+	 * @return ImportResult
+	 * @throws IOException if in cannot be read
+	 */
+	public ImportResult importJson(Reader in) throws IOException {
+		Import im = new Import(in);
+		im.json();
+		return im.finish();
+	}
+
+	/**
+	 * One import: the catalog being read, the record being built
+	 * and the recipes waiting to be added.
+	 */
+	private final class Import {
+		private final Reader in;
+		private final char[] buf = new char[BUFFER_SIZE];
+		private int pos;
+		private int limit;
+		/** Line of the next character */
+		private int line = 1;
+		private final Ingredient[] known = ingredients.ingredients();
+		private final ImportResult result = new ImportResult();
+		private final StringBuilder key = new StringBuilder();
+		private final StringBuilder value = new StringBuilder();
+
+		//Record being built
+		private int recordLine;
+		private String name;
+		private int price;
+		private int[] amounts;
+		/** First problem with the record, or null */
+		private String error;
+
+		//Recipes waiting to be added, and their lines
+		private final Recipe[] batch = new Recipe[batchSize];
+		private final int[] batchLines = new int[batchSize];
+		private int batched;
+
+		Import(Reader in) {
+			this.in = in;
+		}
+
+		ImportResult finish() {
+			flush();
+			result.sort();
+			return result;
+		}
+
+		// ---------- CSV ---------- //
+
+		void csv() throws IOException {
+			int[] columns = csvHeader();
+			if (columns == null) {
+				return;
+			}
+			while (peek() >= 0) {
+				beginRecord();
+				int fields = 0;
+				int end;
+				do {
+					end = csvField();
+					if (fields < columns.length) {
+						setField(columns[fields], value, true);
+					}
+					fields++;
+				} while (end == ',');
+				if (fields == 1 && value.length() == 0) {
+					continue;
+				}
+				if (fields != columns.length) {
+					fail("Expected " + columns.length + " fields but found " + fields);
+				}
+				endRecord();
+			}
+		}
+
+		/**
+		 * Reads the header and returns the field of each column, or
+		 * null after reporting why the header cannot be used.
+		 */
+		private int[] csvHeader() throws IOException {
+			int[] columns = new int[known.length + 2];
+			int count;
+			int end;
+			do {
+				if (peek() < 0) {
+					return null;
+				}
+				beginRecord();
+				count = 0;
+				do {
+					end = csvField();
+					if (error != null) {
+						result.error(recordLine, error);
+						return null;
+					}
+					if (count == 0 && end != ',' && value.length() == 0) {
+						break;
+					}
+					int field = field(value);
+					if (field == UNKNOWN) {
+						result.error(recordLine, "Unknown column " + value);
+						return null;
+					}
+					for (int i = 0; i < count; i++) {
+						if (columns[i] == field) {
+							result.error(recordLine, "Column " + value + " appears twice");
+							return null;
+						}
+					}
+					columns[count++] = field;
+				} while (end == ',');
+			} while (count == 0);
+			for (int i = 0; i < count; i++) {
+				if (columns[i] == NAME) {
+					return Arrays.copyOf(columns, count);
+				}
+			}
+			result.error(recordLine, "There is no name column");
+			return null;
+		}
+
+		/**
+		 * Reads one field into value and returns what ended it:
+		 * ',', '\n' at the end of a line, or -1 at the end of input.
+		 */
+		private int csvField() throws IOException {
+			value.setLength(0);
+			int c = read();
+			if (c == '"') {
+				while (true) {
+					c = read();
+					if (c < 0) {
+						fail("Quoted field is not closed");
+						return -1;
+					}
+					if (c == '"') {
+						if (peek() != '"') {
+							break;
+						}
+						read();
+					}
+					value.append((char) c);
+				}
+				c = read();
+				if (c >= 0 && c != ',' && c != '\n' && c != '\r') {
+					fail("Quoted field must end at its closing quote");
+				}
+			}
+			while (c >= 0 && c != ',' && c != '\n' && c != '\r') {
+				value.append((char) c);
+				c = read();
+			}
+			if (c == '\r') {
+				if (peek() == '\n') {
+					read();
+				}
+				c = '\n';
+			}
+			return c;
+		}
+
+		// ---------- JSON ---------- //
+
+		void json() throws IOException {
+			skipSpace();
+			if (read() != '[') {
+				syntax("Expected [ at the start of the catalog");
+				return;
+			}
+			skipSpace();
+			if (peek() == ']') {
+				read();
+			} else {
+				while (true) {
+					skipSpace();
+					if (peek() != '{') {
+						syntax("Expected {");
+						return;
+					}
+					if (!jsonRecord()) {
+						return;
+					}
+					skipSpace();
+					int c = read();
+					if (c == ']') {
+						break;
+					}
+					if (c != ',') {
+						syntax("Expected , or ]");
+						return;
+					}
+				}
+			}
+			skipSpace();
+			if (peek() >= 0) {
+				syntax("Unexpected text after the catalog");
+			}
+		}
+
+		/**
+		 * Reads one object and adds its recipe, or returns false after
+		 * reporting a syntax error.
+		 */
+		private boolean jsonRecord() throws IOException {
+			read();
+			beginRecord();
+			skipSpace();
+			if (peek() == '}') {
+				read();
+				endRecord();
+				return true;
+			}
+			while (true) {
+				skipSpace();
+				if (read() != '"') {
+					return syntax("Expected a field name");
+				}
+				if (!jsonString(key)) {
+					return false;
+				}
+				int field = field(key);
+				skipSpace();
+				if (read() != ':') {
+					return syntax("Expected :");
+				}
+				skipSpace();
+				int c = peek();
+				if (c == '"') {
+					read();
+					if (!jsonString(value)) {
+						return false;
+					}
+					setField(field, value, true);
+				} else if (c == '-' || (c >= '0' && c <= '9')) {
+					value.setLength(0);
+					while ((c = peek()) == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9')) {
+						value.append((char) read());
+					}
+					setField(field, value, false);
+				} else {
+					if (!skipJsonValue()) {
+						return false;
+					}
+					fail("Field " + key + " must be a string or a number");
+				}
+				skipSpace();
+				c = read();
+				if (c == '}') {
+					break;
+				}
+				if (c != ',') {
+					return syntax("Expected , or }");
+				}
+			}
+			endRecord();
+			return true;
+		}
+
+		/**
+		 * Reads a string whose opening quote was read into to, or
+		 * returns false after reporting a syntax error.
+		 */
+		private boolean jsonString(StringBuilder to) throws IOException {
+			to.setLength(0);
+			while (true) {
+				int c = read();
+				if (c < 0) {
+					return syntax("String is not closed");
+				}
+				if (c == '"') {
+					return true;
+				}
+				if (c == '\\') {
+					c = read();
+					switch (c) {
+					case '"':
+					case '\\':
+					case '/':
+						break;
+					case 'b':
+						c = '\b';
+						break;
+					case 'f':
+						c = '\f';
+						break;
+					case 'n':
+						c = '\n';
+						break;
+					case 'r':
+						c = '\r';
+						break;
+					case 't':
+						c = '\t';
+						break;
+					case 'u':
+						c = 0;
+						for (int i = 0; i < 4; i++) {
+							int digit = Character.digit(read(), 16);
+							if (digit < 0) {
+								return syntax("Invalid \\u escape");
+							}
+							c = c << 4 | digit;
+						}
+						break;
+					default:
+						return syntax("Invalid escape");
+					}
+				}
+				to.append((char) c);
+			}
+		}
+
+		/**
+		 * Skips a literal, object or array, or returns false after
+		 * reporting a syntax error.
+		 */
+		private boolean skipJsonValue() throws IOException {
+			int c = peek();
+			if (c != '{' && c != '[') {
+				if (!Character.isLetter(c)) {
+					return syntax("Expected a value");
+				}
+				while (Character.isLetter(peek())) {
+					read();
+				}
+				return true;
+			}
+			int depth = 0;
+			do {
+				c = read();
+				if (c < 0) {
+					return syntax("Unexpected end of the catalog");
+				} else if (c == '"') {
+					if (!jsonString(value)) {
+						return false;
+					}
+				} else if (c == '{' || c == '[') {
+					depth++;
+				} else if (c == '}' || c == ']') {
+					depth--;
+				}
+			} while (depth > 0);
+			return true;
+		}
+
+		private void skipSpace() throws IOException {
+			int c;
+			while ((c = peek()) == ' ' || c == '\t' || c == '\n' || c == '\r') {
+				read();
+			}
+		}
+
+		/**
+		 * Reports a syntax error, which stops the import, and
+		 * returns false.
+		 */
+		private boolean syntax(String message) {
+			result.error(line, message);
+			return false;
+		}
+
+		// ---------- Records ---------- //
+
+		/**
+		 * Returns the field a column or key names, or UNKNOWN.
+		 */
+		private int field(CharSequence s) {
+			if (matches(s, "name")) {
+				return NAME;
+			}
+			if (matches(s, "price")) {
+				return PRICE;
+			}
+			for (Ingredient ingredient : known) {
+				if (matches(s, ingredient.getName())) {
+					return ingredient.getId();
+				}
+			}
+			return UNKNOWN;
+		}
+
+		private void beginRecord() {
+			recordLine = line;
+			name = null;
+			price = 0;
+			amounts = new int[known.length];
+			error = null;
+		}
+
+		/**
+		 * Sets a field of the record from its value, which was a
+		 * string unless it was a bare JSON number.
+		 */
+		private void setField(int field, CharSequence s, boolean string) {
+			if (error != null) {
+				return;
+			}
+			if (field == UNKNOWN) {
+				fail("Unknown field " + key);
+			} else if (field == NAME) {
+				if (string) {
+					name = s.toString();
+				} else {
+					fail("Name must be a string");
+				}
+			} else {
+				int units = UnitParser.parse(s);
+				if (units < 0) {
+					fail(field == PRICE ? Recipe.PRICE_MESSAGE : Recipe.unitsMessage(known[field]));
+				} else if (field == PRICE) {
+					price = units;
+				} else {
+					amounts[field] = units;
+				}
+			}
+		}
+
+		private void fail(String message) {
+			if (error == null) {
+				error = message;
+			}
+		}
+
+		/**
+		 * Reports the record if it is not valid, and otherwise adds
+		 * it to the batch.
+		 */
+		private void endRecord() {
+			if (error == null && (name == null || name.isEmpty())) {
+				error = "Recipe has no name";
+			}
+			if (error != null) {
+				result.error(recordLine, error);
+				return;
+			}
+			batch[batched] = new Recipe(name, price, amounts);
+			batchLines[batched++] = recordLine;
+			if (batched == batch.length) {
+				flush();
+			}
+		}
+
+		/**
+		 * Adds the batch to the book and reports the recipes it
+		 * did not take.
+		 */
+		private void flush() {
+			if (batched == 0) {
+				return;
+			}
+			Recipe[] recipes = Arrays.copyOf(batch, batched);
+			boolean[] added = book.addRecipes(recipes);
+			Set<String> names = null;
+			int count = 0;
+			for (int i = 0; i < recipes.length; i++) {
+				if (added[i]) {
+					count++;
+					continue;
+				}
+				if (names == null) {
+					names = namesInBook();
+				}
+				String name = recipes[i].getName();
+				result.error(batchLines[i], names.contains(name)
+						? "Recipe " + name + " is already in the recipe book" : "Recipe book is full");
+			}
+			result.added(count);
+			Arrays.fill(batch, null);
+			batched = 0;
+		}
+
+		private Set<String> namesInBook() {
+			RecipeSnapshot recipes = book.getSnapshot();
+			Set<String> names = new HashSet<>();
+			for (int i = 0; i < recipes.size(); i++) {
+				if (recipes.get(i) != null) {
+					names.add(recipes.get(i).getName());
+				}
+			}
+			return names;
+		}
+
+		// ---------- Input ---------- //
+
+		private int peek() throws IOException {
+			if (pos == limit) {
+				int n = in.read(buf, 0, buf.length);
+				if (n <= 0) {
+					return -1;
+				}
+				pos = 0;
+				limit = n;
+			}
+			return buf[pos];
+		}
+
+		private int read() throws IOException {
+			int c = peek();
+			if (c >= 0) {
+				pos++;
+				if (c == '\n') {
+					line++;
+				}
+			}
+			return c;
+		}
+	}
+
+	/**
+	 * Returns true if s is name, ignoring case.
+	 */
+	private static boolean matches(CharSequence s, String name) {
+		if (s.length() != name.length()) {
+			return false;
+		}
+		for (int i = 0; i < name.length(); i++) {
+			char a = s.charAt(i);
+			char b = name.charAt(i);
+			if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,252 @@
+package coffee;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable view of the recipes in a RecipeBook at one point in time.
+ *
+ * The recipe book publishes a new snapshot with a higher version after
+ * every add, edit or delete, so readers never see a half-applied change
+ * and can tell that the menu changed by comparing versions.
+ *
+ * Each recipe is also kept as a CompactRecipe for the brew path, taken
+ * when the recipe is put in the book, so changing a Recipe object after
+ * it was added or edited in does not change what is brewed.  Positions
+ * are held in chunks of CHUNK.  A snapshot made with the changed
+ * positions of a book copies only the chunks holding them and a
+ * reference per chunk, and shares every other chunk, recipes and
+ * compact forms alike, with the snapshot before.
+ *
+ * A snapshot of an IndexedRecipeBook finds names through the book's
+ * index while it is the book's latest snapshot.  Other snapshots scan
+ * small books and index large ones by name on the first lookup.
+ */
+public final class RecipeSnapshot {
+	/** Positions in a chunk, as a shift */
+	private static final int CHUNK_BITS = 5;
+	/** Positions in a chunk */
+	static final int CHUNK = 1 << CHUNK_BITS;
+	/** Most positions indexOf scans instead of indexing */
+	private static final int SCAN_SIZE = 16;
+	private final long version;
+	private final int size;
+	/** Recipes by chunk and position in the chunk; only the last chunk may be short */
+	private final Recipe[][] recipes;
+	private final CompactRecipe[][] compactRecipes;
+	/** Index of the book the snapshot was published by, or null */
+	private final Index index;
+	/** Position of each recipe by name, built on the first lookup in a large snapshot */
+	private volatile Map<String, Integer> positions;
+
+	/**
+	 * Ids of the recipes in an IndexedRecipeBook by name, kept up to
+	 * date by the book under its lock, and the version of the snapshot
+	 * they belong to.  The version is moved on before the ids change,
+	 * so an older snapshot never trusts them.
+	 */
+	static final class Index {
+		final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+		volatile long version = -1;
+	}
+
+	/**
+	 * Creates a snapshot holding a copy of recipes.
+	 * @param version
+	 * @param recipes
+	 */
+	RecipeSnapshot(long version, Recipe[] recipes) {
+		this(version, recipes, null, null);
+	}
+
+	/**
+	 * Creates a snapshot holding a copy of recipes, reusing the
+	 * compact form of each recipe that previous holds at the same
+	 * position.  previous may be null.
+	 * @param version
+	 * @param recipes
+	 * @param previous
+	 */
+	RecipeSnapshot(long version, Recipe[] recipes, RecipeSnapshot previous) {
+		this(version, recipes, previous, null);
+	}
+
+	/**
+	 * Creates a snapshot as RecipeSnapshot(version, recipes, previous)
+	 * does, that finds names through index while it is current.
+	 * @param version
+	 * @param recipes
+	 * @param previous
+	 * @param index
+	 */
+	RecipeSnapshot(long version, Recipe[] recipes, RecipeSnapshot previous, Index index) {
+		this.version = version;
+		this.size = recipes.length;
+		this.index = index;
+		int chunks = chunks(size);
+		this.recipes = new Recipe[chunks][];
+		this.compactRecipes = new CompactRecipe[chunks][];
+		for (int k = 0; k < chunks; k++) {
+			this.recipes[k] = new Recipe[chunkLength(size, k)];
+			this.compactRecipes[k] = new CompactRecipe[this.recipes[k].length];
+		}
+		int kept = previous == null ? 0 : Math.min(size, previous.size);
+		for (int i = 0; i < size; i++) {
+			this.recipes[i >> CHUNK_BITS][i & (CHUNK - 1)] = recipes[i];
+			this.compactRecipes[i >> CHUNK_BITS][i & (CHUNK - 1)] = i < kept && recipes[i] == previous.get(i)
+					? previous.getCompact(i) : CompactRecipe.of(recipes[i]);
+		}
+	}
+
+	private RecipeSnapshot(long version, int size, Recipe[][] recipes, CompactRecipe[][] compactRecipes, Index index) {
+		this.version = version;
+		this.size = size;
+		this.recipes = recipes;
+		this.compactRecipes = compactRecipes;
+		this.index = index;
+	}
+
+	/**
+	 * Returns the next snapshot of a book whose positions are now
+	 * recipes, of which only the first count of changed differ from
+	 * this snapshot.  Only the chunks holding them are copied.
+	 * @param recipes
+	 * @param changed
+	 * @param count
+	 * @param index
+	 * @return RecipeSnapshot
+	 */
+	RecipeSnapshot with(Recipe[] recipes, int[] changed, int count, Index index) {
+		int size = recipes.length;
+		int chunks = chunks(size);
+		Recipe[][] chunked = Arrays.copyOf(this.recipes, chunks);
+		CompactRecipe[][] compacts = Arrays.copyOf(this.compactRecipes, chunks);
+		boolean[] copied = new boolean[chunks];
+		for (int k = 0; k < chunks; k++) {
+			int length = chunkLength(size, k);
+			if (chunked[k] == null || chunked[k].length != length) {
+				chunked[k] = chunked[k] == null ? new Recipe[length] : Arrays.copyOf(chunked[k], length);
+				compacts[k] = compacts[k] == null ? new CompactRecipe[length] : Arrays.copyOf(compacts[k], length);
+				copied[k] = true;
+			}
+		}
+		for (int i = 0; i < count; i++) {
+			int position = changed[i];
+			int k = position >> CHUNK_BITS;
+			if (!copied[k]) {
+				chunked[k] = chunked[k].clone();
+				compacts[k] = compacts[k].clone();
+				copied[k] = true;
+			}
+			chunked[k][position & (CHUNK - 1)] = recipes[position];
+			compacts[k][position & (CHUNK - 1)] = CompactRecipe.of(recipes[position]);
+		}
+		return new RecipeSnapshot(version + 1, size, chunked, compacts, index);
+	}
+
+	private static int chunks(int size) {
+		return (size + CHUNK - 1) >> CHUNK_BITS;
+	}
+
+	private static int chunkLength(int size, int chunk) {
+		return Math.min(CHUNK, size - (chunk << CHUNK_BITS));
+	}
+
+	/**
+	 * Returns the version of the snapshot, which goes up by one
+	 * with every change to the recipe book.
+	 * @return long
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns the recipe at the given position, or null if
+	 * there is none.
+	 * @param recipe
+	 * @return Recipe
+	 */
+	public Recipe get(int recipe) {
+		return recipes[recipe >> CHUNK_BITS][recipe & (CHUNK - 1)];
+	}
+
+	/**
+	 * Returns the compact form of the recipe at the given
+	 * position, or null if there is none.
+	 * @param recipe
+	 * @return CompactRecipe
+	 */
+	public CompactRecipe getCompact(int recipe) {
+		return compactRecipes[recipe >> CHUNK_BITS][recipe & (CHUNK - 1)];
+	}
+
+	/**
+	 * Returns the position of the recipe with the given name, or -1
+	 * if there is no such recipe, by the name the recipe had when the
+	 * snapshot was taken.  The latest snapshot of an IndexedRecipeBook
+	 * looks the name up in the book's index; other large snapshots are
+	 * indexed on the first lookup.  Either way looking up a name costs
+	 * the same however many recipes there are.
+	 * @param name
+	 * @return int
+	 */
+	public int indexOf(String name) {
+		if (name == null) {
+			return -1;
+		}
+		Index index = this.index;
+		if (index != null && index.version == version) {
+			Integer position = index.ids.get(name);
+			return position != null && position < size && named(position, name) ? position : -1;
+		}
+		if (size <= SCAN_SIZE) {
+			for (int i = 0; i < size; i++) {
+				if (named(i, name)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+		Map<String, Integer> positions = this.positions;
+		if (positions == null) {
+			positions = new HashMap<>();
+			for (int i = size - 1; i >= 0; i--) {
+				CompactRecipe r = getCompact(i);
+				if (r != null) {
+					positions.put(r.getName(), i);
+				}
+			}
+			this.positions = positions;
+		}
+		Integer position = positions.get(name);
+		return position == null ? -1 : position;
+	}
+
+	private boolean named(int position, String name) {
+		CompactRecipe r = getCompact(position);
+		return r != null && name.equals(r.getName());
+	}
+
+	/**
+	 * Returns the number of recipe positions in the snapshot.
+	 * @return int
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns a copy of the recipe array.
+	 * @return Recipe[]
+	 */
+	public Recipe[] toArray() {
+		Recipe[] copy = new Recipe[size];
+		for (int k = 0; k < recipes.length; k++) {
+			System.arraycopy(recipes[k], 0, copy, k << CHUNK_BITS, recipes[k].length);
+		}
+		return copy;
+	}
+}
@@ -0,0 +1,54 @@
+package coffee;
+
+/**
+ * Ingredients of one recipe taken out of an Inventory and held while
+ * the drink is made.
+ *
+ * Once the drink is made the reservation is committed, and the
+ * ingredients stay used.  If the brew fails it is released, and the
+ * ingredients go back into stock.  A reservation that is neither
+ * committed nor released before its deadline expires and is released
+ * by the inventory.  While it is held no other order can use its
+ * ingredients, so stock is never sold twice.
+ */
+public final class Reservation {
+	/** Queue of the inventory the ingredients were taken from */
+	final ReservationQueue queue;
+	private final CompactRecipe recipe;
+	/** System.nanoTime() at which the reservation expires */
+	final long deadline;
+	/** Position in the queue's heap, or -1 once finished */
+	int index;
+
+	Reservation(ReservationQueue queue, CompactRecipe recipe, long deadline) {
+		this.queue = queue;
+		this.recipe = recipe;
+		this.deadline = deadline;
+		this.index = -1;
+	}
+
+	/**
+	 * Returns the recipe the ingredients were reserved for.
+	 * @return CompactRecipe
+	 */
+	public CompactRecipe getRecipe() {
+		return recipe;
+	}
+
+	/**
+	 * Returns true if the reservation has not been committed,
+	 * released or expired yet.
+	 * @return boolean
+	 */
+	public boolean isHeld() {
+		return queue.isHeld(this);
+	}
+
+	/**
+	 * Returns true if the deadline has passed at time now, as
+	 * given by System.nanoTime().
+	 */
+	boolean isExpired(long now) {
+		return now - deadline > 0;
+	}
+}
@@ -0,0 +1,143 @@
+package coffee;
+
+import java.util.Arrays;
+
+/**
+ * Reservations held in one Inventory, in a binary heap ordered by
+ * deadline.  Each reservation keeps its position in the heap, so
+ * adding, finishing and expiring one are all O(log n) however many
+ * are in flight, and the next to expire is always at the top.
+ *
+ * Only the bookkeeping is done here; the inventory takes and gives
+ * back the ingredients.
+ */
+final class ReservationQueue {
+	private Reservation[] heap = new Reservation[16];
+	private int size;
+	/** The reservation at the top of the heap, or null, read without the lock */
+	private volatile Reservation first;
+	/** Units held by all reservations, by ingredient id */
+	private int[] held = new int[0];
+
+	/**
+	 * Adds a held reservation of the recipe's ingredients
+	 * expiring at deadline.
+	 */
+	synchronized Reservation add(CompactRecipe recipe, long deadline) {
+		Reservation reservation = new Reservation(this, recipe, deadline);
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, size * 2);
+		}
+		int[] amounts = recipe.amounts;
+		if (held.length < amounts.length) {
+			held = Arrays.copyOf(held, amounts.length);
+		}
+		for (int id = 0; id < amounts.length; id++) {
+			held[id] += amounts[id];
+		}
+		siftUp(size++, reservation);
+		first = heap[0];
+		return reservation;
+	}
+
+	/**
+	 * Finishes the reservation and returns true, or returns false
+	 * if it is not held in this queue.
+	 */
+	synchronized boolean remove(Reservation reservation) {
+		if (reservation.queue != this || reservation.index < 0) {
+			return false;
+		}
+		removeAt(reservation.index);
+		return true;
+	}
+
+	/**
+	 * Finishes and returns the reservation that expires first, or
+	 * returns null if none has expired at time now.
+	 */
+	synchronized Reservation pollExpired(long now) {
+		if (size == 0 || !heap[0].isExpired(now)) {
+			return null;
+		}
+		Reservation expired = heap[0];
+		removeAt(0);
+		return expired;
+	}
+
+	/**
+	 * Returns true if no reservation is held.  Does not take the
+	 * lock, so stock readers can skip expiry when there is nothing
+	 * to expire.
+	 */
+	boolean isEmpty() {
+		return first == null;
+	}
+
+	synchronized boolean isHeld(Reservation reservation) {
+		return reservation.index >= 0;
+	}
+
+	synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the units held by all reservations, by ingredient id.
+	 */
+	synchronized int[] held() {
+		return held.clone();
+	}
+
+	private void removeAt(int i) {
+		Reservation removed = heap[i];
+		int[] amounts = removed.getRecipe().amounts;
+		for (int id = 0; id < amounts.length; id++) {
+			held[id] -= amounts[id];
+		}
+		removed.index = -1;
+		Reservation last = heap[--size];
+		heap[size] = null;
+		if (i < size) {
+			siftDown(i, last);
+			if (heap[i] == last) {
+				siftUp(i, last);
+			}
+		}
+		first = size == 0 ? null : heap[0];
+	}
+
+	private void siftUp(int i, Reservation reservation) {
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (reservation.deadline - heap[parent].deadline >= 0) {
+				break;
+			}
+			place(i, heap[parent]);
+			i = parent;
+		}
+		place(i, reservation);
+	}
+
+	private void siftDown(int i, Reservation reservation) {
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			int right = child + 1;
+			if (right < size && heap[right].deadline - heap[child].deadline < 0) {
+				child = right;
+			}
+			if (heap[child].deadline - reservation.deadline >= 0) {
+				break;
+			}
+			place(i, heap[child]);
+			i = child;
+		}
+		place(i, reservation);
+	}
+
+	private void place(int i, Reservation reservation) {
+		heap[i] = reservation;
+		reservation.index = i;
+	}
+}
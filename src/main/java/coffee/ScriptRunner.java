@@ -0,0 +1,212 @@
+package coffee;
+
+import coffee.exceptions.InventoryException;
+import coffee.exceptions.RecipeException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Runs a script of coffee maker commands without prompting, so a day
+ * of operations can be replayed through the coffee maker in one go.
+ *
+ * The script has one command per line, with its arguments separated
+ * by whitespace.  Blank lines and lines starting with # are skipped.
+ * Recipes are numbered from 1, as in the menu.
+ * <pre>
+ * add-recipe NAME PRICE COFFEE MILK SUGAR CHOCOLATE
+ * delete-recipe RECIPE
+ * edit-recipe RECIPE PRICE COFFEE MILK SUGAR CHOCOLATE
+ * add-inventory COFFEE MILK SUGAR CHOCOLATE
+ * check-inventory
+ * make-coffee RECIPE PAID
+ * </pre>
+ * A command that cannot be run is reported with its line number
+ * and the script carries on with the next line.
+ */
+public class ScriptRunner {
+	private final CoffeeMaker coffeeMaker;
+	private final PrintWriter out;
+	/** Reused for every make-coffee command */
+	private final Purchase purchase = new Purchase();
+
+	/**
+	 * Creates a runner that sends commands to coffeeMaker and
+	 * prints their results to out.
+	 * @param coffeeMaker
+	 * @param out
+	 */
+	public ScriptRunner(CoffeeMaker coffeeMaker, PrintWriter out) {
+		this.coffeeMaker = coffeeMaker;
+		this.out = out;
+	}
+
+	/**
+	 * Runs every command in the script and returns the number
+	 * of commands run.  The output is flushed at the end.
+	 * @param script
+	 * @return int
+	 * @throws IOException
+	 */
+	public int run(BufferedReader script) throws IOException {
+		int commands = 0;
+		int lineNumber = 0;
+		String line;
+		while ((line = script.readLine()) != null) {
+			lineNumber++;
+			line = line.trim();
+			if (line.isEmpty() || line.charAt(0) == '#') {
+				continue;
+			}
+			if (!execute(line.split("\\s+"))) {
+				out.println("Line " + lineNumber + ": could not run \"" + line + "\"");
+			}
+			commands++;
+		}
+		out.flush();
+		return commands;
+	}
+
+	/**
+	 * Runs one command and returns false if it is unknown
+	 * or has the wrong arguments.
+	 */
+	private boolean execute(String[] args) {
+		switch (args[0]) {
+			case "add-recipe":
+				return args.length == 7 && addRecipe(args);
+			case "delete-recipe":
+				return args.length == 2 && deleteRecipe(args);
+			case "edit-recipe":
+				return args.length == 7 && editRecipe(args);
+			case "add-inventory":
+				return args.length == 5 && addInventory(args);
+			case "check-inventory":
+				return args.length == 1 && checkInventory();
+			case "make-coffee":
+				return args.length == 3 && makeCoffee(args);
+			default:
+				return false;
+		}
+	}
+
+	private boolean addRecipe(String[] args) {
+		Recipe r = new Recipe();
+		try {
+			r.setName(args[1]);
+			setAmounts(r, args);
+			if (coffeeMaker.addRecipe(r)) {
+				out.println(args[1] + " successfully added.");
+			} else {
+				out.println(args[1] + " could not be added.");
+			}
+		} catch (RecipeException e) {
+			out.println(e.getMessage());
+		}
+		return true;
+	}
+
+	private boolean deleteRecipe(String[] args) {
+		int recipeToDelete = recipeNumber(args[1]);
+		if (recipeToDelete < 0) {
+			return false;
+		}
+		String recipeDeleted = coffeeMaker.deleteRecipe(recipeToDelete);
+		if (recipeDeleted != null) {
+			out.println(recipeDeleted + " successfully deleted.");
+		} else {
+			out.println("Selected recipe doesn't exist and could not be deleted.");
+		}
+		return true;
+	}
+
+	private boolean editRecipe(String[] args) {
+		int recipeToEdit = recipeNumber(args[1]);
+		if (recipeToEdit < 0) {
+			return false;
+		}
+		Recipe newRecipe = new Recipe();
+		try {
+			setAmounts(newRecipe, args);
+			String recipeEdited = coffeeMaker.editRecipe(recipeToEdit, newRecipe);
+			if (recipeEdited != null) {
+				out.println(recipeEdited + " successfully edited.");
+			} else {
+				out.println("Selected recipe doesn't exist and could not be edited.");
+			}
+		} catch (RecipeException e) {
+			out.println(e.getMessage());
+		}
+		return true;
+	}
+
+	private boolean addInventory(String[] args) {
+		try {
+			coffeeMaker.addInventory(args[1], args[2], args[3], args[4]);
+			out.println("Inventory successfully added");
+		} catch (InventoryException e) {
+			out.println("Inventory was not added");
+		}
+		return true;
+	}
+
+	private boolean checkInventory() {
+		out.print(coffeeMaker.checkInventory());
+		return true;
+	}
+
+	private boolean makeCoffee(String[] args) {
+		int recipeToPurchase = recipeNumber(args[1]);
+		int amtPaid;
+		try {
+			amtPaid = Integer.parseInt(args[2]);
+		} catch (NumberFormatException e) {
+			return false;
+		}
+		if (recipeToPurchase < 0) {
+			return false;
+		}
+		switch (coffeeMaker.makeCoffee(recipeToPurchase, amtPaid, purchase)) {
+		case SUCCESS:
+			out.println("Thank you for purchasing " + purchase.getRecipe().getName());
+			break;
+		case INSUFFICIENT_FUNDS:
+			out.println("Insufficient funds to purchase.");
+			break;
+		case INSUFFICIENT_INVENTORY:
+			out.println("Insufficient inventory to purchase.");
+			break;
+		default:
+			out.println("Selected recipe doesn't exist.");
+			break;
+		}
+		out.println("Your change is: " + purchase.getChange());
+		return true;
+	}
+
+	/**
+	 * Sets the price and amounts of r from arguments 2 to 6.
+	 */
+	private static void setAmounts(Recipe r, String[] args) throws RecipeException {
+		r.setPrice(args[2]);
+		r.setAmtCoffee(args[3]);
+		r.setAmtMilk(args[4]);
+		r.setAmtSugar(args[5]);
+		r.setAmtChocolate(args[6]);
+	}
+
+	/**
+	 * Returns the position of the recipe numbered from 1,
+	 * or -1 if there is no such position in the recipe book.
+	 */
+	private int recipeNumber(String number) {
+		int recipe;
+		try {
+			recipe = Integer.parseInt(number) - 1;
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+		return recipe >= 0 && recipe < coffeeMaker.getRecipeSnapshot().size() ? recipe : -1;
+	}
+}
@@ -0,0 +1,118 @@
+package coffee;
+
+/**
+ * Parses the units and prices typed into the coffee maker, or read
+ * from restock feeds and catalogs, without throwing.
+ *
+ * A value is valid if it is a non-negative integer written in ASCII
+ * digits, optionally after a + sign, as Integer.parseInt would read
+ * it; "-0" is 0.  Parsing returns the value, or one of the negative
+ * result codes below if the value is not valid, so a feed full of
+ * malformed rows costs no more than one of good rows.  The String
+ * methods of Recipe and Inventory throw when given a value that is
+ * not valid; the int methods they wrap do not.
+ */
+public final class UnitParser {
+	/** The value is null or has no digits */
+	public static final int EMPTY = -1;
+	/** The value has a character that is not a digit */
+	public static final int NOT_A_NUMBER = -2;
+	/** The value is below zero */
+	public static final int NEGATIVE = -3;
+	/** The value is above Integer.MAX_VALUE */
+	public static final int TOO_LARGE = -4;
+
+	private UnitParser() {
+	}
+
+	/**
+	 * Returns the value, or a negative result code if it is not valid.
+	 * @param value
+	 * @return int
+	 */
+	public static int parse(CharSequence value) {
+		return value == null ? EMPTY : parse(value, 0, value.length());
+	}
+
+	/**
+	 * Returns the value in chars from start up to end, or a negative
+	 * result code if it is not valid.
+	 * @param value
+	 * @param start
+	 * @param end
+	 * @return int
+	 */
+	public static int parse(CharSequence value, int start, int end) {
+		int i = start;
+		boolean negative = false;
+		if (i < end && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+			negative = value.charAt(i) == '-';
+			i++;
+		}
+		if (i == end) {
+			return EMPTY;
+		}
+		int units = 0;
+		boolean tooLarge = false;
+		for (; i < end; i++) {
+			int digit = value.charAt(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return NOT_A_NUMBER;
+			}
+			tooLarge |= units > (Integer.MAX_VALUE - digit) / 10;
+			units = units * 10 + digit;
+		}
+		return result(units, negative, tooLarge);
+	}
+
+	/**
+	 * Returns the value in the ASCII bytes from offset, length bytes
+	 * long, or a negative result code if it is not valid.
+	 * @param bytes
+	 * @param offset
+	 * @param length
+	 * @return int
+	 */
+	public static int parse(byte[] bytes, int offset, int length) {
+		int i = offset;
+		int end = offset + length;
+		boolean negative = false;
+		if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+			negative = bytes[i] == '-';
+			i++;
+		}
+		if (i == end) {
+			return EMPTY;
+		}
+		int units = 0;
+		boolean tooLarge = false;
+		for (; i < end; i++) {
+			int digit = bytes[i] - '0';
+			if (digit < 0 || digit > 9) {
+				return NOT_A_NUMBER;
+			}
+			tooLarge |= units > (Integer.MAX_VALUE - digit) / 10;
+			units = units * 10 + digit;
+		}
+		return result(units, negative, tooLarge);
+	}
+
+	/**
+	 * Returns true if the result of parse is a value rather than
+	 * a result code.
+	 * @param result
+	 * @return boolean
+	 */
+	public static boolean isValid(int result) {
+		return result >= 0;
+	}
+
+	private static int result(int units, boolean negative, boolean tooLarge) {
+		//Units wrapped around once tooLarge is set, and a value far below
+		//zero is NEGATIVE rather than TOO_LARGE
+		if (negative && (units != 0 || tooLarge)) {
+			return NEGATIVE;
+		}
+		return tooLarge ? TOO_LARGE : units;
+	}
+}
@@ -0,0 +1,247 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import coffee.exceptions.InventoryException;
+import coffee.exceptions.RecipeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AtomicInventoryTest {
+
+    private AtomicInventory inventory;
+    private Recipe recipe;
+
+    @BeforeEach
+    public void setUp() {
+        inventory = new AtomicInventory();
+        recipe = new Recipe();
+        recipe.setName("Recipe");
+    }
+
+    // ========== Test Getters ========== //
+    @Test
+    public void testDefaultValues() {
+        assertEquals(15, inventory.getCoffee());
+        assertEquals(15, inventory.getMilk());
+        assertEquals(15, inventory.getSugar());
+        assertEquals(15, inventory.getChocolate());
+        assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n", inventory.toString());
+    }
+
+    // ========== Test Setters and Adders ========== //
+    @Test
+    public void testSetNegativeIgnored() {
+        inventory.setMilk(-1);
+        assertEquals(15, inventory.getMilk(), "Milk should remain unchanged when set to a negative value");
+    }
+
+    @Test
+    public void testAddValid() throws InventoryException {
+        inventory.addCoffee("5");
+        inventory.addMilk("5");
+        inventory.addSugar("5");
+        inventory.addChocolate("5");
+        assertEquals("Coffee: 20\nMilk: 20\nSugar: 20\nChocolate: 20\n", inventory.toString());
+    }
+
+    @Test
+    public void testAddInvalid() {
+        Exception exception = assertThrows(InventoryException.class, () -> inventory.addSugar("-1"));
+        assertEquals("Units of sugar must be a positive integer", exception.getMessage());
+        assertThrows(InventoryException.class, () -> inventory.addChocolate("abc"));
+        assertEquals(15, inventory.getSugar());
+        assertEquals(15, inventory.getChocolate());
+    }
+
+    @Test
+    public void testAddInt() {
+        assertTrue(inventory.addCoffee(5));
+        assertFalse(inventory.addSugar(-1), "Negative Sugar Should Fail");
+        assertEquals(20, inventory.getCoffee());
+        assertEquals(15, inventory.getSugar());
+    }
+
+    // ========== Test UseIngredients ========== //
+    @Test
+    public void testUseIngredientsSufficient() throws RecipeException {
+        recipe.setAmtCoffee("5");
+        recipe.setAmtMilk("4");
+        recipe.setAmtSugar("3");
+        recipe.setAmtChocolate("2");
+        assertTrue(inventory.useIngredients(recipe));
+        assertEquals("Coffee: 10\nMilk: 11\nSugar: 12\nChocolate: 13\n", inventory.toString());
+    }
+
+    @Test
+    public void testUseIngredientsAllOrNothing() throws RecipeException {
+        inventory.setChocolate(1);
+        recipe.setAmtCoffee("5");
+        recipe.setAmtMilk("5");
+        recipe.setAmtSugar("5");
+        recipe.setAmtChocolate("2");
+        assertFalse(inventory.useIngredients(recipe), "Chocolate is short, so nothing should be used");
+        assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 1\n", inventory.toString());
+    }
+
+    @Test
+    public void testConcurrentUseNeverOversells() throws Exception {
+        recipe.setAmtCoffee("1");
+        recipe.setAmtMilk("1");
+        inventory.setCoffee(1000);
+        inventory.setMilk(700);
+        int threads = 8;
+        AtomicInteger made = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 200; i++) {
+                    if (inventory.useIngredients(recipe)) {
+                        made.incrementAndGet();
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(700, made.get(), "Only as many drinks as there is milk should be made");
+        assertEquals(0, inventory.getMilk());
+        assertEquals(300, inventory.getCoffee());
+    }
+
+    @Test
+    public void testBrewRetriedAfterCollision() throws RecipeException {
+        int[] collisions = {1};
+        inventory = new AtomicInventory() {
+            @Override
+            boolean take(int ingredient, int units) {
+                //Another brew holds the milk the first time it is taken
+                if (ingredient == Ingredient.MILK.getId() && collisions[0]-- > 0) {
+                    return false;
+                }
+                return super.take(ingredient, units);
+            }
+        };
+        recipe.setAmtCoffee("2");
+        recipe.setAmtMilk("1");
+        assertTrue(inventory.useIngredients(recipe), "The milk is really there, so the brew should be retried");
+        assertEquals(13, inventory.getCoffee(), "The coffee taken by the first attempt should be given back");
+        assertEquals(14, inventory.getMilk());
+    }
+
+    @Test
+    public void testBrewFailsAfterRepeatedCollisions() throws RecipeException {
+        inventory = new AtomicInventory() {
+            @Override
+            boolean take(int ingredient, int units) {
+                return ingredient != Ingredient.MILK.getId() && super.take(ingredient, units);
+            }
+        };
+        recipe.setAmtCoffee("2");
+        recipe.setAmtMilk("1");
+        assertFalse(inventory.useIngredients(recipe),
+                "Not linearizable: a brew that keeps colliding fails although the stock is there");
+        assertEquals(15, inventory.getCoffee(), "Nothing should be used by a failed brew");
+        assertEquals(15, inventory.getMilk());
+    }
+
+    // ========== Test Snapshot ========== //
+    @Test
+    public void testGetSnapshot() {
+        inventory.setSugar(4);
+        assertEquals(new InventorySnapshot(15, 15, 4, 15), inventory.getSnapshot());
+        assertEquals("Coffee: 15\nMilk: 15\nSugar: 4\nChocolate: 15\n", inventory.toString());
+    }
+
+    // ========== Test Registered Ingredients ========== //
+    @Test
+    public void testRegisteredIngredients() throws RecipeException, InventoryException {
+        IngredientRegistry ingredients = new IngredientRegistry();
+        Ingredient caramel = ingredients.register("Caramel");
+        inventory = new AtomicInventory(ingredients);
+        Ingredient syrup = ingredients.register("Syrup");
+        assertEquals(15, inventory.getUnits(caramel));
+        assertThrows(InventoryException.class, () -> inventory.addUnits(syrup, "5"),
+                "Syrup was registered after the inventory was created, so it has no counter");
+        assertFalse(inventory.addUnits(syrup, 5));
+        recipe.setAmount(caramel, "10");
+        assertTrue(inventory.useIngredients(CompactRecipe.of(recipe)));
+        assertEquals(5, inventory.getUnits(caramel));
+        recipe.setAmount(syrup, "1");
+        assertFalse(inventory.useIngredients(CompactRecipe.of(recipe)));
+        assertEquals(5, inventory.getUnits(caramel), "A failed brew should give back the caramel it took");
+        assertTrue(inventory.toString().endsWith("Caramel: 5\nSyrup: 0\n"));
+    }
+
+    // ========== Test Reservations ========== //
+    @Test
+    public void testReservations() throws RecipeException, InterruptedException {
+        recipe.setAmtCoffee("10");
+        recipe.setAmtChocolate("3");
+        CompactRecipe compact = CompactRecipe.of(recipe);
+        Reservation held = inventory.reserve(compact, 1, TimeUnit.MINUTES);
+        assertNull(inventory.reserve(compact, 1, TimeUnit.MINUTES), "Reserved coffee must not be sold twice");
+        assertTrue(inventory.release(held));
+        assertEquals(15, inventory.getCoffee());
+        assertEquals(15, inventory.getChocolate());
+
+        inventory.reserve(compact, 0, TimeUnit.SECONDS);
+        Thread.sleep(2);
+        assertTrue(inventory.useIngredients(compact), "Stock running short should release expired reservations");
+        assertEquals(5, inventory.getCoffee());
+        assertEquals(12, inventory.getChocolate());
+        assertEquals(0, inventory.getReservationCount());
+    }
+
+    @Test
+    public void testRecipeUseReleasesExpired() throws RecipeException, InterruptedException {
+        recipe.setAmtCoffee("10");
+        inventory.reserve(CompactRecipe.of(recipe), 0, TimeUnit.SECONDS);
+        Thread.sleep(2);
+        //Reading the units would release the reservation, so use the recipe straight away
+        assertTrue(inventory.useIngredients(recipe), "Stock running short should release expired reservations");
+        assertEquals(0, inventory.getReservationCount());
+        assertEquals(5, inventory.getCoffee());
+    }
+
+    // ========== Test Listeners ========== //
+    @Test
+    public void testListeners() throws RecipeException, InventoryException {
+        int[] used = new int[4];
+        int[] changes = new int[1];
+        inventory.addListener(new InventoryListener() {
+            @Override
+            public void ingredientsUsed(Inventory inventory, int[] amounts) {
+                for (int id = 0; id < amounts.length; id++) {
+                    used[id] += amounts[id];
+                }
+            }
+
+            @Override
+            public void stockChanged(Inventory inventory) {
+                changes[0]++;
+            }
+        });
+        recipe.setAmtMilk("6");
+        assertTrue(inventory.useIngredients(CompactRecipe.of(recipe)));
+        assertTrue(inventory.useIngredients(recipe));
+        assertFalse(inventory.useIngredients(recipe), "Failed uses are not reported");
+        assertArrayEquals(new int[] {0, 12, 0, 0}, used);
+        inventory.addMilk("5");
+        inventory.addSugar("1");
+        assertEquals(2, changes[0]);
+    }
+}
@@ -0,0 +1,190 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import coffee.exceptions.InventoryException;
+import coffee.exceptions.RecipeException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+public class BrewEngineTest {
+
+    private BrewEngine engine;
+    private Recipe latte;
+
+    @BeforeEach
+    public void setUp() throws RecipeException {
+        engine = new BrewEngine();
+        latte = new Recipe();
+        latte.setName("Latte");
+        latte.setPrice("50");
+        latte.setAmtCoffee("3");
+        latte.setAmtMilk("2");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        engine.close();
+    }
+
+    // ========== Test Make Coffee ========== //
+    @Test
+    public void testMakeCoffee() {
+        assertTrue(engine.addRecipe(latte).join());
+        OrderResult result = engine.makeCoffee(0, 60).join();
+        assertEquals(PurchaseOutcome.SUCCESS, result.getOutcome());
+        assertEquals(10, result.getChange());
+        InventorySnapshot stock = engine.getInventorySnapshot();
+        assertEquals(12, stock.getUnits(Ingredient.COFFEE), "The snapshot should be published before the result");
+        assertEquals(13, stock.getUnits(Ingredient.MILK));
+    }
+
+    @Test
+    public void testMakeCoffeeFailures() {
+        engine.addRecipe(latte);
+        assertEquals(PurchaseOutcome.INSUFFICIENT_FUNDS, engine.makeCoffee(0, 40).join().getOutcome());
+        assertEquals(PurchaseOutcome.NO_SUCH_RECIPE, engine.makeCoffee(1, 60).join().getOutcome());
+        assertEquals(PurchaseOutcome.NO_SUCH_RECIPE, engine.makeCoffee(4, 60).join().getOutcome());
+        for (int i = 0; i < 5; i++) {
+            engine.makeCoffee(0, 50);
+        }
+        OrderResult result = engine.makeCoffee(0, 50).join();
+        assertEquals(PurchaseOutcome.INSUFFICIENT_INVENTORY, result.getOutcome());
+        assertEquals(50, result.getChange());
+        assertEquals(0, engine.getInventorySnapshot().getUnits(Ingredient.COFFEE));
+    }
+
+    @Test
+    public void testCommandsInSubmitOrder() throws InventoryException {
+        engine.addRecipe(latte);
+        List<CompletableFuture<OrderResult>> results = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            results.add(engine.makeCoffee(0, 50));
+        }
+        engine.addInventory(Ingredient.COFFEE, "3").join();
+        results.add(engine.makeCoffee(0, 50));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(results.get(i).join().getOutcome().isSuccess());
+        }
+        assertEquals(PurchaseOutcome.INSUFFICIENT_INVENTORY, results.get(5).join().getOutcome());
+        assertTrue(results.get(6).join().getOutcome().isSuccess(), "The restock should come before the last order");
+    }
+
+    // ========== Test Recipes ========== //
+    @Test
+    public void testRecipes() throws RecipeException {
+        assertTrue(engine.addRecipe(latte).join());
+        assertFalse(engine.addRecipe(latte).join(), "A duplicate name should not be added");
+        latte.setPrice("10");
+        assertEquals(50, engine.getRecipeSnapshot().get(0).getPrice(), "The engine should keep its own copy");
+
+        Recipe mocha = new Recipe();
+        mocha.setName("Mocha");
+        assertEquals("Latte", engine.editRecipe(0, mocha).join());
+        assertEquals("Mocha", engine.getRecipeSnapshot().get(0).getName());
+        assertNull(engine.editRecipe(2, mocha).join());
+        assertEquals("Mocha", engine.deleteRecipe(0).join());
+        assertNull(engine.getRecipeSnapshot().get(0));
+        assertNull(engine.deleteRecipe(0).join());
+        assertEquals(3, engine.getRecipeSnapshot().getVersion());
+    }
+
+    @Test
+    public void testRecipeBookFull() {
+        for (int i = 0; i < 4; i++) {
+            Recipe r = new Recipe();
+            r.setName("Recipe" + i);
+            assertTrue(engine.addRecipe(r).join());
+        }
+        Recipe extra = new Recipe();
+        extra.setName("Extra");
+        assertFalse(engine.addRecipe(extra).join());
+    }
+
+    // ========== Test Inventory ========== //
+    @Test
+    public void testAddInventory() throws InventoryException {
+        engine.addInventory(Ingredient.SUGAR, "5").join();
+        assertEquals(20, engine.getInventorySnapshot().getUnits(Ingredient.SUGAR));
+        assertThrows(InventoryException.class, () -> engine.addInventory(Ingredient.SUGAR, "-1"));
+        assertThrows(InventoryException.class, () -> engine.addInventory(Ingredient.MILK, "x"));
+        assertEquals(20, engine.getInventorySnapshot().getUnits(Ingredient.SUGAR));
+    }
+
+    @Test
+    public void testRegisteredIngredient() throws InventoryException {
+        engine.close();
+        IngredientRegistry registry = new IngredientRegistry();
+        engine = new BrewEngine(registry, 4, Thread::new);
+        Ingredient vanilla = registry.register("Vanilla");
+        engine.addInventory(vanilla, "4").join();
+        assertEquals(4, engine.getInventorySnapshot().getUnits(vanilla));
+        assertThrows(IllegalArgumentException.class, () -> engine.addInventory(new IngredientRegistry().register("Mint"), "1"));
+    }
+
+    // ========== Test Concurrency ========== //
+    @Test
+    public void testConcurrentProducers() throws InterruptedException, InventoryException, RecipeException {
+        Recipe espresso = new Recipe();
+        espresso.setName("Espresso");
+        espresso.setPrice("0");
+        espresso.setAmtCoffee("1");
+        engine.addRecipe(espresso);
+        engine.addInventory(Ingredient.COFFEE, "985");
+        Thread[] threads = new Thread[4];
+        List<List<CompletableFuture<OrderResult>>> results = new ArrayList<>();
+        for (int t = 0; t < threads.length; t++) {
+            List<CompletableFuture<OrderResult>> mine = new ArrayList<>();
+            results.add(mine);
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    mine.add(engine.makeCoffee(0, 0));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        int made = 0;
+        for (List<CompletableFuture<OrderResult>> mine : results) {
+            for (CompletableFuture<OrderResult> result : mine) {
+                if (result.join().getOutcome().isSuccess()) {
+                    made++;
+                }
+            }
+        }
+        assertEquals(1000, made, "Exactly the stock should be brewed");
+        assertEquals(0, engine.getInventorySnapshot().getUnits(Ingredient.COFFEE));
+    }
+
+    // ========== Test Close ========== //
+    @Test
+    public void testCloseAppliesSubmitted() {
+        engine.addRecipe(latte);
+        List<CompletableFuture<OrderResult>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            results.add(engine.makeCoffee(0, 50));
+        }
+        engine.close();
+        for (CompletableFuture<OrderResult> result : results) {
+            assertTrue(result.isDone(), "Commands submitted before close should be applied");
+            assertTrue(result.join().getOutcome().isSuccess());
+        }
+        CompletableFuture<OrderResult> late = engine.makeCoffee(0, 50);
+        CompletionException e = assertThrows(CompletionException.class, late::join);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    public void testInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> new BrewEngine(new IngredientRegistry(), 0, Thread::new));
+    }
+}
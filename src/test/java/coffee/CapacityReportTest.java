@@ -0,0 +1,119 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import coffee.exceptions.InventoryException;
+import coffee.exceptions.RecipeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CapacityReportTest {
+
+    private CoffeeMaker coffeeMaker;
+    private Recipe latte;
+    private Recipe mocha;
+
+    @BeforeEach
+    public void setUp() throws RecipeException {
+        coffeeMaker = new CoffeeMaker();
+        latte = new Recipe();
+        latte.setName("Latte");
+        latte.setAmtCoffee("2");
+        latte.setAmtMilk("4");
+        mocha = new Recipe();
+        mocha.setName("Mocha");
+        mocha.setAmtCoffee("3");
+        mocha.setAmtMilk("1");
+        mocha.setAmtChocolate("5");
+    }
+
+    // ========== Test Servings ========== //
+    @Test
+    public void testServings() {
+        coffeeMaker.addRecipe(latte);
+        coffeeMaker.addRecipe(mocha);
+        CapacityReport report = coffeeMaker.capacityReport();
+        assertEquals(4, report.size());
+        assertEquals(3, report.getServings(0), "15 milk makes 3 lattes of 4 milk");
+        assertEquals(Ingredient.MILK, report.getBottleneck(0));
+        assertEquals(3, report.getServings(1), "15 chocolate makes 3 mochas of 5 chocolate");
+        assertEquals(Ingredient.CHOCOLATE, report.getBottleneck(1));
+    }
+
+    @Test
+    public void testTiedBottleneck() throws RecipeException {
+        Recipe flat = new Recipe();
+        flat.setName("Flat");
+        flat.setAmtCoffee("5");
+        flat.setAmtMilk("5");
+        coffeeMaker.addRecipe(flat);
+        CapacityReport report = coffeeMaker.capacityReport();
+        assertEquals(3, report.getServings(0));
+        assertEquals(Ingredient.COFFEE, report.getBottleneck(0), "Coffee and milk tie, so the lower id is the bottleneck");
+    }
+
+    @Test
+    public void testEmptyPositions() throws RecipeException {
+        Recipe water = new Recipe();
+        water.setName("Water");
+        coffeeMaker.addRecipe(water);
+        CapacityReport report = coffeeMaker.capacityReport();
+        assertEquals(CapacityReport.UNLIMITED, report.getServings(0), "Water needs no ingredient");
+        assertNull(report.getBottleneck(0));
+        assertEquals(0, report.getServings(1), "There is no recipe at position 1");
+        assertNull(report.getBottleneck(1));
+    }
+
+    @Test
+    public void testUnknownIngredient() throws RecipeException {
+        IngredientRegistry registry = new IngredientRegistry();
+        CoffeeMaker small = new CoffeeMaker(new Inventory(registry));
+        Ingredient vanilla = new IngredientRegistry().register("Vanilla");
+        latte.setAmount(vanilla, "1");
+        small.addRecipe(latte);
+        CapacityReport report = small.capacityReport();
+        assertEquals(0, report.getServings(0), "The inventory holds no vanilla");
+        assertNull(report.getBottleneck(0));
+    }
+
+    @Test
+    public void testToString() {
+        coffeeMaker.addRecipe(latte);
+        assertEquals("Latte: 3 (Milk)\n", coffeeMaker.capacityReport().toString());
+    }
+
+    // ========== Test Cache ========== //
+    @Test
+    public void testCachedUntilChange() throws InventoryException {
+        coffeeMaker.addRecipe(latte);
+        CapacityReport report = coffeeMaker.capacityReport();
+        assertSame(report, coffeeMaker.capacityReport(), "Nothing changed, so the report should be reused");
+        coffeeMaker.addInventory("0", "5", "0", "0");
+        CapacityReport restocked = coffeeMaker.capacityReport();
+        assertNotSame(report, restocked);
+        assertEquals(5, restocked.getServings(0), "20 milk makes 5 lattes");
+        coffeeMaker.makeCoffee(0, 0);
+        assertEquals(4, coffeeMaker.capacityReport().getServings(0));
+    }
+
+    @Test
+    public void testRecipesChanged() {
+        coffeeMaker.addRecipe(latte);
+        CapacityReport report = coffeeMaker.capacityReport();
+        coffeeMaker.addRecipe(mocha);
+        CapacityReport changed = coffeeMaker.capacityReport();
+        assertNotSame(report, changed);
+        assertSame(coffeeMaker.getRecipeSnapshot(), changed.getRecipeSnapshot());
+        assertEquals(3, changed.getServings(1));
+    }
+
+    @Test
+    public void testAtomicInventory() {
+        CoffeeMaker atomic = new CoffeeMaker(new AtomicInventory());
+        atomic.addRecipe(mocha);
+        assertEquals(3, atomic.capacityReport().getServings(0));
+        atomic.makeCoffee(0, 0);
+        assertEquals(2, atomic.capacityReport().getServings(0));
+        assertEquals(10, atomic.capacityReport().getInventorySnapshot().getChocolate());
+    }
+}
@@ -0,0 +1,87 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import coffee.exceptions.RecipeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CoffeeMakerFleetTest {
+
+    private CoffeeMakerFleet fleet;
+    private Recipe recipe;
+
+    @BeforeEach
+    public void setUp() {
+        fleet = new CoffeeMakerFleet(3, Inventory::new);
+        recipe = new Recipe();
+        recipe.setName("Recipe");
+        try {
+            recipe.setPrice("50");
+            recipe.setAmtMilk("5");
+        } catch (RecipeException e) {
+            fail("RecipeException should not be thrown");
+        }
+    }
+
+    // ========== Test Add Machine ========== //
+    @Test
+    public void testAddMachineSuccess() {
+        CoffeeMaker machine = fleet.addMachine("m1");
+        assertNotNull(machine);
+        assertSame(machine, fleet.getMachine("m1"));
+        assertEquals(1, fleet.size());
+    }
+
+    @Test
+    public void testAddMachineDuplicate() {
+        fleet.addMachine("m1");
+        assertNull(fleet.addMachine("m1"), "Machine id is taken, so it should not be added");
+    }
+
+    @Test
+    public void testAddMachineNull() {
+        assertNull(fleet.addMachine(null));
+        assertNull(fleet.getMachine(null));
+    }
+
+    @Test
+    public void testAddMachineFull() {
+        fleet.addMachine("m1");
+        fleet.addMachine("m2");
+        fleet.addMachine("m3");
+        assertNull(fleet.addMachine("m4"), "Fleet is full, so m4 should not be added");
+        fleet.removeMachine("m2");
+        assertNotNull(fleet.addMachine("m4"), "A slot was freed, so m4 should be added");
+    }
+
+    @Test
+    public void testInvalidMaxMachines() {
+        assertThrows(IllegalArgumentException.class, () -> new CoffeeMakerFleet(0, Inventory::new));
+    }
+
+    // ========== Test Isolation ========== //
+    @Test
+    public void testMachinesHaveIsolatedState() {
+        CoffeeMaker m1 = fleet.addMachine("m1");
+        CoffeeMaker m2 = fleet.addMachine("m2");
+        m1.addRecipe(recipe);
+        assertEquals(50, m1.makeCoffee(0, 100));
+        assertNull(m2.getRecipes()[0], "Recipes added to m1 should not show up in m2");
+        assertTrue(m1.checkInventory().contains("Milk: 10"));
+        assertTrue(m2.checkInventory().contains("Milk: 15"), "Brewing on m1 should not use m2's milk");
+        fleet.addMachine("m3");
+        assertTrue(m1.checkInventory().contains("Milk: 10"), "Adding a machine should not reset m1's stock");
+    }
+
+    @Test
+    public void testMachineIds() {
+        fleet.addMachine("m1");
+        fleet.addMachine("m2");
+        assertEquals(2, fleet.getMachineIds().size());
+        assertTrue(fleet.getMachineIds().contains("m2"));
+        assertNotNull(fleet.removeMachine("m2"));
+        assertNull(fleet.removeMachine("m2"));
+        assertFalse(fleet.getMachineIds().contains("m2"));
+    }
+}
@@ -0,0 +1,158 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import coffee.exceptions.InventoryException;
+import coffee.exceptions.RecipeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+public class CoffeeMakerMetricsTest {
+
+    private CoffeeMaker coffeeMaker;
+    private CoffeeMakerMetrics metrics;
+
+    @BeforeEach
+    public void setUp() throws RecipeException {
+        coffeeMaker = new CoffeeMaker();
+        metrics = coffeeMaker.getMetrics();
+        Recipe recipe = new Recipe();
+        recipe.setName("Mocha");
+        recipe.setPrice("50");
+        recipe.setAmtCoffee("5");
+        recipe.setAmtChocolate("2");
+        coffeeMaker.addRecipe(recipe);
+    }
+
+    // ========== Test Outcomes ========== //
+    @Test
+    public void testOutcomes() {
+        coffeeMaker.makeCoffee(0, 50);
+        coffeeMaker.makeCoffee(0, 60);
+        coffeeMaker.makeCoffee(0, 10);
+        coffeeMaker.makeCoffee(0, 50);
+        coffeeMaker.makeCoffee(0, 50);
+        coffeeMaker.makeCoffee(1, 50);
+        assertEquals(3, metrics.getBrews());
+        assertEquals(1, metrics.getInsufficientFunds());
+        assertEquals(1, metrics.getInsufficientInventory(), "Only 15 units of coffee are in stock");
+        assertEquals(1, metrics.getNoSuchRecipe());
+        assertEquals(3, metrics.getOutcomeCount("Mocha", PurchaseOutcome.SUCCESS));
+        assertEquals(1, metrics.getOutcomeCount("Mocha", "INSUFFICIENT_FUNDS"));
+        assertEquals(0, metrics.getOutcomeCount("Latte", PurchaseOutcome.SUCCESS));
+    }
+
+    @Test
+    public void testBatchOutcomes() {
+        coffeeMaker.makeCoffeeBatch(Arrays.asList(new Order(0, 50), new Order(0, 10), new Order(0, 50)), BatchPolicy.FAIL_FAST);
+        assertEquals(1, metrics.getBrews());
+        assertEquals(1, metrics.getInsufficientFunds());
+        assertEquals(1, metrics.getNotAttempted());
+    }
+
+    @Test
+    public void testCommittedReservation() {
+        Reservation reservation = coffeeMaker.reserve(0, 1, TimeUnit.MINUTES);
+        assertEquals(0, metrics.getBrews(), "A reservation is not a purchase until committed");
+        coffeeMaker.commit(reservation);
+        assertEquals(1, metrics.getBrews());
+        assertEquals(5, metrics.getUnitsUsed(Ingredient.COFFEE));
+    }
+
+    // ========== Test Ingredients ========== //
+    @Test
+    public void testUnitsUsedAndRestocked() throws InventoryException {
+        coffeeMaker.makeCoffee(0, 50);
+        coffeeMaker.makeCoffee(0, 50);
+        coffeeMaker.addInventory("4", "3", "0", "1");
+        assertEquals(10, metrics.getUnitsUsed(Ingredient.COFFEE));
+        assertEquals(4, metrics.getUnitsUsed(Ingredient.CHOCOLATE));
+        assertEquals(0, metrics.getUnitsUsed(Ingredient.MILK));
+        assertEquals(4, metrics.getUnitsRestocked(Ingredient.COFFEE));
+        assertEquals(3, metrics.getUnitsRestocked(Ingredient.MILK));
+        assertArrayEquals(new long[] {10, 0, 0, 4}, metrics.getUnitsUsed());
+        assertArrayEquals(new long[] {4, 3, 0, 1}, metrics.getUnitsRestocked());
+        assertTrue(metrics.getDepletionRate(Ingredient.COFFEE) > 0);
+        assertEquals(0, metrics.getDepletionRate(Ingredient.MILK));
+    }
+
+    @Test
+    public void testRecipeVersions() throws RecipeException {
+        Recipe recipe = new Recipe();
+        recipe.setName("Latte");
+        recipe.setAmtMilk("3");
+        CompactRecipe small = CompactRecipe.of(recipe);
+        recipe.setAmtMilk("5");
+        CompactRecipe large = CompactRecipe.of(recipe);
+        metrics.recordPurchase(small, PurchaseOutcome.SUCCESS);
+        metrics.recordPurchase(large, PurchaseOutcome.SUCCESS);
+        metrics.recordPurchase(large, PurchaseOutcome.SUCCESS);
+        metrics.recordPurchase(CompactRecipe.of(new Recipe("Latte", 0, new int[] {0, 3})), PurchaseOutcome.SUCCESS);
+        assertEquals(4, metrics.getOutcomeCount("Latte", PurchaseOutcome.SUCCESS));
+        assertEquals(16, metrics.getUnitsUsed(Ingredient.MILK), "Units used should follow the amounts of each version");
+    }
+
+    @Test
+    public void testRepricedRecipe() throws RecipeException {
+        Recipe recipe = new Recipe();
+        recipe.setName("Latte");
+        recipe.setAmtMilk("3");
+        metrics.recordPurchase(CompactRecipe.of(recipe), PurchaseOutcome.SUCCESS);
+        recipe.setPrice("40");
+        metrics.recordPurchase(CompactRecipe.of(recipe), PurchaseOutcome.SUCCESS);
+        assertEquals(2, metrics.getOutcomeCount("Latte", PurchaseOutcome.SUCCESS));
+        assertEquals(6, metrics.getUnitsUsed(Ingredient.MILK), "A new price should count as the same version");
+    }
+
+    @Test
+    public void testRejectedRestock() {
+        assertThrows(InventoryException.class, () -> coffeeMaker.addInventory("2", "x", "0", "1"));
+        assertEquals(2, metrics.getUnitsRestocked(Ingredient.COFFEE), "Units added before the rejected ingredient should be counted");
+        assertEquals(0, metrics.getUnitsRestocked(Ingredient.CHOCOLATE));
+    }
+
+    @Test
+    public void testRegisteredIngredient() throws InventoryException {
+        IngredientRegistry ingredients = new IngredientRegistry();
+        coffeeMaker = new CoffeeMaker(new Inventory(ingredients));
+        metrics = coffeeMaker.getMetrics();
+        Ingredient caramel = ingredients.register("Caramel");
+        coffeeMaker.addInventory(caramel, "7");
+        assertEquals(7, metrics.getUnitsRestocked(caramel), "Ingredients registered later should be counted");
+        assertEquals("Caramel", metrics.getIngredientNames()[4]);
+        assertArrayEquals(new long[] {0, 0, 0, 0, 7}, metrics.getUnitsRestocked());
+    }
+
+    // ========== Test Lock Wait ========== //
+    @Test
+    public void testLockWait() throws InventoryException {
+        coffeeMaker.checkInventory();
+        coffeeMaker.addInventory("1", "1", "0", "1");
+        assertEquals(2, metrics.getLockWaits());
+        assertTrue(metrics.getLockWaitMaxNanos() >= metrics.getLockWaitP50Nanos());
+    }
+
+    // ========== Test JMX ========== //
+    @Test
+    public void testRegisterMBean() throws JMException {
+        coffeeMaker.makeCoffee(0, 50);
+        ObjectName name = metrics.register("test-machine");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals(1L, server.getAttribute(name, "Brews"));
+            assertArrayEquals(new long[] {5, 0, 0, 2}, (long[]) server.getAttribute(name, "UnitsUsed"));
+            assertEquals(1L, server.invoke(name, "getOutcomeCount", new Object[] {"Mocha", "SUCCESS"},
+                    new String[] {String.class.getName(), String.class.getName()}));
+            assertThrows(JMException.class, () -> metrics.register("test-machine"), "Names must be unique");
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
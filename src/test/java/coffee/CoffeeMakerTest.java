@@ -7,6 +7,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import coffee.exceptions.InventoryException;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 public class CoffeeMakerTest {
 
     private CoffeeMaker coffeeMaker;
@@ -164,6 +169,20 @@ public class CoffeeMakerTest {
         }, "NULL input should throw InventoryException");
     }
 
+    @Test
+    public void testAddInventoryRegisteredIngredient() throws InventoryException, RecipeException {
+        IngredientRegistry ingredients = new IngredientRegistry();
+        Ingredient caramel = ingredients.register("Caramel");
+        coffeeMaker = new CoffeeMaker(new Inventory(ingredients));
+        coffeeMaker.addInventory(caramel, "5");
+        assertTrue(coffeeMaker.checkInventory().endsWith("Caramel: 20\n"));
+        recipe1.setAmount(caramel, "8");
+        coffeeMaker.addRecipe(recipe1);
+        assertEquals(0, coffeeMaker.makeCoffee(0, 50));
+        assertEquals(0, coffeeMaker.makeCoffee(0, 50));
+        assertEquals(50, coffeeMaker.makeCoffee(0, 50), "Only 4 units of caramel are left");
+    }
+
     // ========== Test Make Coffee ========== //
     @Test
     public void testMakeCoffeeSuccess() {
@@ -191,4 +210,156 @@ public class CoffeeMakerTest {
         int change = coffeeMaker.makeCoffee(0, 100);
         assertEquals(100, change, "Insufficient ingredients, return full payment");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testMakeCoffeeWithAtomicInventory() {
+        CoffeeMaker atomicMaker = new CoffeeMaker(new AtomicInventory());
+        atomicMaker.addRecipe(recipe1);
+        assertEquals(50, atomicMaker.makeCoffee(0, 100), "Price is 50, paid 100. Change should be 50");
+        assertEquals("Coffee: 10\nMilk: 10\nSugar: 10\nChocolate: 10\n", atomicMaker.checkInventory());
+        assertEquals(50, atomicMaker.makeCoffee(0, 100));
+        assertEquals(50, atomicMaker.makeCoffee(0, 100));
+        assertEquals(100, atomicMaker.makeCoffee(0, 100), "Inventory is empty, return full payment");
+    }
+
+    // ========== Test Make Coffee Purchase ========== //
+    @Test
+    public void testMakeCoffeePurchaseSuccess() {
+        coffeeMaker.addRecipe(recipe1);
+        Purchase purchase = new Purchase();
+        assertEquals(PurchaseOutcome.SUCCESS, coffeeMaker.makeCoffee(0, 100, purchase));
+        assertEquals(PurchaseOutcome.SUCCESS, purchase.getOutcome());
+        assertEquals(50, purchase.getChange());
+        assertEquals("Recipe1", purchase.getRecipe().getName());
+    }
+
+    @Test
+    public void testMakeCoffeePurchaseExactPayment() {
+        coffeeMaker.addRecipe(recipe1);
+        Purchase purchase = new Purchase();
+        assertEquals(PurchaseOutcome.SUCCESS, coffeeMaker.makeCoffee(0, 50, purchase));
+        assertEquals(0, purchase.getChange());
+    }
+
+    @Test
+    public void testMakeCoffeePurchaseFailures() {
+        coffeeMaker.addRecipe(recipe1);
+        coffeeMaker.addRecipe(recipe2);
+        Purchase purchase = new Purchase();
+        assertEquals(PurchaseOutcome.INSUFFICIENT_FUNDS, coffeeMaker.makeCoffee(0, 40, purchase));
+        assertEquals(40, purchase.getChange());
+        assertEquals("Recipe1", purchase.getRecipe().getName());
+        assertEquals(PurchaseOutcome.INSUFFICIENT_INVENTORY, coffeeMaker.makeCoffee(1, 100, purchase));
+        assertEquals(100, purchase.getChange());
+        assertEquals(PurchaseOutcome.NO_SUCH_RECIPE, coffeeMaker.makeCoffee(2, 30, purchase));
+        assertNull(purchase.getRecipe());
+        assertEquals(30, purchase.getChange());
+        assertEquals(PurchaseOutcome.NO_SUCH_RECIPE, coffeeMaker.makeCoffee(4, 30, purchase), "Positions outside the recipe book have no recipe");
+        assertEquals(PurchaseOutcome.NO_SUCH_RECIPE, coffeeMaker.makeCoffee(-1, 30, purchase));
+        assertTrue(coffeeMaker.checkInventory().contains("Coffee: 15"), "Failed purchases should not use any ingredients");
+    }
+
+    @Test
+    public void testMakeCoffeePurchaseFreeBeverage() throws RecipeException {
+        Recipe water = new Recipe();
+        water.setName("Water");
+        water.setPrice("0");
+        coffeeMaker.addRecipe(water);
+        Purchase purchase = new Purchase();
+        assertEquals(PurchaseOutcome.SUCCESS, coffeeMaker.makeCoffee(0, 0, purchase),
+                "A free beverage is a success even though the change equals the payment");
+        assertEquals(0, purchase.getChange());
+    }
+
+    @Test
+    public void testMakeCoffeeByName() {
+        coffeeMaker.addRecipe(recipe2);
+        coffeeMaker.addRecipe(recipe1);
+        Purchase purchase = new Purchase();
+        assertEquals(PurchaseOutcome.SUCCESS, coffeeMaker.makeCoffee("Recipe1", 60, purchase));
+        assertEquals("Recipe1", purchase.getRecipe().getName());
+        assertEquals(10, purchase.getChange());
+        assertEquals(PurchaseOutcome.NO_SUCH_RECIPE, coffeeMaker.makeCoffee("Recipe3", 60, purchase));
+        assertEquals(PurchaseOutcome.NO_SUCH_RECIPE, coffeeMaker.makeCoffee((String) null, 60, purchase));
+        assertEquals(60, purchase.getChange());
+    }
+
+    // ========== Test Make Coffee Batch ========== //
+    @Test
+    public void testMakeCoffeeBatchBestEffort() {
+        coffeeMaker.addRecipe(recipe1);
+        coffeeMaker.addRecipe(recipe2);
+        List<OrderResult> results = coffeeMaker.makeCoffeeBatch(Arrays.asList(
+                new Order(0, 60), new Order(1, 100), new Order(2, 70), new Order(0, 10), new Order(0, 50)));
+        assertEquals(5, results.size());
+        assertEquals(PurchaseOutcome.SUCCESS, results.get(0).getOutcome());
+        assertEquals(10, results.get(0).getChange());
+        assertEquals(PurchaseOutcome.INSUFFICIENT_INVENTORY, results.get(1).getOutcome());
+        assertEquals(100, results.get(1).getChange());
+        assertEquals(PurchaseOutcome.NO_SUCH_RECIPE, results.get(2).getOutcome());
+        assertEquals(70, results.get(2).getChange());
+        assertEquals(PurchaseOutcome.INSUFFICIENT_FUNDS, results.get(3).getOutcome());
+        assertEquals(10, results.get(3).getChange());
+        assertEquals(PurchaseOutcome.SUCCESS, results.get(4).getOutcome(), "Best effort should keep going after a failure");
+        assertEquals(0, results.get(4).getChange());
+    }
+
+    @Test
+    public void testMakeCoffeeBatchFailFast() {
+        coffeeMaker.addRecipe(recipe1);
+        List<OrderResult> results = coffeeMaker.makeCoffeeBatch(Arrays.asList(
+                new Order(0, 50), new Order(0, 40), new Order(0, 50)), BatchPolicy.FAIL_FAST);
+        assertEquals(PurchaseOutcome.SUCCESS, results.get(0).getOutcome());
+        assertEquals(PurchaseOutcome.INSUFFICIENT_FUNDS, results.get(1).getOutcome());
+        assertEquals(PurchaseOutcome.NOT_ATTEMPTED, results.get(2).getOutcome(), "Fail fast should stop after the first failure");
+        assertEquals(50, results.get(2).getChange());
+    }
+
+    @Test
+    public void testMakeCoffeeBatchInvalidIndex() {
+        List<OrderResult> results = coffeeMaker.makeCoffeeBatch(Arrays.asList(new Order(-1, 10), new Order(4, 20)));
+        assertEquals(PurchaseOutcome.NO_SUCH_RECIPE, results.get(0).getOutcome());
+        assertEquals(PurchaseOutcome.NO_SUCH_RECIPE, results.get(1).getOutcome());
+        assertEquals(20, results.get(1).getChange());
+    }
+
+    @Test
+    public void testMakeCoffeeBatchEmpty() {
+        assertTrue(coffeeMaker.makeCoffeeBatch(new ArrayList<>()).isEmpty());
+    }
+
+    // ========== Test Reservations ========== //
+    @Test
+    public void testReserveAndCommit() {
+        coffeeMaker.addRecipe(recipe1);
+        Reservation reservation = coffeeMaker.reserve(0, 1, TimeUnit.MINUTES);
+        assertNotNull(reservation);
+        assertEquals("Recipe1", reservation.getRecipe().getName());
+        assertEquals(10, coffeeMaker.getInventorySnapshot().getCoffee());
+        assertTrue(coffeeMaker.commit(reservation));
+        assertFalse(coffeeMaker.release(reservation), "A committed reservation cannot be released");
+        assertEquals(10, coffeeMaker.getInventorySnapshot().getCoffee());
+    }
+
+    @Test
+    public void testReserveAndRelease() {
+        coffeeMaker.addRecipe(recipe1);
+        Reservation first = coffeeMaker.reserve(0, 1, TimeUnit.MINUTES);
+        Reservation second = coffeeMaker.reserve(0, 1, TimeUnit.MINUTES);
+        Reservation third = coffeeMaker.reserve(0, 1, TimeUnit.MINUTES);
+        assertNull(coffeeMaker.reserve(0, 1, TimeUnit.MINUTES), "All the stock is reserved");
+        assertEquals(50, coffeeMaker.makeCoffee(0, 50), "Reserved stock must not be sold twice");
+        assertTrue(coffeeMaker.release(second));
+        assertEquals(0, coffeeMaker.makeCoffee(0, 50), "Released stock can be sold again");
+        assertTrue(coffeeMaker.commit(first));
+        assertTrue(coffeeMaker.release(third));
+        assertEquals(5, coffeeMaker.getInventorySnapshot().getCoffee());
+    }
+
+    @Test
+    public void testReserveInvalidIndex() {
+        assertNull(coffeeMaker.reserve(0, 1, TimeUnit.MINUTES), "There is no recipe yet");
+        assertNull(coffeeMaker.reserve(-1, 1, TimeUnit.MINUTES));
+        assertNull(coffeeMaker.reserve(4, 1, TimeUnit.MINUTES));
+    }
+}
@@ -0,0 +1,100 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import coffee.exceptions.RecipeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CompactRecipeTest {
+
+    private Recipe recipe;
+
+    @BeforeEach
+    public void setUp() throws RecipeException {
+        recipe = new Recipe();
+        recipe.setName("Mocha");
+        recipe.setPrice("50");
+        recipe.setAmtCoffee("3");
+        recipe.setAmtMilk("2");
+        recipe.setAmtSugar("1");
+        recipe.setAmtChocolate("4");
+    }
+
+    // ========== Test Conversion ========== //
+    @Test
+    public void testOf() {
+        CompactRecipe compact = CompactRecipe.of(recipe);
+        assertEquals("Mocha", compact.getName());
+        assertEquals(50, compact.getPrice());
+        assertEquals(3, compact.getAmtCoffee());
+        assertEquals(2, compact.getAmtMilk());
+        assertEquals(1, compact.getAmtSugar());
+        assertEquals(4, compact.getAmtChocolate());
+        assertEquals("Mocha", compact.toString());
+    }
+
+    @Test
+    public void testOfNull() {
+        assertNull(CompactRecipe.of(null));
+    }
+
+    @Test
+    public void testOfIsACopy() throws RecipeException {
+        CompactRecipe compact = CompactRecipe.of(recipe);
+        recipe.setPrice("99");
+        recipe.setAmtMilk("9");
+        assertEquals(50, compact.getPrice(), "Changing the recipe should not change the compact copy");
+        assertEquals(2, compact.getAmtMilk());
+    }
+
+    @Test
+    public void testToRecipe() {
+        Recipe copy = CompactRecipe.of(recipe).toRecipe();
+        assertNotSame(recipe, copy);
+        assertEquals(recipe, copy);
+        assertEquals(50, copy.getPrice());
+        assertEquals(3, copy.getAmtCoffee());
+        assertEquals(2, copy.getAmtMilk());
+        assertEquals(1, copy.getAmtSugar());
+        assertEquals(4, copy.getAmtChocolate());
+    }
+
+    // ========== Test Equals and HashCode ========== //
+    @Test
+    public void testEqualsByName() {
+        Recipe other = new Recipe();
+        other.setName("Mocha");
+        assertEquals(CompactRecipe.of(recipe), CompactRecipe.of(other));
+        assertEquals(recipe.hashCode(), CompactRecipe.of(recipe).hashCode());
+        other.setName("Latte");
+        assertNotEquals(CompactRecipe.of(recipe), CompactRecipe.of(other));
+        assertNotEquals(CompactRecipe.of(recipe), recipe);
+    }
+
+    // ========== Test Inventory ========== //
+    @Test
+    public void testUseIngredients() {
+        Inventory inventory = new Inventory();
+        assertTrue(inventory.useIngredients(CompactRecipe.of(recipe)));
+        assertEquals("Coffee: 12\nMilk: 13\nSugar: 14\nChocolate: 11\n", inventory.toString());
+    }
+
+    @Test
+    public void testUseIngredientsInsufficient() {
+        Inventory inventory = new Inventory();
+        inventory.setChocolate(3);
+        assertFalse(inventory.useIngredients(CompactRecipe.of(recipe)));
+        assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 3\n", inventory.toString());
+    }
+
+    @Test
+    public void testUseIngredientsAtomic() {
+        Inventory inventory = new AtomicInventory();
+        assertTrue(inventory.useIngredients(CompactRecipe.of(recipe)));
+        assertEquals("Coffee: 12\nMilk: 13\nSugar: 14\nChocolate: 11\n", inventory.toString());
+        inventory.setChocolate(3);
+        assertFalse(inventory.useIngredients(CompactRecipe.of(recipe)));
+        assertEquals("Coffee: 12\nMilk: 13\nSugar: 14\nChocolate: 3\n", inventory.toString());
+    }
+}
@@ -0,0 +1,177 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import coffee.exceptions.RecipeException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class DemandForecasterTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private Inventory inventory;
+    private CompactRecipe coffee;
+    private AtomicLong clock;
+    private List<String> warnings;
+    private DemandForecaster forecaster;
+
+    @BeforeEach
+    public void setUp() throws RecipeException {
+        inventory = new Inventory();
+        Recipe recipe = new Recipe();
+        recipe.setName("Coffee");
+        recipe.setAmtCoffee("1");
+        coffee = CompactRecipe.of(recipe);
+        clock = new AtomicLong();
+        warnings = new ArrayList<>();
+        forecaster = new DemandForecaster(inventory, 10 * MINUTE, 5 * MINUTE,
+                (ingredient, units, nanosToEmpty) -> warnings.add(ingredient.getName() + ": " + units), clock::get);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        forecaster.close();
+    }
+
+    /**
+     * Makes a coffee every minute for the given number of minutes.
+     */
+    private void brewEveryMinute(int minutes) {
+        for (int i = 0; i < minutes; i++) {
+            clock.addAndGet(MINUTE);
+            assertTrue(inventory.useIngredients(coffee));
+        }
+    }
+
+    // ========== Test Rate ========== //
+    @Test
+    public void testNoUse() {
+        assertEquals(0, forecaster.getRate(Ingredient.COFFEE, TimeUnit.MINUTES));
+        assertEquals(Long.MAX_VALUE, forecaster.getTimeToEmpty(Ingredient.COFFEE, TimeUnit.MINUTES));
+    }
+
+    @Test
+    public void testSteadyRate() {
+        inventory.setCoffee(1000);
+        brewEveryMinute(200);
+        double rate = forecaster.getRate(Ingredient.COFFEE, TimeUnit.MINUTES);
+        assertEquals(1, rate, 0.05, "One coffee a minute should settle at a rate of 1 a minute");
+        assertEquals(0, forecaster.getRate(Ingredient.MILK, TimeUnit.MINUTES), "No milk was used");
+        long minutes = forecaster.getTimeToEmpty(Ingredient.COFFEE, TimeUnit.MINUTES);
+        assertTrue(minutes > 750 && minutes < 810, "800 units at about 1 a minute, was " + minutes);
+    }
+
+    @Test
+    public void testRateDecays() {
+        inventory.setCoffee(1000);
+        brewEveryMinute(200);
+        double busy = forecaster.getRate(Ingredient.COFFEE, TimeUnit.MINUTES);
+        clock.addAndGet(10 * MINUTE);
+        assertEquals(busy / 2, forecaster.getRate(Ingredient.COFFEE, TimeUnit.MINUTES), 1e-9,
+                "With no brews the rate should halve every half-life");
+    }
+
+    // ========== Test Low Stock ========== //
+    @Test
+    public void testLowStockWarnsOnce() {
+        inventory.setCoffee(1000);
+        brewEveryMinute(200);
+        assertTrue(warnings.isEmpty());
+        inventory.setCoffee(6);
+        brewEveryMinute(1);
+        assertEquals(List.of("Coffee: 5"), warnings, "5 units at about 1 a minute is within the warning time");
+        brewEveryMinute(2);
+        assertEquals(1, warnings.size(), "The warning should not repeat until restocked");
+    }
+
+    @Test
+    public void testRestockRearms() {
+        inventory.setCoffee(1000);
+        brewEveryMinute(200);
+        inventory.setCoffee(4);
+        brewEveryMinute(1);
+        inventory.setCoffee(500);
+        brewEveryMinute(1);
+        assertEquals(1, warnings.size());
+        inventory.setCoffee(3);
+        brewEveryMinute(1);
+        assertEquals(List.of("Coffee: 3", "Coffee: 2"), warnings, "A restock should re-arm the warning");
+    }
+
+    @Test
+    public void testRateAfterLongIdle() {
+        inventory.setCoffee(1000);
+        brewEveryMinute(200);
+        clock.addAndGet(1000 * MINUTE);
+        assertEquals(0, forecaster.getRate(Ingredient.COFFEE, TimeUnit.MINUTES), 1e-9);
+        brewEveryMinute(200);
+        assertEquals(1, forecaster.getRate(Ingredient.COFFEE, TimeUnit.MINUTES), 0.05,
+                "The rate should settle again after the base time moves up");
+    }
+
+    // ========== Test Concurrency ========== //
+    @Test
+    public void testBrewWhileLocked() throws InterruptedException {
+        AtomicInventory atomic = new AtomicInventory();
+        DemandForecaster locked = new DemandForecaster(atomic, 10 * MINUTE, 5 * MINUTE,
+                (ingredient, units, nanosToEmpty) -> { }, clock::get);
+        boolean[] used = {false};
+        Thread brewer = new Thread(() -> used[0] = atomic.useIngredients(coffee));
+        synchronized (locked) {
+            brewer.start();
+            brewer.join(5000);
+            assertFalse(brewer.isAlive(), "Brewing should not wait for the forecaster's lock");
+        }
+        assertTrue(used[0]);
+        assertTrue(locked.getRate(Ingredient.COFFEE, TimeUnit.MINUTES) > 0);
+        locked.close();
+    }
+
+    @Test
+    public void testConcurrentUsesAllCount() throws InterruptedException {
+        AtomicInventory atomic = new AtomicInventory();
+        atomic.setCoffee(100000);
+        DemandForecaster counted = new DemandForecaster(atomic, 10 * MINUTE, 0,
+                (ingredient, units, nanosToEmpty) -> { }, clock::get);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    atomic.useIngredients(coffee);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        //With no time passed every use weighs 1, so the rate is the uses over tau
+        double tau = 10 / Math.log(2);
+        assertEquals(4000 / tau, counted.getRate(Ingredient.COFFEE, TimeUnit.MINUTES), 1e-6);
+        counted.close();
+    }
+
+    @Test
+    public void testClose() {
+        forecaster.close();
+        inventory.setCoffee(1);
+        brewEveryMinute(1);
+        assertEquals(0, forecaster.getRate(Ingredient.COFFEE, TimeUnit.MINUTES), "A closed forecaster stops listening");
+        assertTrue(warnings.isEmpty());
+    }
+
+    @Test
+    public void testInvalidOptions() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new DemandForecaster(inventory, 0, 1, TimeUnit.MINUTES, (ingredient, units, nanos) -> { }));
+        assertThrows(IllegalArgumentException.class,
+                () -> new DemandForecaster(inventory, 1, -1, TimeUnit.MINUTES, (ingredient, units, nanos) -> { }));
+    }
+}
@@ -0,0 +1,158 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import coffee.exceptions.InventoryException;
+import coffee.exceptions.RecipeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class FleetRouterTest {
+
+    private CoffeeMakerFleet fleet;
+    private FleetRouter router;
+    private Purchase purchase;
+    private Recipe latte;
+    private Recipe mocha;
+
+    @BeforeEach
+    public void setUp() throws RecipeException {
+        fleet = new CoffeeMakerFleet(1000, Inventory::new);
+        router = new FleetRouter(fleet);
+        purchase = new Purchase();
+        latte = recipe("Latte", "5", "0");
+        mocha = recipe("Mocha", "3", "2");
+    }
+
+    private static Recipe recipe(String name, String milk, String chocolate) throws RecipeException {
+        Recipe recipe = new Recipe();
+        recipe.setName(name);
+        recipe.setPrice("50");
+        recipe.setAmtMilk(milk);
+        recipe.setAmtChocolate(chocolate);
+        return recipe;
+    }
+
+    // ========== Test Route ========== //
+    @Test
+    public void testEmptyFleet() {
+        assertNull(router.route("Latte"));
+        assertNull(router.makeCoffee("Latte", 100, purchase));
+        assertEquals(PurchaseOutcome.NO_SUCH_RECIPE, purchase.getOutcome());
+        assertEquals(100, purchase.getChange());
+    }
+
+    @Test
+    public void testOnlyMachineWithRecipe() {
+        for (int i = 0; i < 500; i++) {
+            fleet.addMachine("m" + i);
+        }
+        fleet.getMachine("m123").addRecipe(mocha);
+        assertEquals("m123", router.route("Mocha"), "The one machine with the recipe should be found");
+        assertNull(router.route("Latte"));
+    }
+
+    @Test
+    public void testRecipeAtDifferentPositions() {
+        CoffeeMaker m1 = fleet.addMachine("m1");
+        CoffeeMaker m2 = fleet.addMachine("m2");
+        m1.addRecipe(latte);
+        m2.addRecipe(mocha);
+        m2.addRecipe(latte);
+        for (int i = 0; i < 6; i++) {
+            assertNotNull(router.makeCoffee("Latte", 60, purchase));
+            assertEquals(PurchaseOutcome.SUCCESS, purchase.getOutcome());
+            assertEquals(10, purchase.getChange());
+            assertEquals("Latte", purchase.getRecipe().getName());
+        }
+        assertEquals(0, m1.capacityReport().getServings(0) + m2.capacityReport().getServings(1),
+                "Six lattes should use up both machines' milk");
+    }
+
+    @Test
+    public void testAvoidsEmptyMachine() {
+        CoffeeMaker empty = fleet.addMachine("empty");
+        CoffeeMaker full = fleet.addMachine("full");
+        empty.addRecipe(latte);
+        full.addRecipe(latte);
+        for (int i = 0; i < 3; i++) {
+            empty.makeCoffee(0, 50);
+        }
+        assertFalse(empty.isAvailable(0));
+        for (int i = 0; i < 20; i++) {
+            assertEquals("full", router.route("Latte"), "The machine out of milk should not get orders");
+        }
+    }
+
+    @Test
+    public void testPrefersMoreServings() throws InventoryException {
+        CoffeeMaker low = fleet.addMachine("low");
+        CoffeeMaker high = fleet.addMachine("high");
+        low.addRecipe(latte);
+        high.addRecipe(latte);
+        high.addInventory(Ingredient.MILK, "100");
+        low.makeCoffee(0, 50);
+        Map<String, Integer> routed = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            routed.merge(router.route("Latte"), 1, Integer::sum);
+        }
+        assertTrue(routed.getOrDefault("high", 0) > routed.getOrDefault("low", 0),
+                "The machine with more servings should get most orders: " + routed);
+    }
+
+    @Test
+    public void testOutOfStock() {
+        CoffeeMaker machine = fleet.addMachine("m1");
+        machine.addRecipe(latte);
+        for (int i = 0; i < 3; i++) {
+            assertEquals("m1", router.makeCoffee("Latte", 50, purchase));
+        }
+        assertNull(router.makeCoffee("Latte", 50, purchase));
+        assertEquals(PurchaseOutcome.INSUFFICIENT_INVENTORY, purchase.getOutcome());
+        assertEquals(50, purchase.getChange());
+        assertNull(purchase.getRecipe());
+    }
+
+    @Test
+    public void testSoldOutEverywhere() throws InventoryException, RecipeException {
+        for (int i = 0; i < 500; i++) {
+            fleet.addMachine("m" + i);
+        }
+        CoffeeMaker machine = fleet.getMachine("m123");
+        machine.addRecipe(latte);
+        for (int i = 0; i < 3; i++) {
+            assertEquals("m123", router.makeCoffee("Latte", 50, purchase));
+        }
+        assertNull(router.route("Latte"));
+        assertNull(router.route("Latte"), "A recipe sold out everywhere should stay refused");
+        machine.addInventory("0", "5", "0", "0");
+        assertEquals("m123", router.route("Latte"), "Restocking should make the recipe routable again");
+        assertNull(router.route("Mocha"));
+        fleet.getMachine("m321").addRecipe(mocha);
+        assertEquals("m321", router.route("Mocha"), "A new recipe should make it routable again");
+        assertNull(router.route("Espresso"));
+        fleet.addMachine("new").addRecipe(recipe("Espresso", "0", "0"));
+        assertEquals("new", router.route("Espresso"), "A new machine should make it routable again");
+    }
+
+    @Test
+    public void testInsufficientFunds() {
+        fleet.addMachine("m1").addRecipe(latte);
+        assertEquals("m1", router.makeCoffee("Latte", 10, purchase));
+        assertEquals(PurchaseOutcome.INSUFFICIENT_FUNDS, purchase.getOutcome());
+        assertEquals(10, purchase.getChange());
+    }
+
+    @Test
+    public void testMachineRemoved() {
+        fleet.addMachine("m1").addRecipe(latte);
+        assertEquals("m1", router.route("Latte"));
+        fleet.removeMachine("m1");
+        assertNull(router.route("Latte"), "A removed machine should not get orders");
+        fleet.addMachine("m2").addRecipe(latte);
+        assertEquals("m2", router.route("Latte"));
+    }
+}
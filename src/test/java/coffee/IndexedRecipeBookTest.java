@@ -0,0 +1,182 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class IndexedRecipeBookTest {
+    private IndexedRecipeBook recipeBook;
+    private Recipe recipe1;
+    private Recipe recipe2;
+
+    @BeforeEach
+    public void setUp() {
+        recipeBook = new IndexedRecipeBook();
+        recipe1 = newRecipe("Recipe1");
+        recipe2 = newRecipe("Recipe2");
+    }
+
+    private static Recipe newRecipe(String name) {
+        Recipe r = new Recipe();
+        r.setName(name);
+        return r;
+    }
+
+    // ========== Test Add Recipe ========== //
+    @Test
+    public void testAddRecipeSuccess() {
+        assertTrue(recipeBook.addRecipe(recipe1));
+        assertTrue(recipeBook.addRecipe(recipe2));
+        assertEquals(2, recipeBook.size());
+        assertEquals(0, recipeBook.getRecipeId("Recipe1"));
+        assertEquals(1, recipeBook.getRecipeId("Recipe2"));
+        assertSame(recipe2, recipeBook.getRecipe("Recipe2"));
+        assertSame(recipe2, recipeBook.getRecipes()[1], "Recipe id should be its position in getRecipes()");
+    }
+
+    @Test
+    public void testAddRecipeDuplicateWithDifferentObject() {
+        recipeBook.addRecipe(recipe1);
+        assertFalse(recipeBook.addRecipe(newRecipe("Recipe1")), "Recipes with the same name should be treated as duplicates");
+    }
+
+    @Test
+    public void testAddRecipeNull() {
+        assertFalse(recipeBook.addRecipe(null), "Adding a null recipe should return false");
+    }
+
+    @Test
+    public void testAddRecipeBeyondFourRecipes() {
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(recipeBook.addRecipe(newRecipe("Recipe" + i)), "Recipe book should grow without a hard cap");
+        }
+        assertEquals(1000, recipeBook.size());
+        assertEquals(999, recipeBook.getRecipeId("Recipe999"));
+        assertEquals("Recipe500", recipeBook.getRecipes()[500].getName());
+    }
+
+    @Test
+    public void testRecipeNotFound() {
+        assertEquals(-1, recipeBook.getRecipeId("Missing"));
+        assertNull(recipeBook.getRecipe("Missing"));
+        assertNull(recipeBook.getRecipe(null));
+    }
+
+    @Test
+    public void testLookupWhileLocked() throws InterruptedException {
+        recipeBook.addRecipe(recipe1);
+        int[] id = {-2};
+        Thread reader = new Thread(() -> id[0] = recipeBook.getRecipeId("Recipe1"));
+        synchronized (recipeBook) {
+            reader.start();
+            reader.join(5000);
+        }
+        assertEquals(0, id[0], "Lookups by name should not wait for the book's lock");
+    }
+
+    @Test
+    public void testSnapshotIndexOf() {
+        for (int i = 0; i < 100; i++) {
+            recipeBook.addRecipe(newRecipe("Recipe" + i));
+        }
+        recipeBook.deleteRecipe(40);
+        RecipeSnapshot snapshot = recipeBook.getSnapshot();
+        assertEquals(99, snapshot.indexOf("Recipe99"));
+        assertEquals(-1, snapshot.indexOf("Recipe40"));
+        assertEquals(-1, snapshot.indexOf(null));
+        recipeBook.addRecipe(newRecipe("New"));
+        assertEquals(-1, snapshot.indexOf("New"), "A snapshot should not see later changes");
+        assertEquals(40, recipeBook.getSnapshot().indexOf("New"));
+    }
+
+    @Test
+    public void testOlderSnapshotAfterChange() {
+        for (int i = 0; i < 100; i++) {
+            recipeBook.addRecipe(newRecipe("Recipe" + i));
+        }
+        RecipeSnapshot before = recipeBook.getSnapshot();
+        recipeBook.deleteRecipe("Recipe40");
+        RecipeSnapshot after = recipeBook.getSnapshot();
+        assertEquals(40, before.indexOf("Recipe40"), "An older snapshot should still find recipes deleted since");
+        assertEquals(-1, after.indexOf("Recipe40"));
+        assertEquals(99, after.indexOf("Recipe99"));
+        assertSame(before.getCompact(99), after.getCompact(99), "Recipes left as they were should be shared");
+        assertEquals(before.size(), after.size());
+        assertNull(after.get(40));
+        assertEquals("Recipe41", after.get(41).getName());
+    }
+
+    @Test
+    public void testAddRecipes() {
+        recipeBook.addRecipe(recipe1);
+        recipeBook.addRecipe(recipe2);
+        recipeBook.deleteRecipe(0);
+        Recipe[] batch = new Recipe[1000];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = newRecipe("Recipe" + (i % 500 + 1));
+        }
+        boolean[] added = recipeBook.addRecipes(batch);
+        assertTrue(added[0], "A deleted name should be free again");
+        assertFalse(added[1], "Recipe2 is still in the book");
+        assertFalse(added[500], "A name earlier in the batch is a duplicate");
+        assertEquals(500, recipeBook.size());
+        assertEquals(0, recipeBook.getRecipeId("Recipe1"), "A freed id should be reused");
+        assertEquals(499, recipeBook.getRecipeId("Recipe500"));
+    }
+
+    // ========== Test Delete Recipe ========== //
+    @Test
+    public void testDeleteRecipeSuccess() {
+        recipeBook.addRecipe(recipe1);
+        recipeBook.addRecipe(recipe2);
+        assertEquals("Recipe1", recipeBook.deleteRecipe(0));
+        assertNull(recipeBook.getRecipes()[0], "Recipe1 should be deleted");
+        assertEquals(-1, recipeBook.getRecipeId("Recipe1"));
+        assertEquals(1, recipeBook.getRecipeId("Recipe2"), "Deleting Recipe1 should not move Recipe2");
+        assertTrue(recipeBook.addRecipe(recipe1), "Recipe1 can be added again after it was deleted");
+    }
+
+    @Test
+    public void testDeleteRecipeByName() {
+        recipeBook.addRecipe(recipe1);
+        assertEquals("Recipe1", recipeBook.deleteRecipe("Recipe1"));
+        assertNull(recipeBook.deleteRecipe("Recipe1"));
+        assertNull(recipeBook.deleteRecipe(null));
+        assertEquals(0, recipeBook.size());
+    }
+
+    @Test
+    public void testDeleteRecipeDoesNotExist() {
+        assertNull(recipeBook.deleteRecipe(0), "No recipe at index 0, so should return null");
+    }
+
+    @Test
+    public void testDeleteRecipeInvalidIndexNegative() {
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> recipeBook.deleteRecipe(-1));
+    }
+
+    // ========== Test Edit Recipe ========== //
+    @Test
+    public void testEditRecipeSuccess() {
+        recipeBook.addRecipe(recipe1);
+        Recipe edited = new Recipe();
+        assertEquals("Recipe1", recipeBook.editRecipe(0, edited));
+        assertSame(edited, recipeBook.getRecipe("Recipe1"), "Edited recipe should keep the name and id of the recipe it replaces");
+        assertEquals("Recipe1", edited.getName());
+    }
+
+    @Test
+    public void testEditRecipeDoesNotExist() {
+        assertNull(recipeBook.editRecipe(0, recipe2), "No recipe at index 0, should return null");
+    }
+
+    // ========== Test Coffee Maker ========== //
+    @Test
+    public void testCoffeeMakerWithIndexedRecipeBook() {
+        CoffeeMaker coffeeMaker = new CoffeeMaker(recipeBook, new Inventory());
+        for (int i = 0; i < 10; i++) {
+            assertTrue(coffeeMaker.addRecipe(newRecipe("Recipe" + i)));
+        }
+        assertEquals(100, coffeeMaker.makeCoffee(recipeBook.getRecipeId("Recipe7"), 100), "Recipe7 is free, so all change is returned");
+    }
+}
@@ -0,0 +1,63 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class IngredientRegistryTest {
+
+    private IngredientRegistry registry;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new IngredientRegistry();
+    }
+
+    // ========== Test Standard Ingredients ========== //
+    @Test
+    public void testStandardIngredients() {
+        assertEquals(4, registry.size());
+        assertSame(Ingredient.COFFEE, registry.get(0));
+        assertSame(Ingredient.CHOCOLATE, registry.get(3));
+        assertSame(Ingredient.MILK, registry.get("Milk"));
+        assertTrue(registry.contains(Ingredient.SUGAR));
+    }
+
+    // ========== Test Register ========== //
+    @Test
+    public void testRegister() {
+        Ingredient caramel = registry.register("Caramel");
+        Ingredient oatMilk = registry.register("Oat milk");
+        assertEquals(4, caramel.getId());
+        assertEquals(5, oatMilk.getId());
+        assertEquals(6, registry.size());
+        assertSame(caramel, registry.get("Caramel"));
+        assertSame(oatMilk, registry.get(5));
+    }
+
+    @Test
+    public void testRegisterTwice() {
+        Ingredient caramel = registry.register("Caramel");
+        assertSame(caramel, registry.register("Caramel"), "Registering a name again should return the same ingredient");
+        assertSame(Ingredient.COFFEE, registry.register("Coffee"));
+        assertEquals(5, registry.size());
+    }
+
+    @Test
+    public void testRegisterBlank() {
+        assertThrows(IllegalArgumentException.class, () -> registry.register(null));
+        assertThrows(IllegalArgumentException.class, () -> registry.register(" "));
+    }
+
+    @Test
+    public void testRegistriesAreIndependent() {
+        Ingredient caramel = registry.register("Caramel");
+        IngredientRegistry other = new IngredientRegistry();
+        assertEquals(4, other.size());
+        assertNull(other.get("Caramel"));
+        assertFalse(other.contains(caramel));
+        assertNull(other.get(4));
+        assertNull(other.get(-1));
+    }
+}
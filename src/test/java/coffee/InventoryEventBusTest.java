@@ -0,0 +1,177 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import coffee.exceptions.InventoryException;
+import coffee.exceptions.RecipeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class InventoryEventBusTest {
+
+    private InventoryEventBus bus;
+    private RecipeBook recipeBook;
+    private Inventory inventory;
+    private CoffeeMaker coffeeMaker;
+    private Recipe latte;
+    private InventoryEvent event;
+
+    @BeforeEach
+    public void setUp() throws RecipeException {
+        bus = new InventoryEventBus(8);
+        recipeBook = new RecipeBook();
+        inventory = new Inventory();
+        coffeeMaker = new CoffeeMaker(recipeBook, inventory);
+        bus.attach(inventory, recipeBook);
+        latte = new Recipe();
+        latte.setName("Latte");
+        latte.setPrice("50");
+        latte.setAmtCoffee("3");
+        latte.setAmtMilk("2");
+        event = new InventoryEvent();
+    }
+
+    // ========== Test Events ========== //
+    @Test
+    public void testEventsInOrder() throws InventoryException {
+        InventoryEventBus.Subscription subscription = bus.subscribe();
+        assertFalse(subscription.poll(event), "Nothing has happened yet");
+
+        coffeeMaker.addRecipe(latte);
+        coffeeMaker.makeCoffee(0, 50);
+        coffeeMaker.addInventory(Ingredient.MILK, "5");
+
+        assertTrue(subscription.poll(event));
+        assertEquals(InventoryEvent.Type.RECIPES_CHANGED, event.getType());
+        assertSame(recipeBook, event.getRecipeBook());
+        assertEquals("Latte", event.getRecipes().get(0).getName());
+        assertNull(event.getInventory());
+
+        assertTrue(subscription.poll(event));
+        assertEquals(InventoryEvent.Type.INGREDIENTS_USED, event.getType());
+        assertSame(inventory, event.getInventory());
+        assertEquals(3, event.getAmount(Ingredient.COFFEE));
+        assertEquals(2, event.getAmount(Ingredient.MILK));
+        assertEquals(12, event.getUnits(Ingredient.COFFEE), "Units should be the stock after the brew");
+        assertEquals(13, event.getUnits(Ingredient.MILK));
+
+        assertTrue(subscription.poll(event));
+        assertEquals(InventoryEvent.Type.STOCK_CHANGED, event.getType());
+        assertEquals(0, event.getAmount(Ingredient.MILK));
+        assertEquals(18, event.getUnits(Ingredient.MILK));
+        assertEquals(2, event.getSequence());
+
+        assertFalse(subscription.poll(event));
+        assertEquals(0, subscription.getMissed());
+        assertEquals(3, bus.getPublished());
+    }
+
+    @Test
+    public void testFailedBrewPublishesNothing() {
+        coffeeMaker.addRecipe(latte);
+        InventoryEventBus.Subscription subscription = bus.subscribe();
+        coffeeMaker.makeCoffee(0, 10);
+        assertFalse(subscription.poll(event), "A purchase that did not brew should not change the stock");
+    }
+
+    @Test
+    public void testSubscribersHaveOwnCursors() {
+        coffeeMaker.addRecipe(latte);
+        InventoryEventBus.Subscription first = bus.subscribe();
+        coffeeMaker.makeCoffee(0, 50);
+        InventoryEventBus.Subscription second = bus.subscribe();
+        coffeeMaker.makeCoffee(0, 50);
+        assertEquals(2, first.getLag());
+        assertEquals(1, second.getLag());
+        assertTrue(second.poll(event));
+        assertEquals(2, event.getSequence());
+        assertEquals(2, first.getLag(), "Reading on one subscription should not move another");
+        assertFalse(second.poll(event));
+    }
+
+    @Test
+    public void testSlowSubscriberMissesOldest() {
+        Recipe water = new Recipe();
+        water.setName("Water");
+        coffeeMaker.addRecipe(water);
+        InventoryEventBus.Subscription subscription = bus.subscribe();
+        for (int i = 0; i < 20; i++) {
+            coffeeMaker.makeCoffee(0, 0);
+        }
+        List<Long> read = new ArrayList<>();
+        while (subscription.poll(event)) {
+            read.add(event.getSequence());
+        }
+        assertEquals(12, subscription.getMissed(), "Only the last eight events are kept");
+        assertEquals(8, read.size());
+        assertEquals(Long.valueOf(13), read.get(0));
+        assertEquals(Long.valueOf(20), read.get(7));
+        assertEquals(0, subscription.getLag());
+    }
+
+    @Test
+    public void testDetach() {
+        InventoryEventBus.Subscription subscription = bus.subscribe();
+        bus.detach(inventory, recipeBook);
+        coffeeMaker.addRecipe(latte);
+        coffeeMaker.makeCoffee(0, 50);
+        assertFalse(subscription.poll(event));
+    }
+
+    @Test
+    public void testRegisteredIngredient() throws InventoryException {
+        IngredientRegistry registry = new IngredientRegistry();
+        inventory = new Inventory(registry);
+        bus.attach(inventory, null);
+        Ingredient vanilla = registry.register("Vanilla");
+        InventoryEventBus.Subscription subscription = bus.subscribe();
+        inventory.addUnits(vanilla, "7");
+        assertTrue(subscription.poll(event));
+        assertEquals(7, event.getUnits(vanilla));
+        assertEquals(15, event.getUnits(Ingredient.SUGAR));
+    }
+
+    @Test
+    public void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new InventoryEventBus(0));
+        assertThrows(IllegalArgumentException.class, () -> new InventoryEventBus(12));
+    }
+
+    // ========== Test Concurrency ========== //
+    @Test
+    public void testConcurrentPublishers() throws InterruptedException {
+        bus = new InventoryEventBus(1 << 16);
+        AtomicInventory shared = new AtomicInventory();
+        bus.attach(shared, null);
+        InventoryEventBus.Subscription subscription = bus.subscribe();
+        int[] amounts = {1, 0, 0, 0};
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    bus.ingredientsUsed(shared, amounts);
+                }
+            });
+            threads[t].start();
+        }
+        long expected = 0;
+        long total = 0;
+        while (total < 20000) {
+            if (subscription.poll(event)) {
+                assertEquals(expected++, event.getSequence(), "Events should be read in sequence");
+                assertEquals(1, event.getAmount(Ingredient.COFFEE));
+                total++;
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, subscription.getMissed());
+        assertFalse(subscription.poll(event));
+    }
+}
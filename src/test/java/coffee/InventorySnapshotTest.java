@@ -0,0 +1,62 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class InventorySnapshotTest {
+
+    private InventorySnapshot snapshot;
+
+    @BeforeEach
+    public void setUp() {
+        snapshot = new InventorySnapshot(15, 0, 1234567, -3);
+    }
+
+    // ========== Test Rendering ========== //
+    @Test
+    public void testToStringMatchesInventory() {
+        Inventory inventory = new Inventory();
+        inventory.setMilk(0);
+        assertEquals(inventory.toString(), inventory.getSnapshot().toString());
+        assertEquals("Coffee: 15\nMilk: 0\nSugar: 15\nChocolate: 15\n", inventory.toString());
+    }
+
+    @Test
+    public void testAppendTo() {
+        StringBuilder buf = new StringBuilder("report\n");
+        assertSame(buf, snapshot.appendTo(buf));
+        assertEquals("report\nCoffee: 15\nMilk: 0\nSugar: 1234567\nChocolate: -3\n", buf.toString());
+    }
+
+    @Test
+    public void testWriteTo() {
+        ByteBuffer buf = ByteBuffer.allocate(snapshot.maxLength());
+        snapshot.writeTo(buf);
+        String written = new String(buf.array(), 0, buf.position(), StandardCharsets.US_ASCII);
+        assertEquals(snapshot.toString(), written);
+    }
+
+    @Test
+    public void testWriteToLongest() {
+        InventorySnapshot longest = new InventorySnapshot(Integer.MIN_VALUE, Integer.MIN_VALUE,
+                Integer.MIN_VALUE, Integer.MIN_VALUE);
+        ByteBuffer buf = ByteBuffer.allocate(longest.maxLength());
+        longest.writeTo(buf);
+        assertEquals(longest.toString().length(), buf.position());
+        assertEquals(longest.toString(), new String(buf.array(), 0, buf.position(), StandardCharsets.US_ASCII));
+    }
+
+    // ========== Test Equals and HashCode ========== //
+    @Test
+    public void testEquals() {
+        InventorySnapshot same = new InventorySnapshot(15, 0, 1234567, -3);
+        assertEquals(snapshot, same);
+        assertEquals(snapshot.hashCode(), same.hashCode());
+        assertNotEquals(snapshot, new InventorySnapshot(15, 1, 1234567, -3));
+    }
+}
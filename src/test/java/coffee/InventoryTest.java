@@ -6,6 +6,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import coffee.exceptions.InventoryException;
 
+import java.util.concurrent.TimeUnit;
+
 public class InventoryTest {
 
     private Inventory inventory;
@@ -27,6 +29,37 @@ public class InventoryTest {
     }
 
 
+    // ========== Test Int Add ========== //
+    @Test
+    public void testAddInt() {
+        assertTrue(inventory.addCoffee(5));
+        assertTrue(inventory.addMilk(0));
+        assertTrue(inventory.addSugar(3));
+        assertTrue(inventory.addChocolate(1));
+        assertEquals(20, inventory.getCoffee());
+        assertEquals(15, inventory.getMilk());
+        assertEquals(18, inventory.getSugar());
+        assertEquals(16, inventory.getChocolate());
+    }
+
+    @Test
+    public void testAddIntNegative() {
+        assertFalse(inventory.addCoffee(-5), "Negative Coffee Should Fail");
+        assertFalse(inventory.addSugar(-5), "Negative Sugar Should Fail");
+        assertEquals(15, inventory.getCoffee(), "Coffee should remain unchanged");
+        assertEquals(15, inventory.getSugar(), "Sugar should remain unchanged");
+    }
+
+    @Test
+    public void testAddUnitsInt() {
+        IngredientRegistry registry = new IngredientRegistry();
+        inventory = new Inventory(registry);
+        Ingredient vanilla = registry.register("Vanilla");
+        assertTrue(inventory.addUnits(vanilla, 4));
+        assertEquals(4, inventory.getUnits(vanilla));
+        assertThrows(IllegalArgumentException.class, () -> inventory.addUnits(new IngredientRegistry().register("Mint"), 1));
+    }
+
     // ========== Test Coffee ========== //
     @Test
     public void testSetCoffeeValid() {
@@ -308,6 +341,17 @@ public class InventoryTest {
     }
 
     // ========== Test UseIngredients ========== //
+    @Test
+    public void testUseIngredientsOverloadsAgree() throws RecipeException {
+        recipe.setAmtCoffee("4");
+        recipe.setAmtMilk("2");
+        Inventory other = new Inventory();
+        assertTrue(inventory.useIngredients(recipe));
+        assertTrue(other.useIngredients(CompactRecipe.of(recipe)));
+        assertEquals(other.toString(), inventory.toString(), "Both forms of a recipe should take the same stock");
+        assertEquals(11, inventory.getCoffee());
+    }
+
     @Test
     public void testUseIngredientsSufficient() {
         try {
@@ -366,4 +410,223 @@ public class InventoryTest {
         String expected = "Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n";
         assertEquals(expected, inventory.toString());
     }
-}
\ No newline at end of file
+
+    // ========== Test Snapshot ========== //
+    @Test
+    public void testGetSnapshot() {
+        inventory.setMilk(7);
+        InventorySnapshot snapshot = inventory.getSnapshot();
+        assertEquals(15, snapshot.getCoffee());
+        assertEquals(7, snapshot.getMilk());
+        assertEquals(15, snapshot.getSugar());
+        assertEquals(15, snapshot.getChocolate());
+        inventory.setMilk(3);
+        assertEquals(7, snapshot.getMilk(), "A snapshot should not change with the inventory");
+    }
+
+    @Test
+    public void testGetSnapshotWhileBrewing() throws InterruptedException {
+        CompactRecipe oneOfEach = CompactRecipe.of(new Recipe("One", 0, 1, 1, 1, 1));
+        inventory.setCoffee(200000);
+        inventory.setMilk(200000);
+        inventory.setSugar(200000);
+        inventory.setChocolate(200000);
+        Thread brewer = new Thread(() -> {
+            while (inventory.useIngredients(oneOfEach)) {
+                //brew until the stock runs out
+            }
+        });
+        brewer.start();
+        while (brewer.isAlive()) {
+            InventorySnapshot snapshot = inventory.getSnapshot();
+            assertEquals(snapshot.getCoffee(), snapshot.getMilk(), "Snapshot should never show half a brew");
+            assertEquals(snapshot.getCoffee(), snapshot.getChocolate(), "Snapshot should never show half a brew");
+        }
+        brewer.join();
+        assertEquals(0, inventory.getSnapshot().getCoffee());
+    }
+
+    // ========== Test Registered Ingredients ========== //
+    @Test
+    public void testRegisteredIngredient() throws InventoryException {
+        IngredientRegistry ingredients = new IngredientRegistry();
+        Ingredient caramel = ingredients.register("Caramel");
+        inventory = new Inventory(ingredients);
+        assertEquals(15, inventory.getUnits(caramel), "Ingredients registered first should start with 15 units");
+        inventory.addUnits(caramel, "5");
+        assertEquals(20, inventory.getUnits(caramel));
+        assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\nCaramel: 20\n", inventory.toString());
+    }
+
+    @Test
+    public void testIngredientRegisteredLater() throws InventoryException {
+        IngredientRegistry ingredients = inventory.getIngredients();
+        Ingredient caramel = ingredients.register("Caramel");
+        assertEquals(0, inventory.getUnits(caramel), "Ingredients registered later should start with 0 units");
+        assertTrue(inventory.toString().endsWith("Caramel: 0\n"));
+        inventory.addUnits(caramel, "3");
+        assertEquals(3, inventory.getUnits(caramel));
+        InventoryException e = assertThrows(InventoryException.class, () -> inventory.addUnits(caramel, "-1"));
+        assertEquals("Units of caramel must be a positive integer", e.getMessage());
+    }
+
+    @Test
+    public void testIngredientFromOtherRegistry() {
+        Ingredient caramel = new IngredientRegistry().register("Caramel");
+        assertThrows(IllegalArgumentException.class, () -> inventory.setUnits(caramel, 5));
+        assertEquals(0, inventory.getUnits(caramel));
+    }
+
+    @Test
+    public void testUseRegisteredIngredients() throws RecipeException {
+        Ingredient caramel = inventory.getIngredients().register("Caramel");
+        recipe.setAmtMilk("2");
+        recipe.setAmount(caramel, "4");
+        CompactRecipe compact = CompactRecipe.of(recipe);
+        assertFalse(inventory.useIngredients(compact), "The inventory has no caramel yet");
+        assertEquals(15, inventory.getMilk());
+        inventory.setUnits(caramel, 6);
+        assertTrue(inventory.useIngredients(compact));
+        assertEquals(13, inventory.getMilk());
+        assertEquals(2, inventory.getUnits(caramel));
+        assertFalse(inventory.useIngredients(compact), "Only 2 units of caramel are left");
+    }
+
+    // ========== Test Reservations ========== //
+    @Test
+    public void testReserveAndCommit() throws RecipeException {
+        recipe.setAmtCoffee("5");
+        recipe.setAmtMilk("2");
+        CompactRecipe compact = CompactRecipe.of(recipe);
+        Reservation reservation = inventory.reserve(compact, 1, TimeUnit.MINUTES);
+        assertNotNull(reservation);
+        assertTrue(reservation.isHeld());
+        assertEquals(10, inventory.getCoffee(), "Reserved coffee should be out of stock");
+        assertEquals(13, inventory.getMilk());
+        assertEquals(1, inventory.getReservationCount());
+        assertTrue(inventory.commit(reservation));
+        assertFalse(reservation.isHeld());
+        assertEquals(10, inventory.getCoffee(), "Committed coffee should stay used");
+        assertEquals(0, inventory.getReservationCount());
+        assertFalse(inventory.commit(reservation), "A reservation can only be finished once");
+        assertFalse(inventory.release(reservation));
+        assertEquals(10, inventory.getCoffee());
+    }
+
+    @Test
+    public void testReserveAndRelease() throws RecipeException {
+        recipe.setAmtCoffee("5");
+        Reservation reservation = inventory.reserve(CompactRecipe.of(recipe), 1, TimeUnit.MINUTES);
+        assertTrue(inventory.release(reservation));
+        assertEquals(15, inventory.getCoffee(), "Released coffee should be back in stock");
+        assertFalse(inventory.commit(reservation));
+        assertEquals(15, inventory.getCoffee());
+    }
+
+    @Test
+    public void testReserveInsufficient() throws RecipeException {
+        recipe.setAmtCoffee("10");
+        CompactRecipe compact = CompactRecipe.of(recipe);
+        assertNotNull(inventory.reserve(compact, 1, TimeUnit.MINUTES));
+        assertNull(inventory.reserve(compact, 1, TimeUnit.MINUTES), "Reserved coffee must not be sold twice");
+        assertFalse(inventory.useIngredients(compact));
+        assertEquals(5, inventory.getCoffee());
+        assertThrows(IllegalArgumentException.class, () -> inventory.reserve(compact, -1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testReservationExpires() throws RecipeException, InterruptedException {
+        recipe.setAmtCoffee("10");
+        CompactRecipe compact = CompactRecipe.of(recipe);
+        Reservation expired = inventory.reserve(compact, 0, TimeUnit.SECONDS);
+        Thread.sleep(2);
+        assertTrue(inventory.useIngredients(compact), "Stock running short should release expired reservations");
+        assertEquals(5, inventory.getCoffee());
+        assertFalse(expired.isHeld());
+        assertFalse(inventory.commit(expired), "An expired reservation cannot be committed");
+    }
+
+    @Test
+    public void testExpiredReleasedBeforeReporting() throws RecipeException, InterruptedException {
+        recipe.setAmtCoffee("10");
+        CompactRecipe compact = CompactRecipe.of(recipe);
+        inventory.reserve(compact, 0, TimeUnit.SECONDS);
+        Thread.sleep(2);
+        assertEquals(15, inventory.getSnapshot().getUnits(Ingredient.COFFEE), "A snapshot should not show expired holds as used");
+        assertEquals(0, inventory.getReservationCount());
+        inventory.reserve(compact, 0, TimeUnit.SECONDS);
+        Thread.sleep(2);
+        assertEquals(15, inventory.getCoffee(), "Reading units should release expired holds");
+        assertEquals(0, inventory.getReservationCount());
+    }
+
+    @Test
+    public void testCommitExpired() throws RecipeException, InterruptedException {
+        recipe.setAmtCoffee("10");
+        Reservation reservation = inventory.reserve(CompactRecipe.of(recipe), 0, TimeUnit.SECONDS);
+        Thread.sleep(2);
+        assertFalse(inventory.commit(reservation), "An expired reservation cannot be committed");
+        assertEquals(15, inventory.getCoffee(), "Its coffee should be back in stock");
+    }
+
+    @Test
+    public void testReleaseExpired() throws RecipeException, InterruptedException {
+        recipe.setAmtCoffee("1");
+        CompactRecipe compact = CompactRecipe.of(recipe);
+        Reservation held = inventory.reserve(compact, 1, TimeUnit.MINUTES);
+        inventory.reserve(compact, 0, TimeUnit.SECONDS);
+        inventory.reserve(compact, 0, TimeUnit.SECONDS);
+        Thread.sleep(2);
+        assertEquals(2, inventory.releaseExpired());
+        assertEquals(0, inventory.releaseExpired());
+        assertEquals(14, inventory.getCoffee());
+        assertTrue(held.isHeld());
+        assertArrayEquals(new int[] {1, 0, 0, 0}, inventory.reservedUnits());
+    }
+
+    @Test
+    public void testReservationFromOtherInventory() throws RecipeException {
+        recipe.setAmtCoffee("5");
+        Reservation reservation = new Inventory().reserve(CompactRecipe.of(recipe), 1, TimeUnit.MINUTES);
+        assertFalse(inventory.commit(reservation));
+        assertFalse(inventory.release(reservation));
+        assertEquals(15, inventory.getCoffee());
+        assertTrue(reservation.isHeld());
+    }
+
+    // ========== Test Listeners ========== //
+    @Test
+    public void testListeners() throws RecipeException, InventoryException {
+        int[] used = new int[4];
+        int[] changes = new int[1];
+        InventoryListener listener = new InventoryListener() {
+            @Override
+            public void ingredientsUsed(Inventory inventory, int[] amounts) {
+                for (int id = 0; id < amounts.length; id++) {
+                    used[id] += amounts[id];
+                }
+            }
+
+            @Override
+            public void stockChanged(Inventory inventory) {
+                changes[0]++;
+            }
+        };
+        inventory.addListener(listener);
+        recipe.setAmtCoffee("4");
+        recipe.setAmtChocolate("1");
+        CompactRecipe compact = CompactRecipe.of(recipe);
+        assertTrue(inventory.useIngredients(compact));
+        recipe.setAmtCoffee("20");
+        assertFalse(inventory.useIngredients(CompactRecipe.of(recipe)), "Failed uses are not reported");
+        assertArrayEquals(new int[] {4, 0, 0, 1}, used);
+        inventory.addCoffee("2");
+        inventory.setMilk(3);
+        assertEquals(2, changes[0]);
+        inventory.removeListener(listener);
+        inventory.useIngredients(compact);
+        inventory.addCoffee("2");
+        assertArrayEquals(new int[] {4, 0, 0, 1}, used, "Removed listeners are not told");
+        assertEquals(2, changes[0]);
+    }
+}
@@ -0,0 +1,202 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import coffee.exceptions.InventoryException;
+import coffee.exceptions.RecipeException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+public class JournalTest {
+
+    @TempDir
+    Path directory;
+
+    private Journal journal;
+    private Recipe recipe1;
+    private Recipe recipe2;
+
+    @BeforeEach
+    public void setUp() throws RecipeException {
+        recipe1 = newRecipe("Recipe1", "50", "2");
+        recipe2 = newRecipe("Recipe2", "75", "3");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private static Recipe newRecipe(String name, String price, String amt) throws RecipeException {
+        Recipe r = new Recipe();
+        r.setName(name);
+        r.setPrice(price);
+        r.setAmtCoffee(amt);
+        r.setAmtMilk(amt);
+        r.setAmtSugar(amt);
+        r.setAmtChocolate(amt);
+        return r;
+    }
+
+    /**
+     * Closes the current journal and returns a coffee maker recovered
+     * from it into a fresh recipe book and inventory.
+     */
+    private CoffeeMaker restart(RecipeBook recipeBook) throws IOException {
+        journal.close();
+        journal = Journal.open(directory);
+        return new CoffeeMaker(recipeBook, new AtomicInventory(), journal);
+    }
+
+    // ========== Test Recovery ========== //
+    @Test
+    public void testRecoverEmpty() throws IOException {
+        journal = Journal.open(directory);
+        CoffeeMaker coffeeMaker = new CoffeeMaker(new RecipeBook(), new Inventory(), journal);
+        assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n", coffeeMaker.checkInventory());
+        assertNull(coffeeMaker.getRecipes()[0]);
+    }
+
+    @Test
+    public void testRecoverChanges() throws IOException, InventoryException, RecipeException {
+        journal = Journal.open(directory);
+        CoffeeMaker coffeeMaker = new CoffeeMaker(new RecipeBook(), new AtomicInventory(), journal);
+        coffeeMaker.addRecipe(recipe1);
+        coffeeMaker.addRecipe(recipe2);
+        coffeeMaker.addInventory("10", "20", "30", "40");
+        assertEquals(50, coffeeMaker.makeCoffee(0, 100));
+        assertEquals(70, coffeeMaker.makeCoffee(1, 70), "Insufficient funds should not be journaled");
+        coffeeMaker.editRecipe(1, newRecipe("", "80", "1"));
+        coffeeMaker.deleteRecipe(0);
+
+        CoffeeMaker recovered = restart(new RecipeBook());
+        assertEquals("Coffee: 23\nMilk: 33\nSugar: 43\nChocolate: 53\n", recovered.checkInventory());
+        assertEquals(coffeeMaker.getRecipes()[0].getName(), recovered.getRecipes()[0].getName());
+        assertEquals(80, recovered.getRecipes()[1].getPrice());
+        assertEquals(1, recovered.getRecipes()[1].getAmtMilk());
+    }
+
+    @Test
+    public void testRecoverPartialInventory() throws IOException {
+        journal = Journal.open(directory);
+        CoffeeMaker coffeeMaker = new CoffeeMaker(new RecipeBook(), new AtomicInventory(), journal);
+        assertThrows(InventoryException.class, () -> coffeeMaker.addInventory("5", "5", "-1", "5"));
+        assertEquals("Coffee: 20\nMilk: 20\nSugar: 15\nChocolate: 15\n", restart(new RecipeBook()).checkInventory(),
+                "Units added before the rejected ingredient should be recovered");
+    }
+
+    @Test
+    public void testRecoverAfterCompaction() throws IOException, RecipeException {
+        journal = Journal.open(directory);
+        CoffeeMaker coffeeMaker = new CoffeeMaker(new IndexedRecipeBook(), new AtomicInventory(), journal);
+        for (int i = 0; i < 6; i++) {
+            coffeeMaker.addRecipe(newRecipe("Recipe" + i, "10", "1"));
+        }
+        coffeeMaker.deleteRecipe(2);
+        coffeeMaker.makeCoffee(4, 10);
+        int before = journal.size();
+        journal.compact();
+        assertTrue(journal.size() < before, "Compaction should empty the journal");
+        coffeeMaker.makeCoffee(5, 10);
+        coffeeMaker.addRecipe(newRecipe("Recipe6", "10", "1"));
+
+        IndexedRecipeBook recovered = new IndexedRecipeBook();
+        CoffeeMaker recoveredMaker = restart(recovered);
+        assertEquals("Coffee: 13\nMilk: 13\nSugar: 13\nChocolate: 13\n", recoveredMaker.checkInventory());
+        assertEquals(6, recovered.size());
+        assertEquals(2, recovered.getRecipeId("Recipe6"), "Freed id should be handed out again after recovery");
+        assertEquals(5, recovered.getRecipeId("Recipe5"));
+    }
+
+    @Test
+    public void testRecoverRegisteredIngredients() throws IOException, InventoryException, RecipeException {
+        IngredientRegistry ingredients = new IngredientRegistry();
+        Ingredient caramel = ingredients.register("Caramel");
+        journal = Journal.open(directory);
+        CoffeeMaker coffeeMaker = new CoffeeMaker(new RecipeBook(), new Inventory(ingredients), journal);
+        recipe1.setAmount(caramel, "4");
+        coffeeMaker.addRecipe(recipe1);
+        coffeeMaker.addInventory(caramel, "10");
+        coffeeMaker.makeCoffee(0, 50);
+        journal.compact();
+        coffeeMaker.makeCoffee(0, 50);
+
+        journal.close();
+        journal = Journal.open(directory);
+        IngredientRegistry recoveredIngredients = new IngredientRegistry();
+        Ingredient recoveredCaramel = recoveredIngredients.register("Caramel");
+        CoffeeMaker recovered = new CoffeeMaker(new RecipeBook(), new Inventory(recoveredIngredients), journal);
+        assertEquals(17, recovered.getInventorySnapshot().getUnits(recoveredCaramel));
+        assertEquals(4, recovered.getRecipes()[0].getAmount(recoveredCaramel));
+    }
+
+    @Test
+    public void testRecoverReservations() throws IOException {
+        journal = Journal.open(directory);
+        CoffeeMaker coffeeMaker = new CoffeeMaker(new RecipeBook(), new AtomicInventory(), journal);
+        coffeeMaker.addRecipe(recipe1);
+        Reservation committed = coffeeMaker.reserve(0, 1, TimeUnit.MINUTES);
+        coffeeMaker.release(coffeeMaker.reserve(0, 1, TimeUnit.MINUTES));
+        coffeeMaker.reserve(0, 1, TimeUnit.MINUTES);
+        journal.compact();
+        coffeeMaker.commit(committed);
+        assertEquals("Coffee: 11\nMilk: 11\nSugar: 11\nChocolate: 11\n", coffeeMaker.checkInventory());
+        assertEquals("Coffee: 13\nMilk: 13\nSugar: 13\nChocolate: 13\n", restart(new RecipeBook()).checkInventory(),
+                "Only committed reservations should be recovered");
+    }
+
+    @Test
+    public void testRecoverStopsAtTornRecord() throws IOException {
+        journal = Journal.open(directory);
+        CoffeeMaker coffeeMaker = new CoffeeMaker(new RecipeBook(), new AtomicInventory(), journal);
+        coffeeMaker.addRecipe(recipe1);
+        int end = journal.size();
+        coffeeMaker.makeCoffee(0, 50);
+        journal.close();
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve(Journal.JOURNAL_FILE).toFile(), "rw")) {
+            //Flip a byte in the body of the last record
+            file.seek(end + 20);
+            file.write(file.read() ^ 0xff);
+        }
+        journal = Journal.open(directory);
+        CoffeeMaker recovered = new CoffeeMaker(new RecipeBook(), new AtomicInventory(), journal);
+        assertEquals("Recipe1", recovered.getRecipes()[0].getName());
+        assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n", recovered.checkInventory(),
+                "The torn brew record should not be replayed");
+    }
+
+    @Test
+    public void testJournalGrows() throws IOException, RecipeException {
+        journal = Journal.open(directory, 1024, 1000);
+        CoffeeMaker coffeeMaker = new CoffeeMaker(new RecipeBook(), new AtomicInventory(), journal);
+        coffeeMaker.addRecipe(newRecipe("Free", "0", "0"));
+        for (int i = 0; i < 200; i++) {
+            coffeeMaker.makeCoffee(0, 0);
+        }
+        assertTrue(journal.size() > 1024);
+        assertEquals("Free", restart(new RecipeBook()).getRecipes()[0].getName());
+    }
+
+    // ========== Test Invalid Use ========== //
+    @Test
+    public void testAttachTwice() throws IOException {
+        journal = Journal.open(directory);
+        new CoffeeMaker(new RecipeBook(), new Inventory(), journal);
+        assertThrows(IllegalStateException.class, () -> new CoffeeMaker(new RecipeBook(), new Inventory(), journal));
+    }
+
+    @Test
+    public void testInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> Journal.open(directory, 10, 10));
+        assertThrows(IllegalArgumentException.class, () -> Journal.open(directory, 4096, 0));
+    }
+}
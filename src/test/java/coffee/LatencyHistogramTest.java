@@ -0,0 +1,94 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+    private LatencyHistogram histogram;
+
+    @BeforeEach
+    public void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+    // ========== Test Buckets ========== //
+    @Test
+    public void testSmallValuesExact() {
+        for (int v = 0; v < 32; v++) {
+            assertEquals(v, LatencyHistogram.highestValue(LatencyHistogram.bucket(v)), "Values below 32 should be exact");
+        }
+    }
+
+    @Test
+    public void testBucketPrecision() {
+        long[] values = {100, 1_000, 12_345, 1_000_000, 987_654_321, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        for (long v : values) {
+            long top = LatencyHistogram.highestValue(LatencyHistogram.bucket(v));
+            assertTrue(top >= v, "Bucket of " + v + " should not end below it");
+            assertTrue(top - v <= v / 16, "Bucket of " + v + " should be within 1/16 of it");
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucket(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValue(LatencyHistogram.BUCKETS - 1));
+    }
+
+    @Test
+    public void testBucketsContiguous() {
+        for (int b = 1; b < LatencyHistogram.BUCKETS; b++) {
+            long lowest = LatencyHistogram.highestValue(b - 1) + 1;
+            assertEquals(b, LatencyHistogram.bucket(lowest), "Bucket " + b + " should start right after bucket " + (b - 1));
+        }
+    }
+
+    // ========== Test Percentiles ========== //
+    @Test
+    public void testEmpty() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void testPercentiles() {
+        for (int v = 1; v <= 100; v++) {
+            histogram.record(v * 1000L);
+        }
+        histogram.record(-5);
+        assertEquals(101, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(0), "Negative values should be recorded as 0");
+        long p50 = histogram.getValueAtPercentile(50);
+        assertTrue(p50 >= 50_000 && p50 <= 53_125, "Median should be about 50us, was " + p50);
+        long p99 = histogram.getValueAtPercentile(99);
+        assertTrue(p99 >= 99_000 && p99 <= 106_000, "99th percentile should be about 99us, was " + p99);
+        assertEquals(histogram.getMax(), histogram.getValueAtPercentile(100));
+        assertTrue(histogram.getMax() >= 100_000);
+    }
+
+    @Test
+    public void testStripesAllocatedOnFirstRecord() {
+        assertEquals(0, histogram.allocatedStripes(), "An unused histogram should not allocate its counts");
+        histogram.record(10);
+        histogram.record(20);
+        assertEquals(1, histogram.allocatedStripes(), "One thread should only touch its own stripe");
+        assertEquals(2, histogram.getCount());
+    }
+
+    @Test
+    public void testRecordFromManyThreads() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40_000, histogram.getCount());
+    }
+}
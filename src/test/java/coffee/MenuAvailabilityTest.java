@@ -0,0 +1,211 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import coffee.exceptions.InventoryException;
+import coffee.exceptions.RecipeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class MenuAvailabilityTest {
+
+    private CoffeeMaker coffeeMaker;
+    private MenuAvailability availability;
+    private Recipe espresso;
+    private Recipe latte;
+
+    @BeforeEach
+    public void setUp() throws RecipeException {
+        coffeeMaker = new CoffeeMaker();
+        availability = coffeeMaker.getAvailability();
+        espresso = recipe("Espresso", "10", "0");
+        latte = recipe("Latte", "3", "3");
+    }
+
+    private static Recipe recipe(String name, String coffee, String milk) throws RecipeException {
+        Recipe recipe = new Recipe();
+        recipe.setName(name);
+        recipe.setPrice("50");
+        recipe.setAmtCoffee(coffee);
+        recipe.setAmtMilk(milk);
+        return recipe;
+    }
+
+    // ========== Test Available ========== //
+    @Test
+    public void testEmptyBook() {
+        assertEquals(0, availability.getAvailableCount());
+        assertFalse(availability.isAvailable(0), "There is no recipe at position 0");
+    }
+
+    @Test
+    public void testRecipeAdded() {
+        coffeeMaker.addRecipe(espresso);
+        coffeeMaker.addRecipe(latte);
+        assertTrue(coffeeMaker.isAvailable(0));
+        assertTrue(coffeeMaker.isAvailable(1));
+        assertEquals(2, availability.getAvailableCount());
+        assertSame(coffeeMaker.getRecipeSnapshot(), availability.getRecipeSnapshot());
+    }
+
+    @Test
+    public void testOutOfRange() {
+        coffeeMaker.addRecipe(espresso);
+        assertFalse(availability.isAvailable(-1));
+        assertFalse(availability.isAvailable(4));
+        assertFalse(availability.isAvailable(64));
+        assertFalse(availability.isAvailable(Integer.MAX_VALUE));
+    }
+
+    // ========== Test Stock Changes ========== //
+    @Test
+    public void testUnavailableAfterBrew() {
+        coffeeMaker.addRecipe(espresso);
+        coffeeMaker.addRecipe(latte);
+        assertEquals(0, coffeeMaker.makeCoffee(0, 50));
+        assertFalse(coffeeMaker.isAvailable(0), "5 units of coffee are left, Espresso needs 10");
+        assertTrue(coffeeMaker.isAvailable(1), "Latte needs only 3 coffee");
+        assertEquals(1, availability.getAvailableCount());
+    }
+
+    @Test
+    public void testAvailableAfterRestock() throws InventoryException {
+        coffeeMaker.addRecipe(espresso);
+        coffeeMaker.makeCoffee(0, 50);
+        long version = availability.getVersion();
+        coffeeMaker.addInventory("5", "0", "0", "0");
+        assertTrue(coffeeMaker.isAvailable(0), "10 units of coffee after restocking");
+        assertTrue(availability.getVersion() > version, "The version should go up when a recipe becomes available");
+    }
+
+    @Test
+    public void testVersionUnchanged() {
+        coffeeMaker.addRecipe(latte);
+        long version = availability.getVersion();
+        coffeeMaker.makeCoffee(0, 50);
+        assertTrue(coffeeMaker.isAvailable(0));
+        assertEquals(version, availability.getVersion(), "Latte is still available, so nothing needs redrawing");
+    }
+
+    @Test
+    public void testIngredientNotUsed() {
+        Inventory inventory = new Inventory();
+        CoffeeMaker other = new CoffeeMaker(inventory);
+        other.addRecipe(espresso);
+        inventory.setMilk(0);
+        assertTrue(other.isAvailable(0), "Espresso uses no milk");
+        inventory.setCoffee(9);
+        assertFalse(other.isAvailable(0));
+    }
+
+    @Test
+    public void testAtomicInventory() {
+        AtomicInventory inventory = new AtomicInventory();
+        CoffeeMaker atomic = new CoffeeMaker(inventory);
+        atomic.addRecipe(espresso);
+        assertTrue(atomic.isAvailable(0));
+        atomic.makeCoffee(0, 50);
+        assertFalse(atomic.isAvailable(0));
+        inventory.setCoffee(10);
+        assertTrue(atomic.isAvailable(0));
+    }
+
+    @Test
+    public void testBrewWhileLocked() throws InterruptedException {
+        AtomicInventory inventory = new AtomicInventory();
+        CoffeeMaker atomic = new CoffeeMaker(inventory);
+        atomic.addRecipe(espresso);
+        MenuAvailability menu = atomic.getAvailability();
+        assertTrue(menu.isAvailable(0));
+        int[] change = {-1};
+        Thread brewer = new Thread(() -> change[0] = atomic.makeCoffee(0, 50));
+        synchronized (menu) {
+            brewer.start();
+            brewer.join(5000);
+            assertFalse(brewer.isAlive(), "Brewing should not wait for the availability's lock");
+        }
+        assertEquals(0, change[0]);
+        assertFalse(menu.isAvailable(0), "The brew should have published the new menu");
+    }
+
+    @Test
+    public void testConcurrentChangesAgree() throws InterruptedException, RecipeException {
+        AtomicInventory inventory = new AtomicInventory();
+        CoffeeMaker atomic = new CoffeeMaker(inventory);
+        atomic.addRecipe(recipe("Espresso", "2", "0"));
+        atomic.addRecipe(recipe("Latte", "1", "1"));
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int seed = t;
+            threads[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 2000; i++) {
+                    if (random.nextInt(3) == 0) {
+                        inventory.addCoffee(random.nextInt(3));
+                        inventory.addMilk(random.nextInt(2));
+                    } else {
+                        atomic.makeCoffee(random.nextInt(2), 50);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        MenuAvailability menu = atomic.getAvailability();
+        assertEquals(inventory.getCoffee() >= 2, menu.isAvailable(0), "Espresso after the last change");
+        assertEquals(inventory.getCoffee() >= 1 && inventory.getMilk() >= 1, menu.isAvailable(1), "Latte after the last change");
+    }
+
+    // ========== Test Recipe Book Changes ========== //
+    @Test
+    public void testRecipeEdited() throws RecipeException {
+        coffeeMaker.addRecipe(latte);
+        coffeeMaker.editRecipe(0, recipe("Lungo", "20", "0"));
+        assertFalse(coffeeMaker.isAvailable(0), "The edited recipe needs 20 coffee");
+        coffeeMaker.editRecipe(0, recipe("Ristretto", "2", "0"));
+        assertTrue(coffeeMaker.isAvailable(0));
+    }
+
+    @Test
+    public void testManyRecipes() throws RecipeException {
+        CoffeeMaker indexed = new CoffeeMaker(new IndexedRecipeBook(), new Inventory());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(indexed.addRecipe(recipe("Recipe" + i, String.valueOf(i % 20), "0")));
+        }
+        assertEquals(80, indexed.getAvailability().getAvailableCount(), "Recipes needing 16 to 19 coffee are unavailable");
+        assertTrue(indexed.isAvailable(95));
+        assertFalse(indexed.isAvailable(99));
+        indexed.makeCoffee(95, 50);
+        assertFalse(indexed.isAvailable(95), "15 - 15 leaves no coffee");
+        assertTrue(indexed.isAvailable(80), "Recipe80 needs no coffee");
+        assertEquals(5, indexed.getAvailability().getAvailableCount());
+    }
+
+    @Test
+    public void testMatchesScan() throws RecipeException {
+        Random random = new Random(17);
+        Inventory inventory = new Inventory();
+        CoffeeMaker indexed = new CoffeeMaker(new IndexedRecipeBook(), inventory);
+        for (int i = 0; i < 40; i++) {
+            indexed.addRecipe(recipe("Recipe" + i, String.valueOf(random.nextInt(6)), String.valueOf(random.nextInt(6))));
+        }
+        for (int step = 0; step < 500; step++) {
+            if (random.nextInt(4) == 0) {
+                inventory.setCoffee(random.nextInt(30));
+                inventory.setMilk(random.nextInt(30));
+            } else {
+                indexed.makeCoffee(random.nextInt(40), 50);
+            }
+            RecipeSnapshot recipes = indexed.getRecipeSnapshot();
+            for (int i = 0; i < recipes.size(); i++) {
+                CompactRecipe r = recipes.getCompact(i);
+                boolean canMake = r != null && r.getAmtCoffee() <= inventory.getCoffee() && r.getAmtMilk() <= inventory.getMilk();
+                assertEquals(canMake, indexed.isAvailable(i), "Recipe " + i + " at step " + step);
+            }
+        }
+    }
+}
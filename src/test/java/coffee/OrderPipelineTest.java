@@ -0,0 +1,122 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import coffee.exceptions.RecipeException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+public class OrderPipelineTest {
+
+    /** Makes workers that never take an order, so the queue only fills up */
+    private static final ThreadFactory IDLE_WORKERS = r -> new Thread(() -> { });
+
+    private CoffeeMaker coffeeMaker;
+    private OrderPipeline pipeline;
+
+    @BeforeEach
+    public void setUp() throws RecipeException {
+        coffeeMaker = new CoffeeMaker(new AtomicInventory());
+        Recipe recipe = new Recipe();
+        recipe.setName("Coffee");
+        recipe.setPrice("50");
+        recipe.setAmtCoffee("1");
+        coffeeMaker.addRecipe(recipe);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (pipeline != null) {
+            pipeline.close();
+        }
+    }
+
+    // ========== Test Submit ========== //
+    @Test
+    public void testSubmit() throws InterruptedException, ExecutionException {
+        pipeline = new OrderPipeline(coffeeMaker, 16, 2);
+        OrderResult result = pipeline.submit(new Order(0, 75)).get();
+        assertEquals(PurchaseOutcome.SUCCESS, result.getOutcome());
+        assertEquals(25, result.getChange());
+        result = pipeline.submit(new Order(0, 10)).get();
+        assertEquals(PurchaseOutcome.INSUFFICIENT_FUNDS, result.getOutcome());
+        assertEquals(10, result.getChange());
+    }
+
+    @Test
+    public void testSubmitMany() throws InterruptedException, ExecutionException {
+        pipeline = new OrderPipeline(coffeeMaker, 8, 4);
+        List<CompletableFuture<OrderResult>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            results.add(pipeline.submit(new Order(0, 50), 5, TimeUnit.SECONDS));
+        }
+        int made = 0;
+        for (CompletableFuture<OrderResult> result : results) {
+            if (result.get().getOutcome().isSuccess()) {
+                made++;
+            }
+        }
+        assertEquals(15, made, "Only 15 units of coffee are in stock");
+        assertTrue(coffeeMaker.checkInventory().contains("Coffee: 0"));
+    }
+
+    // ========== Test Rejection ========== //
+    @Test
+    public void testSubmitFull() {
+        pipeline = new OrderPipeline(coffeeMaker, 2, 1, IDLE_WORKERS);
+        assertFalse(pipeline.submit(new Order(0, 50)).isDone());
+        assertFalse(pipeline.submit(new Order(0, 50)).isDone());
+        CompletableFuture<OrderResult> rejected = pipeline.submit(new Order(0, 50));
+        assertTrue(rejected.isCompletedExceptionally(), "Queue is full, so the order should be rejected");
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+        assertEquals(2, pipeline.size());
+    }
+
+    @Test
+    public void testSubmitTimeout() throws InterruptedException {
+        pipeline = new OrderPipeline(coffeeMaker, 1, 1, IDLE_WORKERS);
+        pipeline.submit(new Order(0, 50));
+        assertTrue(pipeline.submit(new Order(0, 50), 10, TimeUnit.MILLISECONDS).isCompletedExceptionally(),
+                "No room was made, so the order should be rejected after the timeout");
+    }
+
+    // ========== Test Close ========== //
+    @Test
+    public void testCloseMakesQueuedOrders() {
+        pipeline = new OrderPipeline(coffeeMaker, 100, 1);
+        List<CompletableFuture<OrderResult>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(pipeline.submit(new Order(0, 50)));
+        }
+        pipeline.close();
+        for (CompletableFuture<OrderResult> result : results) {
+            assertTrue(result.isDone() && !result.isCompletedExceptionally(), "Queued orders should be made before close returns");
+        }
+        assertTrue(pipeline.submit(new Order(0, 50)).isCompletedExceptionally(), "A closed pipeline should reject orders");
+    }
+
+    @Test
+    public void testCloseWithoutWorkers() {
+        pipeline = new OrderPipeline(coffeeMaker, 4, 1, IDLE_WORKERS);
+        CompletableFuture<OrderResult> result = pipeline.submit(new Order(0, 50));
+        pipeline.close();
+        assertTrue(result.isCompletedExceptionally(), "Orders no worker could make should be rejected on close");
+        assertEquals(0, pipeline.size());
+    }
+
+    @Test
+    public void testInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderPipeline(coffeeMaker, 0, 1, IDLE_WORKERS));
+        assertThrows(IllegalArgumentException.class, () -> new OrderPipeline(coffeeMaker, 1, 0, IDLE_WORKERS));
+    }
+}
@@ -4,6 +4,10 @@ import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 public class RecipeBookTest {
     private RecipeBook recipeBook;
     private Recipe recipe1;
@@ -89,6 +93,39 @@ public class RecipeBookTest {
         assertNull(recipes[2], "Index 2 should be null");
     }
 
+    @Test
+    public void testAddRecipes() {
+        recipeBook.addRecipe(recipe1);
+        long version = recipeBook.getSnapshot().getVersion();
+        Recipe duplicate = new Recipe();
+        duplicate.setName("Recipe2");
+        boolean[] added = recipeBook.addRecipes(new Recipe[] {recipe1, recipe2, null, duplicate, recipe3, recipe4, recipe5});
+        assertArrayEquals(new boolean[] {false, true, false, false, true, true, false}, added);
+        assertArrayEquals(new Recipe[] {recipe1, recipe2, recipe3, recipe4}, recipeBook.getRecipes());
+        assertEquals(version + 1, recipeBook.getSnapshot().getVersion(), "A batch should be published once");
+    }
+
+    @Test
+    public void testAddRecipesNoneAdded() {
+        recipeBook.addRecipe(recipe1);
+        long version = recipeBook.getSnapshot().getVersion();
+        assertArrayEquals(new boolean[] {false}, recipeBook.addRecipes(new Recipe[] {recipe1}));
+        assertEquals(version, recipeBook.getSnapshot().getVersion());
+    }
+
+    @Test
+    public void testAddRecipeFromCatalog() {
+        RecipeCatalog catalog = new RecipeCatalog();
+        recipe1.setPrice(60);
+        catalog.add(recipe1);
+        assertTrue(recipeBook.addRecipe(catalog, "Recipe1"));
+        Recipe added = recipeBook.getRecipes()[0];
+        assertNotSame(recipe1, added, "The recipe should be materialized from the catalog");
+        assertEquals(60, added.getPrice());
+        assertFalse(recipeBook.addRecipe(catalog, "Recipe1"), "Duplicate names should not be added");
+        assertFalse(recipeBook.addRecipe(catalog, "Recipe2"), "Names not in the catalog should not be added");
+    }
+
     // ========== Test Delete Recipe ========== //
     @Test
     public void testDeleteRecipeSuccess() {
@@ -150,4 +187,56 @@ public class RecipeBookTest {
         newRecipe.setName("NewRecipe");
         assertNull(recipeBook.editRecipe(0, newRecipe), "No recipe at index 0, should return null");
     }
+
+    // ========== Test Snapshot ========== //
+    @Test
+    public void testSnapshotVersion() {
+        RecipeSnapshot before = recipeBook.getSnapshot();
+        assertEquals(0, before.getVersion());
+        recipeBook.addRecipe(recipe1);
+        RecipeSnapshot after = recipeBook.getSnapshot();
+        assertEquals(1, after.getVersion(), "Adding a recipe should publish a new version");
+        assertNull(before.get(0), "An old snapshot should not see later changes");
+        assertEquals(recipe1, after.get(0));
+        recipeBook.addRecipe(recipe1);
+        assertSame(after, recipeBook.getSnapshot(), "A failed add should not publish a new version");
+        recipeBook.editRecipe(0, recipe2);
+        recipeBook.deleteRecipe(0);
+        assertEquals(3, recipeBook.getSnapshot().getVersion());
+    }
+
+    @Test
+    public void testSnapshotKeepsUnchangedCompacts() {
+        recipeBook.addRecipe(recipe1);
+        RecipeSnapshot before = recipeBook.getSnapshot();
+        recipeBook.addRecipe(recipe2);
+        RecipeSnapshot after = recipeBook.getSnapshot();
+        assertSame(before.getCompact(0), after.getCompact(0), "An unchanged recipe should keep its compact form");
+        assertEquals("Recipe2", after.getCompact(1).getName());
+    }
+
+    @Test
+    public void testGetRecipesReturnsCopy() {
+        recipeBook.addRecipe(recipe1);
+        recipeBook.getRecipes()[1] = recipe2;
+        assertNull(recipeBook.getRecipes()[1], "Changing the returned array should not change the book");
+        assertTrue(recipeBook.addRecipe(recipe2));
+    }
+
+    // ========== Test Listener ========== //
+    @Test
+    public void testListener() {
+        List<Long> versions = new ArrayList<>();
+        RecipeBookListener listener = (book, recipes) -> {
+            assertSame(recipeBook, book);
+            assertSame(recipeBook.getSnapshot(), recipes, "Listeners should be told after the snapshot is published");
+            versions.add(recipes.getVersion());
+        };
+        recipeBook.addListener(listener);
+        recipeBook.addRecipe(recipe1);
+        recipeBook.addRecipes(new Recipe[] {recipe2, recipe3});
+        recipeBook.removeListener(listener);
+        recipeBook.addRecipe(recipe4);
+        assertEquals(Arrays.asList(1L, 2L), versions);
+    }
 }
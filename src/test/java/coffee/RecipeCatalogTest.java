@@ -0,0 +1,118 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import coffee.exceptions.RecipeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class RecipeCatalogTest {
+
+    private RecipeCatalog catalog;
+    private Recipe latte;
+
+    @BeforeEach
+    public void setUp() throws RecipeException {
+        catalog = new RecipeCatalog(new IngredientRegistry(), 4);
+        latte = new Recipe();
+        latte.setName("Latte");
+        latte.setPrice("50");
+        latte.setAmtCoffee("3");
+        latte.setAmtMilk("2");
+    }
+
+    // ========== Test Add and Find ========== //
+    @Test
+    public void testAddAndGet() {
+        int record = catalog.add(latte);
+        assertEquals(0, record);
+        assertEquals(record, catalog.find("Latte"));
+        Recipe copy = catalog.get(record);
+        assertNotSame(latte, copy);
+        assertEquals("Latte", copy.getName());
+        assertEquals(50, copy.getPrice());
+        assertEquals(3, copy.getAmtCoffee());
+        assertEquals(2, copy.getAmtMilk());
+        assertEquals(0, copy.getAmtChocolate());
+        assertEquals(50, catalog.getPrice(record));
+        assertEquals(2, catalog.getAmount(record, Ingredient.MILK));
+    }
+
+    @Test
+    public void testFindMissing() {
+        catalog.add(latte);
+        assertEquals(RecipeCatalog.NONE, catalog.find("Mocha"));
+        assertEquals(RecipeCatalog.NONE, catalog.find("Latt"));
+        assertEquals(RecipeCatalog.NONE, new RecipeCatalog().find("Latte"));
+    }
+
+    @Test
+    public void testVariantsShareName() throws RecipeException {
+        catalog.add(latte);
+        Recipe tea = new Recipe();
+        tea.setName("Tea");
+        catalog.add(tea);
+        latte.setPrice("65");
+        catalog.add(latte);
+        latte.setPrice("40");
+        catalog.add(latte);
+        assertEquals(4, catalog.size());
+        assertEquals(2, catalog.getNameCount(), "Each name should be stored once");
+
+        int record = catalog.find("Latte");
+        assertEquals(50, catalog.getPrice(record));
+        record = catalog.nextVariant(record);
+        assertEquals(65, catalog.getPrice(record));
+        record = catalog.nextVariant(record);
+        assertEquals(40, catalog.getPrice(record));
+        assertEquals(RecipeCatalog.NONE, catalog.nextVariant(record));
+        assertEquals("Tea", catalog.getName(catalog.find("Tea")));
+    }
+
+    @Test
+    public void testGrows() {
+        long before = catalog.getOffHeapBytes();
+        for (int i = 0; i < 5000; i++) {
+            Recipe r = new Recipe();
+            r.setName("Recipe é" + i);
+            r.setPrice(i);
+            r.setAmtSugar(i % 7);
+            assertEquals(i, catalog.add(r));
+        }
+        assertTrue(catalog.getOffHeapBytes() > before);
+        for (int i = 0; i < 5000; i++) {
+            int record = catalog.find("Recipe é" + i);
+            assertEquals(i, record);
+            assertEquals(i % 7, catalog.getAmount(record, Ingredient.SUGAR));
+            assertEquals("Recipe é" + i, catalog.getName(record));
+        }
+    }
+
+    @Test
+    public void testInvalidRecord() {
+        catalog.add(latte);
+        assertThrows(IndexOutOfBoundsException.class, () -> catalog.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> catalog.getPrice(-1));
+    }
+
+    // ========== Test Registered Ingredients ========== //
+    @Test
+    public void testRegisteredIngredients() {
+        IngredientRegistry registry = new IngredientRegistry();
+        Ingredient vanilla = registry.register("Vanilla");
+        catalog = new RecipeCatalog(registry, 4);
+        Ingredient mint = registry.register("Mint");
+        latte.setAmount(vanilla, 2);
+        int record = catalog.add(latte);
+        assertEquals(2, catalog.get(record).getAmount(vanilla));
+        assertEquals(0, catalog.getAmount(record, mint));
+        latte.setAmount(mint, 1);
+        assertThrows(IllegalArgumentException.class, () -> catalog.add(latte),
+                "Mint was registered after the catalog was created, so it has no room in a record");
+    }
+
+    @Test
+    public void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new RecipeCatalog(new IngredientRegistry(), 0));
+    }
+}
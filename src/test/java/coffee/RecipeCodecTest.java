@@ -0,0 +1,178 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import coffee.exceptions.RecipeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+public class RecipeCodecTest {
+
+    private Recipe recipe1;
+    private Recipe recipe2;
+
+    @BeforeEach
+    public void setUp() throws RecipeException {
+        recipe1 = new Recipe();
+        recipe1.setName("Coffee");
+        recipe1.setAmtChocolate("0");
+        recipe1.setAmtCoffee("3");
+        recipe1.setAmtMilk("1");
+        recipe1.setAmtSugar("1");
+        recipe1.setPrice("50");
+
+        recipe2 = new Recipe();
+        recipe2.setName("Café Mocha");
+        recipe2.setAmtChocolate("20");
+        recipe2.setAmtCoffee("3");
+        recipe2.setAmtMilk("1");
+        recipe2.setAmtSugar("1");
+        recipe2.setPrice("1000");
+    }
+
+    private static void assertSameRecipe(Recipe expected, Recipe actual) {
+        assertEquals(expected, actual);
+        assertEquals(expected.getPrice(), actual.getPrice());
+        assertArrayEquals(expected.amounts(), actual.amounts());
+    }
+
+    // ========== Test Round Trip ========== //
+    @Test
+    public void testRoundTripBook() {
+        RecipeBook book = new RecipeBook();
+        book.addRecipe(recipe1);
+        book.addRecipe(recipe2);
+        ByteBuffer encoded = RecipeCodec.encode(book);
+        assertEquals(RecipeCodec.encodedSize(book.getRecipes()), encoded.remaining());
+        Recipe[] decoded = RecipeCodec.decode(encoded);
+        assertFalse(encoded.hasRemaining(), "Decoding should read the whole encoding");
+        assertEquals(4, decoded.length);
+        assertSameRecipe(recipe1, decoded[0]);
+        assertSameRecipe(recipe2, decoded[1]);
+        assertNull(decoded[2]);
+        assertNull(decoded[3]);
+    }
+
+    @Test
+    public void testLoad() {
+        Recipe[] recipes = new Recipe[100];
+        recipes[7] = recipe1;
+        recipes[99] = recipe2;
+        IndexedRecipeBook book = new IndexedRecipeBook();
+        RecipeCodec.load(RecipeCodec.encode(recipes), book);
+        assertEquals(2, book.size());
+        assertEquals(7, book.getRecipeId("Coffee"));
+        assertSameRecipe(recipe2, book.getRecipe("Café Mocha"));
+        assertEquals(1000, book.getSnapshot().getCompact(99).getPrice());
+    }
+
+    @Test
+    public void testSharedNames() {
+        Recipe[] recipes = {recipe1, new Recipe(), new Recipe(), recipe1};
+        ByteBuffer encoded = RecipeCodec.encode(recipes);
+        Recipe[] decoded = RecipeCodec.decode(encoded);
+        assertSame(decoded[1].getName(), decoded[2].getName(), "A name used twice should be decoded once");
+        assertSame(decoded[0].getName(), decoded[3].getName());
+        assertNotSame(decoded[0], decoded[3]);
+    }
+
+    @Test
+    public void testRegisteredIngredient() throws RecipeException {
+        Ingredient vanilla = new IngredientRegistry().register("Vanilla");
+        recipe1.setAmount(vanilla, "200");
+        Recipe decoded = RecipeCodec.decode(RecipeCodec.encode(new Recipe[] {recipe1}))[0];
+        assertSameRecipe(recipe1, decoded);
+        assertEquals(200, decoded.getAmount(vanilla));
+    }
+
+    @Test
+    public void testDirectBuffer() {
+        ByteBuffer heap = RecipeCodec.encode(new Recipe[] {recipe2, null});
+        ByteBuffer direct = ByteBuffer.allocateDirect(heap.remaining() + 3);
+        direct.position(3);
+        direct.put(heap).position(3);
+        Recipe[] decoded = RecipeCodec.decode(direct);
+        assertSameRecipe(recipe2, decoded[0]);
+        assertNull(decoded[1]);
+    }
+
+    @Test
+    public void testSingleRecipe() {
+        ByteBuffer buf = ByteBuffer.allocate(64);
+        RecipeCodec.encodeRecipe(recipe1, buf);
+        RecipeCodec.encodeRecipe(recipe2, buf);
+        buf.flip();
+        assertSameRecipe(recipe1, RecipeCodec.decodeRecipe(buf));
+        assertSameRecipe(recipe2, RecipeCodec.decodeRecipe(buf));
+        assertFalse(buf.hasRemaining());
+    }
+
+    @Test
+    public void testCompact() {
+        ByteBuffer encoded = RecipeCodec.encode(new Recipe[] {recipe1});
+        //Header 5, name table 8, position count 1, then a byte each for
+        //the name, price, ingredient count and four amounts
+        assertEquals(5 + 8 + 1 + 7, encoded.remaining());
+    }
+
+    // ========== Test Varint ========== //
+    @Test
+    public void testVarint() {
+        int[] values = {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+        int[] sizes = {1, 1, 1, 2, 2, 3, 5, 5, 5};
+        ByteBuffer buf = ByteBuffer.allocate(64);
+        for (int i = 0; i < values.length; i++) {
+            int start = buf.position();
+            RecipeCodec.putVarint(buf, values[i]);
+            assertEquals(sizes[i], buf.position() - start, "Size of " + values[i]);
+            assertEquals(sizes[i], RecipeCodec.varintSize(values[i]));
+        }
+        buf.flip();
+        for (int value : values) {
+            assertEquals(value, RecipeCodec.getVarint(buf));
+        }
+    }
+
+    // ========== Test Invalid ========== //
+    @Test
+    public void testNotABook() {
+        assertThrows(IllegalArgumentException.class, () -> RecipeCodec.decode(ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5})));
+        assertThrows(IllegalArgumentException.class, () -> RecipeCodec.decode(ByteBuffer.allocate(0)));
+    }
+
+    @Test
+    public void testTruncated() {
+        ByteBuffer encoded = RecipeCodec.encode(new Recipe[] {recipe1, recipe2});
+        for (int length = 0; length < encoded.limit(); length++) {
+            ByteBuffer truncated = encoded.duplicate().limit(length);
+            assertThrows(IllegalArgumentException.class, () -> RecipeCodec.decode(truncated), "Truncated to " + length);
+        }
+    }
+
+    @Test
+    public void testNegativeUnits() {
+        //Name "A", then a price of -1 in five bytes and no ingredients
+        byte[] price = {1, 'A', (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x0f, 0};
+        assertThrows(IllegalArgumentException.class, () -> RecipeCodec.decodeRecipe(ByteBuffer.wrap(price)));
+        //Name "A", price 0, then one ingredient of -1
+        byte[] amount = {1, 'A', 0, 1, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x0f};
+        assertThrows(IllegalArgumentException.class, () -> RecipeCodec.decodeRecipe(ByteBuffer.wrap(amount)));
+    }
+
+    @Test
+    public void testVarintTooLarge() {
+        byte[] tooLarge = {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x10};
+        assertThrows(IllegalArgumentException.class, () -> RecipeCodec.getVarint(ByteBuffer.wrap(tooLarge)));
+        byte[] tooLong = {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0};
+        assertThrows(IllegalArgumentException.class, () -> RecipeCodec.getVarint(ByteBuffer.wrap(tooLong)));
+    }
+
+    @Test
+    public void testBufferTooSmall() {
+        assertThrows(BufferOverflowException.class,
+                () -> RecipeCodec.encode(new Recipe[] {recipe1}, ByteBuffer.allocate(8)));
+    }
+}
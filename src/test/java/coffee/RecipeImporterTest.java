@@ -0,0 +1,235 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import coffee.exceptions.RecipeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+public class RecipeImporterTest {
+
+    private IndexedRecipeBook book;
+    private RecipeImporter importer;
+
+    @BeforeEach
+    public void setUp() {
+        book = new IndexedRecipeBook();
+        importer = new RecipeImporter(book, new IngredientRegistry(), 2);
+    }
+
+    private static void assertErrors(ImportResult result, String... expected) {
+        List<ImportResult.RowError> errors = result.getErrors();
+        assertEquals(expected.length, errors.size(), result.toString());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], errors.get(i).toString());
+        }
+    }
+
+    // ========== Test CSV ========== //
+    @Test
+    public void testCsv() throws IOException {
+        ImportResult result = importer.importCsv(new StringReader(
+                "Name,Price,Coffee,Milk,Sugar,Chocolate\n"
+                + "Latte,60,3,2,0,0\r\n"
+                + "\n"
+                + "\"Mocha, Large\",75,3,1,1,\"2\"\n"
+                + "\"Say \"\"Hi\"\"\",1,0,0,0,0"));
+        assertEquals(3, result.getAdded());
+        assertErrors(result);
+        Recipe latte = book.getRecipe("Latte");
+        assertEquals(60, latte.getPrice());
+        assertArrayEquals(new int[] {3, 2, 0, 0}, latte.amounts());
+        assertEquals(2, book.getRecipe("Mocha, Large").getAmtChocolate());
+        assertNotNull(book.getRecipe("Say \"Hi\""));
+    }
+
+    @Test
+    public void testCsvColumnsInAnyOrder() throws IOException {
+        ImportResult result = importer.importCsv(new StringReader("milk,name\n4,Steamed Milk\n"));
+        assertEquals(1, result.getAdded());
+        Recipe milk = book.getRecipe("Steamed Milk");
+        assertEquals(0, milk.getPrice());
+        assertEquals(4, milk.getAmtMilk());
+    }
+
+    @Test
+    public void testCsvInvalidRows() throws IOException {
+        ImportResult result = importer.importCsv(new StringReader(
+                "name,price,coffee,chocolate\n"
+                + "A,-1,1,1\n"
+                + "B,1,x,1\n"
+                + "C,1,1\n"
+                + ",1,1,1\n"
+                + "D,99999999999,1,1\n"
+                + "E,1,1,1\n"));
+        assertEquals(1, result.getAdded());
+        assertErrors(result,
+                "Line 2: Price must be a positive integer",
+                "Line 3: Units of coffee must be a positive integer",
+                "Line 4: Expected 4 fields but found 3",
+                "Line 5: Recipe has no name",
+                "Line 6: Price must be a positive integer");
+    }
+
+    @Test
+    public void testCsvSameRulesAsRecipe() {
+        String[] values = {"0", "7", "+7", "-0", "-7", "", "1.5", " 1", "2147483647", "2147483648"};
+        for (String value : values) {
+            boolean valid;
+            try {
+                new Recipe().setPrice(value);
+                valid = true;
+            } catch (RecipeException e) {
+                valid = false;
+            }
+            assertEquals(valid, UnitParser.parse(value) >= 0, "Price " + value);
+        }
+    }
+
+    @Test
+    public void testCsvDuplicates() throws IOException {
+        Recipe latte = new Recipe();
+        latte.setName("Latte");
+        book.addRecipe(latte);
+        ImportResult result = importer.importCsv(new StringReader("name\nMocha\nLatte\nTea\nMocha\nTea\n"));
+        assertEquals(2, result.getAdded());
+        assertErrors(result,
+                "Line 3: Recipe Latte is already in the recipe book",
+                "Line 5: Recipe Mocha is already in the recipe book",
+                "Line 6: Recipe Tea is already in the recipe book");
+        assertSame(latte, book.getRecipe("Latte"));
+    }
+
+    @Test
+    public void testCsvBookFull() throws IOException {
+        importer = new RecipeImporter(new RecipeBook());
+        ImportResult result = importer.importCsv(new StringReader("name\nA\nB\nC\nD\nE\nA\n"));
+        assertEquals(4, result.getAdded());
+        assertErrors(result,
+                "Line 6: Recipe book is full",
+                "Line 7: Recipe A is already in the recipe book");
+    }
+
+    @Test
+    public void testCsvBadHeader() throws IOException {
+        assertErrors(importer.importCsv(new StringReader("name,vanilla\nA,1\n")), "Line 1: Unknown column vanilla");
+        assertErrors(importer.importCsv(new StringReader("name,Name\n")), "Line 1: Column Name appears twice");
+        assertErrors(importer.importCsv(new StringReader("\nprice\n1\n")), "Line 2: There is no name column");
+        assertEquals(0, book.size());
+        assertErrors(importer.importCsv(new StringReader("")));
+    }
+
+    @Test
+    public void testCsvRegisteredIngredient() throws IOException {
+        IngredientRegistry registry = new IngredientRegistry();
+        Ingredient vanilla = registry.register("Vanilla");
+        importer = new RecipeImporter(book, registry, RecipeImporter.DEFAULT_BATCH_SIZE);
+        ImportResult result = importer.importCsv(new StringReader("name,vanilla\nA,5\nB,-5\n"));
+        assertEquals(1, result.getAdded());
+        assertEquals(5, book.getRecipe("A").getAmount(vanilla));
+        assertErrors(result, "Line 3: Units of vanilla must be a positive integer");
+    }
+
+    @Test
+    public void testCsvLarge() throws IOException {
+        StringBuilder csv = new StringBuilder("name,price,coffee,milk,sugar,chocolate\n");
+        for (int i = 0; i < 10000; i++) {
+            csv.append("Recipe").append(i).append(',').append(i).append(",1,2,3,4\n");
+        }
+        importer = new RecipeImporter(book);
+        ImportResult result = importer.importCsv(new StringReader(csv.toString()));
+        assertEquals(10000, result.getAdded());
+        assertEquals(9999, book.getRecipe("Recipe9999").getPrice());
+    }
+
+    // ========== Test JSON ========== //
+    @Test
+    public void testJson() throws IOException {
+        ImportResult result = importer.importJson(new StringReader(
+                "[\n"
+                + "  {\"name\": \"Latte\", \"price\": 60, \"Coffee\": 3, \"milk\": \"2\"},\n"
+                + "  {\"name\": \"Caf\\u00e9 \\\"Noir\\\"\", \"coffee\": 4},\n"
+                + "  {}\n"
+                + "]\n"));
+        assertEquals(2, result.getAdded());
+        assertErrors(result, "Line 4: Recipe has no name");
+        assertArrayEquals(new int[] {3, 2, 0, 0}, book.getRecipe("Latte").amounts());
+        assertEquals(4, book.getRecipe("Café \"Noir\"").getAmtCoffee());
+    }
+
+    @Test
+    public void testJsonInvalidRecords() throws IOException {
+        ImportResult result = importer.importJson(new StringReader(
+                "[{\"name\": \"A\", \"price\": 1.5},\n"
+                + "{\"name\": \"B\", \"vanilla\": 1},\n"
+                + "{\"name\": \"C\", \"milk\": [1, {\"x\": \"]\"}]},\n"
+                + "{\"name\": 4},\n"
+                + "{\"name\": \"D\", \"sugar\": null, \"milk\": -1},\n"
+                + "{\"name\": \"E\", \"chocolate\": 1}]"));
+        assertEquals(1, result.getAdded());
+        assertErrors(result,
+                "Line 1: Price must be a positive integer",
+                "Line 2: Unknown field vanilla",
+                "Line 3: Field milk must be a string or a number",
+                "Line 4: Name must be a string",
+                "Line 5: Field sugar must be a string or a number");
+    }
+
+    @Test
+    public void testJsonSyntaxError() throws IOException {
+        ImportResult result = importer.importJson(new StringReader(
+                "[{\"name\": \"A\"}, {\"name\": \"B\"},\n{\"name\": \"C\"}\n{\"name\": \"D\"}]"));
+        assertEquals(3, result.getAdded(), "Records before the error should be added");
+        assertErrors(result, "Line 3: Expected , or ]");
+        assertNull(book.getRecipe("D"));
+    }
+
+    @Test
+    public void testJsonNotAnArray() throws IOException {
+        assertErrors(importer.importJson(new StringReader("{}")), "Line 1: Expected [ at the start of the catalog");
+        assertErrors(importer.importJson(new StringReader("[] x")), "Line 1: Unexpected text after the catalog");
+        assertErrors(importer.importJson(new StringReader("[{\"name\": \"A")), "Line 1: String is not closed");
+        assertEquals(0, book.size());
+    }
+
+    @Test
+    public void testInvalidBatchSize() {
+        assertThrows(IllegalArgumentException.class, () -> new RecipeImporter(book, new IngredientRegistry(), 0));
+    }
+
+    // ========== Test Export ========== //
+    @Test
+    public void testExportRoundTrip() throws IOException, RecipeException {
+        Recipe mocha = new Recipe();
+        mocha.setName("Mocha, \"Large\"");
+        mocha.setPrice("75");
+        mocha.setAmtCoffee("3");
+        mocha.setAmtChocolate("2");
+        Recipe tea = new Recipe();
+        tea.setName("Tea\n");
+        Recipe[] recipes = {mocha, null, tea};
+        RecipeExporter exporter = new RecipeExporter();
+
+        StringWriter csv = new StringWriter();
+        exporter.writeCsv(recipes, csv);
+        StringWriter json = new StringWriter();
+        exporter.writeJson(recipes, json);
+        for (int i = 0; i < 2; i++) {
+            book = new IndexedRecipeBook();
+            importer = new RecipeImporter(book);
+            ImportResult result = i == 0 ? importer.importCsv(new StringReader(csv.toString()))
+                    : importer.importJson(new StringReader(json.toString()));
+            assertErrors(result);
+            assertEquals(2, result.getAdded());
+            Recipe imported = book.getRecipe("Mocha, \"Large\"");
+            assertEquals(75, imported.getPrice());
+            assertArrayEquals(mocha.amounts(), imported.amounts());
+            assertNotNull(book.getRecipe("Tea\n"));
+        }
+    }
+}
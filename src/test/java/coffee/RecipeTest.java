@@ -26,6 +26,38 @@ public class RecipeTest {
         assertEquals(0, recipe.getAmtChocolate());
     }
 
+    // ========== Test Int Setters ========== //
+
+    @Test
+    void testIntSetters() {
+        assertTrue(recipe.setPrice(60));
+        assertTrue(recipe.setAmtCoffee(3));
+        assertTrue(recipe.setAmtMilk(2));
+        assertTrue(recipe.setAmtSugar(0));
+        assertTrue(recipe.setAmtChocolate(1));
+        assertEquals(60, recipe.getPrice());
+        assertEquals(3, recipe.getAmtCoffee());
+        assertEquals(2, recipe.getAmtMilk());
+        assertEquals(1, recipe.getAmtChocolate());
+    }
+
+    @Test
+    void testIntSettersNegative() {
+        recipe.setPrice(60);
+        recipe.setAmtMilk(2);
+        assertFalse(recipe.setPrice(-1), "Negative Price Should Fail");
+        assertFalse(recipe.setAmtMilk(-1), "Negative Milk Amount Should Fail");
+        assertEquals(60, recipe.getPrice(), "Price should remain unchanged");
+        assertEquals(2, recipe.getAmtMilk(), "Milk should remain unchanged");
+    }
+
+    @Test
+    void testSetAmountIntRegistered() {
+        Ingredient vanilla = new IngredientRegistry().register("Vanilla");
+        assertTrue(recipe.setAmount(vanilla, 2));
+        assertEquals(2, recipe.getAmount(vanilla));
+    }
+
     // ========== Test Name ========== //
 
     @Test
@@ -217,6 +249,30 @@ public class RecipeTest {
         assertEquals("Units of chocolate must be a positive integer", exception.getMessage());
     }
 
+    // ========== Test Registered Ingredient Amount ========== //
+
+    @Test
+    void testSetAmountRegistered() throws RecipeException {
+        Ingredient caramel = new IngredientRegistry().register("Caramel");
+        assertEquals(0, recipe.getAmount(caramel), "Caramel Amount should default to 0");
+        recipe.setAmount(caramel, "3");
+        assertEquals(3, recipe.getAmount(caramel), "Caramel Amount should be set to 3");
+        assertEquals(0, recipe.getAmtCoffee(), "Coffee Amount should be unchanged");
+    }
+
+    @Test
+    void testSetAmountStandard() throws RecipeException {
+        recipe.setAmount(Ingredient.MILK, "4");
+        assertEquals(4, recipe.getAmtMilk(), "Milk Amount should be set to 4");
+    }
+
+    @Test
+    void testSetAmountNegative() {
+        Ingredient oatMilk = new IngredientRegistry().register("Oat Milk");
+        RecipeException exception = assertThrows(RecipeException.class, () -> recipe.setAmount(oatMilk, "-1"), "Negative Oat Milk Amount Should Fail");
+        assertEquals("Units of oat milk must be a positive integer", exception.getMessage());
+    }
+
     // ========== Test toString() ========== //
 
     @Test
@@ -0,0 +1,106 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import coffee.exceptions.RecipeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class ReservationQueueTest {
+
+    private ReservationQueue queue;
+    private CompactRecipe recipe;
+
+    @BeforeEach
+    public void setUp() throws RecipeException {
+        queue = new ReservationQueue();
+        Recipe r = new Recipe();
+        r.setName("Recipe");
+        r.setAmtCoffee("2");
+        r.setAmtSugar("1");
+        recipe = CompactRecipe.of(r);
+    }
+
+    // ========== Test Expiry Order ========== //
+    @Test
+    public void testPollExpiredInDeadlineOrder() {
+        List<Long> deadlines = new ArrayList<>();
+        for (long i = 0; i < 5000; i++) {
+            deadlines.add(i);
+        }
+        Collections.shuffle(deadlines, new Random(42));
+        for (long deadline : deadlines) {
+            queue.add(recipe, deadline);
+        }
+        assertEquals(5000, queue.size());
+        assertNull(queue.pollExpired(-1), "Nothing has expired yet");
+        for (long i = 0; i < 5000; i++) {
+            Reservation expired = queue.pollExpired(Long.MAX_VALUE / 2);
+            assertEquals(i, expired.deadline, "Reservations should expire in deadline order");
+            assertFalse(queue.isHeld(expired));
+        }
+        assertNull(queue.pollExpired(Long.MAX_VALUE / 2));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testPollExpiredOnlyPastDeadline() {
+        queue.add(recipe, 10);
+        queue.add(recipe, 30);
+        queue.add(recipe, 20);
+        assertNull(queue.pollExpired(10), "A reservation expires only after its deadline");
+        assertEquals(10, queue.pollExpired(25).deadline);
+        assertEquals(20, queue.pollExpired(25).deadline);
+        assertNull(queue.pollExpired(25));
+        assertEquals(1, queue.size());
+    }
+
+    // ========== Test Remove ========== //
+    @Test
+    public void testRemoveKeepsOrder() {
+        List<Reservation> reservations = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            reservations.add(queue.add(recipe, random.nextInt(100000)));
+        }
+        List<Long> kept = new ArrayList<>();
+        for (int i = 0; i < reservations.size(); i++) {
+            Reservation reservation = reservations.get(i);
+            if (i % 3 == 0) {
+                assertTrue(queue.remove(reservation));
+                assertFalse(queue.remove(reservation), "A reservation can only be removed once");
+            } else {
+                kept.add(reservation.deadline);
+            }
+        }
+        Collections.sort(kept);
+        assertEquals(kept.size(), queue.size());
+        for (long deadline : kept) {
+            assertEquals(deadline, queue.pollExpired(Long.MAX_VALUE / 2).deadline);
+        }
+    }
+
+    @Test
+    public void testRemoveFromOtherQueue() {
+        Reservation reservation = new ReservationQueue().add(recipe, 0);
+        assertFalse(queue.remove(reservation));
+        assertTrue(queue.isHeld(reservation) && reservation.isHeld());
+    }
+
+    // ========== Test Held Units ========== //
+    @Test
+    public void testHeldUnits() {
+        Reservation first = queue.add(recipe, 0);
+        queue.add(recipe, 1);
+        assertArrayEquals(new int[] {4, 0, 2, 0}, queue.held());
+        queue.remove(first);
+        assertArrayEquals(new int[] {2, 0, 1, 0}, queue.held());
+        queue.pollExpired(5);
+        assertArrayEquals(new int[] {0, 0, 0, 0}, queue.held());
+    }
+}
@@ -0,0 +1,121 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ScriptRunnerTest {
+
+    private CoffeeMaker coffeeMaker;
+    private StringWriter output;
+    private ScriptRunner runner;
+
+    @BeforeEach
+    public void setUp() {
+        coffeeMaker = new CoffeeMaker();
+        output = new StringWriter();
+        runner = new ScriptRunner(coffeeMaker, new PrintWriter(output));
+    }
+
+    private int run(String script) throws IOException {
+        return runner.run(new BufferedReader(new StringReader(script)));
+    }
+
+    // ========== Test Run ========== //
+    @Test
+    public void testRunScript() throws IOException {
+        int commands = run("# morning\n"
+                + "add-recipe Coffee 50 3 1 1 0\n"
+                + "\n"
+                + "add-inventory 5 0 0 0\n"
+                + "make-coffee 1 75\n"
+                + "make-coffee 1 10\n"
+                + "check-inventory\n");
+        assertEquals(5, commands, "Comments and blank lines are not commands");
+        String out = output.toString();
+        assertTrue(out.contains("Coffee successfully added."));
+        assertTrue(out.contains("Inventory successfully added"));
+        assertTrue(out.contains("Thank you for purchasing Coffee"));
+        assertTrue(out.contains("Your change is: 25"));
+        assertTrue(out.contains("Insufficient funds to purchase."));
+        assertTrue(out.contains("Coffee: 17"), "20 units less the 3 used by the brew");
+        assertTrue(out.contains("Milk: 14"));
+    }
+
+    @Test
+    public void testRunMany() throws IOException {
+        StringBuilder script = new StringBuilder("add-recipe Water 1 0 0 0 0\n");
+        for (int i = 0; i < 10000; i++) {
+            script.append("make-coffee 1 1\n");
+        }
+        assertEquals(10001, run(script.toString()));
+        assertTrue(output.toString().endsWith("Your change is: 0" + System.lineSeparator()));
+    }
+
+    @Test
+    public void testMakeCoffeeOutcomes() throws IOException {
+        run("add-recipe Latte 50 1 20 0 0\n"
+                + "make-coffee 1 50\n"
+                + "make-coffee 2 50\n");
+        String out = output.toString();
+        assertTrue(out.contains("Insufficient inventory to purchase."));
+        assertTrue(out.contains("Selected recipe doesn't exist."));
+        assertFalse(out.contains("Insufficient funds"), "Neither purchase failed for lack of money");
+    }
+
+    // ========== Test Recipes ========== //
+    @Test
+    public void testEditRecipe() throws IOException {
+        run("add-recipe Coffee 50 3 1 1 0\n"
+                + "edit-recipe 1 60 3 1 1 0\n"
+                + "edit-recipe 2 60 3 1 1 0\n");
+        String out = output.toString();
+        assertTrue(out.contains("Coffee successfully edited."));
+        assertTrue(out.contains("Selected recipe doesn't exist and could not be edited."));
+        assertEquals(60, coffeeMaker.getRecipes()[0].getPrice());
+    }
+
+    @Test
+    public void testDeleteRecipe() throws IOException {
+        run("add-recipe Coffee 50 3 1 1 0\n"
+                + "delete-recipe 1\n");
+        assertTrue(output.toString().contains("Coffee successfully deleted."));
+    }
+
+    @Test
+    public void testInvalidRecipe() throws IOException {
+        run("add-recipe Coffee fifty 3 1 1 0\n");
+        assertTrue(output.toString().contains("Price must be a positive integer"));
+        assertNull(coffeeMaker.getRecipes()[0]);
+    }
+
+    // ========== Test Errors ========== //
+    @Test
+    public void testInvalidInventory() throws IOException {
+        run("add-inventory 5 -1 0 0\n");
+        assertTrue(output.toString().contains("Inventory was not added"));
+    }
+
+    @Test
+    public void testBadCommands() throws IOException {
+        int commands = run("brew 1\n"
+                + "make-coffee 1\n"
+                + "make-coffee 9 50\n"
+                + "delete-recipe x\n"
+                + "check-inventory\n");
+        assertEquals(5, commands);
+        String out = output.toString();
+        assertTrue(out.contains("Line 1: could not run \"brew 1\""));
+        assertTrue(out.contains("Line 2: "));
+        assertTrue(out.contains("Line 3: "), "There is no recipe 9");
+        assertTrue(out.contains("Line 4: "));
+        assertTrue(out.contains("Coffee: 15"), "The script should carry on after a bad command");
+    }
+}
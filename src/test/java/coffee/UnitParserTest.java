@@ -0,0 +1,71 @@
+package coffee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class UnitParserTest {
+
+    // ========== Test Parse ========== //
+    @Test
+    public void testValid() {
+        assertEquals(0, UnitParser.parse("0"));
+        assertEquals(42, UnitParser.parse("42"));
+        assertEquals(7, UnitParser.parse("+7"));
+        assertEquals(0, UnitParser.parse("-0"));
+        assertEquals(5, UnitParser.parse("0005"));
+        assertEquals(Integer.MAX_VALUE, UnitParser.parse("2147483647"));
+    }
+
+    @Test
+    public void testResultCodes() {
+        assertEquals(UnitParser.EMPTY, UnitParser.parse(null));
+        assertEquals(UnitParser.EMPTY, UnitParser.parse(""));
+        assertEquals(UnitParser.EMPTY, UnitParser.parse("+"));
+        assertEquals(UnitParser.NOT_A_NUMBER, UnitParser.parse("abc"));
+        assertEquals(UnitParser.NOT_A_NUMBER, UnitParser.parse("1.5"));
+        assertEquals(UnitParser.NOT_A_NUMBER, UnitParser.parse(" 1"));
+        assertEquals(UnitParser.NOT_A_NUMBER, UnitParser.parse("--1"));
+        assertEquals(UnitParser.NEGATIVE, UnitParser.parse("-7"));
+        assertEquals(UnitParser.NEGATIVE, UnitParser.parse("-99999999999"));
+        assertEquals(UnitParser.TOO_LARGE, UnitParser.parse("2147483648"));
+        assertFalse(UnitParser.isValid(UnitParser.parse("x")));
+        assertTrue(UnitParser.isValid(UnitParser.parse("0")));
+    }
+
+    @Test
+    public void testSameRulesAsParseInt() {
+        String[] values = {"0", "7", "+7", "-0", "-7", "", "-", "1.5", " 1", "1e3", "0x10",
+                "2147483647", "2147483648", "-2147483648", "99999999999"};
+        for (String value : values) {
+            boolean valid;
+            try {
+                valid = Integer.parseInt(value) >= 0;
+            } catch (NumberFormatException e) {
+                valid = false;
+            }
+            assertEquals(valid, UnitParser.isValid(UnitParser.parse(value)), value);
+        }
+    }
+
+    @Test
+    public void testRange() {
+        assertEquals(12, UnitParser.parse("Milk=12;", 5, 7));
+        StringBuilder row = new StringBuilder("3,x,");
+        assertEquals(3, UnitParser.parse(row, 0, 1));
+        assertEquals(UnitParser.NOT_A_NUMBER, UnitParser.parse(row, 2, 3));
+        assertEquals(UnitParser.EMPTY, UnitParser.parse(row, 4, 4));
+    }
+
+    @Test
+    public void testBytes() {
+        byte[] feed = "Coffee,25,-3,,7a\n".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(25, UnitParser.parse(feed, 7, 2));
+        assertEquals(UnitParser.NEGATIVE, UnitParser.parse(feed, 10, 2));
+        assertEquals(UnitParser.EMPTY, UnitParser.parse(feed, 13, 0));
+        assertEquals(UnitParser.NOT_A_NUMBER, UnitParser.parse(feed, 14, 2));
+        assertEquals(UnitParser.TOO_LARGE, UnitParser.parse("4294967296".getBytes(StandardCharsets.US_ASCII), 0, 10));
+    }
+}